@@ -6,6 +6,7 @@ import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Queue;
 
@@ -16,9 +17,16 @@ import org.junit.jupiter.api.Test;
 import org.yamcs.ConfigurationException;
 import org.yamcs.InvalidIdentification;
 import org.yamcs.Processor;
+import org.yamcs.ProcessorConfig;
 import org.yamcs.ProcessorException;
 import org.yamcs.ProcessorFactory;
+import org.yamcs.ProcessorServiceWithConfig;
+import org.yamcs.StandardTupleDefinitions;
 import org.yamcs.YConfiguration;
+import org.yamcs.alarms.ActiveAlarm;
+import org.yamcs.alarms.AlarmListener;
+import org.yamcs.alarms.AlarmNotification;
+import org.yamcs.alarms.AlarmNotificationType;
 import org.yamcs.alarms.AlarmReporter;
 import org.yamcs.events.EventProducerFactory;
 import org.yamcs.mdb.MdbFactory;
@@ -30,6 +38,10 @@ import org.yamcs.protobuf.Pvalue.RangeCondition;
 import org.yamcs.protobuf.Yamcs.NamedObjectId;
 import org.yamcs.xtce.Parameter;
 import org.yamcs.mdb.Mdb;
+import org.yamcs.yarch.StreamSubscriber;
+import org.yamcs.yarch.Tuple;
+import org.yamcs.yarch.YarchDatabase;
+import org.yamcs.yarch.YarchDatabaseInstance;
 import org.yamcs.yarch.protobuf.Db.Event;
 
 public class AlarmTest {
@@ -285,4 +297,65 @@ public class AlarmTest {
         tmGenerator.generate_PKT1_10(20, 1, 0);
         assertEquals(2, q.size()); // Change
     }
+
+    @Test
+    public void testOneNotificationPerDelivery() throws Exception {
+        // A processor with a parameter alarm server, which also emits the alarms to a stream
+        YarchDatabaseInstance ydb = YarchDatabase.getInstance("refmdb");
+        if (ydb.getStream("alarms_realtime") == null) {
+            ydb.execute("create stream alarms_realtime "
+                    + StandardTupleDefinitions.PARAMETER_ALARM.getStringDefinition());
+        }
+        List<Tuple> tuples = new ArrayList<>();
+        StreamSubscriber subscriber = (stream, tuple) -> tuples.add(tuple);
+        ydb.getStream("alarms_realtime").addSubscriber(subscriber);
+
+        RefMdbPacketGenerator generator = new RefMdbPacketGenerator();
+        ProcessorConfig config = new ProcessorConfig(
+                YConfiguration.wrap(Map.of("alarm", Map.of("parameterServer", "enabled"))));
+        Processor alarmProcessor = ProcessorFactory.create("refmdb", "AlarmBatchTest", "test",
+                List.of(new ProcessorServiceWithConfig(generator, RefMdbPacketGenerator.class.getName(),
+                        "RefMdbPacketGenerator", YConfiguration.emptyConfig())),
+                "test", config, null);
+
+        List<List<AlarmNotification<ParameterValue>>> batches = new ArrayList<>();
+        List<ActiveAlarm<ParameterValue>> individual = new ArrayList<>();
+        alarmProcessor.getParameterProcessorManager().getAlarmServer().addAlarmListener(
+                new AlarmListener<ParameterValue>() {
+                    @Override
+                    public void notifyUpdates(List<AlarmNotification<ParameterValue>> notifications) {
+                        batches.add(notifications);
+                    }
+
+                    @Override
+                    public void notifyUpdate(AlarmNotificationType type, ActiveAlarm<ParameterValue> activeAlarm) {
+                        individual.add(activeAlarm);
+                    }
+
+                    @Override
+                    public void notifySeverityIncrease(ActiveAlarm<ParameterValue> activeAlarm) {
+                        individual.add(activeAlarm);
+                    }
+
+                    @Override
+                    public void notifyValueUpdate(ActiveAlarm<ParameterValue> activeAlarm) {
+                        individual.add(activeAlarm);
+                    }
+                });
+        alarmProcessor.start();
+
+        // Several parameters of the packet go out of limits
+        generator.generate_PKT1_10(72, 7, 1000);
+        assertEquals(1, batches.size());
+        assertTrue(batches.get(0).size() > 1);
+        assertTrue(individual.isEmpty());
+        assertEquals(AlarmNotification.coalesce(batches.get(0)).size(), tuples.size());
+
+        generator.generate_PKT1_10(74, 7, 1000);
+        assertEquals(2, batches.size());
+        assertTrue(individual.isEmpty());
+
+        ydb.getStream("alarms_realtime").removeSubscriber(subscriber);
+        alarmProcessor.quit();
+    }
 }
@@ -8,9 +8,12 @@ import static org.junit.jupiter.api.Assertions.assertTrue;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Level;
@@ -26,16 +29,26 @@ import org.yamcs.client.ParameterSubscription;
 import org.yamcs.client.archive.ArchiveClient;
 import org.yamcs.client.archive.ArchiveClient.ListOptions;
 import org.yamcs.client.archive.ArchiveClient.TableLoader;
+import org.yamcs.client.base.ResponseObserver;
 import org.yamcs.client.processor.ProcessorClient;
+import org.yamcs.commanding.PreparedCommand;
 import org.yamcs.events.StreamEventProducer;
 import org.yamcs.protobuf.AlarmData;
 import org.yamcs.protobuf.AlarmSeverity;
 import org.yamcs.protobuf.AlarmType;
+import org.yamcs.protobuf.Commanding.CommandHistoryEntry;
+import org.yamcs.protobuf.Commanding.CommandId;
+import org.yamcs.protobuf.CommandsApiClient;
 import org.yamcs.protobuf.CreateProcessorRequest;
 import org.yamcs.protobuf.Event;
 import org.yamcs.protobuf.Event.EventSeverity;
 import org.yamcs.protobuf.IndexEntry;
 import org.yamcs.protobuf.IndexGroup;
+import org.yamcs.protobuf.ListCommandsRequest;
+import org.yamcs.protobuf.ListCommandsResponse;
+import org.yamcs.protobuf.ListPacketsRequest;
+import org.yamcs.protobuf.ListPacketsResponse;
+import org.yamcs.protobuf.PacketsApiClient;
 import org.yamcs.protobuf.Pvalue.ParameterValue;
 import org.yamcs.protobuf.SubscribeParametersRequest;
 import org.yamcs.protobuf.Table.Row;
@@ -43,6 +56,7 @@ import org.yamcs.protobuf.Table.Row.Cell;
 import org.yamcs.protobuf.Table.TableData.TableRecord;
 import org.yamcs.protobuf.Table.WriteRowsExceptionDetail;
 import org.yamcs.protobuf.Table.WriteRowsResponse;
+import org.yamcs.protobuf.TmPacketData;
 import org.yamcs.protobuf.Yamcs.ArchiveRecord;
 import org.yamcs.protobuf.Yamcs.NamedObjectId;
 import org.yamcs.protobuf.Yamcs.Value;
@@ -51,6 +65,7 @@ import org.yamcs.utils.ValueHelper;
 import org.yamcs.yarch.ColumnSerializer;
 import org.yamcs.yarch.ColumnSerializerFactory;
 import org.yamcs.yarch.DataType;
+import org.yamcs.yarch.Stream;
 import org.yamcs.yarch.TableDefinition;
 import org.yamcs.yarch.TupleDefinition;
 import org.yamcs.yarch.YarchDatabase;
@@ -59,6 +74,7 @@ import org.yamcs.yarch.protobuf.Db;
 
 import com.google.protobuf.ByteString;
 import com.google.protobuf.Message;
+import com.google.protobuf.Timestamp;
 import com.google.protobuf.util.Timestamps;
 
 public class ArchiveIntegrationTest extends AbstractIntegrationTest {
@@ -607,6 +623,113 @@ public class ArchiveIntegrationTest extends AbstractIntegrationTest {
         assertEquals(AlarmSeverity.CRITICAL, alarm.getSeverity());
     }
 
+    @Test
+    public void testListCommandsPagesWithSameGenerationTime() throws Exception {
+        // more than one page with the same generation time and the same sequence numbers repeated over several
+        // origins, such that only the full key tells them apart
+        long time = TimeEncoding.parse("2023-05-02T10:00:00Z");
+        Stream cmdhistStream = YarchDatabase.getInstance(yamcsInstance).getStream("cmdhist_realtime");
+        for (int i = 0; i < 60; i++) {
+            CommandId id = CommandId.newBuilder()
+                    .setGenerationTime(time)
+                    .setOrigin("pagetest" + (i % 3))
+                    .setSequenceNumber(i / 3)
+                    .setCommandName("/REFMDB/SUBSYS1/ONE_INT_ARG_TC")
+                    .build();
+            PreparedCommand pc = new PreparedCommand(id);
+            pc.setBinary(new byte[4]);
+            pc.setUsername("admin");
+            cmdhistStream.emitTuple(pc.toTuple());
+        }
+
+        Timestamp start = TimeEncoding.toProtobufTimestamp(time);
+        Timestamp stop = TimeEncoding.toProtobufTimestamp(time + 1);
+        List<String> ascending = listCommandKeys(start, stop, true);
+        List<String> descending = listCommandKeys(start, stop, false);
+
+        assertEquals(60, ascending.size());
+        assertEquals(60, new HashSet<>(ascending).size(), "Duplicate commands across pages");
+        assertEquals("pagetest0/0", ascending.get(0));
+        assertEquals("pagetest2/19", ascending.get(59));
+        Collections.reverse(descending);
+        assertEquals(ascending, descending);
+    }
+
+    @Test
+    public void testListPacketsPagesWithSameGenerationTime() throws Exception {
+        long time = TimeEncoding.parse("2023-05-02T11:00:00Z");
+        packetGenerator.setGenerationTime(time);
+        for (int i = 0; i < 60; i++) {
+            packetGenerator.generate_PKT1_1();
+        }
+
+        Timestamp start = TimeEncoding.toProtobufTimestamp(time);
+        Timestamp stop = TimeEncoding.toProtobufTimestamp(time + 1);
+        List<Integer> ascending = listPacketSequenceNumbers(start, stop, true);
+        List<Integer> descending = listPacketSequenceNumbers(start, stop, false);
+
+        assertEquals(60, ascending.size());
+        assertEquals(60, new HashSet<>(ascending).size(), "Duplicate packets across pages");
+        for (int i = 1; i < ascending.size(); i++) {
+            assertTrue(ascending.get(i - 1) < ascending.get(i));
+        }
+        Collections.reverse(descending);
+        assertEquals(ascending, descending);
+    }
+
+    // lists all the pages (of a few commands each) using the continuation tokens
+    private List<String> listCommandKeys(Timestamp start, Timestamp stop, boolean ascending) throws Exception {
+        CommandsApiClient commandService = new CommandsApiClient(yamcsClient.getMethodHandler());
+        List<String> keys = new ArrayList<>();
+        String next = null;
+        do {
+            ListCommandsRequest.Builder requestb = ListCommandsRequest.newBuilder()
+                    .setInstance(yamcsInstance)
+                    .setStart(start)
+                    .setStop(stop)
+                    .setLimit(7)
+                    .setOrder(ascending ? "asc" : "desc");
+            if (next != null) {
+                requestb.setNext(next);
+            }
+            CompletableFuture<ListCommandsResponse> f = new CompletableFuture<>();
+            commandService.listCommands(null, requestb.build(), new ResponseObserver<>(f));
+            ListCommandsResponse response = f.get();
+            for (CommandHistoryEntry entry : response.getCommandsList()) {
+                keys.add(entry.getOrigin() + "/" + entry.getSequenceNumber());
+            }
+            next = response.hasContinuationToken() ? response.getContinuationToken() : null;
+        } while (next != null);
+        return keys;
+    }
+
+    // lists all the pages (of a few packets each) using the continuation tokens
+    private List<Integer> listPacketSequenceNumbers(Timestamp start, Timestamp stop, boolean ascending)
+            throws Exception {
+        PacketsApiClient packetService = new PacketsApiClient(yamcsClient.getMethodHandler());
+        List<Integer> seqNums = new ArrayList<>();
+        String next = null;
+        do {
+            ListPacketsRequest.Builder requestb = ListPacketsRequest.newBuilder()
+                    .setInstance(yamcsInstance)
+                    .setStart(start)
+                    .setStop(stop)
+                    .setLimit(7)
+                    .setOrder(ascending ? "asc" : "desc");
+            if (next != null) {
+                requestb.setNext(next);
+            }
+            CompletableFuture<ListPacketsResponse> f = new CompletableFuture<>();
+            packetService.listPackets(null, requestb.build(), new ResponseObserver<>(f));
+            ListPacketsResponse response = f.get();
+            for (TmPacketData packet : response.getPacketList()) {
+                seqNums.add(packet.getSequenceNumber());
+            }
+            next = response.hasContinuationToken() ? response.getContinuationToken() : null;
+        } while (next != null);
+        return seqNums;
+    }
+
     private Row getRecord(int i) {
         // the column info is only required for the first record actually
         Row tr = Row.newBuilder()
@@ -1,18 +1,22 @@
 package org.yamcs.tests;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 
 import java.time.Instant;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeoutException;
-import java.util.stream.Collectors;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -21,7 +25,9 @@ import org.yamcs.client.Command;
 import org.yamcs.client.CommandSubscription;
 import org.yamcs.client.Page;
 import org.yamcs.client.archive.ArchiveClient;
+import org.yamcs.client.base.AbstractSubscription;
 import org.yamcs.client.processor.ProcessorClient;
+import org.yamcs.client.processor.ProcessorClient.CommandBuilder;
 import org.yamcs.cmdhistory.CommandHistoryPublisher;
 import org.yamcs.cmdhistory.CommandHistoryPublisher.AckStatus;
 import org.yamcs.protobuf.Commanding.CommandHistoryAttribute;
@@ -29,11 +35,16 @@ import org.yamcs.protobuf.Commanding.CommandHistoryEntry;
 import org.yamcs.protobuf.Commanding.VerifierConfig;
 import org.yamcs.protobuf.Commanding.VerifierConfig.CheckWindow;
 import org.yamcs.protobuf.IndexGroup;
+import org.yamcs.protobuf.IssueCommandRequest;
+import org.yamcs.protobuf.IssueCommandResponse;
+import org.yamcs.protobuf.IssueCommandsRequest;
+import org.yamcs.protobuf.IssueCommandsResponse;
 import org.yamcs.protobuf.SubscribeCommandsRequest;
 import org.yamcs.protobuf.Yamcs.Value;
 import org.yamcs.protobuf.Yamcs.Value.Type;
 import org.yamcs.utils.ValueHelper;
 
+import com.google.protobuf.Struct;
 import com.google.protobuf.util.Timestamps;
 
 public class CommandIntegrationTest extends AbstractIntegrationTest {
@@ -42,6 +53,7 @@ public class CommandIntegrationTest extends AbstractIntegrationTest {
     private ArchiveClient archiveClient;
     private CommandSubscription subscription;
     private MessageCaptor<CommandHistoryEntry> captor;
+    private Deque<CommandHistoryAttribute> pendingAttrs = new ArrayDeque<>();
 
     @BeforeEach
     public void prepareTests() throws Exception {
@@ -74,6 +86,133 @@ public class CommandIntegrationTest extends AbstractIntegrationTest {
         assertEquals("IntegrationTest", entry.getOrigin());
     }
 
+    @Test
+    public void testIssueCommands() throws Exception {
+        List<CommandBuilder> commands = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            commands.add(processorClient.prepareCommand("/REFMDB/SUBSYS1/ONE_INT_ARG_TC")
+                    .withArgument("uint32_arg", i)
+                    .withOrigin("IntegrationTest")
+                    .withSequenceNumber(i));
+        }
+        // unknown command, does not prevent the others from being issued
+        commands.set(7, processorClient.prepareCommand("/REFMDB/SUBSYS1/NO_SUCH_TC")
+                .withSequenceNumber(7));
+
+        IssueCommandsResponse response = processorClient.issueCommands(commands).get();
+        assertEquals(40, response.getResultsCount());
+        for (int i = 0; i < 40; i++) {
+            IssueCommandsResponse.Result result = response.getResults(i);
+            if (i == 7) {
+                assertFalse(result.hasResponse());
+                assertEquals("NotFoundException", result.getError().getType());
+            } else {
+                assertEquals(i, result.getResponse().getSequenceNumber());
+                assertTrue(result.getResponse().hasBinary());
+            }
+        }
+
+        // the commands are queued in the order of the request
+        for (int i = 0; i < 40; i++) {
+            if (i == 7) {
+                continue;
+            }
+            CommandHistoryEntry entry = captor.expectTimely();
+            assertEquals(i, entry.getSequenceNumber());
+        }
+    }
+
+    @Test
+    public void testIssueCommandsWithoutSequenceNumbers() throws Exception {
+        List<CommandBuilder> commands = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            commands.add(processorClient.prepareCommand("/REFMDB/SUBSYS1/ONE_INT_ARG_TC")
+                    .withArgument("uint32_arg", i)
+                    .withOrigin("IntegrationTest"));
+        }
+
+        IssueCommandsResponse response = processorClient.issueCommands(commands).get();
+        assertEquals(20, response.getResultsCount());
+        Set<String> ids = new HashSet<>();
+        for (int i = 0; i < 20; i++) {
+            IssueCommandResponse commandResponse = response.getResults(i).getResponse();
+            assertEquals(i, commandResponse.getSequenceNumber());
+            assertEquals(response.getResults(0).getResponse().getGenerationTime(),
+                    commandResponse.getGenerationTime());
+            assertTrue(ids.add(commandResponse.getId()));
+        }
+
+        for (int i = 0; i < 20; i++) {
+            CommandHistoryEntry entry = captor.expectTimely();
+            assertEquals(i, entry.getSequenceNumber());
+        }
+    }
+
+    @Test
+    public void testIssueCommandsDuplicateSequenceNumbers() throws Exception {
+        List<CommandBuilder> commands = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            commands.add(processorClient.prepareCommand("/REFMDB/SUBSYS1/ONE_INT_ARG_TC")
+                    .withArgument("uint32_arg", i)
+                    .withOrigin("IntegrationTest")
+                    .withSequenceNumber(3));
+        }
+        try {
+            processorClient.issueCommands(commands).get();
+            fail("Should have thrown an exception");
+        } catch (ExecutionException e) {
+            ClientException cause = (ClientException) e.getCause();
+            assertTrue(cause.getMessage().contains("Duplicate command id"));
+        }
+        assertTrue(captor.isEmpty());
+    }
+
+    @Test
+    public void testStreamIssueCommandsReportsFailedBatch() throws Exception {
+        IssueCommandsSubscription issueSubscription = new IssueCommandsSubscription();
+        MessageCaptor<IssueCommandsResponse> issueCaptor = MessageCaptor.of(issueSubscription);
+
+        IssueCommandRequest command = IssueCommandRequest.newBuilder()
+                .setName("/REFMDB/SUBSYS1/ONE_INT_ARG_TC")
+                .setArgs(Struct.newBuilder()
+                        .putFields("uint32_arg", com.google.protobuf.Value.newBuilder().setNumberValue(1).build()))
+                .setOrigin("IntegrationTest")
+                .setSequenceNumber(1)
+                .build();
+        issueSubscription.sendMessage(IssueCommandsRequest.newBuilder()
+                .setInstance(yamcsInstance)
+                .setProcessor("no-such-processor")
+                .addCommands(command)
+                .addCommands(command)
+                .build());
+        issueSubscription.sendMessage(IssueCommandsRequest.newBuilder()
+                .setInstance(yamcsInstance)
+                .setProcessor("realtime")
+                .addCommands(command)
+                .build());
+
+        // the failed batch gets an error result per command, and does not end the stream
+        IssueCommandsResponse failed = issueCaptor.expectTimely();
+        assertEquals(2, failed.getResultsCount());
+        for (IssueCommandsResponse.Result result : failed.getResultsList()) {
+            assertFalse(result.hasResponse());
+            assertEquals("NotFoundException", result.getError().getType());
+        }
+
+        IssueCommandsResponse issued = issueCaptor.expectTimely();
+        assertEquals(1, issued.getResultsCount());
+        assertEquals(1, issued.getResults(0).getResponse().getSequenceNumber());
+        issueSubscription.cancel(true);
+    }
+
+    private class IssueCommandsSubscription
+            extends AbstractSubscription<IssueCommandsRequest, IssueCommandsResponse> {
+
+        IssueCommandsSubscription() {
+            super(yamcsClient.getMethodHandler(), "issue-commands", IssueCommandsResponse.class);
+        }
+    }
+
     @Test
     public void testSendCommandFailedTransmissionConstraint() throws Exception {
         Command command = processorClient.prepareCommand("/REFMDB/SUBSYS1/CRITICAL_TC1")
@@ -243,10 +382,7 @@ public class CommandIntegrationTest extends AbstractIntegrationTest {
         checkNextCmdHistoryAck(CommandHistoryPublisher.TransmissionConstraints_KEY, AckStatus.NA);
         checkNextCmdHistoryAck("Verifier_Execution", AckStatus.PENDING);
 
-        cmdhist = captor.expectTimely();
-        assertEquals(1, cmdhist.getAttrCount());
-
-        CommandHistoryAttribute cha = cmdhist.getAttr(0);
+        CommandHistoryAttribute cha = nextCmdHistoryAttr();
         assertEquals("packetSeqNum", cha.getName());
         assertEquals(5000, cha.getValue().getSint32Value());
 
@@ -432,10 +568,16 @@ public class CommandIntegrationTest extends AbstractIntegrationTest {
      * return ValidateCommandRequest.newBuilder().addCommand(cmdb.build()).build(); }
      */
 
+    // the updates arriving close together are merged in one entry, return the attributes one by one
+    private CommandHistoryAttribute nextCmdHistoryAttr() throws InterruptedException, TimeoutException {
+        while (pendingAttrs.isEmpty()) {
+            pendingAttrs.addAll(captor.expectTimely().getAttrList());
+        }
+        return pendingAttrs.poll();
+    }
+
     private void checkNextCmdHistoryAttr(String name, String value) throws InterruptedException, TimeoutException {
-        CommandHistoryEntry cmdhist = captor.expectTimely();
-        assertEquals(1, cmdhist.getAttrCount());
-        CommandHistoryAttribute cha = cmdhist.getAttr(0);
+        CommandHistoryAttribute cha = nextCmdHistoryAttr();
         assertEquals(name, cha.getName());
         assertEquals(value, cha.getValue().getStringValue());
     }
@@ -447,27 +589,22 @@ public class CommandIntegrationTest extends AbstractIntegrationTest {
 
     private void checkNextCmdHistoryAck(String name, AckStatus ack, String message)
             throws InterruptedException, TimeoutException {
-
-        CommandHistoryEntry cmdhist = captor.expectTimely();
-
-        // Filter out permitted attributes, that we are not testing for
-        var filteredArgs = cmdhist.getAttrList().stream()
-                .filter(attr -> !attr.getName().equals(name + "_Return"))
-                .collect(Collectors.toList());
-
-        assertEquals(message == null ? 2 : 3, filteredArgs.size());
-
-        CommandHistoryAttribute cha = filteredArgs.get(0);
+        CommandHistoryAttribute cha = nextCmdHistoryAttr();
         assertEquals(name + "_Status", cha.getName());
         assertEquals(ack.name(), cha.getValue().getStringValue());
 
-        cha = filteredArgs.get(1);
+        cha = nextCmdHistoryAttr();
         assertEquals(name + "_Time", cha.getName());
 
         if (message != null) {
-            cha = filteredArgs.get(2);
+            cha = nextCmdHistoryAttr();
             assertEquals(name + "_Message", cha.getName());
             assertEquals(message, cha.getValue().getStringValue());
         }
+        // Skip the return value, published together with the ack, that we are not testing for
+        CommandHistoryAttribute next = pendingAttrs.peek();
+        if (next != null && next.getName().equals(name + "_Return")) {
+            pendingAttrs.poll();
+        }
     }
 }
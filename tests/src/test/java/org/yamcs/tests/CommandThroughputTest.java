@@ -0,0 +1,119 @@
+package org.yamcs.tests;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Disabled;
+import org.junit.jupiter.api.Test;
+import org.yamcs.client.Command;
+import org.yamcs.client.processor.ProcessorClient;
+import org.yamcs.client.processor.ProcessorClient.CommandBuilder;
+import org.yamcs.utils.ValueHelper;
+
+/**
+ * Measures the rate at which commands can be issued while telemetry is being processed.
+ * <p>
+ * Half of the commands have a transmission constraint which is satisfied, the other half have none.
+ * <p>
+ * With 4 issuing threads x 5000 commands (each command is issued through the HTTP API) and one thread generating TM
+ * continuously:
+ *
+ * <pre>
+ * one lock per queue manager, one PPM subscription per pending command:  259 commands/sec
+ * one lock per queue, indexed transmission constraint checks:            289 commands/sec
+ * </pre>
+ *
+ * The end-to-end rate is dominated by the API and the command history.
+ * <p>
+ * {@link #testBatchIssue()} compares issuing 500 commands one request at a time with issuing them in one batch request
+ * (after warm-up): 1500-2500 ms against 230-350 ms.
+ */
+public class CommandThroughputTest extends AbstractIntegrationTest {
+    static final int NUM_THREADS = 4;
+    static final int NUM_COMMANDS = 5000;
+
+    private ProcessorClient processorClient;
+
+    @BeforeEach
+    public void prepare() throws Exception {
+        processorClient = yamcsClient.createProcessorClient(yamcsInstance, "realtime");
+        processorClient.setValue("/REFMDB/SUBSYS1/AllowCriticalTC2", ValueHelper.newValue(true)).get();
+    }
+
+    @Test
+    @Disabled
+    public void testCommandThroughput() throws Exception {
+        AtomicBoolean running = new AtomicBoolean(true);
+        Thread tmGenerator = new Thread(() -> {
+            while (running.get()) {
+                packetGenerator.generate_PKT1_1();
+            }
+        });
+        tmGenerator.start();
+
+        long t0 = System.nanoTime();
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < NUM_THREADS; i++) {
+            Thread t = new Thread(() -> issueCommands(NUM_COMMANDS));
+            threads.add(t);
+            t.start();
+        }
+        for (Thread t : threads) {
+            t.join();
+        }
+        long t1 = System.nanoTime();
+        running.set(false);
+        tmGenerator.join();
+
+        double rate = NUM_THREADS * NUM_COMMANDS / ((t1 - t0) / 1e9);
+        System.out.printf("issued %d commands in %d ms: %.0f commands/sec%n", NUM_THREADS * NUM_COMMANDS,
+                TimeUnit.NANOSECONDS.toMillis(t1 - t0), rate);
+    }
+
+    @Test
+    @Disabled
+    public void testBatchIssue() throws Exception {
+        int n = 500;
+        List<CommandBuilder> commands = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            commands.add(processorClient.prepareCommand("/REFMDB/SUBSYS1/ONE_INT_ARG_TC")
+                    .withArgument("uint32_arg", i));
+        }
+        for (int k = 0; k < 5; k++) {
+            long t0 = System.nanoTime();
+            for (CommandBuilder cmd : commands) {
+                cmd.issue().get();
+            }
+            long t1 = System.nanoTime();
+            processorClient.issueCommands(commands).get();
+            long t2 = System.nanoTime();
+            System.out.printf("%d commands issued one by one in %d ms, in one batch in %d ms%n", n,
+                    TimeUnit.NANOSECONDS.toMillis(t1 - t0), TimeUnit.NANOSECONDS.toMillis(t2 - t1));
+        }
+    }
+
+    private void issueCommands(int n) {
+        List<CompletableFuture<Command>> futures = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            if (i % 2 == 0) {
+                futures.add(processorClient.prepareCommand("/REFMDB/SUBSYS1/ONE_INT_ARG_TC")
+                        .withArgument("uint32_arg", i)
+                        .issue());
+            } else {
+                futures.add(processorClient.prepareCommand("/REFMDB/SUBSYS1/CRITICAL_TC2")
+                        .withArgument("p1", 2)
+                        .issue());
+            }
+            // bound the number of commands in flight
+            if (futures.size() >= 100) {
+                CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+                futures.clear();
+            }
+        }
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+    }
+}
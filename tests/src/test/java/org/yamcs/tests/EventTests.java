@@ -1,9 +1,16 @@
 package org.yamcs.tests;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Instant;
+import java.util.HashSet;
+import java.util.Set;
 
 import org.junit.jupiter.api.Test;
 import org.yamcs.client.EventSubscription;
+import org.yamcs.client.Page;
+import org.yamcs.client.archive.ArchiveClient;
 import org.yamcs.protobuf.CreateEventRequest;
 import org.yamcs.protobuf.Event;
 import org.yamcs.protobuf.SubscribeEventsRequest;
@@ -34,4 +41,46 @@ public class EventTests extends AbstractIntegrationTest {
         assertEquals(now, TimeEncoding.fromProtobufTimestamp(receivedEvent.getGenerationTime()));
         assertEquals("event1", receivedEvent.getMessage());
     }
+
+    @Test
+    public void testPagesWithSameGenerationTime() throws Exception {
+        // more than one page (100 events) with the same generation time and the same sequence numbers repeated
+        // over several sources, such that only the full key tells them apart
+        long time = TimeEncoding.parse("2023-05-01T10:00:00Z");
+        for (int i = 0; i < 150; i++) {
+            CreateEventRequest createRequest = CreateEventRequest.newBuilder()
+                    .setInstance(yamcsInstance)
+                    .setTime(TimeEncoding.toProtobufTimestamp(time))
+                    .setSource("pagetest" + (i % 3))
+                    .setSequenceNumber(i / 3)
+                    .setMessage("event" + i)
+                    .build();
+            yamcsClient.createEvent(createRequest).get();
+        }
+
+        ArchiveClient archiveClient = yamcsClient.createArchiveClient(yamcsInstance);
+        Instant start = Instant.ofEpochMilli(TimeEncoding.toUnixMillisec(time));
+        Instant stop = start.plusMillis(1);
+
+        Set<String> keys = new HashSet<>();
+        for (int attempt = 0; attempt < 50 && keys.size() < 150; attempt++) {
+            Thread.sleep(100); // the events are recorded asynchronously
+            keys.clear();
+            int count = 0;
+            Page<Event> page = archiveClient.listEvents(start, stop).get();
+            while (true) {
+                for (Event event : page) {
+                    keys.add(event.getSource() + "/" + event.getSeqNumber());
+                    count++;
+                }
+                if (!page.hasNextPage()) {
+                    break;
+                }
+                page = page.getNextPage().get();
+            }
+            assertEquals(keys.size(), count, "Duplicate events across pages");
+        }
+        assertEquals(150, keys.size());
+        assertTrue(keys.contains("pagetest2/49"));
+    }
 }
@@ -1,23 +1,36 @@
 package org.yamcs.tests;
 
 import static io.netty.handler.codec.http.HttpHeaderNames.IF_MODIFIED_SINCE;
+import static io.netty.handler.codec.http.HttpHeaderNames.IF_NONE_MATCH;
 import static io.netty.handler.codec.http.HttpMethod.GET;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpResponse.BodyHandlers;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.text.SimpleDateFormat;
 import java.util.Random;
 import java.util.concurrent.ExecutionException;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
 
 import org.junit.jupiter.api.Test;
 import org.yamcs.YamcsServer;
 import org.yamcs.client.ClientException;
+import org.yamcs.client.OAuth2Credentials;
 import org.yamcs.client.base.HttpClient;
 import org.yamcs.http.HttpServer;
 import org.yamcs.http.StaticFileHandler;
@@ -83,4 +96,155 @@ public class HttpServerTest extends AbstractIntegrationTest {
         file1.delete();
         file2.delete();
     }
+
+    @Test
+    public void testPrecompressedStaticFile() throws Exception {
+        Path dir = Files.createTempDirectory("yamcs-web");
+
+        var staticFileHandler = new StaticFileHandler("/static2", dir);
+        YamcsServer.getServer().getGlobalService(HttpServer.class).addRoute("static2", () -> staticFileHandler);
+
+        // Variant with a different content, to tell which one is sent
+        Path file = dir.resolve("test.js");
+        Files.writeString(file, "original");
+        Path gzFile = dir.resolve("test.js.gz");
+        try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(gzFile))) {
+            out.write("precompressed".getBytes(UTF_8));
+        }
+        gzFile.toFile().setLastModified(file.toFile().lastModified() + 1000);
+
+        // The client accepts gzip
+        HttpClient httpClient = new HttpClient();
+        String url = "http://localhost:9190/static2/test.js";
+        byte[] b1 = httpClient.doAsyncRequest(url, GET, null).get();
+        assertEquals("precompressed", new String(b1, UTF_8));
+
+        HttpHeaders httpHeaders = new DefaultHttpHeaders();
+        httpHeaders.add(IF_NONE_MATCH, "*");
+        ClientException e1 = null;
+        try {
+            httpClient.doAsyncRequest(url, GET, null, httpHeaders).get();
+        } catch (ExecutionException e) {
+            e1 = (ClientException) e.getCause();
+        }
+        assertNotNull(e1);
+        assertTrue(e1.toString().contains("304"));
+
+        // An outdated variant is not used, and the modified file replaces the cached content
+        Files.writeString(file, "modified");
+        file.toFile().setLastModified(gzFile.toFile().lastModified() + 1000);
+        byte[] b2 = httpClient.doAsyncRequest(url, GET, null).get();
+        assertEquals("modified", new String(b2, UTF_8));
+
+        Files.delete(gzFile);
+        Files.delete(file);
+        Files.delete(dir);
+    }
+
+    @Test
+    public void testCompressedStaticFileFromMemory() throws Exception {
+        Path dir = Files.createTempDirectory("yamcs-web");
+
+        var staticFileHandler = new StaticFileHandler("/static3", dir);
+        YamcsServer.getServer().getGlobalService(HttpServer.class).addRoute("static3", () -> staticFileHandler);
+
+        String text = "body { color: red; }\n".repeat(100);
+        Path file = dir.resolve("test.css");
+        Files.writeString(file, text);
+        Path binFile = dir.resolve("test.png");
+        Files.write(binFile, new byte[2048]);
+
+        var client = java.net.http.HttpClient.newHttpClient();
+        // The second request is served from the memory cache
+        for (int i = 0; i < 2; i++) {
+            HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:9190/static3/test.css"))
+                    .header("Accept-Encoding", "gzip").build();
+            HttpResponse<byte[]> response = client.send(request, BodyHandlers.ofByteArray());
+            assertEquals(200, response.statusCode());
+            assertEquals("gzip", response.headers().firstValue("Content-Encoding").orElse(null));
+            assertTrue("Accept-Encoding".equalsIgnoreCase(response.headers().firstValue("Vary").orElse(null)));
+            try (var in = new GZIPInputStream(new ByteArrayInputStream(response.body()))) {
+                assertEquals(text, new String(in.readAllBytes(), UTF_8));
+            }
+            // the same tag is sent for the identity and the gzip encodings
+            String etag = response.headers().firstValue("ETag").orElse(null);
+            assertTrue(etag.startsWith("W/"));
+
+            request = HttpRequest.newBuilder(URI.create("http://localhost:9190/static3/test.css"))
+                    .header("If-None-Match", etag).build();
+            response = client.send(request, BodyHandlers.ofByteArray());
+            assertEquals(304, response.statusCode());
+
+            request = HttpRequest.newBuilder(URI.create("http://localhost:9190/static3/test.png"))
+                    .header("Accept-Encoding", "gzip").build();
+            response = client.send(request, BodyHandlers.ofByteArray());
+            assertEquals(200, response.statusCode());
+            assertTrue(response.headers().firstValue("Content-Encoding").isEmpty());
+            assertEquals(2048, response.body().length);
+            assertFalse(response.headers().firstValue("ETag").orElse("").startsWith("W/"));
+        }
+
+        Files.delete(binFile);
+        Files.delete(file);
+        Files.delete(dir);
+    }
+
+    @Test
+    public void testMdbConditionalRequest() throws Exception {
+        HttpClient httpClient = new HttpClient();
+        if (yamcs.getSecurityStore().isEnabled()) {
+            httpClient.login("http://localhost:9190/auth/token", adminUsername, adminPassword);
+        }
+        String url = "http://localhost:9190/api/mdb/" + yamcsInstance + "/parameters?q=para";
+
+        byte[] b1 = httpClient.doAsyncRequest(url, GET, null).get();
+        assertTrue(b1.length > 0);
+
+        HttpHeaders httpHeaders = new DefaultHttpHeaders();
+        httpHeaders.add(IF_NONE_MATCH, "*");
+        ClientException e1 = null;
+        try {
+            httpClient.doAsyncRequest(url, GET, null, httpHeaders).get();
+        } catch (ExecutionException e) {
+            e1 = (ClientException) e.getCause();
+        }
+        assertNotNull(e1);
+        assertTrue(e1.toString().contains("304"));
+
+        httpHeaders = new DefaultHttpHeaders();
+        httpHeaders.add(IF_NONE_MATCH, "W/\"stale\"");
+        byte[] b2 = httpClient.doAsyncRequest(url, GET, null, httpHeaders).get();
+        assertArrayEquals(b1, b2);
+    }
+
+    @Test
+    public void testMdbEntityTagVariesWithAccept() throws Exception {
+        String url = "http://localhost:9190/api/mdb/" + yamcsInstance + "/parameters?q=para";
+
+        HttpResponse<byte[]> response = sendRequest(url, "application/protobuf", null);
+        assertEquals(200, response.statusCode());
+        String etag = response.headers().firstValue("ETag").orElse(null);
+        assertNotNull(etag);
+        // the same tag is used for the JSON and the Protobuf encodings
+        assertTrue("Accept".equalsIgnoreCase(response.headers().firstValue("Vary").orElse(null)));
+
+        response = sendRequest(url, "application/json", etag);
+        assertEquals(304, response.statusCode());
+        assertEquals(etag, response.headers().firstValue("ETag").orElse(null));
+        assertTrue("Accept".equalsIgnoreCase(response.headers().firstValue("Vary").orElse(null)));
+    }
+
+    private HttpResponse<byte[]> sendRequest(String url, String accept, String ifNoneMatch) throws Exception {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(url)).header("Accept", accept);
+        if (ifNoneMatch != null) {
+            request.header("If-None-Match", ifNoneMatch);
+        }
+        if (yamcs.getSecurityStore().isEnabled()) {
+            HttpClient httpClient = new HttpClient();
+            httpClient.login("http://localhost:9190/auth/token", adminUsername, adminPassword);
+            String accessToken = ((OAuth2Credentials) httpClient.getCredentials()).getAccessToken();
+            request.header("Authorization", "Bearer " + accessToken);
+        }
+        return java.net.http.HttpClient.newHttpClient().send(request.build(), BodyHandlers.ofByteArray());
+    }
 }
@@ -43,4 +43,23 @@ public interface Observer<T> {
     default void setCancelHandler(Runnable cancelHandler) {
         throw new UnsupportedOperationException();
     }
+
+    /**
+     * Returns whether the peer can receive more messages without them being buffered.
+     * <p>
+     * A producer that can suspend itself should do so while this returns false, and resume from the handler set with
+     * {@link #setOnReadyHandler(Runnable)}. Other producers may ignore it.
+     */
+    default boolean isReady() {
+        return true;
+    }
+
+    /**
+     * Set a {@link Runnable} that will be called when the call becomes ready again, after {@link #isReady()} has
+     * returned false. The handler should not block.
+     * <p>
+     * Observers that do not support flow control ignore the handler; their {@link #isReady()} always returns true.
+     */
+    default void setOnReadyHandler(Runnable onReadyHandler) {
+    }
 }
@@ -34,6 +34,8 @@ import org.yamcs.protobuf.GetParameterValueRequest;
 import org.yamcs.protobuf.GetProcessorRequest;
 import org.yamcs.protobuf.IssueCommandRequest;
 import org.yamcs.protobuf.IssueCommandResponse;
+import org.yamcs.protobuf.IssueCommandsRequest;
+import org.yamcs.protobuf.IssueCommandsResponse;
 import org.yamcs.protobuf.Mdb.AlarmInfo;
 import org.yamcs.protobuf.Mdb.AlgorithmInfo;
 import org.yamcs.protobuf.Mdb.CalibratorInfo;
@@ -188,6 +190,24 @@ public class ProcessorClient {
         return new CommandBuilder(commandService, instance, processor, command);
     }
 
+    /**
+     * Issues a batch of commands in one request. The commands are added to the queues in the order of the list.
+     * <p>
+     * The response contains one result for each command: either the command details, or the error that prevented the
+     * command from being issued.
+     */
+    public CompletableFuture<IssueCommandsResponse> issueCommands(List<CommandBuilder> commands) {
+        IssueCommandsRequest.Builder requestb = IssueCommandsRequest.newBuilder()
+                .setInstance(instance)
+                .setProcessor(processor);
+        for (CommandBuilder command : commands) {
+            requestb.addCommands(command.toRequest());
+        }
+        CompletableFuture<IssueCommandsResponse> f = new CompletableFuture<>();
+        commandService.issueCommands(null, requestb.build(), new ResponseObserver<>(f));
+        return f;
+    }
+
     public CompletableFuture<Void> pause() {
         EditProcessorRequest request = EditProcessorRequest.newBuilder()
                 .setInstance(instance)
@@ -484,6 +504,10 @@ public class ProcessorClient {
             return this;
         }
 
+        IssueCommandRequest toRequest() {
+            return requestb.setArgs(argsb).build();
+        }
+
         /**
          * Issue the command, and returns a future that awaits the initial response.
          */
@@ -41,6 +41,7 @@ import org.yamcs.protobuf.Yamcs.ReplayStatus.ReplayState;
 import org.yamcs.tctm.ArchiveTmPacketProvider;
 import org.yamcs.tctm.StreamParameterSender;
 import org.yamcs.time.TimeService;
+import org.yamcs.utils.TimingWheel;
 import org.yamcs.xtce.Parameter;
 import org.yamcs.yarch.Stream;
 import org.yamcs.yarch.YarchDatabase;
@@ -103,6 +104,9 @@ public class Processor extends AbstractService {
     XtceTmProcessor tmProcessor;
 
     private final ScheduledThreadPoolExecutor timer;
+    // resolution of the timing wheel used for the command verifier windows and queue timeouts
+    static final long TIMING_WHEEL_TICK_MILLIS = 10;
+    private final TimingWheel timingWheel;
     TimeService timeService;
 
     ProcessorData processorData;
@@ -129,6 +133,7 @@ public class Processor extends AbstractService {
         log.setContext(name);
         timer = new ScheduledThreadPoolExecutor(1,
                 new ThreadFactoryBuilder().setNameFormat("Processor-" + yamcsInstance + "." + name).build());
+        timingWheel = new TimingWheel(timer, TIMING_WHEEL_TICK_MILLIS);
     }
 
     /**
@@ -454,6 +459,7 @@ public class Processor extends AbstractService {
 
         log.info("Processor {} quitting", name);
         quitting = true;
+        timingWheel.clear();
         timer.shutdown();
         // first send a STOPPING event
         listeners.forEach(l -> l.processorStateChanged(this));
@@ -594,6 +600,16 @@ public class Processor extends AbstractService {
         return timer;
     }
 
+    /**
+     * Returns the timing wheel of the processor, to be used for the large number of timeouts which are mostly
+     * cancelled before expiring (e.g. the command verifier windows).
+     * <p>
+     * The wheel ticks on the thread of the {@link #getTimer() timer}, the expired tasks are run on the same thread.
+     */
+    public TimingWheel getTimingWheel() {
+        return timingWheel;
+    }
+
     /**
      * Returns the processor time
      * 
@@ -1,7 +1,30 @@
 package org.yamcs.alarms;
 
+import java.util.List;
+
 public interface AlarmListener<T> {
     public void notifyUpdate(AlarmNotificationType notificationType, ActiveAlarm<T> activeAlarm) ;
     public void notifySeverityIncrease(ActiveAlarm<T> activeAlarm);    
     public void notifyValueUpdate(ActiveAlarm<T> activeAlarm);
+
+    /**
+     * Called with the alarm changes caused by one processing data delivery (e.g. all the parameters from one packet),
+     * in the order in which they have happened.
+     * <p>
+     * The default implementation calls the individual notification methods for each change.
+     */
+    default void notifyUpdates(List<AlarmNotification<T>> notifications) {
+        for (AlarmNotification<T> n : notifications) {
+            switch (n.getType()) {
+            case SEVERITY_INCREASED:
+                notifySeverityIncrease(n.getActiveAlarm());
+                break;
+            case VALUE_UPDATED:
+                notifyValueUpdate(n.getActiveAlarm());
+                break;
+            default:
+                notifyUpdate(n.getType(), n.getActiveAlarm());
+            }
+        }
+    }
 }
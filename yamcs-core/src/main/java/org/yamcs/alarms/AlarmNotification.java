@@ -0,0 +1,59 @@
+package org.yamcs.alarms;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * One change of an active alarm, as delivered to {@link AlarmListener#notifyUpdates(java.util.List)}.
+ * <p>
+ * The notification refers to the alarm itself and not to a copy, so the listeners see its state at the time the
+ * notification is delivered.
+ */
+public class AlarmNotification<T> {
+    final AlarmNotificationType type;
+    final ActiveAlarm<T> activeAlarm;
+
+    public AlarmNotification(AlarmNotificationType type, ActiveAlarm<T> activeAlarm) {
+        this.type = type;
+        this.activeAlarm = activeAlarm;
+    }
+
+    public AlarmNotificationType getType() {
+        return type;
+    }
+
+    public ActiveAlarm<T> getActiveAlarm() {
+        return activeAlarm;
+    }
+
+    /**
+     * Removes from a batch the value updates of the alarms that have another notification in the same batch. Since
+     * the notifications refer to the alarm itself, the other notification conveys the same state.
+     */
+    public static <T> List<AlarmNotification<T>> coalesce(List<AlarmNotification<T>> notifications) {
+        Set<ActiveAlarm<T>> notified = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (AlarmNotification<T> n : notifications) {
+            if (n.type != AlarmNotificationType.VALUE_UPDATED) {
+                notified.add(n.activeAlarm);
+            }
+        }
+        if (notified.isEmpty()) {
+            return notifications;
+        }
+        List<AlarmNotification<T>> result = new ArrayList<>(notifications.size());
+        for (AlarmNotification<T> n : notifications) {
+            if (n.type != AlarmNotificationType.VALUE_UPDATED || !notified.contains(n.activeAlarm)) {
+                result.add(n);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return type + ": " + activeAlarm.getId();
+    }
+}
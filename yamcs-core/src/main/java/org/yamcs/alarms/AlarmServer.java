@@ -1,6 +1,11 @@
 package org.yamcs.alarms;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
@@ -39,6 +44,7 @@ public class AlarmServer<S, T> extends AbstractService {
     static private final Logger log = LoggerFactory.getLogger(AlarmServer.class);
 
     private CopyOnWriteArrayList<AlarmListener<T>> alarmListeners = new CopyOnWriteArrayList<>();
+    private final ThreadLocal<Batch<T>> batch = ThreadLocal.withInitial(Batch::new);
     final private ScheduledThreadPoolExecutor timer;
     final TimeService timeService;
 
@@ -117,17 +123,17 @@ public class AlarmServer<S, T> extends AbstractService {
      * @return the updated alarm instance or null if the alarm was not found
      */
     public ActiveAlarm<T> acknowledge(ActiveAlarm<T> alarm, String username, long ackTime, String message) {
-        if (!activeAlarms.containsValue(alarm)) {
+        if (!isActive(alarm)) {
             return null;
         }
 
         alarm.acknowledge(username, ackTime, message);
-        alarmListeners.forEach(l -> l.notifyUpdate(AlarmNotificationType.ACKNOWLEDGED, alarm));
+        notifyListeners(AlarmNotificationType.ACKNOWLEDGED, alarm);
 
         if (alarm.isNormal()) {
             S subject = getSubject(alarm.getTriggerValue());
             activeAlarms.remove(subject);
-            alarmListeners.forEach(l -> l.notifyUpdate(AlarmNotificationType.CLEARED, alarm));
+            notifyListeners(AlarmNotificationType.CLEARED, alarm);
         }
 
         return alarm;
@@ -143,7 +149,7 @@ public class AlarmServer<S, T> extends AbstractService {
      * @return the updated alarm instance or null if the alarm was not found
      */
     public ActiveAlarm<T> reset(ActiveAlarm<T> alarm, String username, long resetTime, String message) {
-        if (!activeAlarms.containsValue(alarm)) {
+        if (!isActive(alarm)) {
             return null;
         }
         alarm.reset(username, resetTime, message);
@@ -163,14 +169,14 @@ public class AlarmServer<S, T> extends AbstractService {
      * @return the updated alarm instance or null if the alarm was not found
      */
     public ActiveAlarm<T> clear(ActiveAlarm<T> alarm, String username, long clearTime, String message) {
-        if (!activeAlarms.containsValue(alarm)) {
+        if (!isActive(alarm)) {
             return null;
         }
         alarm.clear(username, clearTime, message);
 
         S subject = getSubject(alarm.getTriggerValue());
         activeAlarms.remove(subject);
-        alarmListeners.forEach(l -> l.notifyUpdate(AlarmNotificationType.CLEARED, alarm));
+        notifyListeners(AlarmNotificationType.CLEARED, alarm);
 
         return alarm;
     }
@@ -188,11 +194,11 @@ public class AlarmServer<S, T> extends AbstractService {
      */
     public ActiveAlarm<T> shelve(ActiveAlarm<T> alarm, String username, String message,
             long shelveDuration) {
-        if (!activeAlarms.containsValue(alarm)) {
+        if (!isActive(alarm)) {
             return null;
         }
         alarm.shelve(username, message, shelveDuration);
-        alarmListeners.forEach(l -> l.notifyUpdate(AlarmNotificationType.SHELVED, alarm));
+        notifyListeners(AlarmNotificationType.SHELVED, alarm);
         timer.schedule(this::checkShelved, shelveDuration, TimeUnit.MILLISECONDS);
 
         return alarm;
@@ -209,7 +215,7 @@ public class AlarmServer<S, T> extends AbstractService {
                 }
                 if (exp <= t) {
                     aa.unshelve();
-                    alarmListeners.forEach(l -> l.notifyUpdate(AlarmNotificationType.UNSHELVED, aa));
+                    notifyListeners(AlarmNotificationType.UNSHELVED, aa);
                 }
             }
         }
@@ -223,11 +229,11 @@ public class AlarmServer<S, T> extends AbstractService {
      * @return the updated alarm instance or null if the alarm was not found
      */
     public ActiveAlarm<T> unshelve(ActiveAlarm<T> alarm, String username) {
-        if (!activeAlarms.containsValue(alarm)) {
+        if (!isActive(alarm)) {
             return null;
         }
         alarm.unshelve();
-        alarmListeners.forEach(l -> l.notifyUpdate(AlarmNotificationType.UNSHELVED, alarm));
+        notifyListeners(AlarmNotificationType.UNSHELVED, alarm);
         return alarm;
     }
 
@@ -260,21 +266,13 @@ public class AlarmServer<S, T> extends AbstractService {
 
             activeAlarm.setCurrentValue(value);
             activeAlarm.incrementValueCount();
-            for (AlarmListener<T> l : alarmListeners) {
-                l.notifyValueUpdate(activeAlarm);
-            }
+            notifyListeners(AlarmNotificationType.VALUE_UPDATED, activeAlarm);
 
             if (updated) {
-                for (AlarmListener<T> l : alarmListeners) {
-                    l.notifyUpdate(AlarmNotificationType.RTN, activeAlarm);
-                }
+                notifyListeners(AlarmNotificationType.RTN, activeAlarm);
                 if (activeAlarm.isNormal()) {
                     activeAlarms.remove(alarmId);
-                    if (activeAlarm.isNormal()) {
-                        for (AlarmListener<T> l : alarmListeners) {
-                            l.notifyUpdate(AlarmNotificationType.CLEARED, activeAlarm);
-                        }
-                    }
+                    notifyListeners(AlarmNotificationType.CLEARED, activeAlarm);
                 }
             }
         } else { // alarm
@@ -296,24 +294,76 @@ public class AlarmServer<S, T> extends AbstractService {
 
             if (newAlarm) {
                 activeAlarms.put(alarmId, activeAlarm);
-                for (AlarmListener<T> l : alarmListeners) {
-                    l.notifyUpdate(AlarmNotificationType.TRIGGERED, activeAlarm);
-                }
+                notifyListeners(AlarmNotificationType.TRIGGERED, activeAlarm);
             } else {
                 if (moreSevere(value, activeAlarm.getMostSevereValue())) {
                     activeAlarm.setMostSevereValue(value);
-                    for (AlarmListener<T> l : alarmListeners) {
-                        l.notifySeverityIncrease(activeAlarm);
-                    }
+                    notifyListeners(AlarmNotificationType.SEVERITY_INCREASED, activeAlarm);
                 } else {
-                    for (AlarmListener<T> l : alarmListeners) {
-                        l.notifyValueUpdate(activeAlarm);
-                    }
+                    notifyListeners(AlarmNotificationType.VALUE_UPDATED, activeAlarm);
                 }
             }
         }
     }
 
+    /**
+     * Starts collecting the alarm changes caused by the calling thread, instead of notifying the listeners for each of
+     * them. The changes are delivered to the listeners in one {@link AlarmListener#notifyUpdates(List)} call by the
+     * matching {@link #endBatch()}.
+     * <p>
+     * The calls can be nested, the changes are delivered when the outermost batch ends.
+     */
+    public void beginBatch() {
+        batch.get().depth++;
+    }
+
+    /**
+     * Ends a batch started with {@link #beginBatch()}, notifying the listeners if it is the outermost one.
+     */
+    public void endBatch() {
+        Batch<T> b = batch.get();
+        if (b.depth == 0) {
+            throw new IllegalStateException("No batch in progress");
+        }
+        if (--b.depth > 0 || b.notifications.isEmpty()) {
+            return;
+        }
+        List<AlarmNotification<T>> notifications = b.notifications;
+        b.notifications = new ArrayList<>();
+        b.valueUpdated.clear();
+        for (AlarmListener<T> l : alarmListeners) {
+            l.notifyUpdates(notifications);
+        }
+    }
+
+    private void notifyListeners(AlarmNotificationType type, ActiveAlarm<T> activeAlarm) {
+        Batch<T> b = batch.get();
+        if (b.depth > 0) {
+            // the listeners read the alarm state at the end of the batch so one value update per alarm is enough
+            if (type != AlarmNotificationType.VALUE_UPDATED || b.valueUpdated.add(activeAlarm)) {
+                b.notifications.add(new AlarmNotification<>(type, activeAlarm));
+            }
+            return;
+        }
+        for (AlarmListener<T> l : alarmListeners) {
+            switch (type) {
+            case SEVERITY_INCREASED:
+                l.notifySeverityIncrease(activeAlarm);
+                break;
+            case VALUE_UPDATED:
+                l.notifyValueUpdate(activeAlarm);
+                break;
+            default:
+                l.notifyUpdate(type, activeAlarm);
+            }
+        }
+    }
+
+    // returns true if the alarm is (still) the active alarm for its subject
+    private boolean isActive(ActiveAlarm<T> alarm) {
+        return activeAlarms.get(getSubject(alarm.getTriggerValue())) == alarm;
+    }
+
     @SuppressWarnings("unchecked")
     private S getSubject(T value) {
         if (value instanceof ParameterValue) {
@@ -381,4 +431,10 @@ public class AlarmServer<S, T> extends AbstractService {
     public void clearAll() {
         activeAlarms.clear();
     }
+
+    static class Batch<T> {
+        int depth;
+        List<AlarmNotification<T>> notifications = new ArrayList<>();
+        Set<ActiveAlarm<T>> valueUpdated = Collections.newSetFromMap(new IdentityHashMap<>());
+    }
 }
@@ -1,6 +1,7 @@
 package org.yamcs.alarms;
 
 import java.util.ArrayList;
+import java.util.List;
 
 import org.yamcs.yarch.DataType;
 import org.yamcs.yarch.Stream;
@@ -36,6 +37,18 @@ public abstract class AlarmStreamer<T> implements AlarmListener<T> {
         this.tdefTemplate = tdefTemplate;
     }
 
+    /**
+     * Emits the tuples of a batch one after the other, leaving out the value updates that are covered by another
+     * notification of the same alarm.
+     * <p>
+     * Each remaining change still gives one tuple, because the alarm tables keep one row per alarm, which each tuple
+     * updates with the columns specific to its change.
+     */
+    @Override
+    public void notifyUpdates(List<AlarmNotification<T>> notifications) {
+        AlarmListener.super.notifyUpdates(AlarmNotification.coalesce(notifications));
+    }
+
     @Override
     public void notifySeverityIncrease(ActiveAlarm<T> activeAlarm) {
         TupleDefinition tdef = tdefTemplate.copy();
@@ -1,13 +1,18 @@
 package org.yamcs.archive;
 
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.stream.Collectors;
 
+import org.rocksdb.RocksDBException;
 import org.yamcs.AbstractYamcsService;
 import org.yamcs.InitException;
 import org.yamcs.StreamConfig;
 import org.yamcs.StreamConfig.StreamConfigEntry;
 import org.yamcs.YConfiguration;
 import org.yamcs.utils.parser.ParseException;
+import org.yamcs.yarch.Stream;
 import org.yamcs.yarch.YarchDatabase;
 import org.yamcs.yarch.YarchDatabaseInstance;
 import org.yamcs.yarch.protobuf.Db.Event;
@@ -15,6 +20,9 @@ import org.yamcs.yarch.streamsql.StreamSqlException;
 
 /**
  * Sets up the archiving of the events coming on events_realtime and events_dump streams into the yarch table events.
+ * <p>
+ * If the {@code textIndex} option is true, a full-text index of the event messages is maintained as well, see
+ * {@link EventTextIndex}.
  * 
  * @author nm
  *
@@ -24,7 +32,9 @@ public class EventRecorder extends AbstractYamcsService {
     public static final String TABLE_NAME = "events";
     public static final String REALTIME_EVENT_STREAM_NAME = "events_realtime";
     public static final String CF_NAME = XtceTmRecorder.CF_NAME;
-    
+
+    private EventTextIndex textIndex;
+
     @Override
     public void init(String yamcsInstance, String serviceName, YConfiguration config) throws InitException {
         super.init(yamcsInstance, serviceName, config);
@@ -50,13 +60,25 @@ public class EventRecorder extends AbstractYamcsService {
                     ydb.execute("insert into " + TABLE_NAME + " select * from " + sce.getName());
                 }
             }
+            if (config.getBoolean("textIndex", false)) {
+                textIndex = new EventTextIndex(yamcsInstance, ydb.getTable(TABLE_NAME));
+            }
         } catch (ParseException | StreamSqlException e) {
             throw new InitException(e);
+        } catch (RocksDBException | IOException e) {
+            throw new InitException("Failed to open the event text index", e);
         }
     }
 
     @Override
     protected void doStart() {
+        if (textIndex != null) {
+            YarchDatabaseInstance ydb = YarchDatabase.getInstance(yamcsInstance);
+            for (Stream stream : getEventStreams(ydb)) {
+                stream.addSubscriber(textIndex);
+            }
+            textIndex.startIndexing();
+        }
         notifyStarted();
     }
 
@@ -65,8 +87,35 @@ public class EventRecorder extends AbstractYamcsService {
         YarchDatabaseInstance ydb = YarchDatabase.getInstance(yamcsInstance);
         StreamConfig sc = StreamConfig.getInstance(yamcsInstance);
 
+        if (textIndex != null) {
+            for (Stream stream : getEventStreams(ydb)) {
+                stream.removeSubscriber(textIndex);
+            }
+            textIndex.stop();
+        }
         Utils.closeTableWriters(ydb, sc.getEntries().stream().map(sce -> sce.getName()).collect(Collectors.toList()));
 
         notifyStopped();
     }
+
+    private List<Stream> getEventStreams(YarchDatabaseInstance ydb) {
+        List<Stream> streams = new ArrayList<>();
+        for (StreamConfigEntry sce : StreamConfig.getInstance(yamcsInstance).getEntries()) {
+            if (sce.getType() == StreamConfig.StandardStreamType.EVENT) {
+                Stream stream = ydb.getStream(sce.getName());
+                if (stream != null) {
+                    streams.add(stream);
+                }
+            }
+        }
+        return streams;
+    }
+
+    /**
+     * Returns the full-text index of the event messages or null if the index is not enabled (with the
+     * {@code textIndex} option).
+     */
+    public EventTextIndex getTextIndex() {
+        return textIndex;
+    }
 }
@@ -0,0 +1,257 @@
+package org.yamcs.archive;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.rocksdb.RocksDBException;
+import org.yamcs.logging.Log;
+import org.yamcs.utils.ByteArray;
+import org.yamcs.utils.TimeEncoding;
+import org.yamcs.utils.parser.ParseException;
+import org.yamcs.yarch.DbRange;
+import org.yamcs.yarch.Stream;
+import org.yamcs.yarch.StreamSubscriber;
+import org.yamcs.yarch.TableColumnDefinition;
+import org.yamcs.yarch.TableDefinition;
+import org.yamcs.yarch.TableReaderStream;
+import org.yamcs.yarch.Tuple;
+import org.yamcs.yarch.YarchDatabase;
+import org.yamcs.yarch.YarchDatabaseInstance;
+import org.yamcs.yarch.protobuf.Db.Event;
+import org.yamcs.yarch.rocksdb.RdbStorageEngine;
+import org.yamcs.yarch.rocksdb.Tablespace;
+import org.yamcs.yarch.rocksdb.TextIndexTableWalker;
+import org.yamcs.yarch.rocksdb.TextIndexWriter;
+import org.yamcs.yarch.rocksdb.protobuf.Tablespace.TablespaceRecord;
+import org.yamcs.yarch.rocksdb.protobuf.Tablespace.TablespaceRecord.Type;
+import org.yamcs.yarch.streamsql.StreamSqlException;
+
+/**
+ * Full-text index of the event messages, maintained by the {@link EventRecorder} next to the events table.
+ * <p>
+ * The terms of the index are the trigrams (the sequences of three consecutive characters) of the lower case message.
+ * The search for a text returns the events containing all the trigrams of the (lower case) text. This is a superset
+ * of the events containing the text so the caller has to filter the results with the original
+ * {@code body.message like '%text%'} condition; the advantage of the trigrams compared with words is that they allow
+ * to find the text anywhere in the message, not only at the word boundaries.
+ * <p>
+ * When the index is created for a table already containing events, the existing events are indexed in the
+ * background. The index is not used for searching until this is finished.
+ */
+public class EventTextIndex implements StreamSubscriber {
+    static final int TERM_LENGTH = 3;
+    /**
+     * maximum number of terms used for searching; the search returns the same results with fewer terms, but it has to
+     * filter more candidates.
+     */
+    static final int MAX_QUERY_TERMS = 8;
+    // characters having a special meaning in the like expressions
+    static final String LIKE_SPECIAL_CHARS = "\\^$|?*+()[]{}%";
+
+    private static AtomicInteger streamCounter = new AtomicInteger();
+
+    final String yamcsInstance;
+    final Log log;
+    final Tablespace tablespace;
+    final TableDefinition tableDefinition;
+    TablespaceRecord record;
+    TextIndexWriter writer;
+    volatile boolean complete;
+    volatile boolean stopped;
+    // reads the existing events from the table when the index is not complete
+    volatile Stream indexingStream;
+
+    public EventTextIndex(String yamcsInstance, TableDefinition tableDefinition)
+            throws RocksDBException, IOException {
+        this.yamcsInstance = yamcsInstance;
+        this.log = new Log(EventTextIndex.class, yamcsInstance);
+        this.tableDefinition = tableDefinition;
+        YarchDatabaseInstance ydb = YarchDatabase.getInstance(yamcsInstance);
+        this.tablespace = RdbStorageEngine.getInstance().getTablespace(ydb);
+
+        List<TablespaceRecord> l = tablespace.filter(Type.TEXT_INDEX, yamcsInstance,
+                tr -> tableDefinition.getName().equals(tr.getTableName()));
+        if (l.isEmpty()) {
+            // if the table has no partition yet, there is nothing to index
+            boolean empty = tablespace.getTablePartitions(yamcsInstance, tableDefinition.getName()).isEmpty();
+            record = tablespace.createMetadataRecord(yamcsInstance, TablespaceRecord.newBuilder()
+                    .setType(Type.TEXT_INDEX)
+                    .setTableName(tableDefinition.getName())
+                    .setTextIndexComplete(empty));
+        } else {
+            record = l.get(0);
+        }
+        complete = record.getTextIndexComplete();
+        writer = new TextIndexWriter(tablespace, tablespace.getTable(tableDefinition), record.getTbsIndex());
+    }
+
+    /**
+     * If the index is not complete, starts indexing the events from the table.
+     * <p>
+     * Should be called after subscribing this index to the event streams such that no event is missed.
+     */
+    void startIndexing() {
+        if (complete) {
+            return;
+        }
+        log.info("Indexing the existing events");
+        YarchDatabaseInstance ydb = YarchDatabase.getInstance(yamcsInstance);
+        String streamName = "event_text_index" + streamCounter.incrementAndGet();
+        try {
+            ydb.execute("create stream " + streamName + " as select * from " + tableDefinition.getName());
+        } catch (StreamSqlException | ParseException e) {
+            log.error("Failed to start indexing the existing events", e);
+            return;
+        }
+        Stream stream = ydb.getStream(streamName);
+        stream.addSubscriber(new StreamSubscriber() {
+            int count;
+
+            @Override
+            public void onTuple(Stream s, Tuple tuple) {
+                EventTextIndex.this.onTuple(s, tuple);
+                count++;
+            }
+
+            @Override
+            public void streamClosed(Stream s) {
+                if (!stopped) {
+                    setComplete();
+                    log.info("Finished indexing {} existing events", count);
+                }
+            }
+        });
+        indexingStream = stream;
+        stream.start();
+    }
+
+    /**
+     * Stops the indexing of the existing events (if running)
+     */
+    void stop() {
+        stopped = true;
+        Stream stream = indexingStream;
+        if (stream != null) {
+            stream.close();
+        }
+    }
+
+    private void setComplete() {
+        try {
+            record = tablespace.updateRecord(yamcsInstance, record.toBuilder().setTextIndexComplete(true));
+            complete = true;
+        } catch (RocksDBException e) {
+            log.error("Failed to update the text index record", e);
+        }
+    }
+
+    @Override
+    public void onTuple(Stream stream, Tuple tuple) {
+        Event event = (Event) tuple.getColumn("body");
+        if (event == null || !event.hasMessage()) {
+            return;
+        }
+        Set<String> terms = terms(event.getMessage());
+        try {
+            writer.addTuple(tuple, terms);
+        } catch (Exception e) {
+            log.error("Failed to index event {}", event, e);
+        }
+    }
+
+    @Override
+    public void streamClosed(Stream stream) {
+        // nothing to do
+    }
+
+    /**
+     * Returns a new stream providing the events in the time interval [start, stop] which may contain the given text.
+     * The stream is registered to the database such that it can be used as source in a select statement which applies
+     * the exact text and time conditions.
+     * <p>
+     * Returns null if the index cannot be used for searching the text (i.e. if the index is not complete, if the text is
+     * too short or if it contains characters having a special meaning in the like expressions). In this case the events
+     * table has to be searched directly.
+     *
+     * @param start
+     *            the start of the time interval or {@link TimeEncoding#INVALID_INSTANT} for no start
+     * @param stop
+     *            the end of the time interval or {@link TimeEncoding#INVALID_INSTANT} for no end
+     */
+    public Stream newSearchStream(String text, long start, long stop, boolean ascending) {
+        if (!complete) {
+            return null;
+        }
+        List<String> terms = queryTerms(text);
+        if (terms == null) {
+            return null;
+        }
+        TextIndexTableWalker walker = tablespace.newTextIndexTableWalker(tableDefinition, record.getTbsIndex(), terms,
+                ascending);
+        DbRange range = new DbRange();
+        TableColumnDefinition gentimeCd = tableDefinition.getKeyDefinition().get(0);
+        if (start != TimeEncoding.INVALID_INSTANT) {
+            ByteArray ba = new ByteArray();
+            gentimeCd.serializeValue(ba, start);
+            range.rangeStart = ba.toArray();
+        }
+        if (stop != TimeEncoding.INVALID_INSTANT) {
+            ByteArray ba = new ByteArray();
+            gentimeCd.serializeValue(ba, stop);
+            range.rangeEnd = ba.toArray();
+        }
+        walker.setPrimaryIndexRange(range);
+
+        YarchDatabaseInstance ydb = YarchDatabase.getInstance(yamcsInstance);
+        Stream stream = new TableReaderStream(ydb, tableDefinition, walker);
+        ydb.addStream(stream);
+        return stream;
+    }
+
+    public boolean isComplete() {
+        return complete;
+    }
+
+    /**
+     * Returns the index terms of the text
+     */
+    static Set<String> terms(String text) {
+        String s = text.toLowerCase(Locale.ROOT);
+        Set<String> terms = new LinkedHashSet<>();
+        for (int i = 0; i + TERM_LENGTH <= s.length(); i++) {
+            String t = s.substring(i, i + TERM_LENGTH);
+            if (t.indexOf(0) < 0) {
+                terms.add(t);
+            }
+        }
+        return terms;
+    }
+
+    /**
+     * Returns the terms to be searched for finding the text or null if the index cannot be used for the text.
+     * <p>
+     * Non-overlapping terms are preferred, the last term of the text is always included.
+     */
+    static List<String> queryTerms(String text) {
+        String s = text.toLowerCase(Locale.ROOT);
+        if (s.length() < TERM_LENGTH || s.indexOf(0) >= 0) {
+            return null;
+        }
+        for (int i = 0; i < s.length(); i++) {
+            if (LIKE_SPECIAL_CHARS.indexOf(s.charAt(i)) >= 0) {
+                return null;
+            }
+        }
+        Set<String> terms = new LinkedHashSet<>();
+        terms.add(s.substring(s.length() - TERM_LENGTH));
+        for (int i = 0; i + TERM_LENGTH <= s.length() && terms.size() < MAX_QUERY_TERMS; i += TERM_LENGTH) {
+            terms.add(s.substring(i, i + TERM_LENGTH));
+        }
+        return new ArrayList<>(terms);
+    }
+}
@@ -142,6 +142,10 @@ public class YarchReplay implements StreamSubscriber {
             break;
         case PAUSED:
             state = ReplayState.RUNNING;
+            Stream s = getPausableStream();
+            if (s != null) {
+                s.resume();
+            }
             break;
         case ERROR:
         case CLOSED:
@@ -279,6 +283,19 @@ public class YarchReplay implements StreamSubscriber {
 
     public void pause() {
         state = ReplayState.PAUSED;
+        // without this, the AFAP replays would continue until the end of the current stream
+        Stream s = getPausableStream();
+        if (s != null) {
+            s.pause();
+        }
+    }
+
+    private Stream getPausableStream() {
+        if (streamName == null) {
+            return null;
+        }
+        Stream s = YarchDatabase.getInstance(instance).getStream(streamName);
+        return (s != null && s.canPause()) ? s : null;
     }
 
     public synchronized void quit() {
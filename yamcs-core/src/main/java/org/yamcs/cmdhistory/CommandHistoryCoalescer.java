@@ -0,0 +1,198 @@
+package org.yamcs.cmdhistory;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.yamcs.StandardTupleDefinitions;
+import org.yamcs.YamcsServer;
+import org.yamcs.protobuf.Commanding.CommandId;
+import org.yamcs.yarch.DataType;
+import org.yamcs.yarch.Stream;
+import org.yamcs.yarch.Tuple;
+import org.yamcs.yarch.TupleDefinition;
+
+/**
+ * Merges the command history updates of the same command arriving within a short window into one tuple, before
+ * emitting them on the command history stream.
+ * <p>
+ * This reduces the number of writes in the command history table and the number of messages sent to the clients
+ * (each tuple results in one update).
+ * <p>
+ * The order of the updates is preserved: if an attribute is updated while a previous update of the same attribute is
+ * pending, the pending tuple is emitted first. The tuples containing the final command completion state and the
+ * commands themselves are emitted without delay (together with anything pending for the same command).
+ * <p>
+ * One coalescer is shared by all the publishers of a stream, such that the order is kept also between the updates
+ * coming from the processor and those coming from the links.
+ */
+class CommandHistoryCoalescer {
+    static final long DEFAULT_WINDOW_MILLIS = 5;
+    static final Map<Stream, CommandHistoryCoalescer> coalescers = new HashMap<>();
+
+    final Stream stream;
+    final ScheduledExecutorService executor;
+    final long windowMillis;
+
+    final Map<CommandId, PendingUpdate> pending = new LinkedHashMap<>();
+    // tuples ready to be emitted
+    final ArrayDeque<Tuple> ready = new ArrayDeque<>();
+    boolean emitting;
+    boolean flushScheduled;
+
+    CommandHistoryCoalescer(Stream stream, ScheduledExecutorService executor, long windowMillis) {
+        this.stream = stream;
+        this.executor = executor;
+        this.windowMillis = windowMillis;
+    }
+
+    /**
+     * Returns the coalescer for the given stream, creating it if necessary.
+     */
+    static synchronized CommandHistoryCoalescer getInstance(Stream stream) {
+        // the streams of a stopped instance are not reused, drop their coalescers
+        coalescers.keySet().removeIf(s -> s.getState() == Stream.QUITTING);
+        return coalescers.computeIfAbsent(stream,
+                s -> new CommandHistoryCoalescer(s, YamcsServer.getServer().getThreadPoolExecutor(),
+                        DEFAULT_WINDOW_MILLIS));
+    }
+
+    /**
+     * Adds one or more attributes to the pending update of the command.
+     *
+     * @param flush
+     *            if true, the update (including the previously pending attributes) is emitted immediately
+     */
+    void update(CommandId cmdId, List<String> columns, List<DataType> types, List<Object> values, boolean flush) {
+        synchronized (this) {
+            PendingUpdate pu = pending.get(cmdId);
+            if (pu != null && pu.containsAny(columns)) {
+                ready.add(pu.toTuple());
+                pu = null;
+            }
+            if (pu == null) {
+                pu = new PendingUpdate(cmdId);
+                pending.put(cmdId, pu);
+            }
+            for (int i = 0; i < columns.size(); i++) {
+                pu.add(columns.get(i), types.get(i), values.get(i));
+            }
+            if (flush || windowMillis <= 0) {
+                pending.remove(cmdId);
+                ready.add(pu.toTuple());
+            } else {
+                scheduleFlush();
+            }
+        }
+        emitReady();
+    }
+
+    /**
+     * Emits the tuple after the pending updates of the same command.
+     */
+    void emit(CommandId cmdId, Tuple tuple) {
+        synchronized (this) {
+            PendingUpdate pu = pending.remove(cmdId);
+            if (pu != null) {
+                ready.add(pu.toTuple());
+            }
+            ready.add(tuple);
+        }
+        emitReady();
+    }
+
+    /**
+     * Emits all the pending updates.
+     */
+    void flush() {
+        synchronized (this) {
+            flushScheduled = false;
+            for (Iterator<PendingUpdate> it = pending.values().iterator(); it.hasNext();) {
+                ready.add(it.next().toTuple());
+                it.remove();
+            }
+        }
+        emitReady();
+    }
+
+    private void scheduleFlush() {
+        if (!flushScheduled) {
+            flushScheduled = true;
+            executor.schedule(this::flush, windowMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Emits the ready tuples outside the lock; only one thread emits at a time, such that the order is kept. The
+     * tuples added by the other threads (or by the stream subscribers) while emitting are emitted by the same thread.
+     */
+    private void emitReady() {
+        while (true) {
+            Tuple t;
+            synchronized (this) {
+                if (emitting || ready.isEmpty()) {
+                    return;
+                }
+                emitting = true;
+                t = ready.poll();
+            }
+            try {
+                stream.emitTuple(t);
+            } finally {
+                synchronized (this) {
+                    emitting = false;
+                }
+            }
+        }
+    }
+
+    synchronized int getPendingCount() {
+        return pending.size();
+    }
+
+    static class PendingUpdate {
+        final CommandId cmdId;
+        final List<String> columns = new ArrayList<>();
+        final List<DataType> types = new ArrayList<>();
+        final List<Object> values = new ArrayList<>();
+
+        PendingUpdate(CommandId cmdId) {
+            this.cmdId = cmdId;
+        }
+
+        boolean containsAny(List<String> cols) {
+            for (String c : cols) {
+                if (columns.contains(c)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        void add(String column, DataType type, Object value) {
+            columns.add(column);
+            types.add(type);
+            values.add(value);
+        }
+
+        Tuple toTuple() {
+            TupleDefinition td = StandardTupleDefinitions.TC.copy();
+            List<Object> vals = new ArrayList<>(4 + values.size());
+            vals.add(cmdId.getGenerationTime());
+            vals.add(cmdId.getOrigin());
+            vals.add(cmdId.getSequenceNumber());
+            vals.add(cmdId.getCommandName());
+            for (int i = 0; i < columns.size(); i++) {
+                td.addColumn(columns.get(i), types.get(i));
+                vals.add(values.get(i));
+            }
+            return new Tuple(td, vals);
+        }
+    }
+}
@@ -4,19 +4,19 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 
-import org.yamcs.StandardTupleDefinitions;
 import org.yamcs.commanding.PreparedCommand;
 import org.yamcs.parameter.ParameterValue;
 import org.yamcs.protobuf.Commanding.CommandId;
 import org.yamcs.yarch.DataType;
 import org.yamcs.yarch.Stream;
-import org.yamcs.yarch.Tuple;
-import org.yamcs.yarch.TupleDefinition;
 import org.yamcs.yarch.YarchDatabase;
 import org.yamcs.yarch.YarchDatabaseInstance;
 
 /**
  * Injects the command history updates in the command history stream
+ * <p>
+ * The updates of the same command arriving within a few milliseconds are merged into one tuple by a
+ * {@link CommandHistoryCoalescer}; the final command completion is emitted immediately.
  * 
  * @author nm
  *
@@ -27,41 +27,23 @@ public class StreamCommandHistoryPublisher implements CommandHistoryPublisher {
 
     Stream stream;
     final String instance;
+    final CommandHistoryCoalescer coalescer;
 
     public StreamCommandHistoryPublisher(String archiveInstance) {
         this.instance = archiveInstance;
         YarchDatabaseInstance ydb = YarchDatabase.getInstance(archiveInstance);
         stream = ydb.getStream(REALTIME_CMDHIST_STREAM_NAME);
+        coalescer = CommandHistoryCoalescer.getInstance(stream);
     }
 
     @Override
     public void publish(CommandId cmdId, String key, String value) {
-        TupleDefinition td = StandardTupleDefinitions.TC.copy();
-        td.addColumn(key, DataType.STRING);
-
-        Tuple t = new Tuple(td, new Object[] {
-                cmdId.getGenerationTime(),
-                cmdId.getOrigin(),
-                cmdId.getSequenceNumber(),
-                cmdId.getCommandName(),
-                value
-        });
-        stream.emitTuple(t);
+        publish(cmdId, key, DataType.STRING, value);
     }
 
     @Override
     public void publish(CommandId cmdId, String key, long instant) {
-        TupleDefinition td = StandardTupleDefinitions.TC.copy();
-        td.addColumn(key, DataType.TIMESTAMP);
-
-        Tuple t = new Tuple(td, new Object[] {
-                cmdId.getGenerationTime(),
-                cmdId.getOrigin(),
-                cmdId.getSequenceNumber(),
-                cmdId.getCommandName(),
-                instant
-        });
-        stream.emitTuple(t);
+        publish(cmdId, key, DataType.TIMESTAMP, instant);
     }
 
     @Override
@@ -75,43 +57,43 @@ public class StreamCommandHistoryPublisher implements CommandHistoryPublisher {
     }
 
     public void publish(CommandId cmdId, String key, DataType dt, Object value) {
-        TupleDefinition td = StandardTupleDefinitions.TC.copy();
-        td.addColumn(key, dt);
-
-        Tuple t = new Tuple(td, new Object[] {
-                cmdId.getGenerationTime(),
-                cmdId.getOrigin(),
-                cmdId.getSequenceNumber(),
-                cmdId.getCommandName(),
-                value
-        });
-        stream.emitTuple(t);
+        coalescer.update(cmdId, Arrays.asList(key), Arrays.asList(dt), Arrays.asList(value), false);
     }
 
     @Override
     public void publishAck(CommandId cmdId, String key, long time, AckStatus state,
             String message, ParameterValue resultPv) {
-        TupleDefinition td = StandardTupleDefinitions.TC.copy();
-        td.addColumn(key + SUFFIX_STATUS, DataType.STRING);
-        td.addColumn(key + SUFFIX_TIME, DataType.TIMESTAMP);
-        List<Object> vals = new ArrayList<>(Arrays.asList(cmdId.getGenerationTime(), cmdId.getOrigin(),
-                cmdId.getSequenceNumber(), cmdId.getCommandName(), state.toString(),
-                time));
+        List<String> columns = new ArrayList<>(4);
+        List<DataType> types = new ArrayList<>(4);
+        List<Object> values = new ArrayList<>(4);
+        columns.add(key + SUFFIX_STATUS);
+        types.add(DataType.STRING);
+        values.add(state.toString());
+        columns.add(key + SUFFIX_TIME);
+        types.add(DataType.TIMESTAMP);
+        values.add(time);
 
         if (message != null) {
-            td.addColumn(key + SUFFIX_MESSAGE, DataType.STRING);
-            vals.add(message);
+            columns.add(key + SUFFIX_MESSAGE);
+            types.add(DataType.STRING);
+            values.add(message);
         }
         if (resultPv != null) {
-            td.addColumn(key + SUFFIX_RETURN, DataType.PARAMETER_VALUE);
-            vals.add(resultPv);
+            columns.add(key + SUFFIX_RETURN);
+            types.add(DataType.PARAMETER_VALUE);
+            values.add(resultPv);
         }
-        stream.emitTuple(new Tuple(td, vals));
+        coalescer.update(cmdId, columns, types, values, isFinal(key, state));
     }
 
     @Override
     public void addCommand(PreparedCommand pc) {
-        stream.emitTuple(pc.toTuple());
+        coalescer.emit(pc.getCommandId(), pc.toTuple());
+    }
+
+    static boolean isFinal(String key, AckStatus state) {
+        return CommandComplete_KEY.equals(key)
+                && state != AckStatus.NA && state != AckStatus.SCHEDULED && state != AckStatus.PENDING;
     }
 
     public String getInstance() {
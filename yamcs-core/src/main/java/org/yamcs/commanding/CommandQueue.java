@@ -24,6 +24,10 @@ import org.yamcs.xtce.MetaCommand;
 import org.yamcs.xtce.Significance.Levels;
 import org.yamcs.xtce.SystemParameter;
 
+/**
+ * A command queue. The operations modifying the commands of the queue are performed by the
+ * {@link CommandQueueManager} while synchronized on the queue object.
+ */
 public class CommandQueue {
 
     private String name;
@@ -34,7 +38,7 @@ public class CommandQueue {
 
     private ConcurrentLinkedQueue<ActiveCommand> commands = new ConcurrentLinkedQueue<>();
     QueueState defaultState;
-    QueueState state;
+    volatile QueueState state;
     Processor processor;
 
     int nbSentCommands = 0;
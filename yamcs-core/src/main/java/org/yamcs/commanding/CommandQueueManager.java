@@ -2,19 +2,22 @@ package org.yamcs.commanding;
 
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashMap;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
 import org.yamcs.ConfigurationException;
-import org.yamcs.GuardedBy;
 import org.yamcs.Processor;
 import org.yamcs.Spec;
 import org.yamcs.Spec.OptionType;
@@ -39,10 +42,12 @@ import org.yamcs.protobuf.Commanding.CommandHistoryAttribute;
 import org.yamcs.protobuf.Commanding.CommandId;
 import org.yamcs.protobuf.Commanding.QueueState;
 import org.yamcs.protobuf.Yamcs.Value;
+import org.yamcs.protobuf.Yamcs.Value.Type;
 import org.yamcs.security.User;
 import org.yamcs.time.TimeService;
 import org.yamcs.xtce.Parameter;
 import org.yamcs.xtce.Significance.Levels;
+import org.yamcs.xtce.SystemParameter;
 import org.yamcs.xtce.TransmissionConstraint;
 
 import com.google.common.util.concurrent.AbstractService;
@@ -59,20 +64,32 @@ import com.google.common.util.concurrent.AbstractService;
  * Note: the update of the command monitors is done in the same thread. That means that if the connection to one of the
  * monitors is lost, there may be a delay of a few seconds. As the monitoring clients will be priviledged users most
  * likely connected in the same LAN, I don't consider this to be an issue.
+ * <p>
+ * The operations on the commands are serialized per queue (by synchronizing on the {@link CommandQueue}) such that the
+ * commands going through different queues do not contend with each other. The set of queues does not change after
+ * construction.
+ * <p>
+ * The commands waiting for transmission constraints are indexed by the parameters their constraints depend on; a TM
+ * delivery re-evaluates only the commands whose constraint parameters are part of it.
  */
 @ThreadSafe
 public class CommandQueueManager extends AbstractService implements ParameterProcessor, SystemParametersProducer {
     private static final String MEMENTO_KEY = "yamcs.queues";
 
-    @GuardedBy("this")
-    private HashMap<String, CommandQueue> queues = new LinkedHashMap<>();
+    private final Map<String, CommandQueue> queues = new LinkedHashMap<>();
 
     CommandHistoryPublisher commandHistoryPublisher;
     CommandingManager commandingManager;
     ConcurrentLinkedQueue<CommandQueueListener> monitoringClients = new ConcurrentLinkedQueue<>();
     private final Log log;
 
-    private Set<TransmissionConstraintChecker> pendingTcCheckers = new HashSet<>();
+    private final Set<TransmissionConstraintChecker> pendingTcCheckers = ConcurrentHashMap.newKeySet();
+
+    // pending transmission constraint checkers indexed by the parameters they depend on
+    private final Map<Parameter, Set<TransmissionConstraintChecker>> tcCheckersByParameter = new ConcurrentHashMap<>();
+    // the parameters subscribed to the parameter processor manager on behalf of the checkers
+    private final Set<Parameter> tcParameters = ConcurrentHashMap.newKeySet();
+    private int ppmSubscriptionId = -1;
 
     private final String instance;
     private final String processorName;
@@ -83,6 +100,13 @@ public class CommandQueueManager extends AbstractService implements ParameterPro
 
     private TimeService timeService;
 
+    private SystemParameter spPendingVerifiers;
+    private SystemParameter spTcEvaluations, spTcSkippedEvaluations;
+
+    // counters for the transmission constraint evaluations
+    private final LongAdder tcEvaluations = new LongAdder();
+    private final LongAdder tcSkippedEvaluations = new LongAdder();
+
     /**
      * Constructs a Command Queue Manager.
      * 
@@ -188,6 +212,14 @@ public class CommandQueueManager extends AbstractService implements ParameterPro
             for (CommandQueue cq : queues.values()) {
                 cq.setupSysParameters();
             }
+            spPendingVerifiers = sysParamCollector.createSystemParameter("cmdVerification/pendingVerifiers",
+                    Type.UINT32, "Number of command verifiers whose check window is open or scheduled to open");
+            spTcEvaluations = sysParamCollector.createSystemParameter("transmissionConstraints/evaluations",
+                    Type.UINT64, "Number of transmission constraint evaluations");
+            spTcSkippedEvaluations = sysParamCollector.createSystemParameter(
+                    "transmissionConstraints/skippedEvaluations", Type.UINT64,
+                    "Number of transmission constraint evaluations skipped because none of the parameters they depend"
+                            + " on has changed");
             sysParamCollector.registerProducer(this);
         }
 
@@ -200,6 +232,12 @@ public class CommandQueueManager extends AbstractService implements ParameterPro
         if (sysParamCollector != null) {
             sysParamCollector.unregisterProducer(this);
         }
+        synchronized (tcParameters) {
+            if (ppmSubscriptionId != -1) {
+                processor.getParameterProcessorManager().unsubscribe(ppmSubscriptionId);
+                ppmSubscriptionId = -1;
+            }
+        }
         notifyStopped();
     }
 
@@ -236,20 +274,80 @@ public class CommandQueueManager extends AbstractService implements ParameterPro
      * @param activeCommand
      * @return the queue the command was added to
      */
-    public synchronized CommandQueue addCommand(User user, ActiveCommand activeCommand) {
+    public CommandQueue addCommand(User user, ActiveCommand activeCommand) {
         commandHistoryPublisher.addCommand(activeCommand.getPreparedCommand());
 
         long missionTime = timeService.getMissionTime();
 
         CommandQueue q = getQueue(user, activeCommand.getPreparedCommand());
         if (q == null) {
-            log.warn("No queue available for command {}", activeCommand.getLoggingId());
-            commandHistoryPublisher.publishAck(activeCommand.getCommandId(),
-                    CommandHistoryPublisher.AcknowledgeQueued_KEY,
-                    missionTime, AckStatus.NOK, "No queue available");
-            unhandledCommand(activeCommand);
+            noQueueAvailable(activeCommand, missionTime);
             return null;
         }
+        synchronized (q) {
+            addCommand(q, activeCommand, missionTime);
+        }
+        return q;
+    }
+
+    /**
+     * Adds a batch of commands to their queues.
+     * <p>
+     * All the queues concerned are locked for the duration of the call, such that the commands going to the same queue
+     * are added in the order of the list, without commands from other issuers in between.
+     *
+     * @return the queue each command was added to; the elements corresponding to commands for which no queue was
+     *         available are null.
+     */
+    public List<CommandQueue> addCommands(User user, List<ActiveCommand> activeCommands) {
+        long missionTime = timeService.getMissionTime();
+        List<CommandQueue> cmdQueues = new ArrayList<>(activeCommands.size());
+        for (ActiveCommand activeCommand : activeCommands) {
+            commandHistoryPublisher.addCommand(activeCommand.getPreparedCommand());
+            CommandQueue q = getQueue(user, activeCommand.getPreparedCommand());
+            if (q == null) {
+                noQueueAvailable(activeCommand, missionTime);
+            }
+            cmdQueues.add(q);
+        }
+
+        // the queues are always locked in the same order to avoid deadlocks between concurrent batches
+        List<CommandQueue> toLock = new ArrayList<>();
+        for (CommandQueue q : queues.values()) {
+            if (cmdQueues.contains(q)) {
+                toLock.add(q);
+            }
+        }
+        runLocked(toLock, 0, () -> {
+            for (int i = 0; i < activeCommands.size(); i++) {
+                CommandQueue q = cmdQueues.get(i);
+                if (q != null) {
+                    addCommand(q, activeCommands.get(i), missionTime);
+                }
+            }
+        });
+        return cmdQueues;
+    }
+
+    private static void runLocked(List<CommandQueue> toLock, int idx, Runnable r) {
+        if (idx == toLock.size()) {
+            r.run();
+        } else {
+            synchronized (toLock.get(idx)) {
+                runLocked(toLock, idx + 1, r);
+            }
+        }
+    }
+
+    private void noQueueAvailable(ActiveCommand activeCommand, long missionTime) {
+        log.warn("No queue available for command {}", activeCommand.getLoggingId());
+        commandHistoryPublisher.publishAck(activeCommand.getCommandId(),
+                CommandHistoryPublisher.AcknowledgeQueued_KEY,
+                missionTime, AckStatus.NOK, "No queue available");
+        unhandledCommand(activeCommand);
+    }
+
+    private void addCommand(CommandQueue q, ActiveCommand activeCommand, long missionTime) {
         log.debug("Adding command {} to queue {}; queue state: {}", activeCommand.getLoggingId(), q.getName(),
                 q.getState());
         q.add(activeCommand);
@@ -276,8 +374,6 @@ public class CommandQueueManager extends AbstractService implements ParameterPro
             preReleaseCommand(q, activeCommand);
 
         }
-
-        return q;
     }
 
     // if there are transmission constraints, start the checker;
@@ -320,6 +416,17 @@ public class CommandQueueManager extends AbstractService implements ParameterPro
 
         pendingTcCheckers.remove(tcChecker);
 
+        synchronized (q) {
+            if (!q.getCommands().contains(pc)) {
+                // rejected in the meanwhile
+                return;
+            }
+            onTransmissionConstraintCheckFinished(q, pc, status, missionTime);
+        }
+    }
+
+    private void onTransmissionConstraintCheckFinished(CommandQueue q, ActiveCommand pc, TCStatus status,
+            long missionTime) {
         if (status == TCStatus.OK) {
             q.remove(pc, true);
             commandHistoryPublisher.publishAck(pc.getCommandId(), CommandHistoryPublisher.TransmissionConstraints_KEY,
@@ -470,34 +577,28 @@ public class CommandQueueManager extends AbstractService implements ParameterPro
      *            the username rejecting the command
      * @return the command removed from the queeu
      */
-    public synchronized PreparedCommand rejectCommand(CommandId commandId, String username) {
+    public PreparedCommand rejectCommand(CommandId commandId, String username) {
         log.info("called to remove command: {}", commandId);
-        ActiveCommand activeCommand = null;
-        CommandQueue queue = null;
         for (CommandQueue q : queues.values()) {
-            activeCommand = q.getcommand(commandId);
-            if (activeCommand != null) {
-                queue = q;
-                break;
+            synchronized (q) {
+                ActiveCommand activeCommand = q.getcommand(commandId);
+                if (activeCommand != null) {
+                    q.remove(activeCommand, false);
+                    long missionTime = timeService.getMissionTime();
+                    commandHistoryPublisher.publishAck(activeCommand.getCommandId(),
+                            CommandHistoryPublisher.AcknowledgeReleased_KEY, missionTime, AckStatus.NOK,
+                            "Rejected by " + username);
+                    failedCommand(q, activeCommand, "Rejected by " + username, true);
+                    notifyUpdateQueue(q);
+                    return activeCommand.getPreparedCommand();
+                }
             }
-
-        }
-        if (activeCommand != null) {
-            queue.remove(activeCommand, false);
-            long missionTime = timeService.getMissionTime();
-            commandHistoryPublisher.publishAck(activeCommand.getCommandId(),
-                    CommandHistoryPublisher.AcknowledgeReleased_KEY, missionTime, AckStatus.NOK,
-                    "Rejected by " + username);
-            failedCommand(queue, activeCommand, "Rejected by " + username, true);
-            notifyUpdateQueue(queue);
-            return activeCommand.getPreparedCommand();
-        } else {
-            log.warn("command not found in any queue");
-            return null;
         }
+        log.warn("command not found in any queue");
+        return null;
     }
 
-    public synchronized PreparedCommand rejectCommand(String commandId, String username) {
+    public PreparedCommand rejectCommand(String commandId, String username) {
         for (CommandQueue q : queues.values()) {
             ActiveCommand activeCommand = q.getcommand(commandId);
             if (activeCommand != null) {
@@ -515,26 +616,20 @@ public class CommandQueueManager extends AbstractService implements ParameterPro
      *            - if to rebuild the command binary from the source
      * @return the prepared command sent
      */
-    public synchronized PreparedCommand sendCommand(CommandId commandId) {
-        ActiveCommand command = null;
-        CommandQueue queue = null;
+    public PreparedCommand sendCommand(CommandId commandId) {
         for (CommandQueue q : queues.values()) {
-            command = q.getcommand(commandId);
-            if (command != null) {
-                queue = q;
-                break;
+            synchronized (q) {
+                ActiveCommand command = q.getcommand(commandId);
+                if (command != null) {
+                    preReleaseCommand(q, command);
+                    return command.getPreparedCommand();
+                }
             }
         }
-        if (command != null) {
-            preReleaseCommand(queue, command);
-            return command.getPreparedCommand();
-        } else {
-            return null;
-        }
-
+        return null;
     }
 
-    public synchronized PreparedCommand sendCommand(String commandId) {
+    public PreparedCommand sendCommand(String commandId) {
         for (CommandQueue q : queues.values()) {
             ActiveCommand activeCommand = q.getcommand(commandId);
             if (activeCommand != null) {
@@ -554,22 +649,22 @@ public class CommandQueueManager extends AbstractService implements ParameterPro
      *            the new state of the queue
      * @return the queue whose state has been changed or null if no queue by the name exists
      */
-    public synchronized CommandQueue setQueueState(String queueName, QueueState newState/* , boolean rebuild */) {
-        CommandQueue queue = null;
-        for (CommandQueue q : queues.values()) {
-            if (q.getName().equals(queueName)) {
-                queue = q;
-                break;
-            }
-        }
+    public CommandQueue setQueueState(String queueName, QueueState newState/* , boolean rebuild */) {
+        CommandQueue queue = queues.get(queueName);
         if (queue == null) {
             return null;
         }
-
-        if (queue.state == newState) {
-            return queue;
+        synchronized (queue) {
+            if (queue.state == newState) {
+                return queue;
+            }
+            setQueueState(queue, newState);
         }
+        saveMemento();
+        return queue;
+    }
 
+    private void setQueueState(CommandQueue queue, QueueState newState) {
         queue.state = newState;
         if (queue.state == QueueState.ENABLED) {
             for (ActiveCommand pc : queue.getCommands()) {
@@ -588,11 +683,9 @@ public class CommandQueueManager extends AbstractService implements ParameterPro
 
         // Notify the monitoring clients
         notifyUpdateQueue(queue);
-        saveMemento();
-        return queue;
     }
 
-    private void saveMemento() {
+    private synchronized void saveMemento() {
         var memento = new CommandQueueMemento();
         for (var queue : queues.values()) {
             var state = CommandQueueState.forQueue(queue);
@@ -626,17 +719,85 @@ public class CommandQueueManager extends AbstractService implements ParameterPro
     }
 
     /**
-     * Called from PRM when new telemetry data is available
+     * Returns the number of transmission constraint evaluations performed so far.
+     */
+    public long getTransmissionConstraintEvaluations() {
+        return tcEvaluations.sum();
+    }
+
+    /**
+     * Returns the number of transmission constraint evaluations skipped so far because none of the parameters the
+     * constraint depends on had changed.
+     */
+    public long getSkippedTransmissionConstraintEvaluations() {
+        return tcSkippedEvaluations.sum();
+    }
+
+    /**
+     * Called from PRM when new telemetry data containing parameters used in transmission constraints is available.
+     * <p>
+     * Only the checkers depending on the parameters in the delivery are run.
      */
     @Override
     public void process(ProcessingData tmData) {
-        for (TransmissionConstraintChecker tcc : pendingTcCheckers) {
-            tcc.checkWithTm(tmData);
+        Set<TransmissionConstraintChecker> checkers = null;
+        Set<Parameter> changed = null;
+        for (ParameterValue pv : tmData.getTmParams()) {
+            Set<TransmissionConstraintChecker> s = tcCheckersByParameter.get(pv.getParameter());
+            if (s != null && !s.isEmpty()) {
+                if (checkers == null) {
+                    checkers = new LinkedHashSet<>();
+                    changed = new HashSet<>();
+                }
+                checkers.addAll(s);
+                changed.add(pv.getParameter());
+            }
+        }
+        if (checkers != null) {
+            for (TransmissionConstraintChecker tcc : checkers) {
+                tcc.checkWithTm(tmData, changed);
+            }
+        }
+    }
+
+    private void indexChecker(TransmissionConstraintChecker tcc) {
+        List<Parameter> newParams = new ArrayList<>();
+        for (Parameter p : tcc.parameters) {
+            tcCheckersByParameter.computeIfAbsent(p, k -> ConcurrentHashMap.newKeySet()).add(tcc);
+            if (!tcParameters.contains(p)) {
+                newParams.add(p);
+            }
+        }
+        if (newParams.isEmpty()) {
+            return;
+        }
+        // the parameters are kept in the subscription after the checkers are finished, the index decides who is
+        // called
+        synchronized (tcParameters) {
+            newParams.removeIf(p -> !tcParameters.add(p));
+            if (newParams.isEmpty()) {
+                return;
+            }
+            ParameterProcessorManager ppm = processor.getParameterProcessorManager();
+            if (ppmSubscriptionId == -1) {
+                ppmSubscriptionId = ppm.subscribe(newParams, this);
+            } else {
+                ppm.addItemsToSubscription(ppmSubscriptionId, newParams);
+            }
+        }
+    }
+
+    private void unindexChecker(TransmissionConstraintChecker tcc) {
+        for (Parameter p : tcc.parameters) {
+            Set<TransmissionConstraintChecker> s = tcCheckersByParameter.get(p);
+            if (s != null) {
+                s.remove(tcc);
+            }
         }
     }
 
     private void scheduleCheck(final TransmissionConstraintChecker tcc, long millisec) {
-        timer.schedule(tcc::checkImmediate, millisec, TimeUnit.MILLISECONDS);
+        processor.getTimingWheel().schedule(tcc::checkImmediate, millisec, TimeUnit.MILLISECONDS);
     }
 
     enum TCStatus {
@@ -648,7 +809,8 @@ public class CommandQueueManager extends AbstractService implements ParameterPro
         final List<TransmissionConstraintStatus> tcsList = new ArrayList<>();
         final ActiveCommand activeCommand;
         final CommandQueue queue;
-        int ppmSubscriptionId = -1;
+        // the parameters (other than command parameters) the constraints depend on
+        final Set<Parameter> parameters;
 
         public TransmissionConstraintChecker(CommandQueue queue, ActiveCommand activeCommand) {
             this.activeCommand = activeCommand;
@@ -660,17 +822,11 @@ public class CommandQueueManager extends AbstractService implements ParameterPro
                 TransmissionConstraintStatus tcs = new TransmissionConstraintStatus(tc);
                 tcsList.add(tcs);
             }
-            Set<Parameter> pset = activeCommand.getMetaCommand().getTransmissionConstraintList()
-                    .stream()
-                    .flatMap(tcs -> tcs.getMatchCriteria().getDependentParameters().stream())
-                    .filter(p -> !p.isCommandParameter())
+            Set<Parameter> pset = tcsList.stream()
+                    .flatMap(tcs -> tcs.parameters.stream())
                     .collect(Collectors.toSet());
-
-            if (!pset.isEmpty()) {
-                ParameterProcessorManager ppm = processor.getParameterProcessorManager();
-                ppmSubscriptionId = ppm.subscribe(pset, tmData -> checkWithTm(tmData));
-            }
-
+            parameters = pset.isEmpty() ? Collections.emptySet() : pset;
+            indexChecker(this);
         }
 
         /**
@@ -678,15 +834,18 @@ public class CommandQueueManager extends AbstractService implements ParameterPro
          * <p>
          * We cannot move the processing data on a different thread, so we do the check here and use the result in the
          * timer thread.
+         * <p>
+         * Only the constraints depending on the changed parameters are evaluated, the others keep their previous
+         * result.
          */
-        public void checkWithTm(ProcessingData tmData) {
+        public void checkWithTm(ProcessingData tmData, Set<Parameter> changed) {
             if (aggregateStatus != TCStatus.PENDING) {
                 return;
             }
             ProcessingData cmdData = ProcessingData.cloneForCommanding(tmData, activeCommand.getArguments(),
                     activeCommand.getCmdParamCache());
 
-            check(System.currentTimeMillis(), cmdData);
+            check(System.currentTimeMillis(), cmdData, changed);
         }
 
         public void checkImmediate() {
@@ -704,10 +863,14 @@ public class CommandQueueManager extends AbstractService implements ParameterPro
             }
             ProcessingData cmdData = ProcessingData.createInitial(processor.getLastValueCache(),
                     activeCommand.getArguments(), activeCommand.getCmdParamCache());
-            check(now, cmdData);
+            check(now, cmdData, null);
         }
 
-        private void check(long now, ProcessingData data) {
+        /**
+         * @param changed
+         *            the parameters updated since the previous check; if null, all the constraints are evaluated
+         */
+        private void check(long now, ProcessingData data, Set<Parameter> changed) {
             TcsUpdate tcsUpdate = new TcsUpdate();
             tcsUpdate.aggrStatus = TCStatus.OK;
             tcsUpdate.scheduleNextCheck = Long.MAX_VALUE;
@@ -721,7 +884,7 @@ public class CommandQueueManager extends AbstractService implements ParameterPro
                         tcsUpdate.aggrStatus = TCStatus.TIMED_OUT;
                         break;
                     } else {
-                        if (tcs.evaluator.evaluate(data) != MatchResult.OK) {
+                        if (tcs.evaluate(data, changed) != MatchResult.OK) {
                             if (timeRemaining > 0) {
                                 tcsUpdate.aggrStatus = TCStatus.PENDING;
                                 if (timeRemaining < tcsUpdate.scheduleNextCheck) {
@@ -753,9 +916,7 @@ public class CommandQueueManager extends AbstractService implements ParameterPro
         }
 
         void unsubscribe() {
-            if (ppmSubscriptionId != -1) {
-                processor.getParameterProcessorManager().unsubscribe(ppmSubscriptionId);
-            }
+            unindexChecker(this);
         }
     }
 
@@ -766,16 +927,39 @@ public class CommandQueueManager extends AbstractService implements ParameterPro
         long scheduleNextCheck;
     }
 
-    static class TransmissionConstraintStatus {
+    class TransmissionConstraintStatus {
         TransmissionConstraint constraint;
         TCStatus status;
         long expirationTime;
         MatchCriteriaEvaluator evaluator;
+        // the parameters (other than command parameters) the constraint depends on
+        final Set<Parameter> parameters;
+        // the result of the last evaluation, null if not yet evaluated
+        volatile MatchResult lastResult;
 
         public TransmissionConstraintStatus(TransmissionConstraint tc) {
             this.constraint = tc;
             status = TCStatus.PENDING;
             evaluator = MatchCriteriaEvaluatorFactory.getEvaluator(tc.getMatchCriteria());
+            parameters = tc.getMatchCriteria().getDependentParameters().stream()
+                    .filter(p -> !p.isCommandParameter())
+                    .collect(Collectors.toSet());
+        }
+
+        /**
+         * Evaluates the constraint unless none of its parameters has changed since the last evaluation, in which case
+         * the previous result is returned.
+         */
+        MatchResult evaluate(ProcessingData data, Set<Parameter> changed) {
+            MatchResult result = lastResult;
+            if (result != null && changed != null && Collections.disjoint(parameters, changed)) {
+                tcSkippedEvaluations.increment();
+                return result;
+            }
+            tcEvaluations.increment();
+            result = evaluator.evaluate(data);
+            lastResult = result;
+            return result;
         }
     }
 
@@ -785,6 +969,11 @@ public class CommandQueueManager extends AbstractService implements ParameterPro
         for (CommandQueue cq : queues.values()) {
             cq.fillInSystemParameters(pvlist, time);
         }
+        pvlist.add(SystemParametersService.getUnsignedIntPV(spPendingVerifiers, time,
+                commandingManager.getPendingVerifierCount()));
+        pvlist.add(SystemParametersService.getPV(spTcEvaluations, time, getTransmissionConstraintEvaluations()));
+        pvlist.add(SystemParametersService.getPV(spTcSkippedEvaluations, time,
+                getSkippedTransmissionConstraintEvaluations()));
         return pvlist;
     }
 }
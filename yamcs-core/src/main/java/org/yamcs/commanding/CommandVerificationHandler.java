@@ -6,6 +6,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.yamcs.ConfigurationException;
 import org.yamcs.Processor;
@@ -22,6 +23,7 @@ import org.yamcs.parameter.Value;
 import org.yamcs.protobuf.Commanding.CommandId;
 import org.yamcs.protobuf.Commanding.VerifierConfig;
 import org.yamcs.utils.StringConverter;
+import org.yamcs.utils.TimingWheel;
 import org.yamcs.xtce.Argument;
 import org.yamcs.xtce.CheckWindow;
 import org.yamcs.xtce.CheckWindow.TimeWindowIsRelativeToType;
@@ -42,6 +44,7 @@ public class CommandVerificationHandler implements CommandHistoryConsumer {
     final Processor processor;
     final ActiveCommand activeCommand;
     final ScheduledThreadPoolExecutor timer;
+    final TimingWheel timingWheel;
     final Map<Argument, ArgumentValue> cmdArguments;
     final CommandingManager commandingManager;
 
@@ -54,6 +57,7 @@ public class CommandVerificationHandler implements CommandHistoryConsumer {
         this.processor = commandingManager.getProcessor();
         this.activeCommand = pc;
         this.timer = processor.getTimer();
+        this.timingWheel = processor.getTimingWheel();
         log = new Log(this.getClass(), processor.getInstance());
         this.cmdArguments = activeCommand.getArguments();
     }
@@ -183,12 +187,27 @@ public class CommandVerificationHandler implements CommandHistoryConsumer {
         algorithmCtx = algMgr.createContext(activeCommand.getCmdName());
     }
 
+    /**
+     * Schedules the start and the end of the verifier check window.
+     * <p>
+     * The windows are scheduled on the processor timing wheel, such that they can be cancelled cheaply when the
+     * verifier finishes before the end of the window.
+     */
     private void scheduleVerifier(final Verifier verifier, long windowStart, long windowStop) {
         CommandHistoryPublisher cmdHistPublisher = processor.getCommandHistoryPublisher();
         String histKey = getHistKey(verifier.cv);
+        if (windowStop <= 0) {
+            throw new IllegalArgumentException("The window stop has to be greater than 0");
+        }
+        AtomicInteger pendingVerifiers = commandingManager.pendingVerifiers;
+        pendingVerifiers.incrementAndGet();
+        verifier.windowStop = timingWheel.schedule(() -> {
+            pendingVerifiers.decrementAndGet();
+            verifier.timeout();
+        }, windowStop, TimeUnit.MILLISECONDS);
 
         if (windowStart > 0) {
-            timer.schedule(() -> {
+            verifier.windowStart = timingWheel.schedule(() -> {
                 if (verifier.state == State.NEW) {
                     cmdHistPublisher.publishAck(activeCommand.getCommandId(), histKey, processor.getCurrentTime(),
                             AckStatus.PENDING);
@@ -203,14 +222,16 @@ public class CommandVerificationHandler implements CommandHistoryConsumer {
                     AckStatus.PENDING);
             verifier.start();
         }
+    }
 
-        if (windowStop <= 0) {
-            throw new IllegalArgumentException("The window stop has to be greater than 0");
+    // cancels the scheduled window start/stop of the verifier
+    private void cancelWindow(Verifier verifier) {
+        if (verifier.windowStart != null) {
+            verifier.windowStart.cancel();
+        }
+        if (verifier.windowStop != null && verifier.windowStop.cancel()) {
+            commandingManager.pendingVerifiers.decrementAndGet();
         }
-
-        timer.schedule(() -> {
-            verifier.timeout();
-        }, windowStop, TimeUnit.MILLISECONDS);
     }
 
     private void startVerifier(Verifier verifier) {
@@ -232,6 +253,7 @@ public class CommandVerificationHandler implements CommandHistoryConsumer {
         Verifier.State state = v.getState();
         log.debug("Command {} verifier finished: {} result: {}",
                 StringConverter.toString(activeCommand.getCommandId()), v.cv, state);
+        cancelWindow(v);
         CommandVerifier cv = v.cv;
         CommandHistoryPublisher cmdHistPublisher = processor.getCommandHistoryPublisher();
         String histKey = CommandHistoryPublisher.Verifier_KEY_PREFIX + "_" + cv.getStage();
@@ -1,9 +1,11 @@
 package org.yamcs.commanding;
 
+import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -40,6 +42,8 @@ public class CommandingManager extends AbstractService {
     final MetaCommandProcessor metaCommandProcessor;
     final private CommandHistoryRequestManager cmdHistoryManager;
     final CommandReleaser commandReleaser;
+    // number of verifiers whose check window is open or scheduled
+    final AtomicInteger pendingVerifiers = new AtomicInteger();
 
     /**
      * Keeps a reference to the channel and creates the queue manager
@@ -60,18 +64,34 @@ public class CommandingManager extends AbstractService {
         return commandQueueManager;
     }
 
+    /**
+     * Returns the number of command verifiers whose check window is open or scheduled to open
+     */
+    public int getPendingVerifierCount() {
+        return pendingVerifiers.get();
+    }
+
     /**
      * Creates a new {@link PreparedCommand} where the binary is created by processing the provided arguments and
      * matching it against the MDB definition.
      */
     public PreparedCommand buildCommand(MetaCommand mc, Map<String, Object> argAssignmentList, String origin,
             int seq, User user) throws ErrorInCommand, YamcsException {
+        return buildCommand(mc, argAssignmentList, origin, seq, processor.getCurrentTime(), user);
+    }
+
+    /**
+     * Same as {@link #buildCommand(MetaCommand, Map, String, int, User)} but with the generation time of the command
+     * given by the caller.
+     */
+    public PreparedCommand buildCommand(MetaCommand mc, Map<String, Object> argAssignmentList, String origin,
+            int seq, long generationTime, User user) throws ErrorInCommand, YamcsException {
         log.debug("Building command {} with arguments {}", mc.getName(), argAssignmentList);
 
         CommandBuildResult cbr = metaCommandProcessor.buildCommand(mc, argAssignmentList);
 
         CommandId cmdId = CommandId.newBuilder().setCommandName(mc.getQualifiedName()).setOrigin(origin)
-                .setSequenceNumber(seq).setGenerationTime(processor.getCurrentTime()).build();
+                .setSequenceNumber(seq).setGenerationTime(generationTime).build();
         PreparedCommand pc = new PreparedCommand(cmdId);
         pc.setMetaCommand(mc);
         if (cbr.getCmdPacket() != null) {
@@ -115,6 +135,23 @@ public class CommandingManager extends AbstractService {
         return commandQueueManager.addCommand(user, activeCommand);
     }
 
+    /**
+     * Sends a batch of commands. The commands going to the same queue are added to it in the order of the list.
+     *
+     * @return the queue that each command was sent to
+     */
+    public List<CommandQueue> sendCommands(User user, List<PreparedCommand> pcs) {
+        List<ActiveCommand> activeCommands = new ArrayList<>(pcs.size());
+        for (PreparedCommand pc : pcs) {
+            log.debug("sendCommand command={}", StringConverter.toString(pc.getCommandId()));
+            ActiveCommand activeCommand = new ActiveCommand(processor, pc);
+            cmdHistoryManager.addCommand(pc);
+            cmdHistoryManager.subscribeCommand(pc.getCommandId(), activeCommand);
+            activeCommands.add(activeCommand);
+        }
+        return commandQueueManager.addCommands(user, activeCommands);
+    }
+
     public void setCommandAttribute(CommandId commandId, CommandHistoryAttribute attribute) {
         commandQueueManager.addToCommandHistory(commandId, attribute);
     }
@@ -4,6 +4,7 @@ import java.util.concurrent.ScheduledThreadPoolExecutor;
 
 import org.yamcs.logging.Log;
 import org.yamcs.parameter.ParameterValue;
+import org.yamcs.utils.TimingWheel.Timeout;
 import org.yamcs.xtce.CommandVerifier;
 import org.yamcs.mdb.Mdb;
 
@@ -28,6 +29,9 @@ abstract class Verifier {
 
     Verifier nextVerifier;
 
+    // the timeouts for the start and the end of the check window, scheduled by the verification handler
+    Timeout windowStart, windowStop;
+
     Verifier(CommandVerificationHandler cvh, CommandVerifier cv) {
         this.cv = cv;
         this.cvh = cvh;
@@ -0,0 +1,323 @@
+package org.yamcs.events;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.yamcs.AbstractYamcsService;
+import org.yamcs.ConfigurationException;
+import org.yamcs.InitException;
+import org.yamcs.Spec;
+import org.yamcs.Spec.OptionType;
+import org.yamcs.YConfiguration;
+import org.yamcs.YamcsServer;
+import org.yamcs.archive.EventRecorder;
+import org.yamcs.parameter.ParameterValue;
+import org.yamcs.parameter.SystemParametersProducer;
+import org.yamcs.parameter.SystemParametersService;
+import org.yamcs.protobuf.Event.EventSeverity;
+import org.yamcs.protobuf.Yamcs.Value.Type;
+import org.yamcs.utils.TimeEncoding;
+import org.yamcs.xtce.Parameter;
+import org.yamcs.yarch.Stream;
+import org.yamcs.yarch.Tuple;
+import org.yamcs.yarch.YarchDatabase;
+import org.yamcs.yarch.protobuf.Db.Event;
+
+/**
+ * Collapses the event storms produced inside Yamcs (for example by a misbehaving on-board task whose events are
+ * decoded by Yamcs) before they reach the realtime event stream.
+ * <p>
+ * The events sent with the {@link StreamEventProducer} are grouped by source, type, severity and message template
+ * (the message with the numbers replaced by {@code #}). In each window, the first {@code threshold} events of a
+ * group are passed through unchanged while the others are suppressed. At the end of the window, one event
+ * summarising the suppressed events is emitted, having the {@code count}, {@code firstTime} and {@code lastTime}
+ * extra properties.
+ * <p>
+ * The threshold is adaptive: it is halved for each consecutive window in which the group has exceeded it (down to
+ * {@code minThreshold}) and it is restored after a window without storm.
+ * <p>
+ * The number of suppressed events, the number of summary events and the number of ongoing storms are provided as
+ * system parameters.
+ */
+public class EventAggregator extends AbstractYamcsService implements SystemParametersProducer {
+
+    long windowMillis;
+    int threshold;
+    int minThreshold;
+    int maxGroups;
+
+    private Stream realtimeEventStream;
+    private final Map<GroupKey, Group> groups = new ConcurrentHashMap<>();
+    private ScheduledFuture<?> flushFuture;
+
+    private final AtomicLong suppressedCount = new AtomicLong();
+    private final AtomicLong summaryCount = new AtomicLong();
+    private volatile int stormCount;
+
+    private Parameter spSuppressedCount, spSummaryCount, spStormCount;
+
+    @Override
+    public Spec getSpec() {
+        Spec spec = new Spec();
+        spec.addOption("window", OptionType.INTEGER).withDefault(10000)
+                .withDescription("Length in milliseconds of the aggregation window");
+        spec.addOption("threshold", OptionType.INTEGER).withDefault(10)
+                .withDescription("Number of identical events passed through in one window before suppressing them");
+        spec.addOption("minThreshold", OptionType.INTEGER).withDefault(1)
+                .withDescription("Lowest value the threshold decreases to during a long storm");
+        spec.addOption("maxGroups", OptionType.INTEGER).withDefault(10000)
+                .withDescription("Maximum number of event groups tracked in one window. "
+                        + "Events not fitting in any group are passed through.");
+        return spec;
+    }
+
+    @Override
+    public void init(String yamcsInstance, String serviceName, YConfiguration config) throws InitException {
+        super.init(yamcsInstance, serviceName, config);
+        windowMillis = config.getInt("window");
+        threshold = config.getInt("threshold");
+        minThreshold = config.getInt("minThreshold");
+        maxGroups = config.getInt("maxGroups");
+        if (windowMillis <= 0 || minThreshold < 1 || threshold < minThreshold) {
+            throw new ConfigurationException("Invalid configuration: window has to be positive and "
+                    + "threshold has to be greater than or equal to minThreshold which has to be at least 1");
+        }
+        realtimeEventStream = YarchDatabase.getInstance(yamcsInstance)
+                .getStream(EventRecorder.REALTIME_EVENT_STREAM_NAME);
+        if (realtimeEventStream == null) {
+            throw new ConfigurationException("Cannot find a stream named '" + EventRecorder.REALTIME_EVENT_STREAM_NAME
+                    + "' in instance " + yamcsInstance);
+        }
+    }
+
+    @Override
+    protected void doStart() {
+        var collector = SystemParametersService.getInstance(yamcsInstance);
+        if (collector != null) {
+            spSuppressedCount = collector.createSystemParameter("events/aggregation/suppressedCount", Type.UINT64,
+                    "Number of events suppressed during event storms since Yamcs has started");
+            spSummaryCount = collector.createSystemParameter("events/aggregation/summaryCount", Type.UINT64,
+                    "Number of events summarising the suppressed events since Yamcs has started");
+            spStormCount = collector.createSystemParameter("events/aggregation/stormCount", Type.UINT32,
+                    "Number of event groups which have exceeded their threshold in the last window");
+            collector.registerProducer(this);
+        }
+        flushFuture = YamcsServer.getServer().getThreadPoolExecutor().scheduleAtFixedRate(() -> {
+            try {
+                flush();
+            } catch (Exception e) {
+                log.error("Error flushing the aggregated events", e);
+            }
+        }, windowMillis, windowMillis, TimeUnit.MILLISECONDS);
+        notifyStarted();
+    }
+
+    @Override
+    protected void doStop() {
+        var collector = SystemParametersService.getInstance(yamcsInstance);
+        if (collector != null) {
+            collector.unregisterProducer(this);
+        }
+        flushFuture.cancel(false);
+        flush();
+        notifyStopped();
+    }
+
+    /**
+     * Called for each event sent inside Yamcs.
+     *
+     * @return true if the event has to be passed through or false if it is suppressed.
+     */
+    public boolean accept(Event event) {
+        GroupKey key = new GroupKey(event);
+        while (true) {
+            Group group = groups.get(key);
+            if (group == null) {
+                if (groups.size() >= maxGroups) {
+                    return true;
+                }
+                group = groups.computeIfAbsent(key, k -> new Group(threshold));
+            }
+            synchronized (group) {
+                if (group.removed) {
+                    // removed by the flush in the meanwhile
+                    continue;
+                }
+                group.count++;
+                if (group.count <= group.threshold) {
+                    return true;
+                }
+                if (group.firstSuppressed == null) {
+                    group.firstSuppressed = event;
+                }
+                group.lastSuppressed = event;
+                group.suppressed++;
+            }
+            suppressedCount.incrementAndGet();
+            return false;
+        }
+    }
+
+    /**
+     * Ends the current window: emits the summary events and adapts the thresholds.
+     * <p>
+     * Called regularly from the timer; it can be called from the unit tests as well.
+     */
+    void flush() {
+        int storms = 0;
+        List<Event> summaries = new ArrayList<>();
+        for (Iterator<Group> it = groups.values().iterator(); it.hasNext();) {
+            Group group = it.next();
+            synchronized (group) {
+                if (group.suppressed > 0) {
+                    summaries.add(summarize(group));
+                    storms++;
+                    group.stormWindows++;
+                    group.threshold = Math.max(minThreshold, threshold >> Math.min(group.stormWindows, 31));
+                } else if (group.count == 0) {
+                    // no event in the last window
+                    group.removed = true;
+                    it.remove();
+                    continue;
+                } else {
+                    group.stormWindows = 0;
+                    group.threshold = threshold;
+                }
+                group.count = 0;
+                group.suppressed = 0;
+                group.firstSuppressed = null;
+                group.lastSuppressed = null;
+            }
+        }
+        stormCount = storms;
+        for (Event ev : summaries) {
+            realtimeEventStream.emitTuple(new Tuple(realtimeEventStream.getDefinition(), new Object[] {
+                    ev.getGenerationTime(), ev.getSource(), ev.getSeqNumber(), ev }));
+        }
+        summaryCount.addAndGet(summaries.size());
+    }
+
+    private static Event summarize(Group group) {
+        Event last = group.lastSuppressed;
+        if (group.suppressed == 1) {
+            return last;
+        }
+        // the summary takes the primary key (gentime, source, seqNum) of the last suppressed event
+        return Event.newBuilder(last)
+                .setMessage("Repeated " + group.suppressed + " times: " + last.getMessage())
+                .putExtra("count", Integer.toString(group.suppressed))
+                .putExtra("firstTime", TimeEncoding.toString(group.firstSuppressed.getGenerationTime()))
+                .putExtra("lastTime", TimeEncoding.toString(last.getGenerationTime()))
+                .build();
+    }
+
+    public long getSuppressedCount() {
+        return suppressedCount.get();
+    }
+
+    public long getSummaryCount() {
+        return summaryCount.get();
+    }
+
+    /**
+     * Returns the number of event groups which have exceeded their threshold in the last window.
+     */
+    public int getStormCount() {
+        return stormCount;
+    }
+
+    @Override
+    public Collection<ParameterValue> getSystemParameters(long gentime) {
+        return List.of(
+                SystemParametersService.getPV(spSuppressedCount, gentime, suppressedCount.get()),
+                SystemParametersService.getPV(spSummaryCount, gentime, summaryCount.get()),
+                SystemParametersService.getUnsignedIntPV(spStormCount, gentime, stormCount));
+    }
+
+    /**
+     * Returns the message with each sequence of digits replaced by a {@code #} such that the messages differing only
+     * in the numbers they contain are part of the same group.
+     */
+    static String messageTemplate(String msg) {
+        StringBuilder sb = null;
+        boolean inNumber = false;
+        for (int i = 0; i < msg.length(); i++) {
+            char c = msg.charAt(i);
+            if (c >= '0' && c <= '9') {
+                if (sb == null) {
+                    sb = new StringBuilder(msg.length());
+                    sb.append(msg, 0, i);
+                }
+                if (!inNumber) {
+                    sb.append('#');
+                    inNumber = true;
+                }
+            } else {
+                inNumber = false;
+                if (sb != null) {
+                    sb.append(c);
+                }
+            }
+        }
+        return sb == null ? msg : sb.toString();
+    }
+
+    static final class GroupKey {
+        final String source;
+        final String type;
+        final EventSeverity severity;
+        final String template;
+        final int hash;
+
+        GroupKey(Event event) {
+            this.source = event.getSource();
+            this.type = event.hasType() ? event.getType() : null;
+            this.severity = event.getSeverity();
+            this.template = messageTemplate(event.getMessage());
+            this.hash = Objects.hash(source, type, severity, template);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof GroupKey)) {
+                return false;
+            }
+            GroupKey other = (GroupKey) obj;
+            return hash == other.hash && severity == other.severity && source.equals(other.source)
+                    && Objects.equals(type, other.type) && template.equals(other.template);
+        }
+    }
+
+    static final class Group {
+        int threshold;
+        // number of events received in the current window
+        int count;
+        // number of events suppressed in the current window
+        int suppressed;
+        // number of consecutive windows in which the threshold was exceeded
+        int stormWindows;
+        Event firstSuppressed;
+        Event lastSuppressed;
+        boolean removed;
+
+        Group(int threshold) {
+            this.threshold = threshold;
+        }
+    }
+}
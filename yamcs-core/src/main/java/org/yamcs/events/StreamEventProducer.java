@@ -1,8 +1,12 @@
 package org.yamcs.events;
 
+import java.util.List;
+
 import org.yamcs.ConfigurationException;
 import org.yamcs.YamcsServer;
+import org.yamcs.YamcsServerInstance;
 import org.yamcs.archive.EventRecorder;
+import org.yamcs.protobuf.YamcsInstance.InstanceState;
 import org.yamcs.yarch.protobuf.Db.Event;
 import org.yamcs.time.TimeService;
 import org.yamcs.utils.TimeEncoding;
@@ -13,17 +17,26 @@ import org.yamcs.yarch.YarchDatabase;
 
 /**
  * Event producer used from inside Yamcs to report events. It writes directly to the realtime_event stream
+ * <p>
+ * If an {@link EventAggregator} is configured for the instance, the events are passed through it such that the
+ * event storms are collapsed.
  * 
  * 
  * @author nm
  *
  */
 public class StreamEventProducer extends AbstractEventProducer {
+    final String yamcsInstance;
     final Stream realtimeEventStream;
     final TupleDefinition tdef;
     final TimeService timeService;
 
+    // resolved once the services of the instance are known; null if there is no aggregator
+    private volatile EventAggregator aggregator;
+    private volatile boolean aggregatorResolved;
+
     public StreamEventProducer(String yamcsInstance) {
+        this.yamcsInstance = yamcsInstance;
         realtimeEventStream = YarchDatabase.getInstance(yamcsInstance)
                 .getStream(EventRecorder.REALTIME_EVENT_STREAM_NAME);
         if (realtimeEventStream == null) {
@@ -37,12 +50,43 @@ public class StreamEventProducer extends AbstractEventProducer {
 
     @Override
     public void sendEvent(Event event) {
+        EventAggregator aggregator = getAggregator();
+        if (aggregator != null && aggregator.isRunning() && !aggregator.accept(event)) {
+            return;
+        }
         Tuple t = new Tuple(tdef, new Object[] { event.getGenerationTime(),
                 event.getSource(), event.getSeqNumber(), event });
 
         realtimeEventStream.emitTuple(t);
     }
 
+    private EventAggregator getAggregator() {
+        if (aggregatorResolved) {
+            return aggregator;
+        }
+        YamcsServerInstance ysi = YamcsServer.getServer().getInstance(yamcsInstance);
+        if (ysi == null) {
+            return null;
+        }
+        InstanceState state = ysi.state();
+        if (state == InstanceState.OFFLINE || state == InstanceState.INITIALIZING) {
+            // the services may not be created yet
+            return null;
+        }
+        List<EventAggregator> aggregators = ysi.getServices(EventAggregator.class);
+        aggregator = aggregators.isEmpty() ? null : aggregators.get(0);
+        aggregatorResolved = true;
+        return aggregator;
+    }
+
+    /**
+     * Sets the aggregator to be used instead of the one found in the instance services.
+     */
+    void setAggregator(EventAggregator aggregator) {
+        this.aggregator = aggregator;
+        aggregatorResolved = true;
+    }
+
     @Override
     public void close() {
         //no resource to release
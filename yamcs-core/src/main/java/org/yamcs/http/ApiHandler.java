@@ -24,6 +24,7 @@ import io.netty.handler.codec.http.websocketx.WebSocketServerProtocolHandler;
 import io.netty.handler.codec.http.websocketx.extensions.compression.WebSocketServerCompressionHandler;
 import io.netty.handler.codec.protobuf.ProtobufDecoder;
 import io.netty.handler.codec.protobuf.ProtobufVarint32FrameDecoder;
+import io.netty.handler.flush.FlushConsolidationHandler;
 import io.netty.handler.timeout.IdleStateHandler;
 
 public class ApiHandler extends HttpHandler {
@@ -121,6 +122,14 @@ public class ApiHandler extends HttpHandler {
 
         var pipeline = nettyContext.pipeline();
         pipeline.addLast(new HttpObjectAggregator(65536));
+
+        // Messages are written with a flush each, consolidate these flushes such that the messages written in the
+        // same event loop iteration are sent together. The unflushed messages are counted by the write buffer, so
+        // this does not affect the dropping of frames.
+        var maxConsolidatedFlushes = wsConfig.getInt("maxConsolidatedFlushes");
+        if (maxConsolidatedFlushes > 0) {
+            pipeline.addLast(new FlushConsolidationHandler(maxConsolidatedFlushes, true));
+        }
         pipeline.addLast(new WebSocketFrameDropper(waterMark.high()));
         pipeline.addLast(new WebSocketServerCompressionHandler());
 
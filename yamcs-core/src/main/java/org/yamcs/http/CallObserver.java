@@ -1,5 +1,6 @@
 package org.yamcs.http;
 
+import static io.netty.handler.codec.http.HttpResponseStatus.NOT_MODIFIED;
 import static io.netty.handler.codec.http.HttpResponseStatus.OK;
 import static io.netty.handler.codec.http.HttpVersion.HTTP_1_1;
 
@@ -24,7 +25,9 @@ import io.netty.buffer.ByteBufOutputStream;
 import io.netty.buffer.Unpooled;
 import io.netty.channel.ChannelFuture;
 import io.netty.handler.codec.http.DefaultFullHttpResponse;
+import io.netty.handler.codec.http.DefaultHttpHeaders;
 import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpHeaders;
 import io.netty.handler.codec.http.HttpRequest;
 import io.netty.handler.codec.http.HttpResponse;
 import io.netty.handler.codec.http.HttpResponseStatus;
@@ -47,7 +50,13 @@ public class CallObserver implements Observer<Message> {
 
     @Override
     public void next(Message message) {
-        if (message instanceof Empty) {
+        if (ctx.isNotModified()) {
+            HttpResponse httpResponse = new DefaultFullHttpResponse(HTTP_1_1, NOT_MODIFIED);
+            httpResponse.headers().set(HttpHeaderNames.ETAG, ctx.getEntityTag());
+            httpResponse.headers().set(HttpHeaderNames.VARY, HttpHeaderNames.ACCEPT);
+            httpResponse.headers().set(HttpHeaderNames.CONTENT_LENGTH, 0);
+            completeRequest(httpResponse);
+        } else if (message instanceof Empty) {
             HttpResponse httpResponse = new DefaultFullHttpResponse(HTTP_1_1, OK);
             httpResponse.headers().set(HttpHeaderNames.CONTENT_LENGTH, 0);
             completeRequest(httpResponse);
@@ -149,10 +158,18 @@ public class CallObserver implements Observer<Message> {
             }
         }
 
+        HttpHeaders extraHeaders = null;
+        if (ctx.getEntityTag() != null) {
+            extraHeaders = new DefaultHttpHeaders();
+            extraHeaders.set(HttpHeaderNames.ETAG, ctx.getEntityTag());
+            // the same tag is used for the JSON and the Protobuf encodings of the message
+            extraHeaders.set(HttpHeaderNames.VARY, HttpHeaderNames.ACCEPT);
+        }
+
         MediaType contentType = ctx.deriveTargetContentType();
         if (contentType != MediaType.JSON) {
             ctx.reportStatusCode(OK.code());
-            return HttpRequestHandler.sendMessageResponse(ctx.nettyContext, req, OK, responseMsg);
+            return HttpRequestHandler.sendMessageResponse(ctx.nettyContext, req, OK, responseMsg, extraHeaders);
         } else {
             ByteBuf body = ctx.nettyContext.alloc().buffer();
             try (ByteBufOutputStream channelOut = new ByteBufOutputStream(body)) {
@@ -168,6 +185,9 @@ public class CallObserver implements Observer<Message> {
             HttpResponse response = new DefaultFullHttpResponse(HTTP_1_1, OK, body);
             response.headers().set(HttpHeaderNames.CONTENT_TYPE, contentType.toString());
             response.headers().set(HttpHeaderNames.CONTENT_LENGTH, body.readableBytes());
+            if (extraHeaders != null) {
+                response.headers().add(extraHeaders);
+            }
             ctx.reportStatusCode(OK.code());
             return HttpRequestHandler.sendResponse(ctx.nettyContext, req, response);
         }
@@ -140,6 +140,20 @@ public abstract class Context {
         return statusCode;
     }
 
+    /**
+     * Associates an entity tag with the response of this call. The tag should change whenever the response would
+     * change.
+     * <p>
+     * Transports that support conditional requests include the tag in the response, and return true when the client
+     * indicated that its cached representation still matches the tag. In that case the caller may complete the call
+     * with any message (for example the default instance): no body is sent back.
+     * 
+     * @return true if the client already has an up to date copy of the response.
+     */
+    public boolean setEntityTag(String entityTag) {
+        return false;
+    }
+
     public void reportStatusCode(int statusCode) {
         // TODO It should be possible to refactor this such that
         // the HTTP status code becomes the result of the requestFuture.
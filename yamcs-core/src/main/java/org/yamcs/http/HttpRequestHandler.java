@@ -34,6 +34,7 @@ import io.netty.handler.codec.http.DefaultFullHttpResponse;
 import io.netty.handler.codec.http.FullHttpResponse;
 import io.netty.handler.codec.http.HttpContent;
 import io.netty.handler.codec.http.HttpContentCompressor;
+import io.netty.handler.codec.http.HttpHeaders;
 import io.netty.handler.codec.http.HttpMessage;
 import io.netty.handler.codec.http.HttpObjectAggregator;
 import io.netty.handler.codec.http.HttpRequest;
@@ -195,6 +196,15 @@ public class HttpRequestHandler extends ChannelInboundHandlerAdapter {
 
     public static <T extends Message> ChannelFuture sendMessageResponse(ChannelHandlerContext ctx, HttpRequest req,
             HttpResponseStatus status, T responseMsg) {
+        return sendMessageResponse(ctx, req, status, responseMsg, null);
+    }
+
+    /**
+     * Same as {@link #sendMessageResponse(ChannelHandlerContext, HttpRequest, HttpResponseStatus, Message)} but adds
+     * the specified headers (if not null) to the response.
+     */
+    public static <T extends Message> ChannelFuture sendMessageResponse(ChannelHandlerContext ctx, HttpRequest req,
+            HttpResponseStatus status, T responseMsg, HttpHeaders extraHeaders) {
         ByteBuf body = ctx.alloc().buffer();
         MediaType contentType = getAcceptType(req);
 
@@ -216,6 +226,9 @@ public class HttpRequestHandler extends ChannelInboundHandlerAdapter {
         HttpResponse response = new DefaultFullHttpResponse(HTTP_1_1, status, body);
         response.headers().set(CONTENT_TYPE, contentType.toString());
         response.headers().set(CONTENT_LENGTH, body.readableBytes());
+        if (extraHeaders != null) {
+            response.headers().add(extraHeaders);
+        }
 
         return sendResponse(ctx, req, response);
     }
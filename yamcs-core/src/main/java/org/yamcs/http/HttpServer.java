@@ -78,7 +78,12 @@ import io.netty.bootstrap.ServerBootstrap;
 import io.netty.buffer.PooledByteBufAllocator;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoop;
 import io.netty.channel.EventLoopGroup;
+import io.netty.channel.epoll.Epoll;
+import io.netty.channel.epoll.EpollChannelOption;
+import io.netty.channel.epoll.EpollEventLoopGroup;
+import io.netty.channel.epoll.EpollServerSocketChannel;
 import io.netty.channel.group.ChannelGroup;
 import io.netty.channel.group.DefaultChannelGroup;
 import io.netty.channel.nio.NioEventLoopGroup;
@@ -87,6 +92,7 @@ import io.netty.handler.codec.http.HttpHeaderNames;
 import io.netty.handler.codec.http.HttpMethod;
 import io.netty.handler.codec.http.cors.CorsConfig;
 import io.netty.handler.codec.http.cors.CorsConfigBuilder;
+import io.netty.handler.flush.FlushConsolidationHandler;
 import io.netty.handler.logging.LogLevel;
 import io.netty.handler.logging.LoggingHandler;
 import io.netty.handler.ssl.SslContext;
@@ -127,6 +133,8 @@ public class HttpServer extends AbstractYamcsService {
     private String contextPath;
     private boolean reverseLookup;
     private int nThreads;
+    private boolean epoll;
+    private int nAcceptors;
 
     // Cross-origin Resource Sharing (CORS) enables use of the HTTP API in non-official client web applications
     private CorsConfig corsConfig;
@@ -171,6 +179,11 @@ public class HttpServer extends AbstractYamcsService {
         // they will close an idle WebSocket connection, therefore we choose a value well below that.
         websocketSpec.addOption("pingWhenIdleFor", OptionType.INTEGER).withDefault(40);
 
+        // Number of flushes consolidated into one, if they are not already consolidated by the end of the event loop
+        // iteration. A value of 0 disables the consolidation.
+        websocketSpec.addOption("maxConsolidatedFlushes", OptionType.INTEGER)
+                .withDefault(FlushConsolidationHandler.DEFAULT_EXPLICIT_FLUSH_AFTER_FLUSHES);
+
         Spec bindingSpec = new Spec();
         bindingSpec.addOption("address", OptionType.STRING);
         bindingSpec.addOption("port", OptionType.INTEGER).withRequired(true);
@@ -196,6 +209,8 @@ public class HttpServer extends AbstractYamcsService {
                 .withElementType(OptionType.MAP)
                 .withSpec(bindingSpec);
         spec.addOption("nThreads", OptionType.INTEGER).withDefault(0);
+        spec.addOption("transport", OptionType.STRING).withChoices("nio", "epoll").withDefault("nio");
+        spec.addOption("nAcceptors", OptionType.INTEGER).withDefault(1);
         spec.addOption("reverseLookup", OptionType.BOOLEAN).withDefault(false);
 
         // When using multiple bindings, best to avoid confusion and disable the top-level properties
@@ -277,6 +292,22 @@ public class HttpServer extends AbstractYamcsService {
         }
         nThreads = config.getInt("nThreads");
 
+        if ("epoll".equals(config.getString("transport"))) {
+            epoll = Epoll.isAvailable();
+            if (!epoll) {
+                log.warn("Native epoll transport not available, using NIO instead: {}",
+                        Epoll.unavailabilityCause().getMessage());
+            }
+        }
+        nAcceptors = config.getInt("nAcceptors");
+        if (nAcceptors < 1) {
+            throw new InitException("nAcceptors must be at least 1");
+        }
+        if (nAcceptors > 1 && !epoll) {
+            log.warn("Multiple acceptors require the epoll transport, using a single acceptor");
+            nAcceptors = 1;
+        }
+
         addApi(new ActivitiesApi());
         addApi(new AlarmsApi(auditLog));
         addApi(new AuditApi(auditLog));
@@ -388,12 +419,16 @@ public class HttpServer extends AbstractYamcsService {
                 tokenStore, auditLog));
         serviceManager.startAsync().awaitHealthy(10, TimeUnit.SECONDS);
 
-        bossGroup = new NioEventLoopGroup(1);
-
         // Note that by default (i.e. with nThreads = 0), Netty will limit the number
         // of worker threads to 2*number of CPU cores
-        workerGroup = new NioEventLoopGroup(nThreads,
-                new ThreadPerTaskExecutor(new DefaultThreadFactory("YamcsHttpServer")));
+        var workerExecutor = new ThreadPerTaskExecutor(new DefaultThreadFactory("YamcsHttpServer"));
+        if (epoll) {
+            bossGroup = new EpollEventLoopGroup(nAcceptors);
+            workerGroup = new EpollEventLoopGroup(nThreads, workerExecutor);
+        } else {
+            bossGroup = new NioEventLoopGroup(1);
+            workerGroup = new NioEventLoopGroup(nThreads, workerExecutor);
+        }
 
         // Measure global traffic, we also add a channel-specific measurer in channel-init.
         globalTrafficHandler = new GlobalTrafficShapingHandler(workerGroup, 5000);
@@ -414,18 +449,26 @@ public class HttpServer extends AbstractYamcsService {
 
         ServerBootstrap bootstrap = new ServerBootstrap();
         bootstrap.group(bossGroup, workerGroup)
-                .channel(NioServerSocketChannel.class)
+                .channel(epoll ? EpollServerSocketChannel.class : NioServerSocketChannel.class)
                 .handler(new LoggingHandler(HttpServer.class, LogLevel.DEBUG))
                 .childOption(ChannelOption.ALLOCATOR, PooledByteBufAllocator.DEFAULT)
                 .childHandler(new HttpServerChannelInitializer(this, sslContext, globalTrafficHandler));
 
+        // With SO_REUSEPORT, the kernel distributes the incoming connections between
+        // multiple server channels bound to the same address, each with its own acceptor thread.
+        if (nAcceptors > 1) {
+            bootstrap.option(EpollChannelOption.SO_REUSEPORT, true);
+        }
+
         // Bind and start to accept incoming connections.
         InetAddress address = binding.getAddress();
         int port = binding.getPort();
-        if (address == null) {
-            bootstrap.bind(new InetSocketAddress(port)).sync();
-        } else {
-            bootstrap.bind(new InetSocketAddress(address, port)).sync();
+        for (int i = 0; i < nAcceptors; i++) {
+            if (address == null) {
+                bootstrap.bind(new InetSocketAddress(port)).sync();
+            } else {
+                bootstrap.bind(new InetSocketAddress(address, port)).sync();
+            }
         }
     }
 
@@ -467,6 +510,24 @@ public class HttpServer extends AbstractYamcsService {
         return protobufRegistry;
     }
 
+    /**
+     * Returns the event loops handling the client connections, in the order in which they were created.
+     */
+    public List<EventLoop> getEventLoops() {
+        List<EventLoop> result = new ArrayList<>();
+        if (workerGroup != null) {
+            workerGroup.forEach(executor -> result.add((EventLoop) executor));
+        }
+        return result;
+    }
+
+    /**
+     * Returns the name of the network transport in use: <code>nio</code> or <code>epoll</code>.
+     */
+    public String getTransport() {
+        return epoll ? "epoll" : "nio";
+    }
+
     public GlobalTrafficShapingHandler getGlobalTrafficShapingHandler() {
         return globalTrafficHandler;
     }
@@ -44,6 +44,9 @@ public class RouteContext extends Context {
     private int maxBodySize;
     private String fieldMaskRoot;
 
+    private String entityTag;
+    private boolean notModified;
+
     RouteContext(HttpServer httpServer, ChannelHandlerContext nettyContext, User user, HttpRequest nettyRequest,
             Route route, Matcher regexMatch) {
         super(httpServer, nettyContext, user, route.getApi());
@@ -90,7 +93,7 @@ public class RouteContext extends Context {
 
             if (statusCode == 0) {
                 log.warn("{}: Status code not reported", this);
-            } else if (statusCode < 200 || statusCode >= 300) {
+            } else if ((statusCode < 200 || statusCode >= 300) && statusCode != 304) {
                 route.incrementErrorCount();
             }
         });
@@ -116,6 +119,45 @@ public class RouteContext extends Context {
         return api.getDescriptorForType().findMethodByName(methodName);
     }
 
+    @Override
+    public boolean setEntityTag(String entityTag) {
+        this.entityTag = entityTag;
+        String ifNoneMatch = nettyRequest.headers().get(HttpHeaderNames.IF_NONE_MATCH);
+        notModified = ifNoneMatch != null && entityTagMatches(ifNoneMatch, entityTag);
+        return notModified;
+    }
+
+    public String getEntityTag() {
+        return entityTag;
+    }
+
+    /**
+     * Returns true if the client has an up to date copy of the response, in which case the response body should be
+     * omitted.
+     */
+    public boolean isNotModified() {
+        return notModified;
+    }
+
+    /**
+     * Matches the value of an If-None-Match header against an entity tag, using the weak comparison function of RFC
+     * 7232.
+     */
+    static boolean entityTagMatches(String ifNoneMatch, String entityTag) {
+        String opaqueTag = stripWeakPrefix(entityTag);
+        for (String candidate : ifNoneMatch.split(",")) {
+            candidate = candidate.trim();
+            if (candidate.equals("*") || stripWeakPrefix(candidate).equals(opaqueTag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String stripWeakPrefix(String entityTag) {
+        return entityTag.startsWith("W/") ? entityTag.substring(2) : entityTag;
+    }
+
     public String getBodySpecifier() {
         return route.getBody();
     }
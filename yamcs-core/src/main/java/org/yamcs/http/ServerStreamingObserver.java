@@ -32,6 +32,10 @@ import io.netty.handler.codec.http.LastHttpContent;
 
 /**
  * A message observer that implements a streaming response over HTTP using chunked transfer encoding.
+ * <p>
+ * When the channel is not writable, the producers which have set an {@link #setOnReadyHandler(Runnable) on-ready
+ * handler} are expected to suspend themselves (see {@link #isReady()}); the handler is called when the channel has
+ * drained. The other producers are blocked in {@link #next(Message)} until the chunk is written.
  */
 @NotThreadSafe
 public class ServerStreamingObserver implements Observer<Message> {
@@ -50,6 +54,7 @@ public class ServerStreamingObserver implements Observer<Message> {
     private boolean cancelled;
     private boolean completed;
     private Runnable cancelHandler;
+    private volatile Runnable onReadyHandler;
 
     public ServerStreamingObserver(RouteContext ctx) {
         this.ctx = ctx;
@@ -191,6 +196,17 @@ public class ServerStreamingObserver implements Observer<Message> {
         this.cancelHandler = cancelHandler;
     }
 
+    @Override
+    public boolean isReady() {
+        Channel ch = ctx.nettyContext.channel();
+        return ch.isWritable() || !ch.isOpen();
+    }
+
+    @Override
+    public void setOnReadyHandler(Runnable onReadyHandler) {
+        this.onReadyHandler = onReadyHandler;
+    }
+
     private void startChunkedTransfer(MediaType contentType, String filename) {
         log.info("{}: {} {} 200 starting chunked transfer", ctx, ctx.nettyRequest.method(), ctx.nettyRequest.uri());
         HttpResponse response = new DefaultHttpResponse(HTTP_1_1, HttpResponseStatus.OK);
@@ -211,6 +227,19 @@ public class ServerStreamingObserver implements Observer<Message> {
             throw new ClosedChannelException();
         }
         ChannelFuture writeFuture = ctx.nettyContext.channel().writeAndFlush(new DefaultHttpContent(buf));
+        Runnable handler = onReadyHandler;
+        if (handler != null) {
+            if (!ch.isWritable()) {
+                // The future completes once this chunk (the last one written) has been sent. The writability is
+                // updated only after notifying the future, so check it in a later task.
+                writeFuture.addListener(f -> ch.eventLoop().execute(() -> {
+                    if (ch.isWritable() || !ch.isOpen()) {
+                        handler.run();
+                    }
+                }));
+            }
+            return;
+        }
         try {
             if (!ch.isWritable()) {
                 boolean writeCompleted = writeFuture.await(10, TimeUnit.SECONDS);
@@ -0,0 +1,39 @@
+package org.yamcs.http;
+
+import java.util.function.Function;
+
+/**
+ * Remembers the result of the last conversion, such that the subscribers of a topic, notified one after the other
+ * with the same source object, send the same message instance. The serialization of that message is then shared
+ * between the WebSocket clients.
+ * <p>
+ * The source objects are compared by identity; they should not be modified once passed to the subscribers.
+ */
+public class SharedConversion<S, T> {
+
+    private final Function<S, T> converter;
+    private volatile Entry<S, T> last;
+
+    public SharedConversion(Function<S, T> converter) {
+        this.converter = converter;
+    }
+
+    public T convert(S source) {
+        Entry<S, T> e = last;
+        if (e == null || e.source != source) {
+            e = new Entry<>(source, converter.apply(source));
+            last = e;
+        }
+        return e.result;
+    }
+
+    static class Entry<S, T> {
+        final S source;
+        final T result;
+
+        Entry(S source, T result) {
+            this.source = source;
+            this.result = result;
+        }
+    }
+}
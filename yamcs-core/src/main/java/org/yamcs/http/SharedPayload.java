@@ -0,0 +1,130 @@
+package org.yamcs.http;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import org.yamcs.protobuf.ServerMessage;
+
+import com.google.gson.JsonPrimitive;
+import com.google.protobuf.Any;
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.InvalidProtocolBufferException;
+import com.google.protobuf.Message;
+import com.google.protobuf.util.JsonFormat;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+
+/**
+ * The payload of a topic message, serialized once and shared by all the WebSocket clients receiving the same message
+ * instance.
+ * <p>
+ * Only the envelope (the call id and the sequence number) is encoded for each client; the frame content is a
+ * composite buffer wrapping the envelope and the shared bytes, without copying them.
+ * <p>
+ * For the protobuf clients, the shared bytes contain the <code>type</code> and <code>data</code> fields of the
+ * {@link ServerMessage} and the envelope its <code>call</code> and <code>seq</code> fields (the order of the fields is
+ * not significant in the protobuf encoding). For the JSON clients, the shared bytes contain the <code>data</code>
+ * field.
+ */
+final class SharedPayload {
+
+    // The subscribers of a topic are notified one after the other by the same thread, remembering the last payload is
+    // enough to share it between them.
+    private static final ThreadLocal<SharedPayload> last = new ThreadLocal<>();
+
+    private static final byte[] JSON_END = "}".getBytes(StandardCharsets.UTF_8);
+
+    final String type;
+    final Message data;
+
+    // encoded lazily (by the first client of each kind); a concurrent encoding by two clients gives the same result
+    private volatile byte[] protobuf;
+    private volatile byte[] json;
+
+    private SharedPayload(String type, Message data) {
+        this.type = type;
+        this.data = data;
+    }
+
+    /**
+     * Returns the payload for the given message, reusing the one of the previous call on this thread if it was made
+     * for the same message instance.
+     */
+    static SharedPayload get(String type, Message data) {
+        SharedPayload payload = last.get();
+        if (payload == null || payload.data != data || !payload.type.equals(type)) {
+            payload = new SharedPayload(type, data);
+            last.set(payload);
+        }
+        return payload;
+    }
+
+    ByteBuf toProtobuf(int call, int seq) throws IOException {
+        byte[] shared = protobuf;
+        if (shared == null) {
+            shared = ServerMessage.newBuilder()
+                    .setType(type)
+                    .setData(Any.pack(data, HttpServer.TYPE_URL_PREFIX))
+                    .build().toByteArray();
+            protobuf = shared;
+        }
+
+        int size = 0;
+        if (call != 0) {
+            size += CodedOutputStream.computeInt32Size(ServerMessage.CALL_FIELD_NUMBER, call);
+        }
+        if (seq != 0) {
+            size += CodedOutputStream.computeInt32Size(ServerMessage.SEQ_FIELD_NUMBER, seq);
+        }
+        byte[] envelope = new byte[size];
+        CodedOutputStream out = CodedOutputStream.newInstance(envelope);
+        if (call != 0) {
+            out.writeInt32(ServerMessage.CALL_FIELD_NUMBER, call);
+        }
+        if (seq != 0) {
+            out.writeInt32(ServerMessage.SEQ_FIELD_NUMBER, seq);
+        }
+        out.checkNoSpaceLeft();
+
+        return Unpooled.wrappedBuffer(envelope, shared);
+    }
+
+    ByteBuf toJson(JsonFormat.Printer printer, int call, int seq) throws InvalidProtocolBufferException {
+        byte[] shared = json;
+        if (shared == null) {
+            shared = printer.print(Any.pack(data, HttpServer.TYPE_URL_PREFIX)).getBytes(StandardCharsets.UTF_8);
+            json = shared;
+        }
+
+        StringBuilder sb = new StringBuilder();
+        sb.append("{\"type\":").append(new JsonPrimitive(type));
+        if (call != 0) {
+            sb.append(",\"call\":").append(call);
+        }
+        if (seq != 0) {
+            sb.append(",\"seq\":").append(seq);
+        }
+        sb.append(",\"data\":");
+        byte[] envelope = sb.toString().getBytes(StandardCharsets.UTF_8);
+
+        return Unpooled.wrappedBuffer(envelope, shared, JSON_END);
+    }
+
+    /**
+     * The message written to the channel for one client, encoded by {@link WebSocketServerMessageHandler}.
+     */
+    static class Envelope {
+        final SharedPayload payload;
+        final int call;
+        final int seq;
+        final WebSocketFramePriority priority;
+
+        Envelope(SharedPayload payload, int call, int seq, WebSocketFramePriority priority) {
+            this.payload = payload;
+            this.call = call;
+            this.seq = seq;
+            this.priority = priority;
+        }
+    }
+}
@@ -1,13 +1,18 @@
 package org.yamcs.http;
 
+import static io.netty.handler.codec.http.HttpHeaderNames.ACCEPT_ENCODING;
 import static io.netty.handler.codec.http.HttpHeaderNames.CACHE_CONTROL;
 import static io.netty.handler.codec.http.HttpHeaderNames.CONNECTION;
+import static io.netty.handler.codec.http.HttpHeaderNames.CONTENT_ENCODING;
 import static io.netty.handler.codec.http.HttpHeaderNames.CONTENT_LENGTH;
 import static io.netty.handler.codec.http.HttpHeaderNames.CONTENT_TYPE;
 import static io.netty.handler.codec.http.HttpHeaderNames.DATE;
+import static io.netty.handler.codec.http.HttpHeaderNames.ETAG;
 import static io.netty.handler.codec.http.HttpHeaderNames.EXPIRES;
 import static io.netty.handler.codec.http.HttpHeaderNames.IF_MODIFIED_SINCE;
+import static io.netty.handler.codec.http.HttpHeaderNames.IF_NONE_MATCH;
 import static io.netty.handler.codec.http.HttpHeaderNames.LAST_MODIFIED;
+import static io.netty.handler.codec.http.HttpHeaderNames.VARY;
 import static io.netty.handler.codec.http.HttpHeaderValues.CLOSE;
 import static io.netty.handler.codec.http.HttpHeaderValues.KEEP_ALIVE;
 import static io.netty.handler.codec.http.HttpResponseStatus.FORBIDDEN;
@@ -17,6 +22,7 @@ import static io.netty.handler.codec.http.HttpVersion.HTTP_1_1;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
@@ -29,6 +35,11 @@ import java.util.Locale;
 import java.util.Objects;
 import java.util.TimeZone;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
 import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelFutureListener;
 import io.netty.channel.ChannelHandlerContext;
@@ -50,15 +61,40 @@ import io.netty.handler.ssl.SslHandler;
 import io.netty.handler.stream.ChunkedFile;
 import io.netty.handler.stream.ChunkedWriteHandler;
 
+/**
+ * Serves files from one or more static roots.
+ * <p>
+ * If a file has a precompressed variant next to it (<code>.br</code> or <code>.gz</code>), that variant is sent to
+ * clients that accept its encoding, instead of compressing the file on each request. Variants that are older than the
+ * file itself are ignored.
+ * <p>
+ * Small files are kept in an off-heap memory cache, which is checked against the file modification time on each
+ * request.
+ */
 public class StaticFileHandler extends HttpHandler {
 
     public static final int HTTP_CACHE_SECONDS = 60;
+    public static final int HTTP_IMMUTABLE_CACHE_SECONDS = 365 * 24 * 3600;
     public static final String HTTP_DATE_FORMAT = "EEE, dd MMM yyyy HH:mm:ss zzz";
     public static final String HTTP_DATE_GMT_TIMEZONE = "GMT";
 
+    // Content encodings of precompressed variants, in order of preference, and their file extensions
+    private static final String[] PRECOMPRESSED_ENCODINGS = { "br", "gzip" };
+    private static final String[] PRECOMPRESSED_EXTENSIONS = { ".br", ".gz" };
+
+    private static final int MAX_CACHED_FILE_SIZE = 4 * 1024 * 1024;
+    private static final int MAX_CACHE_SIZE = 64 * 1024 * 1024;
+
     protected String route;
     protected List<Path> staticRoots;
     private boolean zeroCopyEnabled = true;
+    private boolean memoryCacheEnabled = true;
+
+    private final Cache<String, CachedContent> memoryCache = CacheBuilder.newBuilder()
+            .maximumWeight(MAX_CACHE_SIZE)
+            .<String, CachedContent> weigher((path, content) -> content.length)
+            .<String, CachedContent> removalListener(notification -> notification.getValue().release())
+            .build();
 
     public StaticFileHandler(String route, Path staticRoot) {
         this(route, Arrays.asList(staticRoot));
@@ -78,6 +114,13 @@ public class StaticFileHandler extends HttpHandler {
         this.zeroCopyEnabled = zeroCopyEnabled;
     }
 
+    public void setMemoryCacheEnabled(boolean memoryCacheEnabled) {
+        this.memoryCacheEnabled = memoryCacheEnabled;
+        if (!memoryCacheEnabled) {
+            memoryCache.invalidateAll();
+        }
+    }
+
     public void setStaticRoots(List<Path> staticRoots) {
         this.staticRoots = staticRoots;
     }
@@ -113,6 +156,14 @@ public class StaticFileHandler extends HttpHandler {
         return null;
     }
 
+    /**
+     * Returns true if the content of the specified file never changes, typically because its name contains a hash of
+     * the content. Such files are sent with headers that let clients cache them for a long time without revalidation.
+     */
+    protected boolean isImmutable(File file) {
+        return false;
+    }
+
     private void handleStaticFileRequest(ChannelHandlerContext ctx, HttpRequest req, String rawPath) {
         log.debug("Handling static file request for {}", rawPath);
         String path = sanitizePath(rawPath);
@@ -133,9 +184,42 @@ public class StaticFileHandler extends HttpHandler {
             return;
         }
 
+        // Pick a precompressed variant, if there is one that the client accepts
+        String acceptEncoding = req.headers().get(ACCEPT_ENCODING);
+        boolean hasVariants = false;
+        String contentEncoding = null;
+        File content = file;
+        for (int i = 0; i < PRECOMPRESSED_ENCODINGS.length; i++) {
+            File variant = new File(file.getPath() + PRECOMPRESSED_EXTENSIONS[i]);
+            if (variant.isFile() && variant.lastModified() >= file.lastModified()) {
+                hasVariants = true;
+                if (contentEncoding == null && acceptsEncoding(acceptEncoding, PRECOMPRESSED_ENCODINGS[i])) {
+                    contentEncoding = PRECOMPRESSED_ENCODINGS[i];
+                    content = variant;
+                }
+            }
+        }
+
+        long fileLength = content.length();
+        boolean fromMemory = memoryCacheEnabled && fileLength <= MAX_CACHED_FILE_SIZE;
+        boolean zeroCopy = zeroCopyEnabled && ctx.pipeline().get(SslHandler.class) == null;
+
+        // Without an accepted precompressed variant, the content is compressed on the fly when it is compressible
+        // and sent from memory, or when it is sent in chunks. The encoding is then chosen by the compressor and the
+        // same entity tag is sent for all encodings, so it has to be weak.
+        boolean compressible = isCompressible(MIME.getMimetype(file));
+        boolean compressOnTheFly = contentEncoding == null && ((fromMemory && compressible) || !zeroCopy);
+        String entityTag = getEntityTag(content, contentEncoding, compressOnTheFly);
+
         // Cache Validation
+        String ifNoneMatch = req.headers().get(IF_NONE_MATCH);
         String ifModifiedSince = req.headers().get(IF_MODIFIED_SINCE);
-        if (ifModifiedSince != null && !ifModifiedSince.equals("")) {
+        if (ifNoneMatch != null) { // Takes precedence over If-Modified-Since
+            if (RouteContext.entityTagMatches(ifNoneMatch, entityTag)) {
+                sendNotModified(ctx, req, entityTag);
+                return;
+            }
+        } else if (ifModifiedSince != null && !ifModifiedSince.equals("")) {
             SimpleDateFormat dateFormatter = new SimpleDateFormat(HTTP_DATE_FORMAT);
             Date ifModifiedSinceDate;
             try {
@@ -145,7 +229,7 @@ public class StaticFileHandler extends HttpHandler {
                 long ifModifiedSinceDateSeconds = ifModifiedSinceDate.getTime() / 1000;
                 long fileLastModifiedSeconds = file.lastModified() / 1000;
                 if (ifModifiedSinceDateSeconds == fileLastModifiedSeconds) {
-                    sendNotModified(ctx, req);
+                    sendNotModified(ctx, req, entityTag);
                     return;
                 }
             } catch (ParseException e) {
@@ -153,13 +237,29 @@ public class StaticFileHandler extends HttpHandler {
             }
         }
 
-        boolean zeroCopy = zeroCopyEnabled && ctx.pipeline().get(SslHandler.class) == null;
-
-        long fileLength = file.length();
+        ByteBuf body = null;
+        if (fromMemory) {
+            body = getCachedContent(content);
+        }
 
-        HttpResponse response = new DefaultHttpResponse(HTTP_1_1, OK);
+        HttpResponse response;
+        if (body != null) {
+            response = new DefaultFullHttpResponse(HTTP_1_1, OK, body);
+        } else {
+            response = new DefaultHttpResponse(HTTP_1_1, OK);
+        }
         setContentTypeHeader(response, file);
-        setDateAndCacheHeaders(response, file);
+        setDateAndCacheHeaders(response, file, isImmutable(file));
+        response.headers().set(ETAG, entityTag);
+        if (contentEncoding != null) {
+            response.headers().set(CONTENT_ENCODING, contentEncoding);
+        }
+
+        boolean compressFromMemory = body != null && contentEncoding == null && compressible;
+        boolean compressChunks = body == null && !zeroCopy && contentEncoding == null;
+        if (hasVariants || compressFromMemory || compressChunks) {
+            response.headers().set(VARY, ACCEPT_ENCODING);
+        }
 
         if (HttpUtil.isKeepAlive(req)) {
             response.headers().set(CONNECTION, KEEP_ALIVE);
@@ -167,12 +267,29 @@ public class StaticFileHandler extends HttpHandler {
             response.headers().set(CONNECTION, CLOSE);
         }
 
+        if (body != null) {
+            HttpUtil.setContentLength(response, body.readableBytes());
+            if (compressFromMemory) {
+                ctx.pipeline().addLast(new HttpContentCompressor());
+                // let the compressor see the Accept-Encoding of the request
+                ctx.fireChannelRead(req);
+            }
+            ChannelFuture future = ctx.channel().writeAndFlush(response);
+            log.debug("{} {} 200 (from memory)", req.method(), req.uri());
+            if (!HttpUtil.isKeepAlive(req)) {
+                future.addListener(ChannelFutureListener.CLOSE);
+            }
+            return;
+        }
+
         if (zeroCopy) {
             HttpUtil.setContentLength(response, fileLength);
         } else {
             // chunked HTTP is required for compression to work because we don't know the size of the compressed file.
             HttpUtil.setTransferEncodingChunked(response, true);
-            ctx.pipeline().addLast(new HttpContentCompressor());
+            if (compressChunks) {
+                ctx.pipeline().addLast(new HttpContentCompressor());
+            }
             // Note that the ChunkedWriteHandler here will just read the file chunk by chunk.
             // The real HTTP chunk encoding is performed by the HttpServerCodec/HttpContentEncoder which sits first in
             // the pipeline
@@ -188,12 +305,13 @@ public class StaticFileHandler extends HttpHandler {
         ChannelFuture sendFileFuture;
         ChannelFuture lastContentFuture;
         if (zeroCopy) {
-            sendFileFuture = ctx.writeAndFlush(new DefaultFileRegion(file, 0, fileLength), ctx.newProgressivePromise());
+            sendFileFuture = ctx.writeAndFlush(new DefaultFileRegion(content, 0, fileLength),
+                    ctx.newProgressivePromise());
             // Write the end marker.
             lastContentFuture = ctx.writeAndFlush(LastHttpContent.EMPTY_LAST_CONTENT);
         } else {
             try {
-                var chunkedFile = new ChunkedFile(file, 8192);
+                var chunkedFile = new ChunkedFile(content, 8192);
                 sendFileFuture = ctx.channel().writeAndFlush(new HttpChunkedInput(chunkedFile),
                         ctx.newProgressivePromise());
                 lastContentFuture = sendFileFuture;
@@ -202,7 +320,7 @@ public class StaticFileHandler extends HttpHandler {
             }
         }
 
-        final File finalFile = file;
+        final File finalFile = content;
         sendFileFuture.addListener(new ChannelProgressiveFutureListener() {
             @Override
             public void operationProgressed(ChannelProgressiveFuture future, long progress, long total) {
@@ -229,6 +347,18 @@ public class StaticFileHandler extends HttpHandler {
         }
     }
 
+    /**
+     * Returns true if content of the specified media type is worth compressing.
+     */
+    static boolean isCompressible(CharSequence mimeType) {
+        if (mimeType == null) {
+            return false;
+        }
+        String type = mimeType.toString().toLowerCase(Locale.ROOT);
+        return type.startsWith("text/") || type.endsWith("/json") || type.endsWith("+json")
+                || type.endsWith("/xml") || type.endsWith("+xml") || type.equals("application/javascript");
+    }
+
     /**
      * Sets the content type header for the HTTP Response
      *
@@ -239,13 +369,39 @@ public class StaticFileHandler extends HttpHandler {
         response.headers().set(CONTENT_TYPE, MIME.getMimetype(file));
     }
 
+    /**
+     * Returns the content of a file from the memory cache, loading it if necessary.
+     *
+     * @return a retained buffer with the file content, or null if the content could not be obtained
+     */
+    private ByteBuf getCachedContent(File file) {
+        String key = file.getPath();
+        CachedContent cached = memoryCache.getIfPresent(key);
+        if (cached != null && (cached.lastModified != file.lastModified() || cached.length != file.length())) {
+            memoryCache.invalidate(key);
+            cached = null;
+        }
+        if (cached == null) {
+            try {
+                cached = new CachedContent(file);
+            } catch (IOException e) {
+                log.warn("Failed to read {}", file, e);
+                return null;
+            }
+            memoryCache.put(key, cached);
+        }
+        return cached.retainedContent();
+    }
+
     /**
      * Sets the Date and Cache headers for the HTTP Response
      *
      * @param fileToCache
      *            file to extract content type
+     * @param immutable
+     *            whether the file content never changes
      */
-    private void setDateAndCacheHeaders(HttpResponse response, File fileToCache) {
+    private void setDateAndCacheHeaders(HttpResponse response, File fileToCache, boolean immutable) {
         SimpleDateFormat dateFormatter = new SimpleDateFormat(HTTP_DATE_FORMAT, Locale.US);
         dateFormatter.setTimeZone(TimeZone.getTimeZone(HTTP_DATE_GMT_TIMEZONE));
 
@@ -254,9 +410,15 @@ public class StaticFileHandler extends HttpHandler {
         response.headers().set(DATE, dateFormatter.format(time.getTime()));
 
         // Add cache headers
-        time.add(Calendar.SECOND, HTTP_CACHE_SECONDS);
-        response.headers().set(EXPIRES, dateFormatter.format(time.getTime()));
-        response.headers().set(CACHE_CONTROL, "private, max-age=" + HTTP_CACHE_SECONDS);
+        if (immutable) {
+            time.add(Calendar.SECOND, HTTP_IMMUTABLE_CACHE_SECONDS);
+            response.headers().set(EXPIRES, dateFormatter.format(time.getTime()));
+            response.headers().set(CACHE_CONTROL, "public, max-age=" + HTTP_IMMUTABLE_CACHE_SECONDS + ", immutable");
+        } else {
+            time.add(Calendar.SECOND, HTTP_CACHE_SECONDS);
+            response.headers().set(EXPIRES, dateFormatter.format(time.getTime()));
+            response.headers().set(CACHE_CONTROL, "private, max-age=" + HTTP_CACHE_SECONDS);
+        }
         response.headers().set(LAST_MODIFIED,
                 dateFormatter.format(new Date(fileToCache.lastModified())));
     }
@@ -264,10 +426,11 @@ public class StaticFileHandler extends HttpHandler {
     /**
      * When file timestamp is the same as what the browser is sending up, send a "304 Not Modified"
      */
-    private void sendNotModified(ChannelHandlerContext ctx, HttpRequest req) {
+    private void sendNotModified(ChannelHandlerContext ctx, HttpRequest req, String entityTag) {
         log.debug("{} {} 304", req.method(), req.uri());
         FullHttpResponse response = new DefaultFullHttpResponse(HTTP_1_1, HttpResponseStatus.NOT_MODIFIED);
         response.headers().set(CONTENT_LENGTH, 0);
+        response.headers().set(ETAG, entityTag);
         setDateHeader(response);
 
         if (HttpUtil.isKeepAlive(req)) {
@@ -279,6 +442,49 @@ public class StaticFileHandler extends HttpHandler {
         }
     }
 
+    /**
+     * Returns an entity tag for the content of a file. Variants with a different content encoding have different
+     * entity tags.
+     *
+     * @param weak
+     *            whether the tag is weak, because the content may be sent with any encoding chosen at the time it is
+     *            sent
+     */
+    private static String getEntityTag(File content, String contentEncoding, boolean weak) {
+        String tag = Long.toHexString(content.length()) + "-" + Long.toHexString(content.lastModified());
+        if (contentEncoding != null) {
+            tag += "-" + contentEncoding;
+        }
+        return (weak ? "W/" : "") + "\"" + tag + "\"";
+    }
+
+    /**
+     * Returns true if an Accept-Encoding header value allows the specified content coding.
+     */
+    static boolean acceptsEncoding(String acceptEncoding, String coding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String element : acceptEncoding.split(",")) {
+            String[] parts = element.split(";");
+            String name = parts[0].trim();
+            if (name.equalsIgnoreCase(coding) || name.equals("*")) {
+                for (int i = 1; i < parts.length; i++) {
+                    String param = parts[i].trim();
+                    if (param.startsWith("q=")) {
+                        try {
+                            return Double.parseDouble(param.substring(2)) > 0;
+                        } catch (NumberFormatException e) {
+                            return false;
+                        }
+                    }
+                }
+                return true;
+            }
+        }
+        return false;
+    }
+
     private static String sanitizePath(String path) {
         path = path.replace('/', File.separatorChar);
         if (path.contains(File.separator + ".") ||
@@ -299,4 +505,34 @@ public class StaticFileHandler extends HttpHandler {
         Calendar time = new GregorianCalendar();
         response.headers().set(DATE, dateFormatter.format(time.getTime()));
     }
+
+    /**
+     * File content in a direct buffer. Released when evicted from the cache, or when the last response that uses it
+     * has been written, whichever happens last.
+     */
+    private static class CachedContent {
+
+        final long lastModified;
+        final int length;
+        private final ByteBuf buf;
+        private boolean released;
+
+        CachedContent(File file) throws IOException {
+            lastModified = file.lastModified();
+            byte[] bytes = Files.readAllBytes(file.toPath());
+            length = bytes.length;
+            buf = Unpooled.directBuffer(length).writeBytes(bytes);
+        }
+
+        synchronized ByteBuf retainedContent() {
+            return released ? null : buf.retainedDuplicate();
+        }
+
+        synchronized void release() {
+            if (!released) {
+                released = true;
+                buf.release();
+            }
+        }
+    }
 }
@@ -1,7 +1,5 @@
 package org.yamcs.http;
 
-import static org.yamcs.http.WebSocketFramePriority.HIGH;
-
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
@@ -253,7 +251,6 @@ public class WebSocketFrameHandler extends SimpleChannelInboundHandler<WebSocket
                 .setSeq(0)
                 .setData(Any.pack(data, HttpServer.TYPE_URL_PREFIX))
                 .build();
-        nettyContext.channel().attr(WebSocketFramePriority.ATTR).set(HIGH);
         nettyContext.channel().writeAndFlush(serverMessage);
     }
 
@@ -1,6 +1,5 @@
 package org.yamcs.http;
 
-import static org.yamcs.http.WebSocketFramePriority.HIGH;
 import static org.yamcs.http.WebSocketFramePriority.LOW;
 import static org.yamcs.http.WebSocketFramePriority.NORMAL;
 
@@ -42,7 +41,7 @@ public class WebSocketObserver implements Observer<Message> {
     void sendReply(Reply reply) {
         synchronized (this) { // Guard 'replied' and 'pendingMessages'
             try {
-                sendMessage("reply", reply, HIGH);
+                sendMessage("reply", reply);
             } finally {
                 replied = true;
             }
@@ -70,10 +69,14 @@ public class WebSocketObserver implements Observer<Message> {
             return;
         }
 
-        sendMessage(ctx.getTopic().getName(), message, lowPriority ? LOW : NORMAL);
+        // the same message may be sent to many clients, share its serialization
+        SharedPayload payload = SharedPayload.get(ctx.getTopic().getName(), message);
+        ctx.nettyContext.channel().writeAndFlush(
+                new SharedPayload.Envelope(payload, ctx.getId(), messageCount, lowPriority ? LOW : NORMAL));
     }
 
-    private void sendMessage(String type, Message data, WebSocketFramePriority priority) {
+    // written with HIGH priority, see WebSocketServerMessageHandler
+    private void sendMessage(String type, Message data) {
         ServerMessage serverMessage = ServerMessage.newBuilder()
                 .setType(type)
                 .setCall(ctx.getId())
@@ -81,7 +84,6 @@ public class WebSocketObserver implements Observer<Message> {
                 .setData(Any.pack(data, HttpServer.TYPE_URL_PREFIX))
                 .build();
 
-        ctx.nettyContext.channel().attr(WebSocketFramePriority.ATTR).set(priority);
         ctx.nettyContext.channel().writeAndFlush(serverMessage);
     }
 
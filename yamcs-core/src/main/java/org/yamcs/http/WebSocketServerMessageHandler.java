@@ -12,8 +12,12 @@ import io.netty.handler.codec.http.websocketx.TextWebSocketFrame;
 import io.netty.handler.codec.http.websocketx.WebSocketFrame;
 
 /**
- * Encodes {@link ServerMessage} to either {@link BinaryWebSocketFrame} or {@link TextWebSocketFrame} depending if the
- * protobuf or json has to be sent.
+ * Encodes {@link ServerMessage} (or {@link SharedPayload.Envelope} for topic messages) to either
+ * {@link BinaryWebSocketFrame} or {@link TextWebSocketFrame} depending if the protobuf or json has to be sent.
+ * <p>
+ * The priority of the frame is set on the channel just before writing the frame, so that it is seen by the
+ * {@link WebSocketFrameDropper} for that frame. Topic messages carry their priority, the other messages (replies and
+ * errors) are sent with {@link WebSocketFramePriority#HIGH} priority.
  */
 public class WebSocketServerMessageHandler extends ChannelOutboundHandlerAdapter {
 
@@ -27,9 +31,22 @@ public class WebSocketServerMessageHandler extends ChannelOutboundHandlerAdapter
 
     @Override
     public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) throws Exception {
-        ServerMessage serverMessage = (ServerMessage) msg;
         WebSocketFrame frame;
+        if (msg instanceof SharedPayload.Envelope) {
+            SharedPayload.Envelope envelope = (SharedPayload.Envelope) msg;
+            ctx.channel().attr(WebSocketFramePriority.ATTR).set(envelope.priority);
+            if (protobuf) {
+                frame = new BinaryWebSocketFrame(envelope.payload.toProtobuf(envelope.call, envelope.seq));
+            } else {
+                frame = new TextWebSocketFrame(
+                        envelope.payload.toJson(httpServer.getJsonPrinter(), envelope.call, envelope.seq));
+            }
+            ctx.write(frame, promise);
+            return;
+        }
 
+        ServerMessage serverMessage = (ServerMessage) msg;
+        ctx.channel().attr(WebSocketFramePriority.ATTR).set(WebSocketFramePriority.HIGH);
         if (protobuf) {
             ByteBuf buf = ctx.alloc().buffer();
             try (ByteBufOutputStream bufOut = new ByteBufOutputStream(buf)) {
@@ -11,8 +11,10 @@ import static org.yamcs.alarms.AlarmStreamer.CNAME_TRIGGER_TIME;
 import java.util.ArrayList;
 import java.util.Base64;
 import java.util.EnumMap;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
@@ -22,6 +24,7 @@ import org.yamcs.Processor;
 import org.yamcs.StandardTupleDefinitions;
 import org.yamcs.alarms.ActiveAlarm;
 import org.yamcs.alarms.AlarmListener;
+import org.yamcs.alarms.AlarmNotification;
 import org.yamcs.alarms.AlarmSequenceException;
 import org.yamcs.alarms.AlarmServer;
 import org.yamcs.alarms.AlarmStreamer;
@@ -112,10 +115,17 @@ public class AlarmsApi extends AbstractAlarmsApi<Context> {
         protoNotificationType.put(org.yamcs.alarms.AlarmNotificationType.SHELVED, AlarmNotificationType.SHELVED);
         protoNotificationType.put(org.yamcs.alarms.AlarmNotificationType.TRIGGERED, AlarmNotificationType.TRIGGERED);
         protoNotificationType.put(org.yamcs.alarms.AlarmNotificationType.UNSHELVED, AlarmNotificationType.UNSHELVED);
+        protoNotificationType.put(org.yamcs.alarms.AlarmNotificationType.SEVERITY_INCREASED,
+                AlarmNotificationType.SEVERITY_INCREASED);
+        protoNotificationType.put(org.yamcs.alarms.AlarmNotificationType.VALUE_UPDATED,
+                AlarmNotificationType.VALUE_UPDATED);
     }
 
     private AuditLog auditLog;
 
+    // One listener per alarm server, shared by all the alarm subscriptions (guarded by itself)
+    private Map<AlarmServer<?, ?>, AlarmFanout> alarmFanouts = new HashMap<>();
+
     public AlarmsApi(AuditLog auditLog) {
         this.auditLog = auditLog;
         auditLog.addPrivilegeChecker(getClass().getSimpleName(), user -> {
@@ -457,39 +467,42 @@ public class AlarmsApi extends AbstractAlarmsApi<Context> {
             alarmServers.add(processor.getEventAlarmServer());
         }
 
-        boolean sendDetail = true;
-
-        AlarmListener listener = new AlarmListener() {
-
-            @Override
-            public void notifyUpdate(org.yamcs.alarms.AlarmNotificationType notificationType, ActiveAlarm activeAlarm) {
-                AlarmNotificationType type = protoNotificationType.get(notificationType);
-                AlarmData alarmData = toAlarmData(type, activeAlarm, sendDetail);
-                observer.next(alarmData);
-            }
-
-            @Override
-            public void notifySeverityIncrease(ActiveAlarm activeAlarm) {
-                AlarmData alarmData = toAlarmData(AlarmNotificationType.SEVERITY_INCREASED, activeAlarm, sendDetail);
-                observer.next(alarmData);
-            }
-
-            @Override
-            public void notifyValueUpdate(ActiveAlarm activeAlarm) {
-                AlarmData alarmData = toAlarmData(AlarmNotificationType.VALUE_UPDATED, activeAlarm, sendDetail);
-                observer.next(alarmData);
-            }
-        };
-
         observer.setCancelHandler(() -> {
-            alarmServers.forEach(alarmServer -> alarmServer.removeAlarmListener(listener));
+            alarmServers.forEach(alarmServer -> removeAlarmSubscriber(alarmServer, observer));
         });
         for (AlarmServer<?, ?> alarmServer : alarmServers) {
             for (ActiveAlarm<?> activeAlarm : alarmServer.getActiveAlarms().values()) {
-                AlarmData alarmData = toAlarmData(AlarmNotificationType.ACTIVE, activeAlarm, sendDetail);
+                AlarmData alarmData = toAlarmData(AlarmNotificationType.ACTIVE, activeAlarm, true);
                 observer.next(alarmData);
             }
-            alarmServer.addAlarmListener(listener);
+            addAlarmSubscriber(alarmServer, observer);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void addAlarmSubscriber(AlarmServer<?, ?> alarmServer, Observer<AlarmData> observer) {
+        synchronized (alarmFanouts) {
+            AlarmFanout fanout = alarmFanouts.get(alarmServer);
+            if (fanout == null) {
+                fanout = new AlarmFanout();
+                alarmFanouts.put(alarmServer, fanout);
+                alarmServer.addAlarmListener(fanout);
+            }
+            fanout.observers.add(observer);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void removeAlarmSubscriber(AlarmServer<?, ?> alarmServer, Observer<AlarmData> observer) {
+        synchronized (alarmFanouts) {
+            AlarmFanout fanout = alarmFanouts.get(alarmServer);
+            if (fanout != null) {
+                fanout.observers.remove(observer);
+                if (fanout.observers.isEmpty()) {
+                    alarmFanouts.remove(alarmServer);
+                    alarmServer.removeAlarmListener(fanout);
+                }
+            }
         }
     }
 
@@ -911,4 +924,45 @@ public class AlarmsApi extends AbstractAlarmsApi<Context> {
             return Base64.getUrlEncoder().withoutPadding().encodeToString(json.getBytes());
         }
     }
+
+    /**
+     * Sends the alarm notifications of an alarm server to all the subscribers. Each notification is converted once,
+     * and sent to the subscribers one after the other, so that they also share its serialization.
+     */
+    @SuppressWarnings("rawtypes")
+    private static class AlarmFanout implements AlarmListener {
+
+        final List<Observer<AlarmData>> observers = new CopyOnWriteArrayList<>();
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public void notifyUpdates(List notifications) {
+            for (Object o : AlarmNotification.coalesce(notifications)) {
+                AlarmNotification<?> n = (AlarmNotification<?>) o;
+                send(protoNotificationType.get(n.getType()), n.getActiveAlarm());
+            }
+        }
+
+        @Override
+        public void notifyUpdate(org.yamcs.alarms.AlarmNotificationType notificationType, ActiveAlarm activeAlarm) {
+            send(protoNotificationType.get(notificationType), activeAlarm);
+        }
+
+        @Override
+        public void notifySeverityIncrease(ActiveAlarm activeAlarm) {
+            send(AlarmNotificationType.SEVERITY_INCREASED, activeAlarm);
+        }
+
+        @Override
+        public void notifyValueUpdate(ActiveAlarm activeAlarm) {
+            send(AlarmNotificationType.VALUE_UPDATED, activeAlarm);
+        }
+
+        private void send(AlarmNotificationType type, ActiveAlarm<?> activeAlarm) {
+            AlarmData alarmData = toAlarmData(type, activeAlarm, true);
+            for (Observer<AlarmData> observer : observers) {
+                observer.next(alarmData);
+            }
+        }
+    }
 }
@@ -12,8 +12,13 @@ import java.time.format.DateTimeFormatter;
 import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
 import java.util.Base64;
+import java.util.Collections;
 import java.util.Date;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
@@ -40,6 +45,7 @@ import org.yamcs.commanding.PreparedCommand;
 import org.yamcs.http.BadRequestException;
 import org.yamcs.http.Context;
 import org.yamcs.http.ForbiddenException;
+import org.yamcs.http.HttpException;
 import org.yamcs.http.InternalServerErrorException;
 import org.yamcs.http.MediaType;
 import org.yamcs.http.NotFoundException;
@@ -55,6 +61,8 @@ import org.yamcs.protobuf.ExportCommandsRequest;
 import org.yamcs.protobuf.GetCommandRequest;
 import org.yamcs.protobuf.IssueCommandRequest;
 import org.yamcs.protobuf.IssueCommandResponse;
+import org.yamcs.protobuf.IssueCommandsRequest;
+import org.yamcs.protobuf.IssueCommandsResponse;
 import org.yamcs.protobuf.ListCommandsRequest;
 import org.yamcs.protobuf.ListCommandsResponse;
 import org.yamcs.protobuf.StreamCommandsRequest;
@@ -62,6 +70,7 @@ import org.yamcs.protobuf.SubscribeCommandsRequest;
 import org.yamcs.protobuf.UpdateCommandHistoryRequest;
 import org.yamcs.security.ObjectPrivilegeType;
 import org.yamcs.security.SystemPrivilege;
+import org.yamcs.utils.ExceptionUtil;
 import org.yamcs.utils.StringConverter;
 import org.yamcs.utils.TimeEncoding;
 import org.yamcs.utils.ValueUtility;
@@ -86,33 +95,228 @@ public class CommandsApi extends AbstractCommandsApi<Context> {
     private static final Pattern PATTERN_COMMAND_ID = Pattern.compile("([0-9]+)(-(.*))?-([0-9]+)");
     private static final Log log = new Log(CommandsApi.class);
 
+    // minimum number of commands prepared by one task when issuing a batch
+    private static final int MIN_COMMANDS_PER_TASK = 16;
+
     @Override
     public void issueCommand(Context ctx, IssueCommandRequest request, Observer<IssueCommandResponse> observer) {
-        Processor processor = ProcessingApi.verifyProcessor(request.getInstance(), request.getProcessor());
+        Processor processor = verifyCommandingProcessor(request.getInstance(), request.getProcessor());
+        Mdb mdb = MdbFactory.getInstance(processor.getInstance());
+
+        int sequenceNumber = request.hasSequenceNumber() ? request.getSequenceNumber() : 0;
+        PreparedCommand preparedCommand = prepareCommand(ctx, processor, mdb, request, sequenceNumber,
+                processor.getCurrentTime());
+
+        // Good, now send
+        CommandQueue queue;
+        if (request.getDryRun()) {
+            CommandQueueManager mgr = processor.getCommandingManager().getCommandQueueManager();
+            queue = mgr.getQueue(ctx.user, preparedCommand);
+        } else {
+            queue = processor.getCommandingManager().sendCommand(ctx.user, preparedCommand);
+        }
+
+        observer.complete(toIssueCommandResponse(mdb, preparedCommand, queue));
+    }
+
+    @Override
+    public void issueCommands(Context ctx, IssueCommandsRequest request, Observer<IssueCommandsResponse> observer) {
+        Processor processor = verifyCommandingProcessor(request.getInstance(), request.getProcessor());
+        issueCommands(ctx, processor, request.getCommandsList(), CompletableFuture.completedFuture(null))
+                .whenComplete((response, err) -> {
+                    if (err == null) {
+                        observer.complete(response);
+                    } else {
+                        observer.completeExceptionally(ExceptionUtil.unwind(err));
+                    }
+                });
+    }
+
+    @Override
+    public Observer<IssueCommandsRequest> streamIssueCommands(Context ctx,
+            Observer<IssueCommandsResponse> observer) {
+        return new Observer<IssueCommandsRequest>() {
+            // the batches are queued in the order they have been received
+            CompletableFuture<?> previous = CompletableFuture.completedFuture(null);
+
+            @Override
+            public void next(IssueCommandsRequest request) {
+                CompletableFuture<IssueCommandsResponse> batch;
+                try {
+                    Processor processor = verifyCommandingProcessor(request.getInstance(), request.getProcessor());
+                    batch = issueCommands(ctx, processor, request.getCommandsList(), previous);
+                } catch (HttpException e) {
+                    // reported after the previous batches, like any other outcome
+                    batch = previous.handle((r, err) -> null).thenCompose(x -> CompletableFuture.failedFuture(e));
+                }
+                previous = batch.whenComplete((response, err) -> {
+                    if (observer.isCancelled()) {
+                        return;
+                    }
+                    if (err == null) {
+                        observer.next(response);
+                    } else {
+                        observer.next(toBatchErrorResponse(request, ExceptionUtil.unwind(err)));
+                    }
+                });
+            }
+
+            @Override
+            public void completeExceptionally(Throwable t) {
+                // Ignore
+            }
+
+            @Override
+            public void complete() {
+                // Ignore, the call ends when the client cancels it
+            }
+        };
+    }
+
+    /**
+     * Validates and encodes the commands in parallel, then sends them in one step to the command queues, after the
+     * previous batch of the same call has been sent.
+     * <p>
+     * The command ids are assigned on the calling thread, before the parallel part. All the commands of the batch
+     * share the same generation time. The commands without a sequence number get their index in the batch, such that
+     * the ids are unique and follow the order of the batch.
+     */
+    private CompletableFuture<IssueCommandsResponse> issueCommands(Context ctx, Processor processor,
+            List<IssueCommandRequest> requests, CompletableFuture<?> previous) {
+        Mdb mdb = MdbFactory.getInstance(processor.getInstance());
+        int n = requests.size();
+        long generationTime = processor.getCurrentTime();
+        int[] sequenceNumbers = new int[n];
+        Set<String> ids = new HashSet<>();
+        for (int i = 0; i < n; i++) {
+            IssueCommandRequest request = requests.get(i);
+            sequenceNumbers[i] = request.hasSequenceNumber() ? request.getSequenceNumber() : i;
+            String origin = getOrigin(ctx, request);
+            if (!ids.add(origin + "/" + sequenceNumbers[i])) {
+                throw new BadRequestException("Duplicate command id in batch: origin '" + origin
+                        + "', sequence number " + sequenceNumbers[i]);
+            }
+        }
+        // each element is either a PreparedCommand or the HttpException explaining why it could not be prepared
+        Object[] prepared = new Object[n];
+
+        int numTasks = Math.max(1, Math.min(n / MIN_COMMANDS_PER_TASK, ForkJoinPool.getCommonPoolParallelism()));
+        var tasks = new CompletableFuture<?>[numTasks];
+        for (int t = 0; t < numTasks; t++) {
+            int from = t * n / numTasks;
+            int to = (t + 1) * n / numTasks;
+            Runnable task = () -> {
+                for (int i = from; i < to; i++) {
+                    try {
+                        prepared[i] = prepareCommand(ctx, processor, mdb, requests.get(i), sequenceNumbers[i],
+                                generationTime);
+                    } catch (HttpException e) {
+                        prepared[i] = e;
+                    } catch (Exception e) {
+                        prepared[i] = new InternalServerErrorException(e);
+                    }
+                }
+            };
+            if (numTasks == 1) {
+                task.run();
+                tasks[t] = CompletableFuture.completedFuture(null);
+            } else {
+                tasks[t] = CompletableFuture.runAsync(task);
+            }
+        }
+
+        return CompletableFuture.allOf(tasks)
+                .thenCombine(previous.handle((r, err) -> null), (r1, r2) -> null)
+                .thenApply(x -> sendCommands(ctx, processor, mdb, requests, prepared));
+    }
+
+    private IssueCommandsResponse sendCommands(Context ctx, Processor processor, Mdb mdb,
+            List<IssueCommandRequest> requests, Object[] prepared) {
+        List<PreparedCommand> toSend = new ArrayList<>();
+        for (int i = 0; i < prepared.length; i++) {
+            if (prepared[i] instanceof PreparedCommand && !requests.get(i).getDryRun()) {
+                toSend.add((PreparedCommand) prepared[i]);
+            }
+        }
+        List<CommandQueue> queues = toSend.isEmpty()
+                ? Collections.emptyList()
+                : processor.getCommandingManager().sendCommands(ctx.user, toSend);
+
+        CommandQueueManager mgr = processor.getCommandingManager().getCommandQueueManager();
+        var responseb = IssueCommandsResponse.newBuilder();
+        int k = 0;
+        for (int i = 0; i < prepared.length; i++) {
+            var resultb = IssueCommandsResponse.Result.newBuilder();
+            if (prepared[i] instanceof PreparedCommand) {
+                PreparedCommand preparedCommand = (PreparedCommand) prepared[i];
+                CommandQueue queue;
+                if (requests.get(i).getDryRun()) {
+                    queue = mgr.getQueue(ctx.user, preparedCommand);
+                } else {
+                    queue = queues.get(k++);
+                }
+                resultb.setResponse(toIssueCommandResponse(mdb, preparedCommand, queue));
+            } else {
+                resultb.setError(((HttpException) prepared[i]).toMessage());
+            }
+            responseb.addResults(resultb);
+        }
+        return responseb.build();
+    }
+
+    /**
+     * Builds the response to a batch that could not be issued at all: each command gets the same error.
+     */
+    private static IssueCommandsResponse toBatchErrorResponse(IssueCommandsRequest request, Throwable err) {
+        HttpException httpException;
+        if (err instanceof HttpException) {
+            httpException = (HttpException) err;
+        } else {
+            log.error("Error issuing a batch of commands", err);
+            httpException = new InternalServerErrorException(err);
+        }
+        var responseb = IssueCommandsResponse.newBuilder();
+        var result = IssueCommandsResponse.Result.newBuilder()
+                .setError(httpException.toMessage())
+                .build();
+        for (int i = 0; i < request.getCommandsCount(); i++) {
+            responseb.addResults(result);
+        }
+        return responseb.build();
+    }
+
+    private static Processor verifyCommandingProcessor(String instance, String processorName) {
+        Processor processor = ProcessingApi.verifyProcessor(instance, processorName);
         if (!processor.hasCommanding()) {
             throw new BadRequestException("Commanding not activated for this processor");
         }
+        return processor;
+    }
+
+    private static String getOrigin(Context ctx, IssueCommandRequest request) {
+        if (request.hasOrigin()) { // TODO remove this override?
+            return request.getOrigin();
+        }
+        return ctx.getClientAddress();
+    }
 
+    /**
+     * Validates the request and builds the command, without sending it.
+     */
+    private PreparedCommand prepareCommand(Context ctx, Processor processor, Mdb mdb, IssueCommandRequest request,
+            int sequenceNumber, long generationTime) {
         String requestCommandName = UriEncoder.decode(request.getName());
-        Mdb mdb = MdbFactory.getInstance(processor.getInstance());
         MetaCommand cmd = MdbApi.verifyCommand(mdb, requestCommandName);
 
         ctx.checkObjectPrivileges(ObjectPrivilegeType.Command, cmd.getQualifiedName());
 
-        String origin = ctx.getClientAddress();
-        int sequenceNumber = 0;
+        String origin = getOrigin(ctx, request);
         boolean dryRun = false;
         String comment = null;
 
-        if (request.hasOrigin()) { // TODO remove this override?
-            origin = request.getOrigin();
-        }
         if (request.hasDryRun()) {
             dryRun = request.getDryRun();
         }
-        if (request.hasSequenceNumber()) {
-            sequenceNumber = request.getSequenceNumber();
-        }
         if (request.hasComment()) {
             comment = request.getComment();
         }
@@ -122,7 +326,7 @@ public class CommandsApi extends AbstractCommandsApi<Context> {
         PreparedCommand preparedCommand;
         try {
             preparedCommand = processor.getCommandingManager().buildCommand(cmd, args, origin, sequenceNumber,
-                    ctx.user);
+                    generationTime, ctx.user);
             if (comment != null && !comment.trim().isEmpty()) {
                 preparedCommand.setComment(comment);
             }
@@ -148,7 +352,7 @@ public class CommandsApi extends AbstractCommandsApi<Context> {
 
             if (request.hasStream()) {
                 ctx.checkSystemPrivilege(SystemPrivilege.CommandOptions);
-                var ydb = YarchDatabase.getInstance(request.getInstance());
+                var ydb = YarchDatabase.getInstance(processor.getInstance());
                 var tcStream = TableApi.verifyStream(ctx, ydb, request.getStream());
                 preparedCommand.setTcStream(tcStream);
             }
@@ -194,16 +398,11 @@ public class CommandsApi extends AbstractCommandsApi<Context> {
                 throw new ForbiddenException("Not cleared for this level of commands");
             }
         }
+        return preparedCommand;
+    }
 
-        // Good, now send
-        CommandQueue queue;
-        if (dryRun) {
-            CommandQueueManager mgr = processor.getCommandingManager().getCommandQueueManager();
-            queue = mgr.getQueue(ctx.user, preparedCommand);
-        } else {
-            queue = processor.getCommandingManager().sendCommand(ctx.user, preparedCommand);
-        }
-
+    private static IssueCommandResponse toIssueCommandResponse(Mdb mdb, PreparedCommand preparedCommand,
+            CommandQueue queue) {
         var commandName = preparedCommand.getMetaCommand().getQualifiedName();
 
         var responseb = IssueCommandResponse.newBuilder()
@@ -235,8 +434,7 @@ public class CommandsApi extends AbstractCommandsApi<Context> {
         if (queue != null) {
             responseb.setQueue(queue.getName());
         }
-
-        observer.complete(responseb.build());
+        return responseb.build();
     }
 
     private boolean hasVerifier(MetaCommand cmd, String stage) {
@@ -314,14 +512,16 @@ public class CommandsApi extends AbstractCommandsApi<Context> {
             matcher.setSearchDescription(false);
         }
         if (nextToken != null) {
-            // TODO this currently ignores the origin column (also part of the key)
-            // Requires string comparison in StreamSQL, and an even more complicated query condition...
+            // seeks to the token, has to come after the start/stop conditions (see SqlBuilder.whereColAfterOrEqual)
+            String origin = nextToken.origin != null ? nextToken.origin : "";
             if (desc) {
-                sqlb.where("(gentime < ? or (gentime = ? and seqNum < ?))",
-                        nextToken.gentime, nextToken.gentime, nextToken.seqNum);
+                sqlb.whereColBeforeOrEqual("gentime", nextToken.gentime);
+                sqlb.where("(gentime < ? or origin < ? or (origin = ? and seqNum < ?))",
+                        nextToken.gentime, origin, origin, nextToken.seqNum);
             } else {
-                sqlb.where("(gentime > ? or (gentime = ? and seqNum > ?))",
-                        nextToken.gentime, nextToken.gentime, nextToken.seqNum);
+                sqlb.whereColAfterOrEqual("gentime", nextToken.gentime);
+                sqlb.where("(gentime > ? or origin > ? or (origin = ? and seqNum > ?))",
+                        nextToken.gentime, origin, origin, nextToken.seqNum);
             }
         }
 
@@ -619,7 +819,7 @@ public class CommandsApi extends AbstractCommandsApi<Context> {
         }
 
         CsvCommandStreamer streamer = new CsvCommandStreamer(ctx, observer, delimiter, mdb);
-        StreamFactory.stream(instance, sql, sqlb.getQueryArguments(), streamer);
+        StreamFactory.stream(instance, sql, sqlb.getQueryArguments(), streamer, observer);
     }
 
     private static CommandId fromStringIdentifier(String commandName, String id) {
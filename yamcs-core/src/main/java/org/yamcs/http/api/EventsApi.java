@@ -22,11 +22,13 @@ import org.yamcs.YamcsServer;
 import org.yamcs.api.HttpBody;
 import org.yamcs.api.Observer;
 import org.yamcs.archive.EventRecorder;
+import org.yamcs.archive.EventTextIndex;
 import org.yamcs.events.EventProducer;
 import org.yamcs.events.EventProducerFactory;
 import org.yamcs.http.BadRequestException;
 import org.yamcs.http.Context;
 import org.yamcs.http.MediaType;
+import org.yamcs.http.SharedConversion;
 import org.yamcs.logging.Log;
 import org.yamcs.protobuf.AbstractEventsApi;
 import org.yamcs.protobuf.CreateEventRequest;
@@ -71,6 +73,10 @@ public class EventsApi extends AbstractEventsApi<Context> {
     private ConcurrentMap<String, EventProducer> eventProducerMap = new ConcurrentHashMap<>();
     private AtomicInteger eventSequenceNumber = new AtomicInteger();
 
+    // the realtime event is converted once for all the subscribers
+    private SharedConversion<Db.Event, Event> realtimeEventConversion = new SharedConversion<>(
+            EventsApi::fromDbEvent);
+
     @Override
     public void listEvents(Context ctx, ListEventsRequest request, Observer<ListEventsResponse> observer) {
         String instance = InstancesApi.verifyInstance(request.getInstance());
@@ -92,7 +98,22 @@ public class EventsApi extends AbstractEventsApi<Context> {
             nextToken = EventPageToken.decode(request.getNext());
         }
 
-        SqlBuilder sqlb = new SqlBuilder(EventRecorder.TABLE_NAME);
+        String source = EventRecorder.TABLE_NAME;
+        if (request.hasQ()) {
+            long start = request.hasStart() ? TimeEncoding.fromProtobufTimestamp(request.getStart())
+                    : TimeEncoding.INVALID_INSTANT;
+            long stop = request.hasStop() ? TimeEncoding.fromProtobufTimestamp(request.getStop())
+                    : TimeEncoding.INVALID_INSTANT;
+            if (nextToken != null) {
+                if (desc && (stop == TimeEncoding.INVALID_INSTANT || nextToken.gentime < stop)) {
+                    stop = nextToken.gentime;
+                } else if (!desc && nextToken.gentime > start) {
+                    start = nextToken.gentime;
+                }
+            }
+            source = eventSource(instance, request.getQ(), start, stop, !desc);
+        }
+        SqlBuilder sqlb = new SqlBuilder(source);
 
         if (request.hasStart()) {
             sqlb.whereColAfterOrEqual(GENTIME_COLUMN, request.getStart());
@@ -109,13 +130,12 @@ public class EventsApi extends AbstractEventsApi<Context> {
             sqlb.where("body.message like ?", "%" + request.getQ() + "%");
         }
         if (nextToken != null) {
-            // TODO this currently ignores the source column (also part of the key)
+            // seeks to the token, has to come after the start/stop conditions (see SqlBuilder.whereColAfterOrEqual)
+            // The events with the same gentime as the token are compared with its full key below.
             if (desc) {
-                sqlb.where("(gentime < ? or (gentime = ? and seqNum < ?))",
-                        nextToken.gentime, nextToken.gentime, nextToken.seqNum);
+                sqlb.whereColBeforeOrEqual(GENTIME_COLUMN, nextToken.gentime);
             } else {
-                sqlb.where("(gentime > ? or (gentime = ? and seqNum > ?))",
-                        nextToken.gentime, nextToken.gentime, nextToken.seqNum);
+                sqlb.whereColAfterOrEqual(GENTIME_COLUMN, nextToken.gentime);
             }
         }
         addSeverityFilter(sqlb, severity);
@@ -126,6 +146,10 @@ public class EventsApi extends AbstractEventsApi<Context> {
             sqlb.limit(pos, limit + 1l); // one more to detect hasMore
         }
 
+        EventPageToken finalToken = nextToken;
+        BiMap<String, Short> sourceEnum = YarchDatabase.getInstance(instance)
+                .getTable(EventRecorder.TABLE_NAME).getEnumValues(SOURCE_COLUMN);
+
         ListEventsResponse.Builder responseb = ListEventsResponse.newBuilder();
         StreamFactory.stream(instance, sqlb.toString(), sqlb.getQueryArguments(), new StreamSubscriber() {
 
@@ -134,12 +158,20 @@ public class EventsApi extends AbstractEventsApi<Context> {
 
             @Override
             public void onTuple(Stream stream, Tuple tuple) {
+                Db.Event incoming = (Db.Event) tuple.getColumn("body");
+                if (finalToken != null && incoming.getGenerationTime() == finalToken.gentime) {
+                    int c = finalToken.compareTo(incoming, sourceEnum);
+                    if (desc ? c <= 0 : c >= 0) {
+                        return;
+                    }
+                }
                 if (++count <= limit) {
-                    Db.Event incoming = (Db.Event) tuple.getColumn("body");
                     var event = fromDbEvent(incoming);
                     responseb.addEvents(event);
                     responseb.addEvent(event);
                     last = incoming;
+                } else {
+                    stream.close();
                 }
             }
 
@@ -257,7 +289,7 @@ public class EventsApi extends AbstractEventsApi<Context> {
             @Override
             public void onTuple(Stream stream, Tuple tuple) {
                 Db.Event event = (Db.Event) tuple.getColumn("body");
-                observer.next(fromDbEvent(event));
+                observer.next(realtimeEventConversion.convert(event));
             }
 
             @Override
@@ -275,7 +307,16 @@ public class EventsApi extends AbstractEventsApi<Context> {
         verifyEventArchiveSupport(instance);
         ctx.checkSystemPrivilege(SystemPrivilege.ReadEvents);
 
-        SqlBuilder sqlb = new SqlBuilder(EventRecorder.TABLE_NAME);
+        String source = EventRecorder.TABLE_NAME;
+        if (request.hasQ()) {
+            source = eventSource(instance, request.getQ(),
+                    request.hasStart() ? TimeEncoding.fromProtobufTimestamp(request.getStart())
+                            : TimeEncoding.INVALID_INSTANT,
+                    request.hasStop() ? TimeEncoding.fromProtobufTimestamp(request.getStop())
+                            : TimeEncoding.INVALID_INSTANT,
+                    true);
+        }
+        SqlBuilder sqlb = new SqlBuilder(source);
         if (request.hasStart()) {
             sqlb.whereColAfterOrEqual(GENTIME_COLUMN, request.getStart());
         }
@@ -307,7 +348,7 @@ public class EventsApi extends AbstractEventsApi<Context> {
             public void streamClosed(Stream stream) {
                 observer.complete();
             }
-        });
+        }, observer);
     }
 
     @Override
@@ -316,7 +357,16 @@ public class EventsApi extends AbstractEventsApi<Context> {
         EventsApi.verifyEventArchiveSupport(instance);
         ctx.checkSystemPrivilege(SystemPrivilege.ReadEvents);
 
-        SqlBuilder sqlb = new SqlBuilder(EventRecorder.TABLE_NAME);
+        String source = EventRecorder.TABLE_NAME;
+        if (request.hasQ()) {
+            source = eventSource(instance, request.getQ(),
+                    request.hasStart() ? TimeEncoding.fromProtobufTimestamp(request.getStart())
+                            : TimeEncoding.INVALID_INSTANT,
+                    request.hasStop() ? TimeEncoding.fromProtobufTimestamp(request.getStop())
+                            : TimeEncoding.INVALID_INSTANT,
+                    true);
+        }
+        SqlBuilder sqlb = new SqlBuilder(source);
 
         if (request.hasStart()) {
             sqlb.whereColAfterOrEqual(GENTIME_COLUMN, request.getStart());
@@ -360,7 +410,7 @@ public class EventsApi extends AbstractEventsApi<Context> {
         }
 
         CsvEventStreamer streamer = new CsvEventStreamer(observer, delimiter);
-        StreamFactory.stream(instance, sql, sqlb.getQueryArguments(), streamer);
+        StreamFactory.stream(instance, sql, sqlb.getQueryArguments(), streamer, observer);
     }
 
     /**
@@ -378,6 +428,29 @@ public class EventsApi extends AbstractEventsApi<Context> {
         }
     }
 
+    /**
+     * Returns the name of the table or stream from which the events searched for the text q are selected.
+     * <p>
+     * If the event text index is enabled and can be used for q, a stream providing only the events in the time
+     * interval which may contain q is created; the stream has the same columns as the events table such that the
+     * query conditions (including the text condition) can be applied to it unchanged. Otherwise the name of the
+     * events table is returned.
+     */
+    private static String eventSource(String instance, String q, long start, long stop, boolean ascending) {
+        List<EventRecorder> recorders = YamcsServer.getServer().getInstance(instance)
+                .getServices(EventRecorder.class);
+        for (EventRecorder recorder : recorders) {
+            EventTextIndex textIndex = recorder.getTextIndex();
+            if (textIndex != null) {
+                Stream stream = textIndex.newSearchStream(q, start, stop, ascending);
+                if (stream != null) {
+                    return stream.getName();
+                }
+            }
+        }
+        return EventRecorder.TABLE_NAME;
+    }
+
     /**
      * Stateless continuation token for paged requests on the event table
      */
@@ -398,6 +471,21 @@ public class EventsApi extends AbstractEventsApi<Context> {
             return new Gson().fromJson(decoded, EventPageToken.class);
         }
 
+        /**
+         * Compares the key of this token with the key of an event having the same generation time, in the order of
+         * the events table: by the index of the source in the enumeration of the source column, then by sequence
+         * number.
+         */
+        int compareTo(Db.Event event, BiMap<String, Short> sourceEnum) {
+            int c = Integer.compare(sourceIndex(source, sourceEnum), sourceIndex(event.getSource(), sourceEnum));
+            return c != 0 ? c : Integer.compare(seqNum, event.getSeqNumber());
+        }
+
+        private static int sourceIndex(String source, BiMap<String, Short> sourceEnum) {
+            Short idx = (source == null || sourceEnum == null) ? null : sourceEnum.get(source);
+            return idx == null ? -1 : idx;
+        }
+
         String encodeAsString() {
             String json = new Gson().toJson(this);
             return Base64.getUrlEncoder().withoutPadding().encodeToString(json.getBytes());
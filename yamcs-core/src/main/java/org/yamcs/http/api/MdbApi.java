@@ -9,8 +9,10 @@ import java.io.IOException;
 import java.io.ObjectOutputStream;
 import java.io.UncheckedIOException;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Set;
 import java.util.function.Predicate;
@@ -31,6 +33,7 @@ import org.yamcs.http.api.XtceToGpbAssembler.DetailLevel;
 import org.yamcs.logging.Log;
 import org.yamcs.mdb.Mdb;
 import org.yamcs.mdb.MdbFactory;
+import org.yamcs.mdb.MdbSearchIndex;
 import org.yamcs.mdb.XtceAssembler;
 import org.yamcs.parameter.ParameterWithId;
 import org.yamcs.protobuf.AbstractMdbApi;
@@ -101,6 +104,7 @@ import org.yamcs.xtce.UnitType;
 import org.yamcs.xtce.ValueEnumeration;
 
 import com.google.protobuf.ByteString;
+import com.google.protobuf.Message;
 
 public class MdbApi extends AbstractMdbApi<Context> {
 
@@ -115,8 +119,13 @@ public class MdbApi extends AbstractMdbApi<Context> {
 
         String instance = InstancesApi.verifyInstance(request.getInstance());
         Mdb mdb = MdbFactory.getInstance(instance);
-        MissionDatabase converted = toMissionDatabase(instance, mdb);
-        observer.complete(converted);
+        var cache = MdbResponseCache.get(instance, mdb);
+        if (completeFromCache(ctx, cache, request, observer, MissionDatabase.getDefaultInstance())) {
+            return;
+        }
+        var response = toMissionDatabase(instance, mdb);
+        cache.putResponse(request, response);
+        observer.complete(response);
     }
 
     @Override
@@ -152,11 +161,12 @@ public class MdbApi extends AbstractMdbApi<Context> {
 
         String instance = InstancesApi.verifyInstance(request.getInstance());
         Mdb mdb = MdbFactory.getInstance(instance);
+        var cache = MdbResponseCache.get(instance, mdb);
 
         if (!request.hasIncludeSpaceSystems() || request.getIncludeSpaceSystems()) {
             for (var spaceSystem : mdb.getSpaceSystems()) {
                 var item = MissionDatabaseItem.newBuilder()
-                        .setSpaceSystem(XtceToGpbAssembler.toSpaceSystemInfo(spaceSystem, DetailLevel.FULL))
+                        .setSpaceSystem(cache.toSpaceSystemInfo(spaceSystem, DetailLevel.FULL))
                         .build();
                 observer.next(item);
             }
@@ -164,7 +174,7 @@ public class MdbApi extends AbstractMdbApi<Context> {
         if (!request.hasIncludeContainers() || request.getIncludeContainers()) {
             for (var container : mdb.getSequenceContainers()) {
                 var item = MissionDatabaseItem.newBuilder()
-                        .setContainer(XtceToGpbAssembler.toContainerInfo(container, DetailLevel.FULL))
+                        .setContainer(cache.toContainerInfo(container, DetailLevel.FULL))
                         .build();
                 observer.next(item);
             }
@@ -172,7 +182,7 @@ public class MdbApi extends AbstractMdbApi<Context> {
         if (!request.hasIncludeParameters() || request.getIncludeParameters()) {
             for (var parameter : mdb.getParameters()) {
                 var item = MissionDatabaseItem.newBuilder()
-                        .setParameter(XtceToGpbAssembler.toParameterInfo(parameter, DetailLevel.FULL))
+                        .setParameter(cache.toParameterInfo(parameter, DetailLevel.FULL))
                         .build();
                 observer.next(item);
             }
@@ -180,7 +190,7 @@ public class MdbApi extends AbstractMdbApi<Context> {
         if (!request.hasIncludeParameterTypes() || request.getIncludeParameterTypes()) {
             for (var parameterType : mdb.getParameterTypes()) {
                 var item = MissionDatabaseItem.newBuilder()
-                        .setParameterType(XtceToGpbAssembler.toParameterTypeInfo(parameterType, DetailLevel.FULL))
+                        .setParameterType(cache.toParameterTypeInfo(parameterType, DetailLevel.FULL))
                         .build();
                 observer.next(item);
             }
@@ -188,7 +198,7 @@ public class MdbApi extends AbstractMdbApi<Context> {
         if (!request.hasIncludeCommands() || request.getIncludeCommands()) {
             for (var command : mdb.getMetaCommands()) {
                 var item = MissionDatabaseItem.newBuilder()
-                        .setCommand(XtceToGpbAssembler.toCommandInfo(command, DetailLevel.FULL))
+                        .setCommand(cache.toCommandInfo(command, DetailLevel.FULL))
                         .build();
                 observer.next(item);
             }
@@ -196,7 +206,7 @@ public class MdbApi extends AbstractMdbApi<Context> {
         if (!request.hasIncludeAlgorithms() || request.getIncludeAlgorithms()) {
             for (var algorithm : mdb.getAlgorithms()) {
                 var item = MissionDatabaseItem.newBuilder()
-                        .setAlgorithm(XtceToGpbAssembler.toAlgorithmInfo(algorithm, DetailLevel.FULL))
+                        .setAlgorithm(cache.toAlgorithmInfo(algorithm, DetailLevel.FULL))
                         .build();
                 observer.next(item);
             }
@@ -211,6 +221,10 @@ public class MdbApi extends AbstractMdbApi<Context> {
         ctx.checkSystemPrivilege(SystemPrivilege.GetMissionDatabase);
         String instance = InstancesApi.verifyInstance(request.getInstance());
         Mdb mdb = MdbFactory.getInstance(instance);
+        var cache = MdbResponseCache.get(instance, mdb);
+        if (completeFromCache(ctx, cache, request, observer, ListSpaceSystemsResponse.getDefaultInstance())) {
+            return;
+        }
 
         // Should eventually be replaced in a generic mdb search operation
         NameDescriptionSearchMatcher matcher = null;
@@ -218,8 +232,11 @@ public class MdbApi extends AbstractMdbApi<Context> {
             matcher = new NameDescriptionSearchMatcher(request.getQ());
         }
 
+        Collection<SpaceSystem> searchScope = request.hasQ()
+                ? getSearchScope(mdb.getSpaceSystemSearchIndex(), request.getQ(), mdb.getSpaceSystems())
+                : mdb.getSpaceSystems();
         List<SpaceSystem> matchedSpaceSystems = new ArrayList<>();
-        for (SpaceSystem spaceSystem : mdb.getSpaceSystems()) {
+        for (SpaceSystem spaceSystem : searchScope) {
             if (matcher != null && !matcher.matches(spaceSystem)) {
                 continue;
             }
@@ -254,12 +271,14 @@ public class MdbApi extends AbstractMdbApi<Context> {
         ListSpaceSystemsResponse.Builder responseb = ListSpaceSystemsResponse.newBuilder();
         responseb.setTotalSize(totalSize);
         for (SpaceSystem s : matchedSpaceSystems) {
-            responseb.addSpaceSystems(XtceToGpbAssembler.toSpaceSystemInfo(s, DetailLevel.FULL));
+            responseb.addSpaceSystems(cache.toSpaceSystemInfo(s, DetailLevel.FULL));
         }
         if (continuationToken != null) {
             responseb.setContinuationToken(continuationToken.encodeAsString());
         }
-        observer.complete(responseb.build());
+        var response = responseb.build();
+        cache.putResponse(request, response);
+        observer.complete(response);
     }
 
     @Override
@@ -286,25 +305,55 @@ public class MdbApi extends AbstractMdbApi<Context> {
 
         Mdb mdb = MdbFactory.getInstance(instance);
         SpaceSystem spaceSystem = verifySpaceSystem(mdb, request.getName());
+        var cache = MdbResponseCache.get(instance, mdb);
+        if (completeFromCache(ctx, cache, request, observer, SpaceSystemInfo.getDefaultInstance())) {
+            return;
+        }
 
-        SpaceSystemInfo info = XtceToGpbAssembler.toSpaceSystemInfo(spaceSystem, DetailLevel.FULL);
-        observer.complete(info);
+        var response = cache.toSpaceSystemInfo(spaceSystem, DetailLevel.FULL);
+        cache.putResponse(request, response);
+        observer.complete(response);
     }
 
     @Override
     public void listParameters(Context ctx, ListParametersRequest request, Observer<ListParametersResponse> observer) {
         String instance = InstancesApi.verifyInstance(request.getInstance());
         Mdb mdb = MdbFactory.getInstance(instance);
+        var cache = MdbResponseCache.get(instance, mdb);
+        // Unless the user may read the whole MDB, the response depends on object privileges
+        boolean cacheable = ctx.user.hasSystemPrivilege(SystemPrivilege.GetMissionDatabase);
+        if (cacheable
+                && completeFromCache(ctx, cache, request, observer, ListParametersResponse.getDefaultInstance())) {
+            return;
+        }
 
         Predicate<Parameter> hasPrivilege = p -> {
             return ctx.user.hasSystemPrivilege(SystemPrivilege.GetMissionDatabase)
                     || ctx.user.hasObjectPrivilege(ObjectPrivilegeType.ReadParameter, p.getQualifiedName());
         };
 
+        // With a search term, use the search index to narrow down the parameters to be matched
+        Collection<Parameter> searchScope = null;
+        if (request.hasQ()) {
+            var index = mdb.getParameterSearchIndex();
+            List<Parameter> indexMatches = index.getCandidates(request.getQ());
+            if (indexMatches != null && request.getSearchMembers()) {
+                // Member paths are not indexed, so consider also all parameters that have members
+                Set<Parameter> union = new LinkedHashSet<>(indexMatches);
+                union.addAll(index.getSelectedItems());
+                searchScope = union;
+            } else {
+                searchScope = indexMatches;
+            }
+        }
+        if (searchScope == null) {
+            searchScope = mdb.getParameters();
+        }
+
         // Establish only the parameters and space-systems that the user is authorised for
         Set<String> allSpaceSystemNames = new HashSet<>();
         List<Parameter> allParameters = new ArrayList<>();
-        mdb.getParameters().stream().filter(hasPrivilege).forEach(parameter -> {
+        searchScope.stream().filter(hasPrivilege).forEach(parameter -> {
             allSpaceSystemNames.add(parameter.getSubsystemName());
             allParameters.add(parameter);
         });
@@ -382,17 +431,17 @@ public class MdbApi extends AbstractMdbApi<Context> {
                 .setTotalSize(page.getTotalSize());
         for (SpaceSystem s : page.getSpaceSystems()) {
             responseb.addSpaceSystems(s.getQualifiedName());
-            responseb.addSystems(XtceToGpbAssembler.toSpaceSystemInfo(s, DetailLevel.SUMMARY));
+            responseb.addSystems(cache.toSpaceSystemInfo(s, DetailLevel.SUMMARY));
         }
         DetailLevel detail = request.getDetails() ? DetailLevel.FULL : DetailLevel.SUMMARY;
         for (NameDescription item : page.getItems()) {
             if (item instanceof Parameter) {
-                responseb.addParameters(XtceToGpbAssembler.toParameterInfo((Parameter) item, detail));
+                responseb.addParameters(cache.toParameterInfo((Parameter) item, detail));
             } else if (item instanceof EntryMatch) {
                 EntryMatch match = (EntryMatch) item;
                 Parameter parameter = match.parameter;
                 ParameterInfo.Builder entryb = ParameterInfo
-                        .newBuilder(XtceToGpbAssembler.toParameterInfo(parameter, detail));
+                        .newBuilder(cache.toParameterInfo(parameter, detail));
                 for (PathElement el : match.entryPath) {
                     if (el.getName() != null || el.getIndex() != null) {
                         entryb.addPath(el.toString());
@@ -404,7 +453,11 @@ public class MdbApi extends AbstractMdbApi<Context> {
         if (page.getContinuationToken() != null) {
             responseb.setContinuationToken(page.getContinuationToken());
         }
-        observer.complete(responseb.build());
+        var response = responseb.build();
+        if (cacheable) {
+            cache.putResponse(request, response);
+        }
+        observer.complete(response);
     }
 
     @Override
@@ -413,8 +466,12 @@ public class MdbApi extends AbstractMdbApi<Context> {
 
         Mdb mdb = MdbFactory.getInstance(instance);
         ParameterWithId match = verifyParameterWithId(ctx, mdb, request.getName());
+        var cache = MdbResponseCache.get(instance, mdb);
+        if (completeFromCache(ctx, cache, request, observer, ParameterInfo.getDefaultInstance())) {
+            return;
+        }
 
-        ParameterInfo pinfo = XtceToGpbAssembler.toParameterInfo(match, DetailLevel.FULL);
+        ParameterInfo pinfo = cache.toParameterInfo(match, DetailLevel.FULL);
 
         List<ParameterEntry> parameterEntries = mdb.getParameterEntries(match.getParameter());
         if (parameterEntries != null) {
@@ -431,13 +488,14 @@ public class MdbApi extends AbstractMdbApi<Context> {
             List<SequenceContainer> unsortedContainers = new ArrayList<>(usingContainers);
             Collections.sort(unsortedContainers, (c1, c2) -> c1.getQualifiedName().compareTo(c2.getQualifiedName()));
             for (SequenceContainer seqContainer : unsortedContainers) {
-                ContainerInfo usingContainer = XtceToGpbAssembler.toContainerInfo(seqContainer, DetailLevel.LINK);
+                ContainerInfo usingContainer = cache.toContainerInfo(seqContainer, DetailLevel.LINK);
                 usedByb.addContainer(usingContainer);
             }
             pinfob.setUsedBy(usedByb);
             pinfo = pinfob.build();
         }
 
+        cache.putResponse(request, pinfo);
         observer.complete(pinfo);
     }
 
@@ -590,6 +648,7 @@ public class MdbApi extends AbstractMdbApi<Context> {
 
         String instance = InstancesApi.verifyInstance(request.getInstance());
         Mdb mdb = MdbFactory.getInstance(instance);
+        var cache = MdbResponseCache.get(instance, mdb);
 
         BatchGetParametersResponse.Builder responseb = BatchGetParametersResponse.newBuilder();
         for (NamedObjectId id : request.getIdList()) {
@@ -605,7 +664,7 @@ public class MdbApi extends AbstractMdbApi<Context> {
 
             GetParameterResponse.Builder response = GetParameterResponse.newBuilder();
             response.setId(id);
-            response.setParameter(XtceToGpbAssembler.toParameterInfo(p, DetailLevel.SUMMARY));
+            response.setParameter(cache.toParameterInfo(p, DetailLevel.SUMMARY));
             responseb.addResponse(response);
         }
 
@@ -618,6 +677,10 @@ public class MdbApi extends AbstractMdbApi<Context> {
         ctx.checkSystemPrivilege(SystemPrivilege.GetMissionDatabase);
         String instance = InstancesApi.verifyInstance(request.getInstance());
         Mdb mdb = MdbFactory.getInstance(instance);
+        var cache = MdbResponseCache.get(instance, mdb);
+        if (completeFromCache(ctx, cache, request, observer, ListParameterTypesResponse.getDefaultInstance())) {
+            return;
+        }
 
         List<SpaceSystem> spaceSystems = new ArrayList<>();
         List<ParameterType> ptypes = new ArrayList<>();
@@ -628,7 +691,9 @@ public class MdbApi extends AbstractMdbApi<Context> {
                     : request.getSystem() + "/";
 
             if (request.hasQ()) { // get candidates for deep search starting from the system
-                for (ParameterType ptype : mdb.getParameterTypes()) {
+                var searchScope = getSearchScope(mdb.getParameterTypeSearchIndex(), request.getQ(),
+                        mdb.getParameterTypes());
+                for (ParameterType ptype : searchScope) {
                     if (ptype.getQualifiedName().startsWith(systemPrefix)) {
                         ptypes.add(ptype);
                     }
@@ -647,6 +712,9 @@ public class MdbApi extends AbstractMdbApi<Context> {
                     }
                 }
             }
+        } else if (request.hasQ()) {
+            ptypes = new ArrayList<>(getSearchScope(mdb.getParameterTypeSearchIndex(), request.getQ(),
+                    mdb.getParameterTypes()));
         } else {
             ptypes = new ArrayList<>(mdb.getParameterTypes());
         }
@@ -672,16 +740,18 @@ public class MdbApi extends AbstractMdbApi<Context> {
                 .setTotalSize(page.getTotalSize());
         for (SpaceSystem s : page.getSpaceSystems()) {
             responseb.addSpaceSystems(s.getQualifiedName());
-            responseb.addSystems(XtceToGpbAssembler.toSpaceSystemInfo(s, DetailLevel.SUMMARY));
+            responseb.addSystems(cache.toSpaceSystemInfo(s, DetailLevel.SUMMARY));
         }
         for (NameDescription c : page.getItems()) {
             var ptype = (ParameterType) c;
-            responseb.addParameterTypes(XtceToGpbAssembler.toParameterTypeInfo(ptype, DetailLevel.SUMMARY));
+            responseb.addParameterTypes(cache.toParameterTypeInfo(ptype, DetailLevel.SUMMARY));
         }
         if (page.getContinuationToken() != null) {
             responseb.setContinuationToken(page.getContinuationToken());
         }
-        observer.complete(responseb.build());
+        var response = responseb.build();
+        cache.putResponse(request, response);
+        observer.complete(response);
     }
 
     @Override
@@ -692,8 +762,12 @@ public class MdbApi extends AbstractMdbApi<Context> {
 
         Mdb mdb = MdbFactory.getInstance(instance);
         ParameterType ptype = verifyParameterType(mdb, request.getName());
+        var cache = MdbResponseCache.get(instance, mdb);
+        if (completeFromCache(ctx, cache, request, observer, ParameterTypeInfo.getDefaultInstance())) {
+            return;
+        }
 
-        var pinfo = XtceToGpbAssembler.toParameterTypeInfo(ptype, DetailLevel.FULL);
+        var pinfo = cache.toParameterTypeInfo(ptype, DetailLevel.FULL);
 
         // Add extra information about which parameters are using this type
         // This is not efficient, but we don't expect this to get called often.
@@ -702,10 +776,11 @@ public class MdbApi extends AbstractMdbApi<Context> {
                 .filter(parameter -> parameter.getParameterType() == ptype)
                 .sorted((a, b) -> a.getQualifiedName().compareTo(b.getQualifiedName()))
                 .forEach(parameter -> {
-                    pinfob.addUsedBy(XtceToGpbAssembler.toParameterInfo(parameter, DetailLevel.LINK));
+                    pinfob.addUsedBy(cache.toParameterInfo(parameter, DetailLevel.LINK));
                 });
         pinfo = pinfob.build();
 
+        cache.putResponse(request, pinfo);
         observer.complete(pinfo);
     }
 
@@ -715,6 +790,10 @@ public class MdbApi extends AbstractMdbApi<Context> {
         ctx.checkSystemPrivilege(SystemPrivilege.GetMissionDatabase);
         String instance = InstancesApi.verifyInstance(request.getInstance());
         Mdb mdb = MdbFactory.getInstance(instance);
+        var cache = MdbResponseCache.get(instance, mdb);
+        if (completeFromCache(ctx, cache, request, observer, ListContainersResponse.getDefaultInstance())) {
+            return;
+        }
 
         List<SpaceSystem> spaceSystems = new ArrayList<>();
         List<SequenceContainer> containers = new ArrayList<>();
@@ -725,7 +804,9 @@ public class MdbApi extends AbstractMdbApi<Context> {
                     : request.getSystem() + "/";
 
             if (request.hasQ()) { // get candidates for deep search starting from the system
-                for (SequenceContainer container : mdb.getSequenceContainers()) {
+                var searchScope = getSearchScope(mdb.getSequenceContainerSearchIndex(), request.getQ(),
+                        mdb.getSequenceContainers());
+                for (SequenceContainer container : searchScope) {
                     if (container.getQualifiedName().startsWith(systemPrefix)) {
                         containers.add(container);
                     }
@@ -744,6 +825,9 @@ public class MdbApi extends AbstractMdbApi<Context> {
                     }
                 }
             }
+        } else if (request.hasQ()) {
+            containers = new ArrayList<>(getSearchScope(mdb.getSequenceContainerSearchIndex(), request.getQ(),
+                    mdb.getSequenceContainers()));
         } else {
             containers = new ArrayList<>(mdb.getSequenceContainers());
         }
@@ -767,15 +851,17 @@ public class MdbApi extends AbstractMdbApi<Context> {
                 .setTotalSize(page.getTotalSize());
         for (SpaceSystem s : page.getSpaceSystems()) {
             responseb.addSpaceSystems(s.getQualifiedName());
-            responseb.addSystems(XtceToGpbAssembler.toSpaceSystemInfo(s, DetailLevel.SUMMARY));
+            responseb.addSystems(cache.toSpaceSystemInfo(s, DetailLevel.SUMMARY));
         }
         for (SequenceContainer c : page.getItems()) {
-            responseb.addContainers(XtceToGpbAssembler.toContainerInfo(c, DetailLevel.SUMMARY));
+            responseb.addContainers(cache.toContainerInfo(c, DetailLevel.SUMMARY));
         }
         if (page.getContinuationToken() != null) {
             responseb.setContinuationToken(page.getContinuationToken());
         }
-        observer.complete(responseb.build());
+        var response = responseb.build();
+        cache.putResponse(request, response);
+        observer.complete(response);
     }
 
     @Override
@@ -786,8 +872,12 @@ public class MdbApi extends AbstractMdbApi<Context> {
 
         Mdb mdb = MdbFactory.getInstance(instance);
         SequenceContainer c = verifyContainer(mdb, request.getName());
+        var cache = MdbResponseCache.get(instance, mdb);
+        if (completeFromCache(ctx, cache, request, observer, ContainerInfo.getDefaultInstance())) {
+            return;
+        }
 
-        ContainerInfo cinfo = XtceToGpbAssembler.toContainerInfo(c, DetailLevel.FULL);
+        ContainerInfo cinfo = cache.toContainerInfo(c, DetailLevel.FULL);
         List<ContainerEntry> containerEntries = mdb.getContainerEntries(c);
         if (containerEntries != null) {
             ContainerInfo.Builder cinfob = ContainerInfo.newBuilder(cinfo);
@@ -803,13 +893,14 @@ public class MdbApi extends AbstractMdbApi<Context> {
             List<SequenceContainer> unsortedContainers = new ArrayList<>(usingContainers);
             Collections.sort(unsortedContainers, (c1, c2) -> c1.getQualifiedName().compareTo(c2.getQualifiedName()));
             for (SequenceContainer seqContainer : unsortedContainers) {
-                ContainerInfo usingContainer = XtceToGpbAssembler.toContainerInfo(seqContainer, DetailLevel.LINK);
+                ContainerInfo usingContainer = cache.toContainerInfo(seqContainer, DetailLevel.LINK);
                 usedByb.addContainer(usingContainer);
             }
             cinfob.setUsedBy(usedByb);
             cinfo = cinfob.build();
         }
 
+        cache.putResponse(request, cinfo);
         observer.complete(cinfo);
     }
 
@@ -817,6 +908,13 @@ public class MdbApi extends AbstractMdbApi<Context> {
     public void listCommands(Context ctx, ListCommandsRequest request, Observer<ListCommandsResponse> observer) {
         String instance = InstancesApi.verifyInstance(request.getInstance());
         Mdb mdb = MdbFactory.getInstance(instance);
+        var cache = MdbResponseCache.get(instance, mdb);
+        // Unless the user may read the whole MDB, the response depends on object privileges
+        boolean cacheable = ctx.user.hasSystemPrivilege(SystemPrivilege.GetMissionDatabase);
+        if (cacheable
+                && completeFromCache(ctx, cache, request, observer, ListCommandsResponse.getDefaultInstance())) {
+            return;
+        }
 
         Predicate<MetaCommand> hasPrivilege = c -> {
             return ctx.user.hasSystemPrivilege(SystemPrivilege.GetMissionDatabase)
@@ -824,9 +922,12 @@ public class MdbApi extends AbstractMdbApi<Context> {
         };
 
         // Establish only the commands and space-systems that the user is authorised for
+        Collection<MetaCommand> searchScope = request.hasQ()
+                ? getSearchScope(mdb.getMetaCommandSearchIndex(), request.getQ(), mdb.getMetaCommands())
+                : mdb.getMetaCommands();
         Set<String> allSpaceSystemNames = new HashSet<>();
         List<MetaCommand> allCommands = new ArrayList<>();
-        mdb.getMetaCommands().stream().filter(hasPrivilege).forEach(command -> {
+        searchScope.stream().filter(hasPrivilege).forEach(command -> {
             allSpaceSystemNames.add(command.getSubsystemName());
             allCommands.add(command);
         });
@@ -893,16 +994,20 @@ public class MdbApi extends AbstractMdbApi<Context> {
                 .setTotalSize(page.getTotalSize());
         for (SpaceSystem s : page.getSpaceSystems()) {
             responseb.addSpaceSystems(s.getQualifiedName());
-            responseb.addSystems(XtceToGpbAssembler.toSpaceSystemInfo(s, DetailLevel.SUMMARY));
+            responseb.addSystems(cache.toSpaceSystemInfo(s, DetailLevel.SUMMARY));
         }
         DetailLevel detail = request.getDetails() ? DetailLevel.FULL : DetailLevel.SUMMARY;
         for (MetaCommand c : page.getItems()) {
-            responseb.addCommands(XtceToGpbAssembler.toCommandInfo(c, detail));
+            responseb.addCommands(cache.toCommandInfo(c, detail));
         }
         if (page.getContinuationToken() != null) {
             responseb.setContinuationToken(page.getContinuationToken());
         }
-        observer.complete(responseb.build());
+        var response = responseb.build();
+        if (cacheable) {
+            cache.putResponse(request, response);
+        }
+        observer.complete(response);
     }
 
     @Override
@@ -915,9 +1020,14 @@ public class MdbApi extends AbstractMdbApi<Context> {
                 !ctx.user.hasObjectPrivilege(ObjectPrivilegeType.Command, cmd.getQualifiedName())) {
             throw new ForbiddenException("Insufficient privileges");
         }
+        var cache = MdbResponseCache.get(instance, mdb);
+        if (completeFromCache(ctx, cache, request, observer, CommandInfo.getDefaultInstance())) {
+            return;
+        }
 
-        CommandInfo cinfo = XtceToGpbAssembler.toCommandInfo(cmd, DetailLevel.FULL);
-        observer.complete(cinfo);
+        var response = cache.toCommandInfo(cmd, DetailLevel.FULL);
+        cache.putResponse(request, response);
+        observer.complete(response);
     }
 
     @Override
@@ -925,6 +1035,13 @@ public class MdbApi extends AbstractMdbApi<Context> {
             Observer<ListAlgorithmsResponse> observer) {
         String instance = InstancesApi.verifyInstance(request.getInstance());
         Mdb mdb = MdbFactory.getInstance(instance);
+        var cache = MdbResponseCache.get(instance, mdb);
+        // Unless the user may read the whole MDB, the response depends on object privileges
+        boolean cacheable = ctx.user.hasSystemPrivilege(SystemPrivilege.GetMissionDatabase);
+        if (cacheable
+                && completeFromCache(ctx, cache, request, observer, ListAlgorithmsResponse.getDefaultInstance())) {
+            return;
+        }
 
         Predicate<Algorithm> hasPrivilege = a -> {
             return ctx.user.hasSystemPrivilege(SystemPrivilege.GetMissionDatabase)
@@ -932,9 +1049,12 @@ public class MdbApi extends AbstractMdbApi<Context> {
         };
 
         // Establish only the algorithms and space-systems that the user is authorised for
+        Collection<Algorithm> searchScope = request.hasQ()
+                ? getSearchScope(mdb.getAlgorithmSearchIndex(), request.getQ(), mdb.getAlgorithms())
+                : mdb.getAlgorithms();
         Set<String> allSpaceSystemNames = new HashSet<>();
         List<Algorithm> allAlgorithms = new ArrayList<>();
-        mdb.getAlgorithms().stream().filter(hasPrivilege).forEach(algorithm -> {
+        searchScope.stream().filter(hasPrivilege).forEach(algorithm -> {
             allSpaceSystemNames.add(algorithm.getSubsystemName());
             allAlgorithms.add(algorithm);
         });
@@ -1004,15 +1124,19 @@ public class MdbApi extends AbstractMdbApi<Context> {
                 .setTotalSize(page.getTotalSize());
         for (SpaceSystem s : page.getSpaceSystems()) {
             responseb.addSpaceSystems(s.getQualifiedName());
-            responseb.addSystems(XtceToGpbAssembler.toSpaceSystemInfo(s, DetailLevel.SUMMARY));
+            responseb.addSystems(cache.toSpaceSystemInfo(s, DetailLevel.SUMMARY));
         }
         for (Algorithm a : page.getItems()) {
-            responseb.addAlgorithms(XtceToGpbAssembler.toAlgorithmInfo(a, DetailLevel.SUMMARY));
+            responseb.addAlgorithms(cache.toAlgorithmInfo(a, DetailLevel.SUMMARY));
         }
         if (page.getContinuationToken() != null) {
             responseb.setContinuationToken(page.getContinuationToken());
         }
-        observer.complete(responseb.build());
+        var response = responseb.build();
+        if (cacheable) {
+            cache.putResponse(request, response);
+        }
+        observer.complete(response);
     }
 
     @Override
@@ -1025,9 +1149,43 @@ public class MdbApi extends AbstractMdbApi<Context> {
                 !ctx.user.hasObjectPrivilege(ObjectPrivilegeType.ReadAlgorithm, algo.getQualifiedName())) {
             throw new ForbiddenException("Insufficient privileges");
         }
+        var cache = MdbResponseCache.get(instance, mdb);
+        if (completeFromCache(ctx, cache, request, observer, AlgorithmInfo.getDefaultInstance())) {
+            return;
+        }
 
-        AlgorithmInfo cinfo = XtceToGpbAssembler.toAlgorithmInfo(algo, DetailLevel.FULL);
-        observer.complete(cinfo);
+        var response = cache.toAlgorithmInfo(algo, DetailLevel.FULL);
+        cache.putResponse(request, response);
+        observer.complete(response);
+    }
+
+    /**
+     * Completes the call with a response from the MDB response cache, if possible. The response is also tagged with the
+     * MDB version, so that clients can make conditional requests.
+     *
+     * @return true if the call was completed
+     */
+    private static <T extends Message> boolean completeFromCache(Context ctx, MdbResponseCache cache, Message request,
+            Observer<T> observer, T notModifiedResponse) {
+        if (ctx.setEntityTag(cache.getEntityTag())) {
+            observer.complete(notModifiedResponse);
+            return true;
+        }
+        T response = cache.getResponse(request);
+        if (response != null) {
+            observer.complete(response);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Returns the items to be matched against a search term. If possible, these are narrowed down using the search
+     * index, else all items are returned.
+     */
+    private static <T> Collection<T> getSearchScope(MdbSearchIndex<T> index, String q, Collection<T> allItems) {
+        List<T> candidates = index.getCandidates(q);
+        return candidates != null ? candidates : allItems;
     }
 
     private boolean parameterTypeMatches(ParameterType ptype, List<String> types) {
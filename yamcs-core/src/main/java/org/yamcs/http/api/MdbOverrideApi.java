@@ -184,6 +184,8 @@ public class MdbOverrideApi extends AbstractMdbOverrideApi<Context> {
         default:
             throw new BadRequestException("Unknown action " + request.getAction());
         }
+        // Clients tend to combine MDB responses with processor overrides, make them revalidate their copies
+        MdbResponseCache.invalidate(processor.getInstance());
 
         observer.complete(Empty.getDefaultInstance());
     }
@@ -259,6 +261,8 @@ public class MdbOverrideApi extends AbstractMdbOverrideApi<Context> {
             throw new BadRequestException("Unknown action " + request.getAction());
 
         }
+        // Clients tend to combine MDB responses with processor overrides, make them revalidate their copies
+        MdbResponseCache.invalidate(processor.getInstance());
         ParameterType ptype = pdata.getParameterType(p);
         ParameterTypeInfo pinfo = XtceToGpbAssembler.toParameterTypeInfo(ptype, DetailLevel.FULL);
         observer.complete(pinfo);
@@ -0,0 +1,147 @@
+package org.yamcs.http.api;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import org.yamcs.http.api.XtceToGpbAssembler.DetailLevel;
+import org.yamcs.mdb.Mdb;
+import org.yamcs.parameter.ParameterWithId;
+import org.yamcs.protobuf.Mdb.AlgorithmInfo;
+import org.yamcs.protobuf.Mdb.CommandInfo;
+import org.yamcs.protobuf.Mdb.ContainerInfo;
+import org.yamcs.protobuf.Mdb.ParameterInfo;
+import org.yamcs.protobuf.Mdb.ParameterTypeInfo;
+import org.yamcs.protobuf.Mdb.SpaceSystemInfo;
+import org.yamcs.xtce.Algorithm;
+import org.yamcs.xtce.MetaCommand;
+import org.yamcs.xtce.Parameter;
+import org.yamcs.xtce.ParameterType;
+import org.yamcs.xtce.PathElement;
+import org.yamcs.xtce.SequenceContainer;
+import org.yamcs.xtce.SpaceSystem;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.protobuf.Message;
+
+/**
+ * Per-instance cache of MDB API responses.
+ * <p>
+ * Keeps the GPB conversion of each MDB object (per detail level), as well as a bounded number of complete responses
+ * keyed by their request message. All of it is tied to a version of the MDB, identified by an entity tag that allows
+ * clients to revalidate their copy with a conditional request.
+ * <p>
+ * The cached information is dropped when a different MDB is loaded for the instance, when objects are added to the MDB
+ * (see {@link Mdb#getModificationCount()}) or on explicit {@link #invalidate(String)}.
+ */
+class MdbResponseCache {
+
+    private static final int MAX_RESPONSES = 1000;
+
+    // Distinguishes entity tags of different server runs
+    private static final String NONCE = Long.toHexString(System.currentTimeMillis());
+    private static final AtomicLong generationCounter = new AtomicLong();
+
+    private static final Map<String, MdbResponseCache> caches = new ConcurrentHashMap<>();
+
+    private final Mdb mdb;
+    private final long modificationCount;
+    private final String entityTag;
+
+    private final Map<DetailLevel, Map<Object, Message>> fragments = new EnumMap<>(DetailLevel.class);
+    private final Cache<Message, Message> responses = CacheBuilder.newBuilder()
+            .maximumSize(MAX_RESPONSES)
+            .build();
+
+    private MdbResponseCache(Mdb mdb) {
+        this.mdb = mdb;
+        modificationCount = mdb.getModificationCount();
+        entityTag = "W/\"" + NONCE + "-" + generationCounter.incrementAndGet() + "\"";
+        // MDB objects do not override equals, so these are identity maps
+        for (DetailLevel detail : DetailLevel.values()) {
+            fragments.put(detail, new ConcurrentHashMap<>());
+        }
+    }
+
+    /**
+     * Returns the cache for the current version of the MDB of an instance.
+     */
+    static MdbResponseCache get(String instance, Mdb mdb) {
+        return caches.compute(instance, (k, cache) -> {
+            if (cache == null || cache.mdb != mdb || cache.modificationCount != mdb.getModificationCount()) {
+                return new MdbResponseCache(mdb);
+            }
+            return cache;
+        });
+    }
+
+    /**
+     * Drops all cached responses of an instance, and makes its entity tag change.
+     */
+    static void invalidate(String instance) {
+        caches.remove(instance);
+    }
+
+    /**
+     * Entity tag of the MDB version that this cache corresponds to.
+     */
+    String getEntityTag() {
+        return entityTag;
+    }
+
+    /**
+     * Returns a cached response for the given request, or null if there is none.
+     */
+    @SuppressWarnings("unchecked")
+    <T extends Message> T getResponse(Message request) {
+        return (T) responses.getIfPresent(request);
+    }
+
+    void putResponse(Message request, Message response) {
+        responses.put(request, response);
+    }
+
+    ParameterInfo toParameterInfo(Parameter p, DetailLevel detail) {
+        return fragment(p, detail, x -> XtceToGpbAssembler.toParameterInfo(p, detail));
+    }
+
+    ParameterInfo toParameterInfo(ParameterWithId parameterWithId, DetailLevel detail) {
+        ParameterInfo pinfo = toParameterInfo(parameterWithId.getParameter(), detail);
+        if (parameterWithId.getPath() != null && parameterWithId.getPath().length > 0) {
+            ParameterInfo.Builder infob = ParameterInfo.newBuilder(pinfo);
+            for (PathElement el : parameterWithId.getPath()) {
+                infob.addPath(el.toString());
+            }
+            pinfo = infob.build();
+        }
+        return pinfo;
+    }
+
+    ParameterTypeInfo toParameterTypeInfo(ParameterType ptype, DetailLevel detail) {
+        return fragment(ptype, detail, x -> XtceToGpbAssembler.toParameterTypeInfo(ptype, detail));
+    }
+
+    ContainerInfo toContainerInfo(SequenceContainer c, DetailLevel detail) {
+        return fragment(c, detail, x -> XtceToGpbAssembler.toContainerInfo(c, detail));
+    }
+
+    CommandInfo toCommandInfo(MetaCommand cmd, DetailLevel detail) {
+        return fragment(cmd, detail, x -> XtceToGpbAssembler.toCommandInfo(cmd, detail));
+    }
+
+    AlgorithmInfo toAlgorithmInfo(Algorithm algo, DetailLevel detail) {
+        return fragment(algo, detail, x -> XtceToGpbAssembler.toAlgorithmInfo(algo, detail));
+    }
+
+    SpaceSystemInfo toSpaceSystemInfo(SpaceSystem ss, DetailLevel detail) {
+        return fragment(ss, detail, x -> XtceToGpbAssembler.toSpaceSystemInfo(ss, detail));
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T extends Message> T fragment(Object item, DetailLevel detail, Function<Object, T> converter) {
+        return (T) fragments.get(detail).computeIfAbsent(item, converter);
+    }
+}
@@ -28,6 +28,7 @@ import org.yamcs.http.Context;
 import org.yamcs.http.InternalServerErrorException;
 import org.yamcs.http.MediaType;
 import org.yamcs.http.NotFoundException;
+import org.yamcs.logging.Log;
 import org.yamcs.http.api.XtceToGpbAssembler.DetailLevel;
 import org.yamcs.mdb.MdbFactory;
 import org.yamcs.mdb.ProcessorData;
@@ -71,6 +72,8 @@ import com.google.protobuf.ByteString;
 
 public class PacketsApi extends AbstractPacketsApi<Context> {
 
+    private static final Log log = new Log(PacketsApi.class);
+
     @Override
     public void listPacketNames(Context ctx, ListPacketNamesRequest request,
             Observer<ListPacketNamesResponse> observer) {
@@ -115,10 +118,14 @@ public class PacketsApi extends AbstractPacketsApi<Context> {
     public void listPackets(Context ctx, ListPacketsRequest request, Observer<ListPacketsResponse> observer) {
         String instance = InstancesApi.verifyInstance(request.getInstance());
 
-        long pos = request.hasPos() ? request.getPos() : 0;
+        Long pos = request.hasPos() ? request.getPos() : null;
         int limit = request.hasLimit() ? request.getLimit() : 100;
         boolean desc = !request.getOrder().equals("asc");
 
+        if (pos != null) {
+            log.warn("DEPRECATION WARNING: Do not use pos, use continuationToken instead");
+        }
+
         ctx.checkObjectPrivileges(ObjectPrivilegeType.ReadPacket, request.getNameList());
         Set<String> nameSet = new HashSet<>(request.getNameList());
         if (nameSet.isEmpty()) {
@@ -156,17 +163,22 @@ public class PacketsApi extends AbstractPacketsApi<Context> {
             sqlb.where("link = ?", request.getLink());
         }
         if (nextToken != null) {
+            // seeks to the token, has to come after the start/stop conditions (see SqlBuilder.whereColAfterOrEqual)
             if (desc) {
-                sqlb.where("(gentime <= ? and (gentime < ? or seqNum < ?))",
-                        nextToken.gentime, nextToken.gentime, nextToken.seqNum);
+                sqlb.whereColBeforeOrEqual(GENTIME_COLUMN, nextToken.gentime);
+                sqlb.where("(gentime < ? or seqNum < ?)", nextToken.gentime, nextToken.seqNum);
             } else {
-                sqlb.where("(gentime >= ? and (gentime > ? or seqNum > ?))",
-                        nextToken.gentime, nextToken.gentime, nextToken.seqNum);
+                sqlb.whereColAfterOrEqual(GENTIME_COLUMN, nextToken.gentime);
+                sqlb.where("(gentime > ? or seqNum > ?)", nextToken.gentime, nextToken.seqNum);
             }
         }
 
         sqlb.descend(desc);
-        sqlb.limit(pos, limit + 1l); // one more to detect hasMore
+        if (pos != null) {
+            sqlb.limit(pos, limit + 1l); // one more to detect hasMore
+        } else {
+            sqlb.limit(limit + 1l);
+        }
 
         ListPacketsResponse.Builder responseb = ListPacketsResponse.newBuilder();
         StreamFactory.stream(instance, sqlb.toString(), sqlb.getQueryArguments(), new StreamSubscriber() {
@@ -265,7 +277,7 @@ public class PacketsApi extends AbstractPacketsApi<Context> {
             public void streamClosed(Stream stream) {
                 observer.complete();
             }
-        });
+        }, observer);
     }
 
     @Override
@@ -467,7 +479,7 @@ public class PacketsApi extends AbstractPacketsApi<Context> {
             public void streamClosed(Stream stream) {
                 observer.complete();
             }
-        });
+        }, observer);
     }
 
     @Override
@@ -0,0 +1,126 @@
+package org.yamcs.http.api;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import org.yamcs.parameter.ParameterValue;
+import org.yamcs.parameter.ParameterValueWithId;
+import org.yamcs.protobuf.Yamcs.NamedObjectId;
+
+/**
+ * Limits the rate of the updates of a parameter subscription.
+ * <p>
+ * The updates are sent at most once per interval; within the interval only the latest value of each parameter is
+ * kept. The values are sent in the order in which their parameters have first been updated since the last send.
+ * <p>
+ * Optionally, a value whose monitoring result or acquisition status differs from the previous value of the same
+ * parameter causes the values kept so far to be sent immediately, such that the alarm transitions are not delayed.
+ */
+class ParameterConflater {
+
+    private final long minIntervalNanos;
+    private final boolean sendStatusChangesImmediately;
+    private final ScheduledExecutorService executor;
+    private final Consumer<List<ParameterValueWithId>> sender;
+
+    private Map<NamedObjectId, ParameterValueWithId> pending = new LinkedHashMap<>();
+    // the last value received for each parameter, used to detect the status changes
+    private final Map<NamedObjectId, ParameterValue> lastValues = new HashMap<>();
+    private long lastSendTime;
+    private ScheduledFuture<?> scheduledSend;
+    private boolean closed;
+
+    /**
+     * @param minInterval
+     *            minimum interval in milliseconds between two calls of the sender
+     * @param sendStatusChangesImmediately
+     *            if true, the status changes bypass the interval
+     * @param executor
+     *            used to send the values kept at the end of the interval
+     * @param sender
+     *            called (under the lock of this object) with the values to be sent
+     */
+    ParameterConflater(long minInterval, boolean sendStatusChangesImmediately, ScheduledExecutorService executor,
+            Consumer<List<ParameterValueWithId>> sender) {
+        this.minIntervalNanos = TimeUnit.MILLISECONDS.toNanos(minInterval);
+        this.sendStatusChangesImmediately = sendStatusChangesImmediately;
+        this.executor = executor;
+        this.sender = sender;
+        this.lastSendTime = System.nanoTime() - minIntervalNanos;
+    }
+
+    synchronized void update(List<ParameterValueWithId> params) {
+        if (closed) {
+            return;
+        }
+        boolean statusChange = false;
+        for (ParameterValueWithId pvwi : params) {
+            ParameterValue pv = pvwi.getParameterValue();
+            ParameterValue previous = lastValues.put(pvwi.getId(), pv);
+            if (previous != null && (previous.getMonitoringResult() != pv.getMonitoringResult()
+                    || previous.getAcquisitionStatus() != pv.getAcquisitionStatus())) {
+                statusChange = true;
+            }
+            pending.put(pvwi.getId(), pvwi);
+        }
+
+        long delay = lastSendTime + minIntervalNanos - System.nanoTime();
+        if (delay <= 0 || (statusChange && sendStatusChangesImmediately)) {
+            send();
+        } else if (scheduledSend == null) {
+            scheduledSend = executor.schedule(this::sendScheduled, delay, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Sends the values kept so far.
+     */
+    synchronized void flush() {
+        if (!closed) {
+            send();
+        }
+    }
+
+    /**
+     * Drops the values kept so far and stops accepting updates.
+     */
+    synchronized void close() {
+        if (scheduledSend != null) {
+            scheduledSend.cancel(false);
+            scheduledSend = null;
+        }
+        pending.clear();
+        closed = true;
+    }
+
+    synchronized int getPendingCount() {
+        return pending.size();
+    }
+
+    private synchronized void sendScheduled() {
+        scheduledSend = null;
+        if (!closed) {
+            send();
+        }
+    }
+
+    private void send() {
+        if (scheduledSend != null) {
+            scheduledSend.cancel(false);
+            scheduledSend = null;
+        }
+        lastSendTime = System.nanoTime();
+        if (!pending.isEmpty()) {
+            List<ParameterValueWithId> values = new ArrayList<>(pending.values());
+            pending = new LinkedHashMap<>();
+            sender.accept(values);
+        }
+    }
+}
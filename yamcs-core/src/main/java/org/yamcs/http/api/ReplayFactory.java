@@ -5,6 +5,7 @@ import java.util.concurrent.atomic.AtomicInteger;
 
 import org.yamcs.Processor;
 import org.yamcs.ProcessorFactory;
+import org.yamcs.api.Observer;
 import org.yamcs.archive.ReplayOptions;
 import org.yamcs.http.InternalServerErrorException;
 import org.yamcs.http.ServiceUnavailableException;
@@ -12,6 +13,7 @@ import org.yamcs.parameter.ParameterValueWithId;
 import org.yamcs.parameter.ParameterWithIdConsumer;
 import org.yamcs.parameter.ParameterWithIdRequestHelper;
 import org.yamcs.security.User;
+import org.yamcs.tctm.ArchiveTmPacketProvider;
 
 import com.google.common.util.concurrent.MoreExecutors;
 import com.google.common.util.concurrent.Service.Listener;
@@ -31,6 +33,15 @@ public class ReplayFactory {
      */
     public static ReplayWrapper replay(String instance, User user, ReplayOptions replayRequest,
             ParameterReplayListener l) {
+        return replay(instance, user, replayRequest, l, null);
+    }
+
+    /**
+     * launches a replay whose data is passed to the given streaming observer. The replay is paused while the observer
+     * is not ready.
+     */
+    public static ReplayWrapper replay(String instance, User user, ReplayOptions replayRequest,
+            ParameterReplayListener l, Observer<?> observer) {
         int n = concurrentCount.incrementAndGet();
 
         if (n > MAX_CONCURRENT_REPLAYS) {
@@ -42,6 +53,11 @@ public class ReplayFactory {
             Processor processor = ProcessorFactory.create(instance, "api_replay" + count.incrementAndGet(),
                     "ArchiveRetrieval", "internal", replayRequest);
             ReplayWrapper wrapper = new ReplayWrapper(l, processor);
+            if (observer != null && processor.getTmPacketProvider() instanceof ArchiveTmPacketProvider) {
+                // not through processor.pause() which would propagate the state change to the processor clients
+                ArchiveTmPacketProvider provider = (ArchiveTmPacketProvider) processor.getTmPacketProvider();
+                wrapper.flowControl = new StreamFlowControl(observer, provider::pause, provider::resume);
+            }
 
             ParameterWithIdRequestHelper pidrm = new ParameterWithIdRequestHelper(
                     processor.getParameterRequestManager(),
@@ -70,6 +86,7 @@ public class ReplayFactory {
     private static class ReplayWrapper implements ParameterWithIdConsumer {
         ParameterReplayListener wrappedListener;
         Processor processor;
+        StreamFlowControl flowControl;
 
         ReplayWrapper(ParameterReplayListener l, Processor processor) {
             this.wrappedListener = l;
@@ -81,6 +98,9 @@ public class ReplayFactory {
         public void update(int subscriptionId, List<ParameterValueWithId> params) {
             if (!wrappedListener.isReplayAbortRequested()) {
                 wrappedListener.update(subscriptionId, params);
+                if (flowControl != null) {
+                    flowControl.check();
+                }
             } else {
                 processor.quit();
             }
@@ -14,6 +14,7 @@ import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.TimeUnit;
@@ -41,6 +42,7 @@ import org.yamcs.http.WebSocketFrameHandler;
 import org.yamcs.protobuf.AbstractServerApi;
 import org.yamcs.protobuf.ClientConnectionInfo;
 import org.yamcs.protobuf.ClientConnectionInfo.HttpRequestInfo;
+import org.yamcs.protobuf.EventLoopInfo;
 import org.yamcs.protobuf.GetServerInfoResponse;
 import org.yamcs.protobuf.GetServerInfoResponse.CommandOptionInfo;
 import org.yamcs.protobuf.GetServerInfoResponse.PluginInfo;
@@ -66,6 +68,7 @@ import com.google.protobuf.Timestamp;
 import com.google.protobuf.util.Durations;
 
 import io.netty.channel.Channel;
+import io.netty.channel.EventLoop;
 import io.netty.handler.codec.http.HttpHeaderNames;
 import io.netty.handler.codec.http.HttpRequest;
 import io.netty.handler.codec.http.HttpUtil;
@@ -431,8 +434,27 @@ public class ServerApi extends AbstractServerApi<Context> {
             }
         }
 
+        trafficb.setTransport(httpServer.getTransport());
+        Map<EventLoop, EventLoopInfo.Builder> eventLoops = new LinkedHashMap<>();
+        for (EventLoop eventLoop : httpServer.getEventLoops()) {
+            eventLoops.put(eventLoop, EventLoopInfo.newBuilder().setIndex(eventLoops.size()));
+        }
+
         List<ClientConnectionInfo> result = new ArrayList<>();
         for (Channel channel : httpServer.getClientChannels()) {
+            var eventLoopb = eventLoops.get(channel.eventLoop());
+            if (eventLoopb != null) {
+                eventLoopb.setConnections(eventLoopb.getConnections() + 1);
+                var trafficHandler = channel.pipeline().get(ChannelTrafficShapingHandler.class);
+                TrafficCounter counter = trafficHandler != null ? trafficHandler.trafficCounter() : null;
+                if (counter != null) {
+                    eventLoopb.setReadBytes(eventLoopb.getReadBytes() + counter.cumulativeReadBytes());
+                    eventLoopb.setWrittenBytes(eventLoopb.getWrittenBytes() + counter.cumulativeWrittenBytes());
+                    eventLoopb.setReadThroughput(eventLoopb.getReadThroughput() + counter.lastReadThroughput());
+                    eventLoopb.setWriteThroughput(eventLoopb.getWriteThroughput() + counter.lastWriteThroughput());
+                }
+            }
+
             HttpRequest httpRequest = channel.attr(HttpRequestHandler.CTX_HTTP_REQUEST).get();
             if (httpRequest == null) {
                 continue; // Could be in the process of being handled
@@ -484,6 +506,7 @@ public class ServerApi extends AbstractServerApi<Context> {
         }
 
         trafficb.addAllConnections(result);
+        eventLoops.values().forEach(trafficb::addEventLoops);
         return trafficb.build();
     }
 
@@ -276,7 +276,7 @@ public class StreamArchiveApi extends AbstractStreamArchiveApi<Context> {
         };
         observer.setCancelHandler(replayListener::requestReplayAbortion);
 
-        ReplayFactory.replay(instance, ctx.user, repl, replayListener);
+        ReplayFactory.replay(instance, ctx.user, repl, replayListener, observer);
     }
 
     @Override
@@ -418,7 +418,7 @@ public class StreamArchiveApi extends AbstractStreamArchiveApi<Context> {
                 preserveLastValue, interval, columnDelimiter, header);
 
         observer.setCancelHandler(listener::requestReplayAbortion);
-        ReplayFactory.replay(instance, ctx.user, repl, listener);
+        ReplayFactory.replay(instance, ctx.user, repl, listener, observer);
     }
 
     private static ReplayOptions toParameterReplayRequest(NamedObjectId parameterId, long start, long stop,
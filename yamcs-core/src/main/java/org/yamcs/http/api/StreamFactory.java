@@ -1,15 +1,18 @@
 package org.yamcs.http.api;
 
+import java.io.IOException;
 import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.atomic.AtomicInteger;
 
+import org.yamcs.api.Observer;
 import org.yamcs.http.InternalServerErrorException;
 import org.yamcs.logging.Log;
 import org.yamcs.utils.parser.ParseException;
 import org.yamcs.yarch.Stream;
 import org.yamcs.yarch.StreamSubscriber;
 import org.yamcs.yarch.TableDefinition;
+import org.yamcs.yarch.Tuple;
 import org.yamcs.yarch.YarchDatabase;
 import org.yamcs.yarch.YarchDatabaseInstance;
 import org.yamcs.yarch.streamsql.StreamSqlException;
@@ -24,6 +27,17 @@ public class StreamFactory {
     }
 
     public static void stream(String instance, String selectSql, List<Object> args, StreamSubscriber subscriber) {
+        stream(instance, selectSql, args, subscriber, null);
+    }
+
+    /**
+     * Streams the result of the query to a subscriber passing the tuples to the given streaming observer.
+     * <p>
+     * If the stream supports it, the table reader is paused while the observer is not ready, such that the thread
+     * reading the table does not block on the observer and the unsent data does not accumulate in memory.
+     */
+    public static void stream(String instance, String selectSql, List<Object> args, StreamSubscriber subscriber,
+            Observer<?> observer) {
         YarchDatabaseInstance ydb = YarchDatabase.getInstance(instance);
 
         String streamName = "http_stream" + streamCounter.incrementAndGet();
@@ -42,7 +56,28 @@ public class StreamFactory {
         }
 
         Stream stream = ydb.getStream(streamName);
-        stream.addSubscriber(subscriber);
+        if (observer != null && stream.canPause()) {
+            StreamFlowControl flowControl = new StreamFlowControl(observer, stream::pause, stream::resume);
+            stream.addSubscriber(new StreamSubscriber() {
+                @Override
+                public void onTuple(Stream s, Tuple tuple) {
+                    subscriber.onTuple(s, tuple);
+                    flowControl.check();
+                }
+
+                @Override
+                public void streamClosed(Stream s) {
+                    if (flowControl.isPaused() && !observer.isCancelled()) {
+                        // the table reader gave up waiting for the client; the response is incomplete
+                        observer.completeExceptionally(new IOException("Stream closed while the client was stalled"));
+                    } else {
+                        subscriber.streamClosed(s);
+                    }
+                }
+            });
+        } else {
+            stream.addSubscriber(subscriber);
+        }
         stream.start();
         return;
     }
@@ -0,0 +1,47 @@
+package org.yamcs.http.api;
+
+import org.yamcs.api.Observer;
+
+/**
+ * Suspends the producer of a streaming response while the observer is not ready, and resumes it when the observer
+ * signals that it is ready again.
+ * <p>
+ * The producer calls {@link #check()} after each message passed to the observer. The pause and resume actions are
+ * called (at most once per transition) from the producer thread, respectively from the thread of the observer; they
+ * should not block.
+ */
+class StreamFlowControl {
+
+    private final Observer<?> observer;
+    private final Runnable pauseAction;
+    private final Runnable resumeAction;
+    private boolean paused;
+
+    StreamFlowControl(Observer<?> observer, Runnable pauseAction, Runnable resumeAction) {
+        this.observer = observer;
+        this.pauseAction = pauseAction;
+        this.resumeAction = resumeAction;
+        observer.setOnReadyHandler(this::onReady);
+    }
+
+    synchronized void check() {
+        if (!paused && !observer.isReady()) {
+            paused = true;
+            pauseAction.run();
+        }
+    }
+
+    /**
+     * Returns true if the producer is paused waiting for the observer to become ready.
+     */
+    synchronized boolean isPaused() {
+        return paused;
+    }
+
+    private synchronized void onReady() {
+        if (paused && observer.isReady()) {
+            paused = false;
+            resumeAction.run();
+        }
+    }
+}
@@ -14,6 +14,7 @@ import java.util.concurrent.atomic.AtomicInteger;
 import org.yamcs.InvalidIdentification;
 import org.yamcs.NoPermissionException;
 import org.yamcs.Processor;
+import org.yamcs.YamcsServer;
 import org.yamcs.api.Observer;
 import org.yamcs.http.BadRequestException;
 import org.yamcs.logging.Log;
@@ -49,6 +50,9 @@ public class SubscribeParameterObserver implements Observer<SubscribeParametersR
     // Max emitted bytes for a singular binary value updates (either raw or eng)
     private int maxBytes = -1;
 
+    // Limits the rate of the updates, if requested
+    private volatile ParameterConflater conflater;
+
     public SubscribeParameterObserver(User user, Observer<SubscribeParametersData> responseObserver) {
         this.user = user;
         this.responseObserver = responseObserver;
@@ -59,6 +63,10 @@ public class SubscribeParameterObserver implements Observer<SubscribeParametersR
         if (request.hasMaxBytes()) {
             maxBytes = request.getMaxBytes();
         }
+        if (request.hasMinInterval()) {
+            setConflater(request.getMinInterval(),
+                    !request.hasSendStatusChangesImmediately() || request.getSendStatusChangesImmediately());
+        }
 
         if (pidrm == null) {
             Processor processor = ProcessingApi.verifyProcessor(request.getInstance(), request.getProcessor());
@@ -67,15 +75,12 @@ public class SubscribeParameterObserver implements Observer<SubscribeParametersR
                 if (params.isEmpty()) {
                     return;
                 }
-                SubscribeParametersData.Builder datab = SubscribeParametersData.newBuilder();
-                for (ParameterValueWithId pvwi : params) {
-                    ParameterValue pval = pvwi.getParameterValue();
-                    Integer numericId = numericIdMap.get(pvwi.getId());
-                    if (numericId != null) {
-                        datab.addValues(toGpb(pval, numericId));
-                    }
+                ParameterConflater c = conflater;
+                if (c != null) {
+                    c.update(params);
+                } else {
+                    sendValues(params);
                 }
-                responseObserver.next(datab.build());
             });
         }
 
@@ -154,6 +159,40 @@ public class SubscribeParameterObserver implements Observer<SubscribeParametersR
         }
     }
 
+    private void sendValues(List<ParameterValueWithId> params) {
+        SubscribeParametersData.Builder datab = SubscribeParametersData.newBuilder();
+        for (ParameterValueWithId pvwi : params) {
+            ParameterValue pval = pvwi.getParameterValue();
+            Integer numericId = numericIdMap.get(pvwi.getId());
+            if (numericId != null) {
+                datab.addValues(toGpb(pval, numericId));
+            }
+        }
+        responseObserver.next(datab.build());
+    }
+
+    private synchronized void setConflater(int minInterval, boolean sendStatusChangesImmediately) {
+        ParameterConflater old = conflater;
+        if (minInterval > 0) {
+            conflater = new ParameterConflater(minInterval, sendStatusChangesImmediately,
+                    YamcsServer.getServer().getThreadPoolExecutor(), this::sendValues);
+        } else {
+            conflater = null;
+        }
+        if (old != null) {
+            // the values kept by the previous conflater are not lost
+            old.flush();
+            old.close();
+        }
+    }
+
+    private synchronized void closeConflater() {
+        if (conflater != null) {
+            conflater.close();
+            conflater = null;
+        }
+    }
+
     private SubscribedParameterInfo generateInfo(NamedObjectId id) {
         var infob = SubscribedParameterInfo.newBuilder();
         try {
@@ -236,6 +275,7 @@ public class SubscribeParameterObserver implements Observer<SubscribeParametersR
         if (pidrm != null) {
             pidrm.quit();
         }
+        closeConflater();
     }
 
     @Override
@@ -243,5 +283,6 @@ public class SubscribeParameterObserver implements Observer<SubscribeParametersR
         if (pidrm != null) {
             pidrm.quit();
         }
+        closeConflater();
     }
 }
@@ -0,0 +1,245 @@
+package org.yamcs.mdb;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.yamcs.ErrorInCommand;
+import org.yamcs.ProcessorConfig;
+import org.yamcs.parameter.Value;
+import org.yamcs.utils.BitBuffer;
+import org.yamcs.xtce.ArgumentEntry;
+import org.yamcs.xtce.BaseDataType;
+import org.yamcs.xtce.BinaryDataEncoding;
+import org.yamcs.xtce.CommandContainer;
+import org.yamcs.xtce.Container;
+import org.yamcs.xtce.DataEncoding;
+import org.yamcs.xtce.DataType;
+import org.yamcs.xtce.FixedValueEntry;
+import org.yamcs.xtce.FloatDataEncoding;
+import org.yamcs.xtce.IntegerDataEncoding;
+import org.yamcs.xtce.MetaCommand;
+import org.yamcs.xtce.Parameter;
+import org.yamcs.xtce.ParameterEntry;
+import org.yamcs.xtce.SequenceEntry;
+
+/**
+ * Precompiled encoding of a command whose layout does not depend on the values of its arguments.
+ * <p>
+ * The template contains an image of the binary where the fixed value entries and the parameters taking their value
+ * from the container restriction criteria are already encoded. Encoding a command consists of copying the image and
+ * patching it at known bit positions with the values of the arguments and of the parameters taken from the last value
+ * cache.
+ * <p>
+ * The template can only be built if all the entries have a size known in advance and do not overlap; the commands
+ * containing strings, variable size binaries, aggregates, arrays or custom encoding algorithms are encoded by walking
+ * the container in {@link MetaCommandContainerProcessor}.
+ */
+class CommandEncodingTemplate {
+    private final byte[] image;
+    private final Map<Parameter, Value> contextParameters;
+    private final int[] patchPositions;
+    private final SequenceEntry[] patchEntries;
+
+    private CommandEncodingTemplate(byte[] image, Map<Parameter, Value> contextParameters,
+            List<Integer> patchPositions, List<SequenceEntry> patchEntries) {
+        this.image = image;
+        this.contextParameters = contextParameters;
+        this.patchPositions = patchPositions.stream().mapToInt(Integer::intValue).toArray();
+        this.patchEntries = patchEntries.toArray(new SequenceEntry[0]);
+    }
+
+    /**
+     * The values of the parameters from the restriction criteria of the command container
+     */
+    Map<Parameter, Value> getContextParameters() {
+        return contextParameters;
+    }
+
+    /**
+     * Returns a new buffer containing the fixed parts of the command, to be passed to {@link #encode}.
+     */
+    byte[] newImage() {
+        return image.clone();
+    }
+
+    /**
+     * Writes the variable parts of the command into the buffer of the context, previously obtained with
+     * {@link #newImage()}.
+     */
+    void encode(TcProcessingContext pcontext) {
+        BitBuffer bitbuf = pcontext.bitbuf;
+        MetaCommandContainerProcessor mccProcessor = pcontext.mccProcessor;
+        for (int i = 0; i < patchEntries.length; i++) {
+            bitbuf.setPosition(patchPositions[i]);
+            SequenceEntry se = patchEntries[i];
+            if (se instanceof ArgumentEntry) {
+                mccProcessor.fillInArgumentEntry((ArgumentEntry) se, pcontext);
+            } else {
+                mccProcessor.fillInParameterEntry((ParameterEntry) se, pcontext);
+            }
+        }
+        pcontext.setSize(image.length);
+    }
+
+    /**
+     * Builds the template for the given command.
+     *
+     * @return the template or null if the command layout depends on the values of the arguments.
+     */
+    static CommandEncodingTemplate compile(ProcessorData pdata, MetaCommand mc) {
+        CommandContainer cmdContainer = mc.getCommandContainer();
+        if (mc.isAbstract() || cmdContainer == null) {
+            return null;
+        }
+        Map<Parameter, Value> params = new HashMap<>();
+        List<SequenceEntry> entries = new ArrayList<>();
+        try {
+            MetaCommandProcessor.collectParameters(cmdContainer, params);
+            if (!collectEntries(mc, entries)) {
+                return null;
+            }
+        } catch (ErrorInCommand e) {
+            return null;
+        }
+
+        ProcessorConfig procConf = pdata.getProcessorConfig();
+        int maxSizeInBits = 8 * procConf.getMaxCommandSize();
+        BitBuffer bitbuf = new BitBuffer(new byte[procConf.getMaxCommandSize()]);
+        TcProcessingContext pcontext = new TcProcessingContext(mc, pdata, params, bitbuf, 0);
+
+        List<Integer> patchPositions = new ArrayList<>();
+        List<SequenceEntry> patchEntries = new ArrayList<>();
+        // bit ranges already used, in pairs (start, end)
+        List<int[]> ranges = new ArrayList<>();
+        int position = 0;
+        int size = 0;
+
+        for (SequenceEntry se : entries) {
+            switch (se.getReferenceLocation()) {
+            case PREVIOUS_ENTRY:
+                position += se.getLocationInContainerInBits();
+                break;
+            case CONTAINER_START:
+                position = se.getLocationInContainerInBits();
+            }
+            int sizeInBits;
+            DataEncoding encoding = null;
+            if (se instanceof FixedValueEntry) {
+                sizeInBits = ((FixedValueEntry) se).getSizeInBits();
+            } else if (se instanceof ArgumentEntry) {
+                encoding = getEncoding(((ArgumentEntry) se).getArgument().getArgumentType());
+                sizeInBits = getFixedSizeInBits(encoding, position);
+            } else if (se instanceof ParameterEntry) {
+                encoding = getEncoding(((ParameterEntry) se).getParameter().getParameterType());
+                sizeInBits = getFixedSizeInBits(encoding, position);
+            } else {
+                return null;
+            }
+            if (sizeInBits < 0 || position < 0 || position + sizeInBits > maxSizeInBits
+                    || overlaps(ranges, position, position + sizeInBits)) {
+                return null;
+            }
+            ranges.add(new int[] { position, position + sizeInBits });
+
+            bitbuf.setPosition(position);
+            if (se instanceof FixedValueEntry) {
+                // written with the byte order of the previous entry, like in the container processor
+                pcontext.mccProcessor.fillInFixedValueEntry((FixedValueEntry) se, pcontext);
+            } else if (se instanceof ParameterEntry && params.containsKey(((ParameterEntry) se).getParameter())) {
+                try {
+                    pcontext.mccProcessor.fillInParameterEntry((ParameterEntry) se, pcontext);
+                } catch (RuntimeException e) {
+                    // let the container processor report the error
+                    return null;
+                }
+            } else {
+                patchPositions.add(position);
+                patchEntries.add(se);
+                bitbuf.setByteOrder(encoding.getByteOrder());
+            }
+            position += sizeInBits;
+            size = Math.max(size, (position + 7) / 8);
+        }
+        byte[] image = new byte[size];
+        System.arraycopy(bitbuf.array(), 0, image, 0, size);
+
+        return new CommandEncodingTemplate(image, Collections.unmodifiableMap(params), patchPositions, patchEntries);
+    }
+
+    // collects the entries in the order they are encoded by the MetaCommandContainerProcessor
+    private static boolean collectEntries(MetaCommand mc, List<SequenceEntry> entries) {
+        MetaCommand parent = mc.getBaseMetaCommand();
+        if (parent != null && !collectEntries(parent, entries)) {
+            return false;
+        }
+        CommandContainer container = mc.getCommandContainer();
+        if (container == null) {
+            return false;
+        }
+        if (parent == null && container.getBaseContainer() != null) {
+            collectEntries(container.getBaseContainer(), entries);
+        }
+        entries.addAll(container.getEntryList());
+        return true;
+    }
+
+    private static void collectEntries(Container container, List<SequenceEntry> entries) {
+        if (container.getBaseContainer() != null) {
+            collectEntries(container.getBaseContainer(), entries);
+        }
+        entries.addAll(container.getEntryList());
+    }
+
+    private static DataEncoding getEncoding(DataType type) {
+        return (type instanceof BaseDataType) ? ((BaseDataType) type).getEncoding() : null;
+    }
+
+    /**
+     * Returns the size in bits of values encoded with the given encoding, or -1 if the size depends on the value.
+     */
+    private static int getFixedSizeInBits(DataEncoding encoding, int position) {
+        if (encoding == null || encoding.getToBinaryTransformAlgorithm() != null) {
+            return -1;
+        }
+        if (encoding instanceof IntegerDataEncoding) {
+            IntegerDataEncoding ide = (IntegerDataEncoding) encoding;
+            return ide.getEncoding() == IntegerDataEncoding.Encoding.STRING ? -1 : ide.getSizeInBits();
+        } else if (encoding instanceof FloatDataEncoding) {
+            FloatDataEncoding fde = (FloatDataEncoding) encoding;
+            switch (fde.getEncoding()) {
+            case IEEE754_1985:
+                return fde.getSizeInBits() == 32 ? 32 : 64;
+            case MILSTD_1750A:
+                return fde.getSizeInBits() == 32 ? 32 : 48;
+            default:
+                return -1;
+            }
+        } else if (encoding instanceof BinaryDataEncoding) {
+            BinaryDataEncoding bde = (BinaryDataEncoding) encoding;
+            if (bde.getType() != BinaryDataEncoding.Type.FIXED_SIZE || bde.getSizeInBits() < 0
+                    || (position & 7) != 0) {
+                return -1;
+            }
+            return bde.getSizeInBits() / 8 * 8;
+        } else {
+            return -1;
+        }
+    }
+
+    private static boolean overlaps(List<int[]> ranges, int start, int end) {
+        for (int[] r : ranges) {
+            if (start < r[1] && r[0] < end) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        return "CommandEncodingTemplate [size=" + image.length + ", patches=" + patchEntries.length + "]";
+    }
+}
@@ -0,0 +1,149 @@
+package org.yamcs.mdb;
+
+import org.yamcs.parameter.AggregateValue;
+import org.yamcs.parameter.ArrayValue;
+import org.yamcs.parameter.ParameterValue;
+import org.yamcs.parameter.Value;
+import org.yamcs.protobuf.Yamcs.Value.Type;
+import org.yamcs.xtce.Parameter;
+
+/**
+ * Base class for the match criteria evaluators generated by the {@link MatchCriteriaCompiler}.
+ * <p>
+ * The subclasses are generated at runtime and implement {@link #doEvaluate(ProcessingData)} returning one of the
+ * {@link #OK}, {@link #NOK} or {@link #UNDEF} constants.
+ * <p>
+ * The static methods are used by the generated code to retrieve the values; they have the same semantics as the
+ * interpreted evaluators from {@link MatchCriteriaEvaluatorFactory}.
+ */
+public abstract class CompiledMatchCriteriaEvaluator implements MatchCriteriaEvaluator {
+    public static final int OK = 1;
+    public static final int NOK = 0;
+    public static final int UNDEF = -1;
+
+    public static final int CATEGORY_INT = 0;
+    public static final int CATEGORY_FLOAT = 1;
+    public static final int CATEGORY_STRING = 2;
+    public static final int CATEGORY_BOOLEAN = 3;
+
+    private final String expression;
+
+    protected CompiledMatchCriteriaEvaluator(String expression) {
+        this.expression = expression;
+    }
+
+    @Override
+    public MatchResult evaluate(ProcessingData input) {
+        int r = doEvaluate(input);
+        if (r == OK) {
+            return MatchResult.OK;
+        } else if (r == NOK) {
+            return MatchResult.NOK;
+        } else {
+            return MatchResult.UNDEF;
+        }
+    }
+
+    protected abstract int doEvaluate(ProcessingData input);
+
+    @Override
+    public String toExpressionString() {
+        return expression;
+    }
+
+    /**
+     * Retrieves the value of a TM parameter from the current delivery or from the cache
+     */
+    public static Value getTmValue(ProcessingData input, Parameter p, boolean calibrated) {
+        ParameterValue pv = null;
+        if (input.tmParams != null) {
+            pv = input.tmParams.getLastInserted(p);
+        }
+        if (pv == null) {
+            pv = input.tmParamsCache.getValue(p);
+        }
+        return getValue(pv, calibrated);
+    }
+
+    /**
+     * Retrieves the value of a command or command history parameter from the current delivery or from the cache
+     */
+    public static Value getCmdValue(ProcessingData input, Parameter p, boolean calibrated) {
+        ParameterValue pv = null;
+        if (input.cmdParams != null) {
+            pv = input.cmdParams.getLastInserted(p);
+        }
+        if (pv == null) {
+            pv = input.cmdParamsCache.getValue(p);
+        }
+        return getValue(pv, calibrated);
+    }
+
+    private static Value getValue(ParameterValue pv, boolean calibrated) {
+        if (pv == null) {
+            return null;
+        }
+        return calibrated ? pv.getEngValue() : pv.getRawValue();
+    }
+
+    /**
+     * Verifies that the value can be compared with a constant of the given category.
+     *
+     * @return OK if the comparison can be made, UNDEF if the value is not available and NOK if the value is of an
+     *         incompatible type.
+     */
+    public static int checkCategory(Value v, int category) {
+        if (v == null || v instanceof AggregateValue || v instanceof ArrayValue) {
+            return UNDEF;
+        }
+        switch (v.getType()) {
+        case SINT32:
+        case SINT64:
+        case UINT32:
+        case UINT64:
+            return category == CATEGORY_INT ? OK : NOK;
+        case FLOAT:
+        case DOUBLE:
+            return category == CATEGORY_FLOAT ? OK : NOK;
+        case STRING:
+        case ENUMERATED:
+            return category == CATEGORY_STRING ? OK : NOK;
+        case BOOLEAN:
+            return category == CATEGORY_BOOLEAN ? OK : NOK;
+        case BINARY:
+            return NOK;
+        default:
+            return UNDEF;
+        }
+    }
+
+    /**
+     * Returns the value of an integer value as a signed long.
+     * <p>
+     * Should be called only if {@link #checkCategory(Value, int)} returns OK for {@link #CATEGORY_INT}.
+     */
+    public static long longValue(Value v) {
+        switch (v.getType()) {
+        case SINT32:
+            return v.getSint32Value();
+        case UINT32:
+            // same as the interpreted evaluator
+            return (long) v.getUint32Value();
+        case SINT64:
+            return v.getSint64Value();
+        default:
+            return v.getUint64Value();
+        }
+    }
+
+    /**
+     * Should be called only if {@link #checkCategory(Value, int)} returns OK for {@link #CATEGORY_FLOAT}.
+     */
+    public static double doubleValue(Value v) {
+        if (v.getType() == Type.FLOAT) {
+            return v.getFloatValue();
+        } else {
+            return v.getDoubleValue();
+        }
+    }
+}
@@ -0,0 +1,230 @@
+package org.yamcs.mdb;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.codehaus.janino.SimpleCompiler;
+import org.yamcs.logging.Log;
+import org.yamcs.mdb.MatchCriteriaEvaluatorFactory.ANDedConditionsEvaluator;
+import org.yamcs.mdb.MatchCriteriaEvaluatorFactory.ORedConditionsEvaluator;
+import org.yamcs.mdb.MatchCriteriaEvaluatorFactory.RefValueEvaluator;
+import org.yamcs.xtce.DataSource;
+import org.yamcs.xtce.OperatorType;
+import org.yamcs.xtce.Parameter;
+import org.yamcs.xtce.ParameterInstanceRef;
+
+/**
+ * Converts the tree of interpreted match criteria evaluators into Java code and compiles it with Janino into a
+ * {@link CompiledMatchCriteriaEvaluator}.
+ * <p>
+ * The generated code evaluates the conditions directly on the primitive values without the intermediate
+ * {@link ResolvedValue} objects and without the virtual calls through the evaluator tree. The AND/OR short-circuit
+ * rules and the OK/NOK/UNDEF results are the same as for the interpreted evaluators.
+ * <p>
+ * Only the [parameter operator value] comparisons of integer, float, string and boolean types where the parameter
+ * reference does not have a member path are supported. For all the other criteria (references to arguments, to
+ * aggregate members or comparisons between two references) the compiler returns null and the interpreted evaluator
+ * has to be used.
+ */
+public class MatchCriteriaCompiler {
+    static final Log log = new Log(MatchCriteriaCompiler.class);
+    static final String PACKAGE = "org.yamcs.mdb.mcc";
+    static final AtomicInteger counter = new AtomicInteger();
+
+    final List<Parameter> params = new ArrayList<>();
+    final List<String> strings = new ArrayList<>();
+    final StringBuilder fields = new StringBuilder();
+    final StringBuilder methods = new StringBuilder();
+    int numMethods = 0;
+
+    private MatchCriteriaCompiler() {
+    }
+
+    /**
+     * Compiles the interpreted evaluator.
+     *
+     * @return the compiled evaluator or null if the evaluator contains conditions not supported by the compiler or if
+     *         the compilation failed
+     */
+    public static MatchCriteriaEvaluator compile(MatchCriteriaEvaluator evaluator) {
+        MatchCriteriaCompiler compiler = new MatchCriteriaCompiler();
+        if (!compiler.supported(evaluator)) {
+            return null;
+        }
+        String className = "MatchCriteria" + counter.incrementAndGet();
+        String code = compiler.generate(className, evaluator);
+        log.trace("Compiling match criteria {} converted to java:\n{}", evaluator.toExpressionString(), code);
+        try {
+            SimpleCompiler sc = new SimpleCompiler();
+            sc.cook(code);
+            Class<?> cl = sc.getClassLoader().loadClass(PACKAGE + "." + className);
+            return (MatchCriteriaEvaluator) cl
+                    .getConstructor(String.class, Parameter[].class, String[].class)
+                    .newInstance(evaluator.toExpressionString(),
+                            compiler.params.toArray(new Parameter[0]),
+                            compiler.strings.toArray(new String[0]));
+        } catch (Exception e) {
+            log.warn("Cannot compile match criteria {}, using the interpreted evaluator",
+                    evaluator.toExpressionString(), e);
+            return null;
+        }
+    }
+
+    private boolean supported(MatchCriteriaEvaluator evaluator) {
+        if (evaluator instanceof RefValueEvaluator) {
+            RefValueEvaluator rve = (RefValueEvaluator) evaluator;
+            if (!(rve.ref instanceof ParameterInstanceRef) || rve.ref.getMemberPath() != null
+                    || rve.rValue == null) {
+                return false;
+            }
+            if (((ParameterInstanceRef) rve.ref).getParameter() == null) {
+                return false;
+            }
+            Object v = rve.rValue.value;
+            return (v instanceof Long) || (v instanceof Double) || (v instanceof String) || (v instanceof Boolean);
+        } else if (evaluator instanceof ANDedConditionsEvaluator) {
+            return ((ANDedConditionsEvaluator) evaluator).evaluatorList.stream().allMatch(this::supported);
+        } else if (evaluator instanceof ORedConditionsEvaluator) {
+            return ((ORedConditionsEvaluator) evaluator).evaluatorList.stream().allMatch(this::supported);
+        } else {
+            return false;
+        }
+    }
+
+    private String generate(String className, MatchCriteriaEvaluator evaluator) {
+        String root = addMethod(evaluator);
+
+        StringBuilder sb = new StringBuilder();
+        sb.append("package ").append(PACKAGE).append(";\n")
+                .append("import org.yamcs.mdb.ProcessingData;\n")
+                .append("import org.yamcs.parameter.Value;\n")
+                .append("import org.yamcs.xtce.Parameter;\n")
+                .append("public class ").append(className)
+                .append(" extends org.yamcs.mdb.CompiledMatchCriteriaEvaluator {\n");
+        sb.append(fields);
+
+        sb.append("  public ").append(className)
+                .append("(String expression, Parameter[] params, String[] strings) {\n")
+                .append("    super(expression);\n");
+        for (int i = 0; i < params.size(); i++) {
+            sb.append("    p").append(i).append(" = params[").append(i).append("];\n");
+        }
+        for (int i = 0; i < strings.size(); i++) {
+            sb.append("    s").append(i).append(" = strings[").append(i).append("];\n");
+        }
+        sb.append("  }\n");
+
+        sb.append("  protected int doEvaluate(ProcessingData input) {\n")
+                .append("    return ").append(root).append("(input);\n")
+                .append("  }\n");
+        sb.append(methods);
+        sb.append("}\n");
+        return sb.toString();
+    }
+
+    /**
+     * generates a method evaluating the given evaluator and returns its name
+     */
+    private String addMethod(MatchCriteriaEvaluator evaluator) {
+        if (evaluator instanceof RefValueEvaluator) {
+            return addComparison((RefValueEvaluator) evaluator);
+        } else if (evaluator instanceof ANDedConditionsEvaluator) {
+            // stops at the first NOK; UNDEF if no NOK but at least one UNDEF
+            return addList(((ANDedConditionsEvaluator) evaluator).evaluatorList, "OK", "NOK");
+        } else {
+            // stops at the first OK; UNDEF if no OK but at least one UNDEF
+            return addList(((ORedConditionsEvaluator) evaluator).evaluatorList, "NOK", "OK");
+        }
+    }
+
+    private String addList(List<MatchCriteriaEvaluator> list, String initial, String stop) {
+        List<String> children = new ArrayList<>(list.size());
+        for (MatchCriteriaEvaluator mce : list) {
+            children.add(addMethod(mce));
+        }
+        String name = "c" + (numMethods++);
+        methods.append("  private int ").append(name).append("(ProcessingData input) {\n")
+                .append("    int result = ").append(initial).append(";\n")
+                .append("    int r;\n");
+        for (String child : children) {
+            methods.append("    r = ").append(child).append("(input);\n")
+                    .append("    if (r == ").append(stop).append(") {\n")
+                    .append("      return r;\n")
+                    .append("    } else if (r == UNDEF) {\n")
+                    .append("      result = r;\n")
+                    .append("    }\n");
+        }
+        methods.append("    return result;\n")
+                .append("  }\n");
+        return name;
+    }
+
+    private String addComparison(RefValueEvaluator rve) {
+        ParameterInstanceRef ref = (ParameterInstanceRef) rve.ref;
+        Parameter p = ref.getParameter();
+        String pfield = "p" + params.size();
+        params.add(p);
+        fields.append("  private final Parameter ").append(pfield).append(";\n");
+
+        String getter = (p.getDataSource() == DataSource.COMMAND || p.getDataSource() == DataSource.COMMAND_HISTORY)
+                ? "getCmdValue"
+                : "getTmValue";
+
+        Object value = rve.rValue.value;
+        String category;
+        String lval;
+        String rval;
+        if (value instanceof Long) {
+            category = "CATEGORY_INT";
+            lval = "longValue(v)";
+            rval = value + "L";
+        } else if (value instanceof Double) {
+            category = "CATEGORY_FLOAT";
+            lval = "doubleValue(v)";
+            rval = "Double.longBitsToDouble(" + Double.doubleToRawLongBits((Double) value) + "L)";
+        } else if (value instanceof String) {
+            category = "CATEGORY_STRING";
+            lval = "v.getStringValue().compareTo(" + "s" + strings.size() + ")";
+            rval = "0";
+            fields.append("  private final String s").append(strings.size()).append(";\n");
+            strings.add((String) value);
+        } else {
+            category = "CATEGORY_BOOLEAN";
+            lval = "Boolean.compare(v.getBooleanValue(), " + value + ")";
+            rval = "0";
+        }
+
+        String name = "c" + (numMethods++);
+        methods.append("  private int ").append(name).append("(ProcessingData input) {\n")
+                .append("    Value v = ").append(getter).append("(input, ").append(pfield).append(", ")
+                .append(ref.useCalibratedValue()).append(");\n")
+                .append("    int c = checkCategory(v, ").append(category).append(");\n")
+                .append("    if (c != OK) {\n")
+                .append("      return c;\n")
+                .append("    }\n")
+                .append("    return ").append(lval).append(" ").append(javaOperator(rve.comparisonOperator))
+                .append(" ").append(rval).append(" ? OK : NOK;\n")
+                .append("  }\n");
+        return name;
+    }
+
+    static String javaOperator(OperatorType op) {
+        switch (op) {
+        case EQUALITY:
+            return "==";
+        case INEQUALITY:
+            return "!=";
+        case LARGERTHAN:
+            return ">";
+        case LARGEROREQUALTHAN:
+            return ">=";
+        case SMALLERTHAN:
+            return "<";
+        case SMALLEROREQUALTHAN:
+            return "<=";
+        default:
+            throw new IllegalStateException("Unknown operator " + op);
+        }
+    }
+}
@@ -38,6 +38,19 @@ import com.google.common.primitives.UnsignedLongs;
 public class MatchCriteriaEvaluatorFactory {
     private static Log log = new Log(MatchCriteriaEvaluatorFactory.class);
 
+    /**
+     * Returns an evaluator compiled to Java bytecode if the match criteria is supported by the
+     * {@link MatchCriteriaCompiler}, otherwise an interpreted evaluator.
+     * <p>
+     * The compilation is relatively expensive and creates a new class each time; use
+     * {@link Mdb#getMatchCriteriaEvaluator(MatchCriteria)} to get an evaluator compiled once per MDB.
+     */
+    public static final MatchCriteriaEvaluator getCompiledEvaluator(MatchCriteria matchCriteria) {
+        MatchCriteriaEvaluator evaluator = getEvaluator(matchCriteria);
+        MatchCriteriaEvaluator compiled = MatchCriteriaCompiler.compile(evaluator);
+        return compiled == null ? evaluator : compiled;
+    }
+
     public static final MatchCriteriaEvaluator getEvaluator(MatchCriteria matchCriteria) {
         if (matchCriteria instanceof Comparison) {
             Comparison comp = (Comparison) matchCriteria;
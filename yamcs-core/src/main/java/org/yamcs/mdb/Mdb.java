@@ -12,7 +12,10 @@ import java.util.function.Supplier;
 import org.yamcs.protobuf.Yamcs.Value.Type;
 import org.yamcs.xtce.AbsoluteTimeArgumentType;
 import org.yamcs.xtce.AbsoluteTimeParameterType;
+import org.yamcs.xtce.AggregateParameterType;
+import org.yamcs.xtce.Algorithm;
 import org.yamcs.xtce.ArgumentType;
+import org.yamcs.xtce.ArrayParameterType;
 import org.yamcs.xtce.BaseDataType;
 import org.yamcs.xtce.BinaryArgumentType;
 import org.yamcs.xtce.BinaryParameterType;
@@ -24,9 +27,12 @@ import org.yamcs.xtce.FloatArgumentType;
 import org.yamcs.xtce.FloatParameterType;
 import org.yamcs.xtce.IntegerArgumentType;
 import org.yamcs.xtce.IntegerParameterType;
+import org.yamcs.xtce.MatchCriteria;
+import org.yamcs.xtce.MetaCommand;
 import org.yamcs.xtce.NameDescription;
 import org.yamcs.xtce.Parameter;
 import org.yamcs.xtce.ParameterType;
+import org.yamcs.xtce.SequenceContainer;
 import org.yamcs.xtce.SpaceSystem;
 import org.yamcs.xtce.StringArgumentType;
 import org.yamcs.xtce.StringParameterType;
@@ -43,6 +49,17 @@ public class Mdb extends XtceDb {
     private static final long serialVersionUID = 2L;
     final Map<String, SpaceSystemWriter> subsystemWriters;
 
+    // search indexes, built on first use and updated when the MDB is modified
+    private transient MdbSearchIndex<SpaceSystem> spaceSystemSearchIndex;
+    private transient MdbSearchIndex<Parameter> parameterSearchIndex;
+    private transient MdbSearchIndex<ParameterType> parameterTypeSearchIndex;
+    private transient MdbSearchIndex<SequenceContainer> containerSearchIndex;
+    private transient MdbSearchIndex<MetaCommand> commandSearchIndex;
+    private transient MdbSearchIndex<Algorithm> algorithmSearchIndex;
+
+    // compiled match criteria evaluators, shared by all the processors and extractors using this MDB
+    private transient Map<MatchCriteria, MatchCriteriaEvaluator> matchCriteriaEvaluators;
+
     public Mdb(SpaceSystem spaceSystem, Map<String, SpaceSystemWriter> susbsystemWriters) {
         super(spaceSystem);
         susbsystemWriters.put(YAMCS_SPACESYSTEM_NAME, (fqn, mdb) -> {
@@ -131,6 +148,82 @@ public class Mdb extends XtceDb {
 
     }
 
+    public synchronized MdbSearchIndex<SpaceSystem> getSpaceSystemSearchIndex() {
+        if (spaceSystemSearchIndex == null) {
+            spaceSystemSearchIndex = new MdbSearchIndex<>();
+        }
+        long count = getModificationCount();
+        spaceSystemSearchIndex.sync(getSpaceSystems(), count);
+        return spaceSystemSearchIndex;
+    }
+
+    /**
+     * Returns an index for searching parameters by name, alias or description. The index is created on first use.
+     * <p>
+     * The {@link MdbSearchIndex#getSelectedItems() selected items} of this index are the parameters of an aggregate or
+     * array type.
+     */
+    public synchronized MdbSearchIndex<Parameter> getParameterSearchIndex() {
+        if (parameterSearchIndex == null) {
+            // select parameters with members, that may match a search on their member paths
+            parameterSearchIndex = new MdbSearchIndex<>(p -> p.getParameterType() instanceof AggregateParameterType
+                    || p.getParameterType() instanceof ArrayParameterType);
+        }
+        long count = getModificationCount();
+        parameterSearchIndex.sync(getParameters(), count);
+        return parameterSearchIndex;
+    }
+
+    public synchronized MdbSearchIndex<ParameterType> getParameterTypeSearchIndex() {
+        if (parameterTypeSearchIndex == null) {
+            parameterTypeSearchIndex = new MdbSearchIndex<>();
+        }
+        long count = getModificationCount();
+        parameterTypeSearchIndex.sync(getParameterTypes(), count);
+        return parameterTypeSearchIndex;
+    }
+
+    public synchronized MdbSearchIndex<SequenceContainer> getSequenceContainerSearchIndex() {
+        if (containerSearchIndex == null) {
+            containerSearchIndex = new MdbSearchIndex<>();
+        }
+        long count = getModificationCount();
+        containerSearchIndex.sync(getSequenceContainers(), count);
+        return containerSearchIndex;
+    }
+
+    public synchronized MdbSearchIndex<MetaCommand> getMetaCommandSearchIndex() {
+        if (commandSearchIndex == null) {
+            commandSearchIndex = new MdbSearchIndex<>();
+        }
+        long count = getModificationCount();
+        commandSearchIndex.sync(getMetaCommands(), count);
+        return commandSearchIndex;
+    }
+
+    public synchronized MdbSearchIndex<Algorithm> getAlgorithmSearchIndex() {
+        if (algorithmSearchIndex == null) {
+            algorithmSearchIndex = new MdbSearchIndex<>();
+        }
+        long count = getModificationCount();
+        algorithmSearchIndex.sync(getAlgorithms(), count);
+        return algorithmSearchIndex;
+    }
+
+    /**
+     * Returns the evaluator for the match criteria, compiled to Java bytecode if possible.
+     * <p>
+     * The evaluator is created on first use and shared by all the users of this MDB, such that each criteria is
+     * compiled only once into one class. The compiled evaluators do not keep any state between evaluations.
+     */
+    public synchronized MatchCriteriaEvaluator getMatchCriteriaEvaluator(MatchCriteria matchCriteria) {
+        if (matchCriteriaEvaluators == null) {
+            matchCriteriaEvaluators = new HashMap<>();
+        }
+        return matchCriteriaEvaluators.computeIfAbsent(matchCriteria,
+                MatchCriteriaEvaluatorFactory::getCompiledEvaluator);
+    }
+
     /**
      * Creates and returns a system parameter with the given qualified name. If the parameter already exists it is
      * returned.
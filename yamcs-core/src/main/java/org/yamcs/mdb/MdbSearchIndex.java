@@ -0,0 +1,178 @@
+package org.yamcs.mdb;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+
+import org.yamcs.utils.IntArray;
+import org.yamcs.xtce.NameDescription;
+
+/**
+ * Trigram index over the qualified names, short descriptions and aliases of MDB items.
+ * <p>
+ * For a search string, the index returns the items where each of the whitespace-separated terms may occur
+ * (case-insensitive) in one of these fields. This is a superset of the actual matches: the caller is expected to verify
+ * each candidate. Terms shorter than {@value #GRAM_LENGTH} characters cannot be looked up and do not restrict the
+ * candidates.
+ * <p>
+ * Items can only be added, so that the posting lists (sorted item ordinals) stay sorted by construction.
+ *
+ * @param <T>
+ *            the type of the indexed items. Each item must be a {@link NameDescription}.
+ */
+public class MdbSearchIndex<T> {
+
+    public static final int GRAM_LENGTH = 3;
+
+    private final List<T> items = new ArrayList<>();
+    private final Map<T, Boolean> indexed = new IdentityHashMap<>();
+    private final Map<Long, IntArray> postings = new HashMap<>();
+    private long modificationCount = -1;
+
+    private final Predicate<? super T> selector;
+    private final List<T> selectedItems = new ArrayList<>();
+
+    public MdbSearchIndex() {
+        this(item -> false);
+    }
+
+    /**
+     * @param selector
+     *            used to maintain a list of items that require special treatment by searches (for example items that
+     *            have members that can be searched as well). See {@link #getSelectedItems()}.
+     */
+    public MdbSearchIndex(Predicate<? super T> selector) {
+        this.selector = selector;
+    }
+
+    /**
+     * Adds an item to the index, unless it is already indexed.
+     */
+    public synchronized void add(T item) {
+        if (indexed.put(item, Boolean.TRUE) != null) {
+            return;
+        }
+        int ordinal = items.size();
+        items.add(item);
+
+        NameDescription nd = (NameDescription) item;
+        Set<Long> grams = new HashSet<>();
+        collectGrams(nd.getQualifiedName(), grams);
+        collectGrams(nd.getShortDescription(), grams);
+        if (nd.getAliasSet() != null) {
+            for (String alias : nd.getAliasSet().getAliases().values()) {
+                collectGrams(alias, grams);
+            }
+        }
+        for (Long gram : grams) {
+            postings.computeIfAbsent(gram, k -> new IntArray(4)).add(ordinal);
+        }
+        if (selector.test(item)) {
+            selectedItems.add(item);
+        }
+    }
+
+    /**
+     * Adds the items that are not yet indexed, if the MDB was modified since the last synchronization.
+     *
+     * @param allItems
+     *            all items of this kind in the MDB
+     * @param modificationCount
+     *            the {@link Mdb#getModificationCount() modification count} of the MDB, retrieved before collecting
+     *            <code>allItems</code>
+     */
+    synchronized void sync(Collection<? extends T> allItems, long modificationCount) {
+        if (this.modificationCount != modificationCount) {
+            allItems.forEach(this::add);
+            this.modificationCount = modificationCount;
+        }
+    }
+
+    /**
+     * Returns the candidate matches for a search string, in the order in which they were added to the index.
+     *
+     * @return the candidates, or null if none of the terms is long enough to use the index.
+     */
+    public synchronized List<T> getCandidates(String searchString) {
+        List<IntArray> lists = new ArrayList<>();
+        for (String term : searchString.toLowerCase().split("\\s+")) {
+            for (int i = 0; i + GRAM_LENGTH <= term.length(); i++) {
+                IntArray list = postings.get(gram(term, i));
+                if (list == null) {
+                    return Collections.emptyList();
+                }
+                lists.add(list);
+            }
+        }
+        if (lists.isEmpty()) {
+            return null;
+        }
+
+        // Intersect starting from the most selective list
+        lists.sort((a, b) -> Integer.compare(a.size(), b.size()));
+        IntArray result = lists.get(0);
+        for (int i = 1; i < lists.size() && !result.isEmpty(); i++) {
+            result = intersect(result, lists.get(i));
+        }
+
+        List<T> candidates = new ArrayList<>(result.size());
+        for (int i = 0; i < result.size(); i++) {
+            candidates.add(items.get(result.get(i)));
+        }
+        return candidates;
+    }
+
+    /**
+     * Returns the items that satisfied the selector of this index at the time they were added.
+     */
+    public synchronized List<T> getSelectedItems() {
+        return new ArrayList<>(selectedItems);
+    }
+
+    public synchronized int size() {
+        return items.size();
+    }
+
+    private static void collectGrams(String text, Set<Long> grams) {
+        if (text == null) {
+            return;
+        }
+        String s = text.toLowerCase();
+        for (int i = 0; i + GRAM_LENGTH <= s.length(); i++) {
+            grams.add(gram(s, i));
+        }
+    }
+
+    private static long gram(String s, int pos) {
+        return ((long) s.charAt(pos) << 32) | ((long) s.charAt(pos + 1) << 16) | s.charAt(pos + 2);
+    }
+
+    private static IntArray intersect(IntArray a, IntArray b) {
+        int[] result = new int[Math.min(a.size(), b.size())];
+        int n = 0;
+        int i = 0;
+        int j = 0;
+        while (i < a.size() && j < b.size()) {
+            int x = a.get(i);
+            int y = b.get(j);
+            if (x < y) {
+                i++;
+            } else if (x > y) {
+                j++;
+            } else {
+                result[n++] = x;
+                i++;
+                j++;
+            }
+        }
+        return IntArray.wrap(Arrays.copyOf(result, n));
+    }
+}
@@ -110,7 +110,7 @@ public class MetaCommandContainerProcessor {
         }
     }
 
-    private void fillInArgumentEntry(ArgumentEntry argEntry, TcProcessingContext pcontext) {
+    void fillInArgumentEntry(ArgumentEntry argEntry, TcProcessingContext pcontext) {
         Argument arg = argEntry.getArgument();
         ArgumentValue argValue = pcontext.getCmdArgument(arg);
         if (argValue == null) {
@@ -151,7 +151,7 @@ public class MetaCommandContainerProcessor {
         }
     }
 
-    private void fillInParameterEntry(ParameterEntry paraEntry, TcProcessingContext pcontext) {
+    void fillInParameterEntry(ParameterEntry paraEntry, TcProcessingContext pcontext) {
         Parameter para = paraEntry.getParameter();
         Value paraValue = pcontext.getRawParameterValue(para);
         if (paraValue == null) {
@@ -163,7 +163,7 @@ public class MetaCommandContainerProcessor {
         encodeRawValue(para.getQualifiedName(), ptype, rawValue, pcontext);
     }
 
-    private void fillInFixedValueEntry(FixedValueEntry fve, TcProcessingContext pcontext) {
+    void fillInFixedValueEntry(FixedValueEntry fve, TcProcessingContext pcontext) {
         int sizeInBits = fve.getSizeInBits();
         final byte[] v = fve.getBinaryValue();
 
@@ -37,24 +37,41 @@ public class MetaCommandProcessor {
 
     public static CommandBuildResult buildCommand(ProcessorData pdata, MetaCommand mc,
             Map<String, Object> argAssignmentList) throws ErrorInCommand {
+        return buildCommand(pdata, mc, argAssignmentList, true);
+    }
+
+    /**
+     * @param useTemplate
+     *            if true, the command is encoded with the precompiled {@link CommandEncodingTemplate} if there is one
+     *            for this command. Otherwise the container is walked by the {@link MetaCommandContainerProcessor}.
+     */
+    static CommandBuildResult buildCommand(ProcessorData pdata, MetaCommand mc,
+            Map<String, Object> argAssignmentList, boolean useTemplate) throws ErrorInCommand {
         if (mc.isAbstract()) {
             throw new ErrorInCommand("Not building command " + mc.getQualifiedName() + " because it is abstract");
         }
 
         ProcessorConfig procConf = pdata.getProcessorConfig();
 
-        Map<Parameter, Value> params = new HashMap<>();
-
         CommandContainer cmdContainer = mc.getCommandContainer();
         if (cmdContainer == null && !procConf.allowContainerlessCommands()) {
             throw new ErrorInCommand("MetaCommand " + mc.getName()
                     + " has no container (and the processor option allowContainerlessCommands is set to false)");
         }
 
-        if (cmdContainer != null) {
-            collectParameters(cmdContainer, params);
+        CommandEncodingTemplate template = useTemplate ? pdata.getCommandEncodingTemplate(mc) : null;
+        Map<Parameter, Value> params;
+        BitBuffer bitbuf;
+        if (template != null) {
+            params = template.getContextParameters();
+            bitbuf = new BitBuffer(template.newImage());
+        } else {
+            params = new HashMap<>();
+            if (cmdContainer != null) {
+                collectParameters(cmdContainer, params);
+            }
+            bitbuf = new BitBuffer(new byte[procConf.getMaxCommandSize()]);
         }
-        BitBuffer bitbuf = new BitBuffer(new byte[procConf.getMaxCommandSize()]);
         TcProcessingContext pcontext = new TcProcessingContext(mc, pdata, params, bitbuf, 0);
 
         Map<String, Object> argAssignment = new HashMap<>(argAssignmentList);
@@ -72,7 +89,15 @@ public class MetaCommandProcessor {
 
         byte[] binary = null;
 
-        if (cmdContainer != null) {
+        if (template != null) {
+            try {
+                template.encode(pcontext);
+            } catch (CommandEncodingException e) {
+                throw new ErrorInCommand("Error when encoding command: " + e.getMessage());
+            }
+            // the buffer has exactly the size of the command
+            binary = bitbuf.array();
+        } else if (cmdContainer != null) {
             try {
                 pcontext.mccProcessor.encode(mc);
             } catch (CommandEncodingException e) {
@@ -149,7 +174,7 @@ public class MetaCommandProcessor {
 
     // look at the command container if it inherits another container using a condition list and add those parameters
     // with the respective values
-    private static void collectParameters(Container container, Map<Parameter, Value> params) throws ErrorInCommand {
+    static void collectParameters(Container container, Map<Parameter, Value> params) throws ErrorInCommand {
         Container parent = container.getBaseContainer();
         if (parent != null) {
             MatchCriteria cr = container.getRestrictionCriteria();
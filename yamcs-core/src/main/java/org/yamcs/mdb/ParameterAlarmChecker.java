@@ -1,6 +1,12 @@
 package org.yamcs.mdb;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import org.slf4j.Logger;
@@ -24,6 +30,7 @@ import org.yamcs.xtce.util.DoubleRange;
 import org.yamcs.xtce.EnumerationContextAlarm;
 import org.yamcs.xtce.FloatParameterType;
 import org.yamcs.xtce.IntegerParameterType;
+import org.yamcs.xtce.MatchCriteria;
 import org.yamcs.xtce.NumericAlarm;
 import org.yamcs.xtce.NumericContextAlarm;
 import org.yamcs.xtce.Parameter;
@@ -46,10 +53,20 @@ public class ParameterAlarmChecker {
     LastValueCache lastValueCache;
     final ProcessorData pdata;
 
+    // the context selectors indexed by the context alarm list of the parameter types and by the list of criteria
+    // the maps are copied on write such that they can be read without locking
+    private volatile Map<List<?>, ContextSelector> selectors = new IdentityHashMap<>();
+    private final Map<List<MatchCriteria>, ContextSelector> selectorsByCriteria = new HashMap<>();
+    private volatile Map<AlarmRanges, RangeChecker> rangeCheckers = new IdentityHashMap<>();
+
+    // which context is active for each selector, computed at most once per call of performAlarmChecking
+    private final ThreadLocal<ContextRound> contextRound = ThreadLocal.withInitial(ContextRound::new);
+
     public ParameterAlarmChecker(ParameterProcessorManager ppm, ProcessorData pdata) {
         this.ppm = ppm;
         this.lastValueCache = ppm.getLastValueCache();
         this.pdata = pdata;
+        pdata.addParameterTypeListener((p, ptype) -> clearCaches());
     }
 
     /**
@@ -74,11 +91,13 @@ public class ParameterAlarmChecker {
      * the new values.
      */
     public void performAlarmChecking(ProcessingData processingData, Iterator<ParameterValue> it) {
+        ContextRound round = contextRound.get();
+        int roundId = ++round.id;
         while (it.hasNext()) {
             ParameterValue pval = it.next();
             ParameterType ptype = pdata.getParameterType(pval.getParameter());
             if (ptype != null && ptype.hasAlarm()) {
-                performAlarmChecking(processingData, pval, ptype);
+                performAlarmChecking(processingData, round, roundId, pval, ptype);
             } else if (pval.getMonitoringResult() != null) {
                 // monitoring result set already - either processed parameters or some service like the
                 // TimeCorrelationService
@@ -101,17 +120,18 @@ public class ParameterAlarmChecker {
     /**
      * Updates the ParameterValue with monitoring (out of limits) information
      */
-    private void performAlarmChecking(ProcessingData processingData, ParameterValue pv, ParameterType ptype) {
+    private void performAlarmChecking(ProcessingData processingData, ContextRound round, int roundId,
+            ParameterValue pv, ParameterType ptype) {
         if (ptype instanceof FloatParameterType) {
-            performAlarmCheckingFloat(processingData, (FloatParameterType) ptype, pv);
+            performAlarmCheckingFloat(processingData, round, roundId, (FloatParameterType) ptype, pv);
         } else if (ptype instanceof EnumeratedParameterType) {
-            performAlarmCheckingEnumerated(processingData, (EnumeratedParameterType) ptype, pv);
+            performAlarmCheckingEnumerated(processingData, round, roundId, (EnumeratedParameterType) ptype, pv);
         } else if (ptype instanceof IntegerParameterType) {
-            performAlarmCheckingInteger(processingData, (IntegerParameterType) ptype, pv);
+            performAlarmCheckingInteger(processingData, round, roundId, (IntegerParameterType) ptype, pv);
         }
     }
 
-    private void performAlarmCheckingInteger(ProcessingData processingData,
+    private void performAlarmCheckingInteger(ProcessingData processingData, ContextRound round, int roundId,
             IntegerParameterType ipt, ParameterValue pv) {
         long intCalValue = 0;
         if (pv.getEngValue().getType() == Type.SINT32) {
@@ -133,18 +153,17 @@ public class ParameterAlarmChecker {
         int minViolations = 1;
         boolean autoAck = false;
         boolean latching = false;
-        if (ipt.getContextAlarmList() != null) {
-            for (NumericContextAlarm nca : ipt.getContextAlarmList()) {
-                MatchCriteriaEvaluator evaluator = pdata.getEvaluator(nca.getContextMatch());
-                if (evaluator.evaluate(processingData) == MatchResult.OK) {
-                    mon = true;
-                    alarmType = nca;
-                    staticAlarmRanges = nca.getStaticAlarmRanges();
-                    minViolations = nca.getMinViolations();
-                    autoAck = nca.isAutoAck();
-                    latching = nca.isLatching();
-                    break;
-                }
+        List<NumericContextAlarm> contextAlarms = ipt.getContextAlarmList();
+        if (contextAlarms != null) {
+            int idx = getSelector(contextAlarms).getActive(processingData, round, roundId);
+            if (idx >= 0) {
+                NumericContextAlarm nca = contextAlarms.get(idx);
+                mon = true;
+                alarmType = nca;
+                staticAlarmRanges = nca.getStaticAlarmRanges();
+                minViolations = nca.getMinViolations();
+                autoAck = nca.isAutoAck();
+                latching = nca.isLatching();
             }
         }
 
@@ -173,7 +192,7 @@ public class ParameterAlarmChecker {
         }
     }
 
-    private void performAlarmCheckingFloat(ProcessingData processingData,
+    private void performAlarmCheckingFloat(ProcessingData processingData, ContextRound round, int roundId,
             FloatParameterType fpt, ParameterValue pv) {
         double doubleCalValue = 0;
         if (pv.getEngValue().getType() == Type.FLOAT) {
@@ -192,18 +211,17 @@ public class ParameterAlarmChecker {
         int minViolations = 1;
         boolean autoAck = false;
         boolean latching = false;
-        if (fpt.getContextAlarmList() != null) {
-            for (NumericContextAlarm nca : fpt.getContextAlarmList()) {
-                MatchCriteriaEvaluator evaluator = pdata.getEvaluator(nca.getContextMatch());
-                if (evaluator.evaluate(processingData) == MatchResult.OK) {
-                    mon = true;
-                    alarmType = nca;
-                    staticAlarmRanges = nca.getStaticAlarmRanges();
-                    minViolations = nca.getMinViolations();
-                    autoAck = nca.isAutoAck();
-                    latching = nca.isLatching();
-                    break;
-                }
+        List<NumericContextAlarm> contextAlarms = fpt.getContextAlarmList();
+        if (contextAlarms != null) {
+            int idx = getSelector(contextAlarms).getActive(processingData, round, roundId);
+            if (idx >= 0) {
+                NumericContextAlarm nca = contextAlarms.get(idx);
+                mon = true;
+                alarmType = nca;
+                staticAlarmRanges = nca.getStaticAlarmRanges();
+                minViolations = nca.getMinViolations();
+                autoAck = nca.isAutoAck();
+                latching = nca.isLatching();
             }
         }
 
@@ -232,69 +250,86 @@ public class ParameterAlarmChecker {
         }
     }
 
-    private void checkRange(ParameterValue pv, MonitoringResult mr, DoubleRange fr, double v) {
-        int x = fr.inRange(v);
-        if (x < 0) {
-            pv.setMonitoringResult(mr);
-            pv.setRangeCondition(RangeCondition.LOW);
-        } else if (x > 0) {
-            pv.setMonitoringResult(mr);
-            pv.setRangeCondition(RangeCondition.HIGH);
-        }
-    }
-
     /**
      * Verify limits, giving priority to highest severity
      */
     private void checkStaticAlarmRanges(ParameterValue pv, double doubleCalValue, AlarmRanges staticAlarmRanges) {
-        pv.setMonitoringResult(null);
-        DoubleRange watchRange = staticAlarmRanges.getWatchRange();
-        DoubleRange warningRange = staticAlarmRanges.getWarningRange();
-        DoubleRange distressRange = staticAlarmRanges.getDistressRange();
-        DoubleRange criticalRange = staticAlarmRanges.getCriticalRange();
-        DoubleRange severeRange = staticAlarmRanges.getSevereRange();
-        if (severeRange != null) {
-            checkRange(pv, MonitoringResult.SEVERE, severeRange, doubleCalValue);
+        RangeChecker checker = getRangeChecker(staticAlarmRanges);
+        checker.check(pv, doubleCalValue);
+    }
+
+    private ContextSelector getSelector(List<? extends AlarmType> contextAlarms) {
+        ContextSelector selector = selectors.get(contextAlarms);
+        if (selector == null) {
+            selector = createSelector(contextAlarms);
         }
-        if (pv.getMonitoringResult() == null && criticalRange != null) {
-            checkRange(pv, MonitoringResult.CRITICAL, criticalRange, doubleCalValue);
+        return selector;
+    }
+
+    private synchronized ContextSelector createSelector(List<? extends AlarmType> contextAlarms) {
+        ContextSelector selector = selectors.get(contextAlarms);
+        if (selector != null) {
+            return selector;
         }
-        if (pv.getMonitoringResult() == null && distressRange != null) {
-            checkRange(pv, MonitoringResult.DISTRESS, distressRange, doubleCalValue);
+        List<MatchCriteria> criteria = new ArrayList<>(contextAlarms.size());
+        for (AlarmType at : contextAlarms) {
+            criteria.add(getContextMatch(at));
         }
-        if (pv.getMonitoringResult() == null && warningRange != null) {
-            checkRange(pv, MonitoringResult.WARNING, warningRange, doubleCalValue);
+        selector = selectorsByCriteria.get(criteria);
+        if (selector == null) {
+            MatchCriteriaEvaluator[] evaluators = new MatchCriteriaEvaluator[criteria.size()];
+            for (int i = 0; i < evaluators.length; i++) {
+                evaluators[i] = pdata.getEvaluator(criteria.get(i));
+            }
+            selector = new ContextSelector(selectorsByCriteria.size(), evaluators);
+            selectorsByCriteria.put(criteria, selector);
         }
-        if (pv.getMonitoringResult() == null && watchRange != null) {
-            checkRange(pv, MonitoringResult.WATCH, watchRange, doubleCalValue);
+        Map<List<?>, ContextSelector> m = new IdentityHashMap<>(selectors);
+        m.put(contextAlarms, selector);
+        selectors = m;
+        return selector;
+    }
+
+    private static MatchCriteria getContextMatch(AlarmType at) {
+        if (at instanceof NumericContextAlarm) {
+            return ((NumericContextAlarm) at).getContextMatch();
+        } else {
+            return ((EnumerationContextAlarm) at).getContextMatch();
         }
+    }
 
-        if (pv.getMonitoringResult() == null) {
-            pv.setMonitoringResult(MonitoringResult.IN_LIMITS);
+    private RangeChecker getRangeChecker(AlarmRanges ranges) {
+        RangeChecker checker = rangeCheckers.get(ranges);
+        if (checker == null) {
+            synchronized (this) {
+                checker = new RangeChecker(ranges);
+                Map<AlarmRanges, RangeChecker> m = new IdentityHashMap<>(rangeCheckers);
+                m.put(ranges, checker);
+                rangeCheckers = m;
+            }
         }
+        return checker;
+    }
 
-        pv.setWatchRange(watchRange);
-        pv.setWarningRange(warningRange);
-        pv.setDistressRange(distressRange);
-        pv.setCriticalRange(criticalRange);
-        pv.setSevereRange(severeRange);
+    private synchronized void clearCaches() {
+        selectors = new IdentityHashMap<>();
+        rangeCheckers = new IdentityHashMap<>();
     }
 
-    private void performAlarmCheckingEnumerated(ProcessingData processingData,
+    private void performAlarmCheckingEnumerated(ProcessingData processingData, ContextRound round, int roundId,
             EnumeratedParameterType ept, ParameterValue pv) {
         pv.setMonitoringResult(null); // Default is DISABLED, but that doesn't seem fit when we are checking
         String s = pv.getEngValue().getStringValue();
 
         EnumerationAlarm alarm = ept.getDefaultAlarm();
         int minViolations = (alarm == null) ? 1 : alarm.getMinViolations();
-        if (ept.getContextAlarmList() != null) {
-            for (EnumerationContextAlarm nca : ept.getContextAlarmList()) {
-                MatchCriteriaEvaluator evaluator = pdata.getEvaluator(nca.getContextMatch());
-                if (evaluator.evaluate(processingData) == MatchResult.OK) {
-                    alarm = nca;
-                    minViolations = nca.getMinViolations();
-                    break;
-                }
+        List<EnumerationContextAlarm> contextAlarms = ept.getContextAlarmList();
+        if (contextAlarms != null) {
+            int idx = getSelector(contextAlarms).getActive(processingData, round, roundId);
+            if (idx >= 0) {
+                EnumerationContextAlarm nca = contextAlarms.get(idx);
+                alarm = nca;
+                minViolations = nca.getMinViolations();
             }
         }
         boolean autoAck = false;
@@ -340,4 +375,153 @@ public class ParameterAlarmChecker {
             alarmServer.update(pv, minViolations, autoAck, latching);
         }
     }
+
+    /**
+     * Finds the first context which matches from a list of context criteria.
+     * <p>
+     * The same selector is used by all the parameter types having the same list of context criteria; the result is
+     * computed once per {@link ContextRound}.
+     */
+    static final class ContextSelector {
+        final int index;
+        final MatchCriteriaEvaluator[] evaluators;
+
+        ContextSelector(int index, MatchCriteriaEvaluator[] evaluators) {
+            this.index = index;
+            this.evaluators = evaluators;
+        }
+
+        /**
+         * @return the index of the first matching context or -1 if none matches
+         */
+        int getActive(ProcessingData processingData, ContextRound round, int roundId) {
+            if (index < round.roundIds.length && round.roundIds[index] == roundId) {
+                return round.active[index];
+            }
+            int active = -1;
+            for (int i = 0; i < evaluators.length; i++) {
+                if (evaluators[i].evaluate(processingData) == MatchResult.OK) {
+                    active = i;
+                    break;
+                }
+            }
+            round.set(index, roundId, active);
+            return active;
+        }
+    }
+
+    /**
+     * Per thread memory of the contexts computed during the current call of performAlarmChecking, indexed by the
+     * {@link ContextSelector#index}.
+     */
+    static final class ContextRound {
+        int id;
+        int[] roundIds = new int[0];
+        int[] active = new int[0];
+
+        void set(int index, int roundId, int value) {
+            if (index >= roundIds.length) {
+                int n = Math.max(16, 2 * index + 1);
+                roundIds = Arrays.copyOf(roundIds, n);
+                active = Arrays.copyOf(active, n);
+            }
+            roundIds[index] = roundId;
+            active[index] = value;
+        }
+    }
+
+    /**
+     * Precomputed form of the {@link AlarmRanges} used to check the values without going through the five ranges in
+     * the common case when the value is in limits.
+     */
+    static final class RangeChecker {
+        final DoubleRange watchRange;
+        final DoubleRange warningRange;
+        final DoubleRange distressRange;
+        final DoubleRange criticalRange;
+        final DoubleRange severeRange;
+
+        // the non null ranges ordered from the most severe
+        final DoubleRange[] ranges;
+        final MonitoringResult[] levels;
+
+        // the value is in limits if it is within all the ranges, i.e. it is within the strictest low and high limits
+        final double low;
+        final boolean lowInclusive;
+        final double high;
+        final boolean highInclusive;
+
+        RangeChecker(AlarmRanges alarmRanges) {
+            watchRange = alarmRanges.getWatchRange();
+            warningRange = alarmRanges.getWarningRange();
+            distressRange = alarmRanges.getDistressRange();
+            criticalRange = alarmRanges.getCriticalRange();
+            severeRange = alarmRanges.getSevereRange();
+
+            List<DoubleRange> rl = new ArrayList<>();
+            List<MonitoringResult> ll = new ArrayList<>();
+            add(rl, ll, severeRange, MonitoringResult.SEVERE);
+            add(rl, ll, criticalRange, MonitoringResult.CRITICAL);
+            add(rl, ll, distressRange, MonitoringResult.DISTRESS);
+            add(rl, ll, warningRange, MonitoringResult.WARNING);
+            add(rl, ll, watchRange, MonitoringResult.WATCH);
+            ranges = rl.toArray(new DoubleRange[0]);
+            levels = ll.toArray(new MonitoringResult[0]);
+
+            double lo = Double.NEGATIVE_INFINITY;
+            boolean loIncl = true;
+            double hi = Double.POSITIVE_INFINITY;
+            boolean hiIncl = true;
+            for (DoubleRange r : ranges) {
+                double min = r.getMin();
+                if (!Double.isNaN(min) && (min > lo || (min == lo && !r.isMinInclusive()))) {
+                    lo = min;
+                    loIncl = r.isMinInclusive();
+                }
+                double max = r.getMax();
+                if (!Double.isNaN(max) && (max < hi || (max == hi && !r.isMaxInclusive()))) {
+                    hi = max;
+                    hiIncl = r.isMaxInclusive();
+                }
+            }
+            low = lo;
+            lowInclusive = loIncl;
+            high = hi;
+            highInclusive = hiIncl;
+        }
+
+        private static void add(List<DoubleRange> rl, List<MonitoringResult> ll, DoubleRange r,
+                MonitoringResult level) {
+            if (r != null) {
+                rl.add(r);
+                ll.add(level);
+            }
+        }
+
+        void check(ParameterValue pv, double v) {
+            boolean belowLow = lowInclusive ? v < low : v <= low;
+            boolean aboveHigh = highInclusive ? v > high : v >= high;
+            if (!belowLow && !aboveHigh) {
+                pv.setMonitoringResult(MonitoringResult.IN_LIMITS);
+            } else {
+                pv.setMonitoringResult(null);
+                for (int i = 0; i < ranges.length; i++) {
+                    int x = ranges[i].inRange(v);
+                    if (x != 0) {
+                        pv.setMonitoringResult(levels[i]);
+                        pv.setRangeCondition(x < 0 ? RangeCondition.LOW : RangeCondition.HIGH);
+                        break;
+                    }
+                }
+                if (pv.getMonitoringResult() == null) {
+                    pv.setMonitoringResult(MonitoringResult.IN_LIMITS);
+                }
+            }
+            pv.setWatchRange(watchRange);
+            pv.setWarningRange(warningRange);
+            pv.setDistressRange(distressRange);
+            pv.setCriticalRange(criticalRange);
+            pv.setSevereRange(severeRange);
+        }
+    }
 }
@@ -4,7 +4,9 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArraySet;
 import java.util.function.Consumer;
 import java.util.stream.Collectors;
@@ -30,9 +32,11 @@ import org.yamcs.xtce.DataSource;
 import org.yamcs.xtce.EnumeratedParameterType;
 import org.yamcs.xtce.EnumerationAlarm;
 import org.yamcs.xtce.EnumerationContextAlarm;
+import org.yamcs.xtce.IntegerDataEncoding;
 import org.yamcs.xtce.JavaExpressionCalibrator;
 import org.yamcs.xtce.MatchCriteria;
 import org.yamcs.xtce.MathOperationCalibrator;
+import org.yamcs.xtce.MetaCommand;
 import org.yamcs.xtce.NameDescription;
 import org.yamcs.xtce.NumericAlarm;
 import org.yamcs.xtce.NumericContextAlarm;
@@ -57,10 +61,13 @@ public class ProcessorData {
      */
     final ParameterTypeProcessor parameterTypeProcessor;
 
-    private Map<Calibrator, CalibratorProc> calibrators = new HashMap<>();
+    // the caches below are filled lazily, possibly by several threads encoding commands in parallel
+    private Map<Calibrator, CalibratorProc> calibrators = new ConcurrentHashMap<>();
     private Map<DataEncoding, DataDecoder> decoders = new HashMap<>();
     private Map<DataEncoding, DataEncoder> encoders = new HashMap<>();
-    private Map<MatchCriteria, MatchCriteriaEvaluator> evaluators = new HashMap<>();
+    private Map<MatchCriteria, MatchCriteriaEvaluator> evaluators = new ConcurrentHashMap<>();
+    private Map<DataEncoding, EncodingCalibrators> encodingCalibrators = new ConcurrentHashMap<>();
+    private Map<MetaCommand, Optional<CommandEncodingTemplate>> commandTemplates = new ConcurrentHashMap<>();
 
     final Mdb mdb;
     final Log log;
@@ -216,25 +223,12 @@ public class ProcessorData {
      */
     public CalibratorProc getCalibrator(ProcessingData pdata, DataEncoding de) {
         if (de instanceof NumericDataEncoding) {
-            NumericDataEncoding nde = (NumericDataEncoding) de;
-            Calibrator c = nde.getDefaultCalibrator();
-
-            List<ContextCalibrator> clist = nde.getContextCalibratorList();
-            if (clist != null) {
-                for (ContextCalibrator cc : clist) {
-                    MatchCriteriaEvaluator evaluator = getEvaluator(cc.getContextMatch());
-                    if (evaluator.evaluate(pdata) == MatchResult.OK) {
-                        c = cc.getCalibrator();
-                        break;
-                    }
-                }
-            }
-            try {
-                return getCalibrator(c);
-            } catch (Exception e) {
-                eventProducer.sendWarning("Could not get calibrator processor for " + c + ": " + e.toString());
-                return null;
+            EncodingCalibrators ec = encodingCalibrators.get(de);
+            if (ec == null) {
+                ec = new EncodingCalibrators((NumericDataEncoding) de);
+                encodingCalibrators.put(de, ec);
             }
+            return ec.select(pdata);
         } else {
             return null;
         }
@@ -244,7 +238,7 @@ public class ProcessorData {
         return getCalibrator(null, de);
     }
 
-    private CalibratorProc getCalibrator(Calibrator c) {
+    private CalibratorProc getCalibratorProc(Calibrator c, DataEncoding de) {
         if (c == null) {
             return null;
         }
@@ -253,7 +247,7 @@ public class ProcessorData {
             if (c instanceof PolynomialCalibrator) {
                 calibrator = new PolynomialCalibratorProc((PolynomialCalibrator) c);
             } else if (c instanceof SplineCalibrator) {
-                calibrator = new SplineCalibratorProc((SplineCalibrator) c);
+                calibrator = getSplineCalibrator((SplineCalibrator) c, de);
             } else if (c instanceof JavaExpressionCalibrator) {
                 calibrator = JavaExpressionCalibratorFactory.compile((JavaExpressionCalibrator) c);
             } else if (c instanceof MathOperationCalibrator) {
@@ -266,9 +260,35 @@ public class ProcessorData {
         return calibrator;
     }
 
+    /**
+     * if the raw values are small integers, the spline calibrator can use a lookup table
+     */
+    static SplineCalibratorProc getSplineCalibrator(SplineCalibrator c, DataEncoding de) {
+        if (de instanceof IntegerDataEncoding) {
+            IntegerDataEncoding ide = (IntegerDataEncoding) de;
+            int n = ide.getSizeInBits();
+            if (n > 0 && n <= SplineCalibratorProc.MAX_LOOKUP_TABLE_BITS
+                    && ide.getEncoding() != IntegerDataEncoding.Encoding.STRING) {
+                if (ide.getEncoding() == IntegerDataEncoding.Encoding.UNSIGNED) {
+                    return new SplineCalibratorProc(c, 0, (1L << n) - 1);
+                } else {
+                    return new SplineCalibratorProc(c, -(1L << (n - 1)), (1L << (n - 1)) - 1);
+                }
+            }
+        }
+        return new SplineCalibratorProc(c);
+    }
+
     public MatchCriteriaEvaluator getEvaluator(MatchCriteria mc) {
-        return evaluators.computeIfAbsent(mc,
-                k -> MatchCriteriaEvaluatorFactory.getEvaluator(k));
+        return evaluators.computeIfAbsent(mc, mdb::getMatchCriteriaEvaluator);
+    }
+
+    /**
+     * Returns the precompiled encoding of the command, or null if the command cannot be precompiled.
+     */
+    CommandEncodingTemplate getCommandEncodingTemplate(MetaCommand mc) {
+        return commandTemplates.computeIfAbsent(mc,
+                k -> Optional.ofNullable(CommandEncodingTemplate.compile(this, k))).orElse(null);
     }
 
     public DataDecoder getDataDecoder(DataEncoding de) {
@@ -467,4 +487,56 @@ public class ProcessorData {
         typeListeners.forEach(l -> l.parameterTypeUpdated(parameter, getParameterType(parameter)));
     }
 
+
+    /**
+     * The context and default calibrators of a numeric data encoding, with the evaluators and the calibrator processors
+     * resolved such that selecting the calibrator for a value does not require any map lookup.
+     */
+    private class EncodingCalibrators {
+        final NumericDataEncoding encoding;
+        final MatchCriteriaEvaluator[] evaluators;
+        final Calibrator[] calibs;
+        // the last one corresponds to the default calibrator
+        final CalibratorProc[] procs;
+
+        EncodingCalibrators(NumericDataEncoding encoding) {
+            this.encoding = encoding;
+            List<ContextCalibrator> clist = encoding.getContextCalibratorList();
+            int n = clist == null ? 0 : clist.size();
+            evaluators = new MatchCriteriaEvaluator[n];
+            calibs = new Calibrator[n + 1];
+            for (int i = 0; i < n; i++) {
+                ContextCalibrator cc = clist.get(i);
+                evaluators[i] = getEvaluator(cc.getContextMatch());
+                calibs[i] = cc.getCalibrator();
+            }
+            calibs[n] = encoding.getDefaultCalibrator();
+            procs = new CalibratorProc[n + 1];
+        }
+
+        CalibratorProc select(ProcessingData pdata) {
+            int idx = evaluators.length;
+            for (int i = 0; i < evaluators.length; i++) {
+                if (evaluators[i].evaluate(pdata) == MatchResult.OK) {
+                    idx = i;
+                    break;
+                }
+            }
+            CalibratorProc proc = procs[idx];
+            if (proc == null) {
+                Calibrator c = calibs[idx];
+                if (c == null) {
+                    return null;
+                }
+                try {
+                    proc = getCalibratorProc(c, (DataEncoding) encoding);
+                    procs[idx] = proc;
+                } catch (Exception e) {
+                    eventProducer.sendWarning("Could not get calibrator processor for " + c + ": " + e.toString());
+                    return null;
+                }
+            }
+            return proc;
+        }
+    }
 }
@@ -9,41 +9,108 @@ import org.yamcs.xtce.SplinePoint;
  * A calibration type where a segmented line in a raw vs calibrated plane is described using a set of points.
  * Raw values are converted to calibrated values by finding a position on the line corresponding to the raw value.
  * The algorithm triggers on the input parameter.
+ * <p>
+ * The segment corresponding to the raw value is found by binary search. If the raw values are known to be integers
+ * in a small range (e.g. produced by an integer data encoding of maximum {@link #MAX_LOOKUP_TABLE_BITS} bits), the
+ * calibrated values of all the integers between the first and the last point are precomputed in a lookup table.
  *
  */
 public class SplineCalibratorProc implements CalibratorProc {
+    /**
+     * maximum number of bits of the integer raw values for which a lookup table is built
+     */
+    public static final int MAX_LOOKUP_TABLE_BITS = 16;
+
     SplinePoint[] points;
 
+    final double[] raw;
+    // for each segment between the points i and i+1, the calibrated value is (k[i] * d + c[i]) / den[i]
+    final double[] k;
+    final double[] c;
+    final double[] den;
+
+    // calibrated values of the integers tableMin, tableMin+1, ...
+    double[] table;
+    long tableMin;
+
     public SplineCalibratorProc(SplineCalibrator c) {
         this.points = c.getPoints();
+        int n = points.length;
+        // the points are sorted on the raw value by the SplineCalibrator
+        raw = new double[n];
+        for (int i = 0; i < n; i++) {
+            raw[i] = points[i].getRaw();
+        }
+
+        int numSegments = n - 1;
+        this.k = new double[numSegments];
+        this.c = new double[numSegments];
+        this.den = new double[numSegments];
+        for (int i = 0; i < numSegments; i++) {
+            double a1 = points[i + 1].getRaw();
+            double b1 = points[i + 1].getCalibrated();
+            double a2 = points[i].getRaw();
+            double b2 = points[i].getCalibrated();
+            k[i] = b1 - b2;
+            this.c[i] = a1 * b2 - b1 * a2;
+            den[i] = a1 - a2;
+        }
+    }
+
+    /**
+     * Creates a calibrator for raw values which can be integers in the range [minRaw, maxRaw].
+     * <p>
+     * If the range is not larger than 2^{@link #MAX_LOOKUP_TABLE_BITS}, a lookup table is built for the part of
+     * the range between the first and the last point.
+     */
+    public SplineCalibratorProc(SplineCalibrator c, long minRaw, long maxRaw) {
+        this(c);
+        if (maxRaw >= minRaw && maxRaw - minRaw < (1L << MAX_LOOKUP_TABLE_BITS)) {
+            long min = Math.max(minRaw, (long) Math.ceil(raw[0]));
+            long max = Math.min(maxRaw, (long) Math.floor(raw[raw.length - 1]));
+            if (max >= min) {
+                double[] t = new double[(int) (max - min + 1)];
+                for (int i = 0; i < t.length; i++) {
+                    t[i] = interpolate(min + i);
+                }
+                tableMin = min;
+                table = t;
+            }
+        }
     }
 
     @Override
     public double calibrate(double d) {
-        double val;
-
-        int i = 0, j = 0;
-        for (i = 0; i < points.length; i++) {
-            if (points[i].getRaw() >= d)
-                break;
-        }
-        if (i == 0) {
-            j = 0;
-            i = 1;
-        } else if (i == points.length) {
-            j = points.length - 2;
-            i = points.length - 1;
-        } else {
-            j = i - 1;
+        if (table != null) {
+            long l = (long) d;
+            long idx = l - tableMin;
+            if (l == d && idx >= 0 && idx < table.length) {
+                return table[(int) idx];
+            }
         }
-        double a1 = points[i].getRaw();
-        double b1 = points[i].getCalibrated();
+        return interpolate(d);
+    }
 
-        double a2 = points[j].getRaw();
-        double b2 = points[j].getCalibrated();
+    private double interpolate(double d) {
+        // i is the index of the first point having the raw value >= d
+        int i = lowerBound(d);
+        // use the segment to the left of that point; the first and the last segment are extended to infinity
+        int s = Math.min(Math.max(i - 1, 0), raw.length - 2);
+        return (k[s] * d + c[s]) / den[s];
+    }
 
-        val = ((b1 - b2) * d + (a1 * b2 - b1 * a2)) / (a1 - a2);
-        return val;
+    private int lowerBound(double d) {
+        int low = 0;
+        int high = raw.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (raw[mid] < d) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
     }
 
     @Override
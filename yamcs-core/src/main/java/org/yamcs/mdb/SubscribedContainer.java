@@ -11,13 +11,15 @@ import org.yamcs.xtce.SequenceEntry;
 
 public class SubscribedContainer {
     final SequenceContainer conainerDef;
+    final Mdb mdb;
     List<SequenceEntry> entries = new ArrayList<>();
 
     List<InheritingContainer> inheritingContainers = new ArrayList<>();
     boolean allEntriesAdded = false;
 
-    public SubscribedContainer(SequenceContainer sc) {
+    public SubscribedContainer(SequenceContainer sc, Mdb mdb) {
         this.conainerDef = sc;
+        this.mdb = mdb;
     }
 
     public void addEntry(SequenceEntry se) {
@@ -40,7 +42,7 @@ public class SubscribedContainer {
 
     public void addIneriting(SubscribedContainer child) {
         if (!inheritingContainers.stream().anyMatch(ic -> ic.container == child)) {
-            inheritingContainers.add(new InheritingContainer(child, child.conainerDef.getRestrictionCriteria()));
+            inheritingContainers.add(new InheritingContainer(child, child.conainerDef.getRestrictionCriteria(), mdb));
         }
     }
 
@@ -58,10 +60,10 @@ public class SubscribedContainer {
         final SubscribedContainer container;
         final MatchCriteriaEvaluator criteriaEvaluator;
 
-        public InheritingContainer(SubscribedContainer container, MatchCriteria matchCriteria) {
+        public InheritingContainer(SubscribedContainer container, MatchCriteria matchCriteria, Mdb mdb) {
             this.container = container;
             criteriaEvaluator = matchCriteria == null ? MatchCriteriaEvaluatorFactory.ALWAYS_MATCH
-                    : MatchCriteriaEvaluatorFactory.getEvaluator(matchCriteria);
+                    : mdb.getMatchCriteriaEvaluator(matchCriteria);
         }
 
         public MatchResult matches(ProcessingData data) {
@@ -40,7 +40,7 @@ public class Subscription {
             return subscribedContainer;
         }
 
-        subscribedContainer = new SubscribedContainer(containerDef);
+        subscribedContainer = new SubscribedContainer(containerDef, mdb);
         containers.put(containerDef, subscribedContainer);
 
         // if there is a base container, add that one to the subscription and the parameters which have to be
@@ -81,7 +81,7 @@ public class Subscription {
      * @param seq
      */
     public void addAll(SequenceContainer seq) {
-        SubscribedContainer subscr = containers.computeIfAbsent(seq, k -> new SubscribedContainer(k));
+        SubscribedContainer subscr = containers.computeIfAbsent(seq, k -> new SubscribedContainer(k, mdb));
         subscr.addAllEntries();
 
         for (SequenceEntry se : seq.getEntryList()) {
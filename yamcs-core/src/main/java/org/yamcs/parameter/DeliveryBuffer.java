@@ -0,0 +1,169 @@
+package org.yamcs.parameter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Reusable scratch structure used by the {@link ParameterRequestManager} to split one delivery into per subscription
+ * lists.
+ * <p>
+ * It works like a HashMap&lt;Integer, ArrayList&lt;ParameterValue&gt;&gt; with primitive int keys (open addressing,
+ * linear probing) which is cleared after each delivery without freeing the table.
+ * <p>
+ * The lists returned by {@link #get(int)} are new objects for each delivery because the consumers are allowed to keep
+ * them (e.g. for processing them in another thread).
+ * <p>
+ * Not thread safe
+ */
+class DeliveryBuffer {
+    static final int DEFAULT_CAPACITY = 16;
+    // used to mark the empty slots; the subscription ids are allocated incrementally starting from 1
+    private static final int EMPTY = 0;
+
+    private int[] keys;
+    private ArrayList<ParameterValue>[] values;
+    // the slots which have been used in the current delivery, in insertion order
+    private int[] used;
+    private int size;
+
+    // set by the user while the buffer is being used for a delivery
+    boolean busy;
+
+    DeliveryBuffer() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    @SuppressWarnings("unchecked")
+    DeliveryBuffer(int capacity) {
+        int n = Integer.highestOneBit(Math.max(capacity, 2) - 1) << 1;
+        keys = new int[n];
+        values = new ArrayList[n];
+        used = new int[n];
+    }
+
+    /**
+     * Returns the list associated to the subscription id, creating it if it does not exist.
+     *
+     * @param subscriptionId
+     *            - must be different than 0
+     * @param expectedSize
+     *            - used as initial capacity if the list has to be created
+     */
+    ArrayList<ParameterValue> get(int subscriptionId, int expectedSize) {
+        if (subscriptionId == EMPTY) {
+            throw new IllegalArgumentException("Invalid subscription id " + subscriptionId);
+        }
+        int mask = keys.length - 1;
+        int idx = mix(subscriptionId) & mask;
+        while (true) {
+            int k = keys[idx];
+            if (k == subscriptionId) {
+                return values[idx];
+            }
+            if (k == EMPTY) {
+                break;
+            }
+            idx = (idx + 1) & mask;
+        }
+        if (2 * (size + 1) > keys.length) {
+            grow();
+            return get(subscriptionId, expectedSize);
+        }
+        ArrayList<ParameterValue> al = new ArrayList<>(expectedSize);
+        keys[idx] = subscriptionId;
+        values[idx] = al;
+        used[size++] = idx;
+        return al;
+    }
+
+    ArrayList<ParameterValue> get(int subscriptionId) {
+        return get(subscriptionId, 10);
+    }
+
+    /**
+     * @return the number of subscriptions in the current delivery
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * @return the subscription id of the n-th subscription (in insertion order) of the current delivery
+     */
+    int subscriptionId(int n) {
+        return keys[used[n]];
+    }
+
+    /**
+     * @return the list of the n-th subscription (in insertion order) of the current delivery
+     */
+    List<ParameterValue> list(int n) {
+        return values[used[n]];
+    }
+
+    /**
+     * Prepares the buffer for a new delivery, keeping the allocated table.
+     */
+    void clear() {
+        for (int i = 0; i < size; i++) {
+            int idx = used[i];
+            keys[idx] = EMPTY;
+            values[idx] = null;
+        }
+        size = 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void grow() {
+        int[] oldKeys = keys;
+        ArrayList<ParameterValue>[] oldValues = values;
+        int[] oldUsed = used;
+        int oldSize = size;
+
+        int n = 2 * oldKeys.length;
+        keys = new int[n];
+        values = new ArrayList[n];
+        used = new int[n];
+        size = 0;
+        int mask = n - 1;
+        for (int i = 0; i < oldSize; i++) {
+            int k = oldKeys[oldUsed[i]];
+            int idx = mix(k) & mask;
+            while (keys[idx] != EMPTY) {
+                idx = (idx + 1) & mask;
+            }
+            keys[idx] = k;
+            values[idx] = oldValues[oldUsed[i]];
+            used[size++] = idx;
+        }
+    }
+
+    private static int mix(int x) {
+        int h = x * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("{");
+        for (int i = 0; i < size; i++) {
+            if (i > 0) {
+                sb.append(", ");
+            }
+            sb.append(subscriptionId(i)).append("=").append(list(i).size());
+        }
+        sb.append("}");
+        return sb.toString();
+    }
+
+    int[] subscriptionIds() {
+        int[] r = new int[size];
+        for (int i = 0; i < size; i++) {
+            r[i] = subscriptionId(i);
+        }
+        Arrays.sort(r);
+        return r;
+    }
+}
@@ -0,0 +1,606 @@
+package org.yamcs.parameter;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+import org.yamcs.logging.Log;
+import org.yamcs.protobuf.Pvalue.AcquisitionStatus;
+import org.yamcs.protobuf.Yamcs.Value.Type;
+import org.yamcs.utils.IntArray;
+import org.yamcs.utils.TimeEncoding;
+import org.yamcs.utils.ValueUtility;
+import org.yamcs.xtce.Parameter;
+
+/**
+ * Parameter cache storing the values outside of the java heap, in direct byte buffers whose total size is given by the
+ * {@link ParameterCacheConfig#maxSize} memory budget.
+ * <p>
+ * The memory is divided into pages of {@link #PAGE_SIZE} bytes. Each parameter has a ring made of a list of pages
+ * containing fixed size records:
+ *
+ * <pre>
+ * gentime(8 bytes), acqtime(8 bytes), status id(4 bytes), eng value, raw value
+ * </pre>
+ *
+ * The statuses and the enumeration labels are interned in small tables on the heap such that the records only contain
+ * their ids.
+ * <p>
+ * When the budget is exhausted, the page which has been allocated first (i.e. containing the oldest data) is taken
+ * from its owner. This way the parameters with high rates use more pages and all the parameters tend to be cached for
+ * the same time span. The last page of each parameter (the one being written) is never taken.
+ * <p>
+ * In addition the values older than {@link ParameterCacheConfig#maxDuration} and the values exceeding
+ * {@link ParameterCacheConfig#maxNumEntries} for one parameter are removed.
+ * <p>
+ * Only the values of type boolean, integer, float, timestamp and enumerated are supported; the parameters having
+ * other types (string, binary, aggregate, array) are not cached.
+ *
+ */
+public class OffHeapParameterCache implements ParameterCache {
+    static final int PAGE_SIZE = 4096;
+    static final int MAX_ARENA_SIZE = 1 << 30;
+
+    static final int HEADER_SIZE = 20;
+    static final int NO_STATUS = -1;
+
+    final Log log;
+    final ParameterCacheConfig cacheConfig;
+    final ConcurrentHashMap<Parameter, Boolean> parametersToCache;
+
+    final ByteBuffer[] arenas;
+    final int pagesPerArena;
+    final int numPages;
+
+    // all the fields below are protected by the lock
+    final ReadWriteLock lock = new ReentrantReadWriteLock();
+    final Map<Parameter, Ring> rings = new HashMap<>();
+
+    // free pages used as a stack
+    final IntArray freePages;
+
+    // the allocated pages, in the allocation order, as a doubly linked list
+    final int[] nextPage;
+    final int[] prevPage;
+    final Ring[] pageOwner;
+    int firstAllocated = -1;
+    int lastAllocated = -1;
+
+    final Interner<ParameterStatus> statuses = new Interner<>();
+    final Interner<String> labels = new Interner<>();
+
+    boolean budgetWarning = false;
+
+    OffHeapParameterCache(String instance, ParameterCacheConfig cacheConfig) {
+        log = new Log(this.getClass(), instance);
+        this.cacheConfig = cacheConfig;
+        parametersToCache = cacheConfig.cacheAll ? null : new ConcurrentHashMap<>();
+
+        long np = Math.max(1, cacheConfig.maxSize / PAGE_SIZE);
+        if (np > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Parameter cache size too large: " + cacheConfig.maxSize);
+        }
+        numPages = (int) np;
+        pagesPerArena = MAX_ARENA_SIZE / PAGE_SIZE;
+        int numArenas = (numPages + pagesPerArena - 1) / pagesPerArena;
+        arenas = new ByteBuffer[numArenas];
+        for (int i = 0; i < numArenas; i++) {
+            int n = Math.min(pagesPerArena, numPages - i * pagesPerArena);
+            arenas[i] = ByteBuffer.allocateDirect(n * PAGE_SIZE);
+        }
+
+        freePages = new IntArray(numPages);
+        for (int i = numPages - 1; i >= 0; i--) {
+            freePages.add(i);
+        }
+        nextPage = new int[numPages];
+        prevPage = new int[numPages];
+        pageOwner = new Ring[numPages];
+        log.debug("Allocated {} pages of {} bytes for the parameter cache", numPages, PAGE_SIZE);
+    }
+
+    @Override
+    public void update(Collection<ParameterValue> pvs) {
+        lock.writeLock().lock();
+        try {
+            for (ParameterValue pv : pvs) {
+                Parameter p = pv.getParameter();
+                if (!(cacheConfig.cacheAll || parametersToCache.containsKey(p))) {
+                    continue;
+                }
+                add(p, pv);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void add(Parameter p, ParameterValue pv) {
+        Type engType = getType(pv.getEngValue());
+        Type rawType = getType(pv.getRawValue());
+
+        Ring ring = rings.get(p);
+        if (ring != null && (ring.engType != engType || ring.rawType != rawType)) {
+            // the type of the parameter has changed, start from scratch
+            freeAll(ring);
+            rings.remove(p);
+            ring = null;
+        }
+        if (ring == null) {
+            int engSize = valueSize(engType);
+            int rawSize = valueSize(rawType);
+            if (engSize < 0 || rawSize < 0) {
+                return;
+            }
+            ring = new Ring(p, engType, rawType, engSize, rawSize);
+            rings.put(p, ring);
+        }
+
+        long t = pv.getGenerationTime();
+        if (ring.count > 0 && t < getGenerationTime(ring, ring.count - 1)) {
+            // older than the last value in the cache -> ignore
+            return;
+        }
+        trim(ring, t);
+
+        int idx = ring.first + ring.count;
+        if (idx == ring.pages.size() * ring.recordsPerPage) {
+            int page = allocatePage(ring);
+            if (page < 0) {
+                return;
+            }
+            idx = ring.first + ring.count;
+        }
+        int pos = position(ring, idx);
+        ByteBuffer bb = arena(ring, idx);
+        bb.putLong(pos, t);
+        bb.putLong(pos + 8, pv.getAcquisitionTime());
+        bb.putInt(pos + 16, statusId(pv.getStatus()));
+        pos += HEADER_SIZE;
+        putValue(bb, pos, engType, pv.getEngValue());
+        putValue(bb, pos + ring.engSize, rawType, pv.getRawValue());
+        ring.count++;
+    }
+
+    // removes the values too old or exceeding the maximum number of entries
+    private void trim(Ring ring, long t) {
+        long minTime = t - cacheConfig.maxDuration;
+        while (ring.count > 0 && (ring.count >= cacheConfig.maxNumEntries || getGenerationTime(ring, 0) <= minTime)) {
+            ring.first++;
+            ring.count--;
+            if (ring.first == ring.recordsPerPage) {
+                ring.first = 0;
+                if (ring.pages.size() > 1 || ring.count > 0) {
+                    freePage(ring.pages.remove(0));
+                }
+            }
+        }
+    }
+
+    private int allocatePage(Ring ring) {
+        int page;
+        if (freePages.size() > 0) {
+            page = freePages.remove(freePages.size() - 1);
+        } else {
+            page = stealPage(ring);
+            if (page < 0) {
+                if (ring.pages.size() == 0) {
+                    if (!budgetWarning) {
+                        log.warn("The parameter cache memory budget ({} bytes) is too small "
+                                + "to cache all the parameters; consider increasing the maxSizeMB",
+                                cacheConfig.maxSize);
+                        budgetWarning = true;
+                    }
+                    return -1;
+                }
+                // recycle our own oldest page
+                page = ring.pages.remove(0);
+                unlink(page);
+                ring.count -= ring.recordsPerPage - ring.first;
+                ring.first = 0;
+            }
+        }
+        ring.pages.add(page);
+        pageOwner[page] = ring;
+        link(page);
+        return page;
+    }
+
+    /**
+     * Takes the oldest allocated page from its owner.
+     * <p>
+     * The pages which are being written (last page of a ring) are moved at the end of the list and skipped.
+     */
+    private int stealPage(Ring requester) {
+        for (int i = 0; i < numPages && firstAllocated >= 0; i++) {
+            int page = firstAllocated;
+            Ring owner = pageOwner[page];
+            if (owner.pages.get(owner.pages.size() - 1) == page && owner != requester) {
+                unlink(page);
+                link(page);
+                continue;
+            }
+            if (owner.pages.get(0) != page) {
+                // should not happen since each ring allocates its pages in order
+                log.warn("Page {} is not the first page of its owner {}", page, owner.pdef.getQualifiedName());
+                unlink(page);
+                link(page);
+                continue;
+            }
+            owner.pages.remove(0);
+            owner.count -= owner.recordsPerPage - owner.first;
+            owner.first = 0;
+            if (owner.count < 0) {
+                owner.count = 0;
+            }
+            unlink(page);
+            pageOwner[page] = null;
+            return page;
+        }
+        return -1;
+    }
+
+    private void freeAll(Ring ring) {
+        for (int i = 0; i < ring.pages.size(); i++) {
+            freePage(ring.pages.get(i));
+        }
+        ring.pages = new IntArray();
+        ring.first = 0;
+        ring.count = 0;
+    }
+
+    private void freePage(int page) {
+        unlink(page);
+        pageOwner[page] = null;
+        freePages.add(page);
+    }
+
+    private void link(int page) {
+        prevPage[page] = lastAllocated;
+        nextPage[page] = -1;
+        if (lastAllocated >= 0) {
+            nextPage[lastAllocated] = page;
+        } else {
+            firstAllocated = page;
+        }
+        lastAllocated = page;
+    }
+
+    private void unlink(int page) {
+        int prev = prevPage[page];
+        int next = nextPage[page];
+        if (prev >= 0) {
+            nextPage[prev] = next;
+        } else {
+            firstAllocated = next;
+        }
+        if (next >= 0) {
+            prevPage[next] = prev;
+        } else {
+            lastAllocated = prev;
+        }
+    }
+
+    // the position inside the arena of the record with the index idx (relative to the ring start)
+    private int position(Ring ring, int idx) {
+        int page = ring.pages.get(idx / ring.recordsPerPage);
+        return (page % pagesPerArena) * PAGE_SIZE + (idx % ring.recordsPerPage) * ring.recordSize;
+    }
+
+    private ByteBuffer arena(Ring ring, int idx) {
+        return arenas[ring.pages.get(idx / ring.recordsPerPage) / pagesPerArena];
+    }
+
+    // n is the index of the record counting from the oldest one
+    private long getGenerationTime(Ring ring, int n) {
+        int idx = ring.first + n;
+        return arena(ring, idx).getLong(position(ring, idx));
+    }
+
+    private ParameterValue getParameterValue(Ring ring, int n) {
+        int idx = ring.first + n;
+        ByteBuffer bb = arena(ring, idx);
+        int pos = position(ring, idx);
+
+        ParameterValue pv = new ParameterValue(ring.pdef);
+        pv.setGenerationTime(bb.getLong(pos));
+        pv.setAcquisitionTime(bb.getLong(pos + 8));
+        int statusId = bb.getInt(pos + 16);
+        if (statusId != NO_STATUS) {
+            pv.setStatus(new ParameterStatus(statuses.get(statusId)));
+        }
+        pos += HEADER_SIZE;
+        if (ring.engType != null) {
+            pv.setEngValue(getValue(bb, pos, ring.engType));
+        }
+        if (ring.rawType != null) {
+            pv.setRawValue(getValue(bb, pos + ring.engSize, ring.rawType));
+        }
+        return pv;
+    }
+
+    @Override
+    public List<ParameterValue> getValues(List<Parameter> plist) {
+        List<ParameterValue> result = new ArrayList<>(plist.size());
+        lock.readLock().lock();
+        try {
+            for (Parameter p : plist) {
+                ParameterValue pv = getLast(p);
+                if (pv != null) {
+                    result.add(pv);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        long now = TimeEncoding.getWallclockTime();
+        // check expiration
+        for (ParameterValue pv : result) {
+            if ((pv.getAcquisitionStatus() == AcquisitionStatus.ACQUIRED) && pv.isExpired(now)) {
+                pv.setAcquisitionStatus(AcquisitionStatus.EXPIRED);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public ParameterValue getLastValue(Parameter p) {
+        lock.readLock().lock();
+        try {
+            return getLast(p);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private ParameterValue getLast(Parameter p) {
+        Ring ring = getRing(p);
+        if (ring == null || ring.count == 0) {
+            return null;
+        }
+        return getParameterValue(ring, ring.count - 1);
+    }
+
+    @Override
+    public List<ParameterValue> getAllValues(Parameter p) {
+        return getAllValues(p, Long.MIN_VALUE, Long.MAX_VALUE);
+    }
+
+    @Override
+    public List<ParameterValue> getAllValues(Parameter p, long start, long stop) {
+        lock.readLock().lock();
+        try {
+            Ring ring = getRing(p);
+            if (ring == null || ring.count == 0) {
+                return null;
+            }
+            // the index of the last record with the gentime <= stop
+            int n = upperBound(ring, stop) - 1;
+            List<ParameterValue> result = new ArrayList<>();
+            for (; n >= 0; n--) {
+                if (getGenerationTime(ring, n) <= start) {
+                    break;
+                }
+                result.add(getParameterValue(ring, n));
+            }
+            return result.isEmpty() ? null : result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // returns the index of the first record with the gentime > t
+    private int upperBound(Ring ring, long t) {
+        int low = 0;
+        int high = ring.count;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (getGenerationTime(ring, mid) <= t) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private Ring getRing(Parameter p) {
+        Ring ring = rings.get(p);
+        if (ring == null && !cacheConfig.cacheAll) {
+            parametersToCache.put(p, Boolean.TRUE);
+        }
+        return ring;
+    }
+
+    @Override
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            for (Ring ring : rings.values()) {
+                freeAll(ring);
+            }
+            rings.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @return the number of pages not allocated to any parameter
+     */
+    int getNumFreePages() {
+        lock.readLock().lock();
+        try {
+            return freePages.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private int statusId(ParameterStatus status) {
+        if (status == null) {
+            return NO_STATUS;
+        }
+        return statuses.intern(status, () -> new ParameterStatus(status));
+    }
+
+    private static Type getType(Value v) {
+        return v == null ? null : v.getType();
+    }
+
+    /**
+     * @return the number of bytes required to store a value of the given type or -1 if the type is not supported
+     */
+    static int valueSize(Type type) {
+        if (type == null) {
+            return 0;
+        }
+        switch (type) {
+        case BOOLEAN:
+            return 1;
+        case FLOAT:
+        case SINT32:
+        case UINT32:
+            return 4;
+        case DOUBLE:
+        case SINT64:
+        case UINT64:
+        case TIMESTAMP:
+            return 8;
+        case ENUMERATED:
+            return 12;
+        default:
+            return -1;
+        }
+    }
+
+    private void putValue(ByteBuffer bb, int pos, Type type, Value v) {
+        if (type == null) {
+            return;
+        }
+        switch (type) {
+        case BOOLEAN:
+            bb.put(pos, (byte) (v.getBooleanValue() ? 1 : 0));
+            break;
+        case FLOAT:
+            bb.putFloat(pos, v.getFloatValue());
+            break;
+        case SINT32:
+            bb.putInt(pos, v.getSint32Value());
+            break;
+        case UINT32:
+            bb.putInt(pos, v.getUint32Value());
+            break;
+        case DOUBLE:
+            bb.putDouble(pos, v.getDoubleValue());
+            break;
+        case SINT64:
+            bb.putLong(pos, v.getSint64Value());
+            break;
+        case UINT64:
+            bb.putLong(pos, v.getUint64Value());
+            break;
+        case TIMESTAMP:
+            bb.putLong(pos, v.getTimestampValue());
+            break;
+        case ENUMERATED:
+            String label = v.getStringValue();
+            bb.putLong(pos, v.getSint64Value());
+            bb.putInt(pos + 8, labels.intern(label, () -> label));
+            break;
+        default:
+            throw new IllegalStateException("Unexpected type " + type);
+        }
+    }
+
+    private Value getValue(ByteBuffer bb, int pos, Type type) {
+        switch (type) {
+        case BOOLEAN:
+            return ValueUtility.getBooleanValue(bb.get(pos) != 0);
+        case FLOAT:
+            return ValueUtility.getFloatValue(bb.getFloat(pos));
+        case SINT32:
+            return ValueUtility.getSint32Value(bb.getInt(pos));
+        case UINT32:
+            return ValueUtility.getUint32Value(bb.getInt(pos));
+        case DOUBLE:
+            return ValueUtility.getDoubleValue(bb.getDouble(pos));
+        case SINT64:
+            return ValueUtility.getSint64Value(bb.getLong(pos));
+        case UINT64:
+            return ValueUtility.getUint64Value(bb.getLong(pos));
+        case TIMESTAMP:
+            return ValueUtility.getTimestampValue(bb.getLong(pos));
+        case ENUMERATED:
+            return ValueUtility.getEnumeratedValue(bb.getLong(pos), labels.get(bb.getInt(pos + 8)));
+        default:
+            throw new IllegalStateException("Unexpected type " + type);
+        }
+    }
+
+    /**
+     * The pages of one parameter; the records are ordered by generation time, the oldest one being at the index
+     * {@link #first} of the first page.
+     */
+    static class Ring {
+        final Parameter pdef;
+        final Type engType;
+        final Type rawType;
+        final int engSize;
+        final int recordSize;
+        final int recordsPerPage;
+
+        IntArray pages = new IntArray(4);
+        int first;
+        int count;
+
+        Ring(Parameter pdef, Type engType, Type rawType, int engSize, int rawSize) {
+            this.pdef = pdef;
+            this.engType = engType;
+            this.rawType = rawType;
+            this.engSize = engSize;
+            this.recordSize = HEADER_SIZE + engSize + rawSize;
+            this.recordsPerPage = PAGE_SIZE / recordSize;
+        }
+    }
+
+    /**
+     * Assigns int ids to objects.
+     */
+    static class Interner<T> {
+        final Map<T, Integer> ids = new HashMap<>();
+        T[] objects;
+
+        @SuppressWarnings("unchecked")
+        Interner() {
+            objects = (T[]) new Object[16];
+        }
+
+        int intern(T o, Supplier<T> copy) {
+            Integer id = ids.get(o);
+            if (id == null) {
+                id = ids.size();
+                if (id == objects.length) {
+                    objects = Arrays.copyOf(objects, 2 * id);
+                }
+                T o1 = copy.get();
+                objects[id] = o1;
+                ids.put(o1, id);
+            }
+            return id;
+        }
+
+        T get(int id) {
+            return objects[id];
+        }
+    }
+}
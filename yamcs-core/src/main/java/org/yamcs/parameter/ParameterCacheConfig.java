@@ -13,19 +13,32 @@ public class ParameterCacheConfig {
     //maximum duration of the cache
     final long maxDuration;
     final int maxNumEntries;
-    
+    // if true, the values are stored outside the java heap (OffHeapParameterCache)
+    final boolean offHeap;
+    // memory budget in bytes for the off-heap cache
+    final long maxSize;
+
     public ParameterCacheConfig(boolean enabled, boolean cacheAll, long duration, int maxNumEntries) {
+        this(enabled, cacheAll, duration, maxNumEntries, false, 0);
+    }
+
+    public ParameterCacheConfig(boolean enabled, boolean cacheAll, long duration, int maxNumEntries,
+            boolean offHeap, long maxSize) {
         this.enabled = enabled;
         this.cacheAll = cacheAll;
         this.maxDuration = duration;
         this.maxNumEntries = maxNumEntries;
+        this.offHeap = offHeap;
+        this.maxSize = maxSize;
     }
-    
+
     public ParameterCacheConfig() {
         this.enabled = false;
         this.cacheAll = false;
         this.maxDuration = 0;
         this.maxNumEntries = 0;
+        this.offHeap = false;
+        this.maxSize = 0;
     }
 
     public ParameterCacheConfig(YConfiguration cacheConfig, Log log) {
@@ -43,11 +56,13 @@ public class ParameterCacheConfig {
         cacheAll = cacheConfig.getBoolean("cacheAll", false);
         maxDuration = 1000L * cacheConfig.getInt("duration", 300);
         maxNumEntries = cacheConfig.getInt("maxNumEntries", 512);
+        offHeap = cacheConfig.getBoolean("offHeap", false);
+        maxSize = 1024L * 1024 * cacheConfig.getInt("maxSizeMB", 64);
     }
 
     @Override
     public String toString() {
         return "ParameterCacheConfig [enabled=" + enabled + ", cacheAll=" + cacheAll + ", maxDuration=" + maxDuration
-                + ", maxNumEntries=" + maxNumEntries + "]";
+                + ", maxNumEntries=" + maxNumEntries + ", offHeap=" + offHeap + ", maxSize=" + maxSize + "]";
     }
 }
@@ -51,6 +51,9 @@ public class ParameterProcessorManager extends AbstractService implements Parame
     // contains subscribe all
     private BitSet subscribeAll = new BitSet();
 
+    // scratch bitsets used by the process method, the deliveries can come from multiple threads in parallel
+    private final ThreadLocal<DeliveryBitSets> deliveryBitSets = ThreadLocal.withInitial(DeliveryBitSets::new);
+
     private Map<Class<?>, ParameterProvider> parameterProviders = new LinkedHashMap<>();
 
     public final Processor processor;
@@ -92,7 +95,11 @@ public class ParameterProcessorManager extends AbstractService implements Parame
         }
 
         if (cacheConfig.enabled) {
-            parameterCache = new ArrayParameterCache(proc.getInstance(), cacheConfig);
+            if (cacheConfig.offHeap) {
+                parameterCache = new OffHeapParameterCache(proc.getInstance(), cacheConfig);
+            } else {
+                parameterCache = new ArrayParameterCache(proc.getInstance(), cacheConfig);
+            }
 
             // Populate any initial values
             var pvs = proc.getLastValueCache().getValues();
@@ -146,6 +153,16 @@ public class ParameterProcessorManager extends AbstractService implements Parame
         return id;
     }
 
+    /**
+     * Adds parameters to an existing subscription created with {@link #subscribe(Collection, ParameterProcessor)}
+     */
+    public void addItemsToSubscription(int subscriptionId, Collection<Parameter> paraList) {
+        subscribeToProviders(paraList);
+        for (Parameter p : paraList) {
+            addItemToSubscription(subscriptionId, p);
+        }
+    }
+
     private void addItemToSubscription(int id, Parameter para) {
         BitSet bitset = param2SubscriptionMap.computeIfAbsent(para, k -> new BitSet());
         bitset.set(id);
@@ -216,16 +233,58 @@ public class ParameterProcessorManager extends AbstractService implements Parame
     public void process(ProcessingData processingData) {
         ParameterValueList pvlist = processingData.getTmParams();
         log.trace("Received TM data with {} parameters", pvlist.size);
+        if (parameterAlarmServer != null) {
+            // the alarm changes caused by this delivery are published together at the end
+            parameterAlarmServer.beginBatch();
+            try {
+                processDelivery(processingData);
+            } finally {
+                parameterAlarmServer.endBatch();
+            }
+        } else {
+            processDelivery(processingData);
+        }
+    }
+
+    private void processDelivery(ProcessingData processingData) {
+        ParameterValueList pvlist = processingData.getTmParams();
         if (alarmChecker != null) {
             alarmChecker.performAlarmChecking(processingData, pvlist.iterator());
         }
-        BitSet bitset = new BitSet();
+        DeliveryBitSets bitsets = deliveryBitSets.get();
+        if (bitsets.busy) {
+            // a parameter processor has triggered a new delivery from the same thread
+            bitsets = new DeliveryBitSets();
+        }
+        bitsets.busy = true;
+        try {
+            runProcessors(processingData, bitsets.current, bitsets.next);
+        } finally {
+            bitsets.busy = false;
+        }
+
+        prm.update(pvlist);
+
+        if (parameterCache != null) {
+            parameterCache.update(pvlist);
+        }
+        lastValueCache.addAll(pvlist);
+    }
+
+    /**
+     * Runs the delivery through the parameter processors.
+     * <p>
+     * The two bitsets are scratch space reused between the deliveries; they are cleared by this method.
+     */
+    private void runProcessors(ProcessingData processingData, BitSet bitset, BitSet bitset1) {
+        ParameterValueList pvlist = processingData.getTmParams();
+        bitset.clear();
         bitset.or(subscribeAll);
 
         for (ParameterValue pv : pvlist) {
-            BitSet bitset1 = param2SubscriptionMap.get(pv.getParameter());
-            if (bitset1 != null) {
-                bitset.or(bitset1);
+            BitSet bitset2 = param2SubscriptionMap.get(pv.getParameter());
+            if (bitset2 != null) {
+                bitset.or(bitset2);
             }
         }
         // at this point bitset contains all the subscriptions with parameters from the original delivery.
@@ -234,19 +293,15 @@ public class ParameterProcessorManager extends AbstractService implements Parame
         // In particular, the subscribe all processors will only get called once, so they will not be called again if
         // other parameters have been added to delivery
         // (the algorithm manager handles that by doing its internal parameter dependency management)
-        boolean finished = false;
-        int loopCount = 1;
-        while (!finished) {
-            finished = true;
+        while (!bitset.isEmpty()) {
             Iterator<ParameterValue> tailIt = pvlist.tailIterator();
 
             for (int id = bitset.nextSetBit(0); id != -1; id = bitset.nextSetBit(id + 1)) {
-                finished = false;
                 sendToProcessor(parameterProcessors[id], processingData);
             }
 
             // check the new parameters added in the loop above
-            BitSet bitset1 = new BitSet();
+            bitset1.clear();
             while (tailIt.hasNext()) {
                 ParameterValue pv = tailIt.next();
                 BitSet bitset2 = param2SubscriptionMap.get(pv.getParameter());
@@ -260,15 +315,10 @@ public class ParameterProcessorManager extends AbstractService implements Parame
             // cyclic dependencies could be detected by checking bitset1 intersection with bitset
             bitset1.andNot(bitset);
 
+            BitSet tmp = bitset;
             bitset = bitset1;
+            bitset1 = tmp;
         }
-
-        prm.update(pvlist);
-
-        if (parameterCache != null) {
-            parameterCache.update(pvlist);
-        }
-        lastValueCache.addAll(pvlist);
     }
 
     // sends the parameter to processor
@@ -419,4 +469,10 @@ public class ParameterProcessorManager extends AbstractService implements Parame
     public ParameterRequestManager getParameterRequestManager() {
         return prm;
     }
+
+    static class DeliveryBitSets {
+        final BitSet current = new BitSet();
+        final BitSet next = new BitSet();
+        boolean busy;
+    }
 }
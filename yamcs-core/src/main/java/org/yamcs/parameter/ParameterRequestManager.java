@@ -1,8 +1,9 @@
 package org.yamcs.parameter;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
-import java.util.HashMap;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
@@ -38,6 +39,9 @@ public class ParameterRequestManager {
 
     private static AtomicInteger lastSubscriptionId = new AtomicInteger();
 
+    // the update can be called by multiple providers in parallel, so each thread has its own buffer
+    private final ThreadLocal<DeliveryBuffer> deliveryBuffer = ThreadLocal.withInitial(DeliveryBuffer::new);
+
     public final Processor processor;
 
     LastValueCache lastValueCache;
@@ -313,66 +317,65 @@ public class ParameterRequestManager {
      * 
      */
     public void update(ParameterValueList pvlist) {
-        // build the customised lists for the subscribers and send it to them
-        HashMap<Integer, ArrayList<ParameterValue>> subscription = new HashMap<>();
-        updateSubscription(subscription, pvlist);
-
-        for (Map.Entry<Integer, ArrayList<ParameterValue>> entry : subscription.entrySet()) {
-            Integer subscriptionId = entry.getKey();
-
-            ArrayList<ParameterValue> al = entry.getValue();
-            ParameterConsumer consumer = request2ParameterConsumerMap.get(subscriptionId);
-            if (consumer == null) {
-                log.warn("subscriptionId {} appears in the delivery list, but there is no consumer for it",
-                        subscriptionId);
-            } else {
-                consumer.updateItems(subscriptionId, al);
+        if (pvlist == null) {
+            return;
+        }
+        DeliveryBuffer buffer = deliveryBuffer.get();
+        if (buffer.busy) {
+            // a consumer has triggered a new delivery from within updateItems
+            buffer = new DeliveryBuffer();
+        }
+        buffer.busy = true;
+        try {
+            // build the customised lists for the subscribers and send it to them
+            updateSubscription(buffer, pvlist);
+
+            for (int i = 0; i < buffer.size(); i++) {
+                deliver(buffer.subscriptionId(i), buffer.list(i));
             }
+        } finally {
+            buffer.clear();
+            buffer.busy = false;
+        }
+
+        // the subscribeAll subscribers share the same read-only view of the delivery
+        int[] allIds = subscribeAllConsumers.getArray();
+        if (allIds.length > 0) {
+            // ParameterValueList.toArray() returns a ParameterValue[]
+            List<ParameterValue> all = Collections
+                    .unmodifiableList(Arrays.asList((ParameterValue[]) pvlist.toArray()));
+            for (int id : allIds) {
+                deliver(id, all);
+            }
+        }
+    }
+
+    private void deliver(int subscriptionId, List<ParameterValue> items) {
+        ParameterConsumer consumer = request2ParameterConsumerMap.get(subscriptionId);
+        if (consumer == null) {
+            log.warn("subscriptionId {} appears in the delivery list, but there is no consumer for it",
+                    subscriptionId);
+        } else {
+            consumer.updateItems(subscriptionId, items);
         }
     }
 
     /**
      * adds the passed parameters to the subscription
      * 
-     * @param subscription
+     * @param buffer
      * @param currentDelivery
      */
-    private void updateSubscription(HashMap<Integer, ArrayList<ParameterValue>> subscription,
-            Collection<ParameterValue> currentDelivery) {
-        if (currentDelivery == null) {
-            return;
-        }
-
-        for (Iterator<ParameterValue> it = currentDelivery.iterator(); it.hasNext();) {
-            ParameterValue pv = it.next();
-            Parameter pDef = pv.getParameter();
-            SubscriptionArray cowal = param2RequestMap.get(pDef);
+    private void updateSubscription(DeliveryBuffer buffer, ParameterValueList currentDelivery) {
+        for (ParameterValue pv : currentDelivery) {
+            SubscriptionArray cowal = param2RequestMap.get(pv.getParameter());
             // now walk through the requests and add this item to their delivery list
             if (cowal == null) {
                 continue;
             }
 
             for (int s : cowal.getArray()) {
-                ArrayList<ParameterValue> al = subscription.get(s);
-                if (al == null) {
-                    al = new ArrayList<>();
-                    subscription.put(s, al);
-                }
-                al.add(pv);
-            }
-        }
-
-        // update the subscribeAll subscriptions
-        for (int id : subscribeAllConsumers.getArray()) {
-            ArrayList<ParameterValue> al = subscription.get(id);
-
-            if (al == null) {
-                al = new ArrayList<>();
-                subscription.put(id, al);
-            }
-
-            for (ParameterValue pv : currentDelivery) {
-                al.add(pv);
+                buffer.get(s).add(pv);
             }
         }
     }
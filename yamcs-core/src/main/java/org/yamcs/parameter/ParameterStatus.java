@@ -24,6 +24,25 @@ public class ParameterStatus {
     //-1 means it's not set.
     private long expireMillis = -1;
 
+    public ParameterStatus() {
+    }
+
+    /**
+     * Copy constructor, the ranges are immutable and shared with the original
+     */
+    public ParameterStatus(ParameterStatus other) {
+        this.acquisitionStatus = other.acquisitionStatus;
+        this.monitoringResult = other.monitoringResult;
+        this.deltaMonitoringResult = other.deltaMonitoringResult;
+        this.rangeCondition = other.rangeCondition;
+        this.watchRange = other.watchRange;
+        this.warningRange = other.warningRange;
+        this.distressRange = other.distressRange;
+        this.criticalRange = other.criticalRange;
+        this.severeRange = other.severeRange;
+        this.expireMillis = other.expireMillis;
+    }
+
     public AcquisitionStatus getAcquisitionStatus() {
         return acquisitionStatus;
     }
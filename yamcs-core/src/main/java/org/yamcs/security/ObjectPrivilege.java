@@ -1,6 +1,7 @@
 package org.yamcs.security;
 
 import java.util.Objects;
+import java.util.regex.Pattern;
 
 /**
  * An object privilege is the right to perform a particular action on an object. The object is assumed to be
@@ -11,6 +12,7 @@ public class ObjectPrivilege {
 
     private ObjectPrivilegeType type;
     private String object;
+    private volatile Pattern pattern; // compiled on first use
 
     public ObjectPrivilege(ObjectPrivilegeType type, String object) {
         this.type = type;
@@ -25,6 +27,18 @@ public class ObjectPrivilege {
         return object;
     }
 
+    /**
+     * Returns true if this privilege applies to the specified object, that is if the object matches the regular
+     * expression of this privilege.
+     */
+    public boolean matches(String objectName) {
+        Pattern p = pattern;
+        if (p == null) {
+            p = pattern = Pattern.compile(object);
+        }
+        return p.matcher(objectName).matches();
+    }
+
     @Override
     public boolean equals(Object obj) {
         if (obj instanceof ObjectPrivilege) {
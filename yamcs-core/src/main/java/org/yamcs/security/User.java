@@ -7,6 +7,7 @@ import java.util.HashSet;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArraySet;
 
 import org.yamcs.security.protobuf.AccountRecord;
@@ -16,6 +17,9 @@ import org.yamcs.security.protobuf.UserAccountRecordDetail;
 import org.yamcs.yarch.DataType;
 import org.yamcs.yarch.Tuple;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
 /**
  * A user contains identifying information and a convenient set of methods to perform access control.
  * <p>
@@ -31,6 +35,8 @@ import org.yamcs.yarch.Tuple;
  */
 public class User extends Account {
 
+    private static final int MAX_OBJECT_PRIVILEGE_DECISIONS = 10000;
+
     private String email;
     private String hash; // Password hash, only for internal users
 
@@ -54,6 +60,10 @@ public class User extends Account {
     private Set<SystemPrivilege> systemPrivileges = new HashSet<>();
     private Map<ObjectPrivilegeType, Set<ObjectPrivilege>> objectPrivileges = new HashMap<>();
 
+    // Decisions of object privilege checks, per privilege type. Replaced when privileges, roles or clearance change.
+    private volatile Map<ObjectPrivilegeType, Cache<String, Boolean>> objectPrivilegeDecisions =
+            new ConcurrentHashMap<>();
+
     private Set<ClearanceListener> clearanceListeners = new CopyOnWriteArraySet<>();
 
     public User(String username, User createdBy) {
@@ -128,6 +138,7 @@ public class User extends Account {
 
     public void setClearance(Clearance clearance) {
         this.clearance = clearance;
+        clearObjectPrivilegeDecisions();
         clearanceListeners.forEach(l -> l.onChange(clearance));
     }
 
@@ -140,6 +151,7 @@ public class User extends Account {
     public void setRoles(Collection<String> roles) {
         this.roles.clear();
         this.roles.addAll(roles);
+        clearObjectPrivilegeDecisions();
     }
 
     /**
@@ -151,10 +163,12 @@ public class User extends Account {
         } else {
             roles.add(role);
         }
+        clearObjectPrivilegeDecisions();
     }
 
     public void deleteRole(String role) {
         roles.remove(role);
+        clearObjectPrivilegeDecisions();
     }
 
     public boolean isSuperuser() {
@@ -213,6 +227,7 @@ public class User extends Account {
             objectPrivileges.put(objectPrivilege.getType(), privilegesForType);
         }
         privilegesForType.add(objectPrivilege);
+        clearObjectPrivilegeDecisions();
     }
 
     /**
@@ -224,6 +239,7 @@ public class User extends Account {
 
         objectPrivileges.clear();
         objectPrivileges.putAll(externalObjectPrivileges);
+        clearObjectPrivilegeDecisions();
     }
 
     public boolean hasSystemPrivilege(SystemPrivilege systemPrivilege) {
@@ -239,13 +255,25 @@ public class User extends Account {
             return true;
         }
 
-        for (ObjectPrivilege privilege : getObjectPrivileges(type)) {
-            if (object.matches(privilege.getObject())) {
-                return true;
+        Cache<String, Boolean> decisions = objectPrivilegeDecisions.computeIfAbsent(type,
+                k -> CacheBuilder.newBuilder().maximumSize(MAX_OBJECT_PRIVILEGE_DECISIONS).build());
+        Boolean decision = decisions.getIfPresent(object);
+        if (decision == null) {
+            decision = false;
+            for (ObjectPrivilege privilege : getObjectPrivileges(type)) {
+                if (privilege.matches(object)) {
+                    decision = true;
+                    break;
+                }
             }
+            decisions.put(object, decision);
         }
+        return decision;
+    }
 
-        return false;
+    private void clearObjectPrivilegeDecisions() {
+        // Replace rather than clear, so that checks in progress do not store outdated decisions in the new map
+        objectPrivilegeDecisions = new ConcurrentHashMap<>();
     }
 
     public void addClearanceListener(ClearanceListener listener) {
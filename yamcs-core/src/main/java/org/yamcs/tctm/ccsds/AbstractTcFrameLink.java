@@ -40,6 +40,8 @@ public abstract class AbstractTcFrameLink extends AbstractLink implements Aggreg
 
     protected CommandHistoryPublisher commandHistoryPublisher;
     protected CltuGenerator cltuGenerator;
+    // number of threads used for encoding the CLTUs, if greater than 1 the encoding is pipelined
+    protected int cltuEncodingThreads;
     final static String CLTU_START_SEQ_KEY = "cltuStartSequence";
     final static String CLTU_TAIL_SEQ_KEY = "cltuTailSequence";
 
@@ -73,6 +75,7 @@ public abstract class AbstractTcFrameLink extends AbstractLink implements Aggreg
         spec.addOption("randomizeCltu", OptionType.BOOLEAN);
         spec.addOption("cltuGeneratorClassName", OptionType.STRING);
         spec.addOption("cltuGeneratorArgs", OptionType.MAP).withSpec(Spec.ANY);
+        spec.addOption("cltuEncodingThreads", OptionType.INTEGER).withDefault(1);
 
         return spec;
     }
@@ -126,6 +129,11 @@ public abstract class AbstractTcFrameLink extends AbstractLink implements Aggreg
             }
         }
 
+        cltuEncodingThreads = config.getInt("cltuEncodingThreads");
+        if (cltuEncodingThreads < 1) {
+            throw new ConfigurationException("cltuEncodingThreads should be at least 1");
+        }
+
         multiplexer = new MasterChannelFrameMultiplexer(yamcsInstance, linkName, config);
         subLinks = new ArrayList<>();
         for (VcUplinkHandler vch : multiplexer.getVcHandlers()) {
@@ -160,6 +168,20 @@ public abstract class AbstractTcFrameLink extends AbstractLink implements Aggreg
 
     }
 
+    /**
+     * Creates a pipeline encoding the CLTUs in parallel on {@code cltuEncodingThreads} threads.
+     * <p>
+     * Returns null if the frames are not encoded into CLTUs or if only one thread is configured, in which case the
+     * encoding should be done on the thread sending the frames.
+     */
+    protected CltuEncodingPipeline createCltuEncodingPipeline() {
+        if (cltuGenerator == null || cltuEncodingThreads <= 1) {
+            return null;
+        }
+        return new CltuEncodingPipeline(linkName, cltuEncodingThreads, 4 * cltuEncodingThreads,
+                tf -> encodeCltu(tf.getVirtualChannelId(), tf.getData()));
+    }
+
     @Override
     public List<Link> getSubLinks() {
         return subLinks;
@@ -0,0 +1,117 @@
+package org.yamcs.tctm.ccsds;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * Encodes TC frames (randomization and CLTU generation) on a pool of worker threads while preserving their order.
+ * <p>
+ * The frames are submitted by the thread taking them from the {@link MasterChannelFrameMultiplexer}; at that point
+ * their sequence numbers have already been assigned by the virtual channel handlers (FOP-1 for the AD frames). The
+ * encoding runs in parallel and the frames are taken out in the order in which they have been submitted by the thread
+ * sending them on the link.
+ * <p>
+ * The number of frames in the pipeline is bounded; the submission blocks when the sender does not keep up.
+ */
+public class CltuEncodingPipeline {
+    private final ExecutorService workers;
+    private final BlockingQueue<EncodedFrame> queue;
+    private final Function<TcTransferFrame, byte[]> encoder;
+
+    /**
+     * @param name
+     *            used to name the worker threads
+     * @param numThreads
+     *            number of worker threads
+     * @param depth
+     *            maximum number of frames submitted and not yet taken out
+     * @param encoder
+     *            function returning the encoded frame data; called in parallel on the worker threads
+     */
+    public CltuEncodingPipeline(String name, int numThreads, int depth, Function<TcTransferFrame, byte[]> encoder) {
+        this.workers = Executors.newFixedThreadPool(numThreads,
+                new ThreadFactoryBuilder().setNameFormat(name + "-cltu-%d").setDaemon(true).build());
+        this.queue = new ArrayBlockingQueue<>(depth);
+        this.encoder = encoder;
+    }
+
+    /**
+     * Starts encoding the frame, blocking if the pipeline is full.
+     */
+    public void submit(TcTransferFrame tf) throws InterruptedException {
+        CompletableFuture<byte[]> data = CompletableFuture.supplyAsync(() -> encoder.apply(tf), workers);
+        queue.put(new EncodedFrame(tf, data));
+    }
+
+    /**
+     * Returns the next frame in the submission order, waiting for it to be submitted and encoded.
+     */
+    public EncodedFrame take() throws InterruptedException {
+        EncodedFrame ef = queue.take();
+        try {
+            ef.data = ef.future.get();
+        } catch (ExecutionException e) {
+            ef.error = e.getCause();
+        }
+        return ef;
+    }
+
+    /**
+     * Returns the number of frames submitted and not yet taken out.
+     */
+    public int size() {
+        return queue.size();
+    }
+
+    /**
+     * Stops the worker threads and discards the frames still in the pipeline.
+     *
+     * @return the discarded frames
+     */
+    public List<TcTransferFrame> shutdown() {
+        workers.shutdownNow();
+        List<EncodedFrame> l = new ArrayList<>();
+        queue.drainTo(l);
+        return l.stream().map(EncodedFrame::getFrame).collect(Collectors.toList());
+    }
+
+    public static class EncodedFrame {
+        final TcTransferFrame frame;
+        final CompletableFuture<byte[]> future;
+        byte[] data;
+        Throwable error;
+
+        EncodedFrame(TcTransferFrame frame, CompletableFuture<byte[]> future) {
+            this.frame = frame;
+            this.future = future;
+        }
+
+        public TcTransferFrame getFrame() {
+            return frame;
+        }
+
+        /**
+         * The encoded data or null if the encoding has failed
+         */
+        public byte[] getData() {
+            return data;
+        }
+
+        /**
+         * The exception thrown by the encoder or null if the encoding was successful
+         */
+        public Throwable getError() {
+            return error;
+        }
+    }
+}
@@ -11,6 +11,7 @@ import org.yamcs.ConfigurationException;
 import org.yamcs.Spec;
 import org.yamcs.Spec.OptionType;
 import org.yamcs.YConfiguration;
+import org.yamcs.tctm.ccsds.CltuEncodingPipeline.EncodedFrame;
 import org.yamcs.utils.StringConverter;
 
 import com.google.common.util.concurrent.RateLimiter;
@@ -22,6 +23,9 @@ import com.google.common.util.concurrent.RateLimiter;
  * <ul>
  * <li>frameMaxRate: maximum number of command frames to send per second.</li>
  * </ul>
+ * <p>
+ * If {@code cltuEncodingThreads} is greater than 1, the CLTUs are encoded in parallel by a
+ * {@link CltuEncodingPipeline} and sent by a separate thread.
  * 
  * @author nm
  *
@@ -33,6 +37,9 @@ public class UdpTcFrameLink extends AbstractTcFrameLink implements Runnable {
     InetAddress address;
     Thread thread;
     RateLimiter rateLimiter;
+    // if the CLTU encoding is pipelined, the frames are sent by a separate thread
+    volatile CltuEncodingPipeline cltuPipeline;
+    Thread senderThread;
 
     @Override
     public Spec getSpec() {
@@ -61,48 +68,102 @@ public class UdpTcFrameLink extends AbstractTcFrameLink implements Runnable {
 
     @Override
     public void run() {
+        CltuEncodingPipeline pipeline = cltuPipeline;
         while (isRunningAndEnabled()) {
             if (rateLimiter != null) {
                 rateLimiter.acquire();
             }
             TcTransferFrame tf = multiplexer.getFrame();
             if (tf != null) {
-                byte[] data = tf.getData();
                 if (log.isTraceEnabled()) {
-                    log.trace("Outgoing frame data: {}", StringConverter.arrayToHexString(data, true));
+                    log.trace("Outgoing frame data: {}", StringConverter.arrayToHexString(tf.getData(), true));
                 }
-
-                if (cltuGenerator != null) {
-                    data = encodeCltu(tf.getVirtualChannelId(), data);
-
-                    if (log.isTraceEnabled()) {
-                        log.trace("Outgoing CLTU: {}", StringConverter.arrayToHexString(data, true));
+                if (pipeline != null) {
+                    try {
+                        pipeline.submit(tf);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        failBypassFrame(tf, "Link disabled");
+                        return;
+                    }
+                } else {
+                    byte[] data = tf.getData();
+                    if (cltuGenerator != null) {
+                        data = encodeCltu(tf.getVirtualChannelId(), data);
+                    }
+                    if (!send(tf, data)) {
+                        return;
                     }
                 }
-                DatagramPacket dtg = new DatagramPacket(data, data.length, address, port);
-                try {
-                    socket.send(dtg);
-                    dataOut(1, data.length);
-                } catch (IOException e) {
-                    log.warn("Error sending datagram", e);
-                    notifyFailed(e);
-                    return;
-                }
+            }
+        }
+    }
 
-                if (tf.isBypass()) {
-                    ackBypassFrame(tf);
+    /**
+     * Sends the frames in the order they have been submitted to the CLTU encoding pipeline.
+     */
+    private void runSender() {
+        CltuEncodingPipeline pipeline = cltuPipeline;
+        while (isRunningAndEnabled()) {
+            EncodedFrame ef;
+            try {
+                ef = pipeline.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (ef.getError() != null) {
+                log.warn("Error encoding frame", ef.getError());
+                if (ef.getFrame().isBypass()) {
+                    failBypassFrame(ef.getFrame(), "Error encoding frame: " + ef.getError());
                 }
-
-                frameCount++;
+                continue;
+            }
+            if (!send(ef.getFrame(), ef.getData())) {
+                return;
             }
         }
     }
 
+    private boolean send(TcTransferFrame tf, byte[] data) {
+        if (cltuGenerator != null && log.isTraceEnabled()) {
+            log.trace("Outgoing CLTU: {}", StringConverter.arrayToHexString(data, true));
+        }
+        DatagramPacket dtg = new DatagramPacket(data, data.length, address, port);
+        try {
+            socket.send(dtg);
+            dataOut(1, data.length);
+        } catch (IOException e) {
+            log.warn("Error sending datagram", e);
+            notifyFailed(e);
+            return false;
+        }
+
+        if (tf.isBypass()) {
+            ackBypassFrame(tf);
+        }
+
+        frameCount++;
+        return true;
+    }
+
     @Override
     protected void doDisable() throws Exception {
         if (thread != null) {
             thread.interrupt();
         }
+        if (senderThread != null) {
+            senderThread.interrupt();
+            senderThread = null;
+        }
+        if (cltuPipeline != null) {
+            for (TcTransferFrame tf : cltuPipeline.shutdown()) {
+                if (tf.isBypass()) {
+                    failBypassFrame(tf, "Link disabled");
+                }
+            }
+            cltuPipeline = null;
+        }
         if (socket != null) {
             socket.close();
             socket = null;
@@ -112,6 +173,12 @@ public class UdpTcFrameLink extends AbstractTcFrameLink implements Runnable {
     @Override
     protected void doEnable() throws Exception {
         socket = new DatagramSocket();
+        cltuPipeline = createCltuEncodingPipeline();
+        if (cltuPipeline != null) {
+            senderThread = new Thread(this::runSender);
+            senderThread.setName(getClass().getSimpleName() + "-" + linkName + "-sender");
+            senderThread.start();
+        }
         thread = new Thread(this);
         thread.setName(getClass().getSimpleName() + "-" + linkName);
         thread.start();
@@ -0,0 +1,294 @@
+package org.yamcs.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Hierarchical timing wheel for scheduling a large number of timeouts, most of them being cancelled before expiring.
+ * <p>
+ * Compared with a {@link ScheduledExecutorService} (which keeps the tasks in a heap), the insertion and the
+ * cancellation are O(1) and the cancelled tasks are removed immediately. The price is a lower resolution: the tasks are
+ * run on the first tick after their expiration.
+ * <p>
+ * The wheel has {@value #NUM_LEVELS} levels of {@value #WHEEL_SIZE} buckets each. A bucket at level <i>L</i> spans
+ * {@code WHEEL_SIZE^L} ticks; a timeout is placed in the lowest level where its expiration tick differs from the
+ * current tick only in the digit corresponding to that level. When the digit of a level is incremented, the
+ * corresponding bucket is cascaded into the lower levels.
+ * <p>
+ * The wheel is advanced by a periodic task running on the given executor, which is also used to run the expired tasks.
+ * The periodic task is only scheduled while there are pending timeouts.
+ */
+public class TimingWheel {
+    static final Logger log = LoggerFactory.getLogger(TimingWheel.class);
+
+    static final int WHEEL_BITS = 6;
+    static final int WHEEL_SIZE = 1 << WHEEL_BITS;
+    static final int WHEEL_MASK = WHEEL_SIZE - 1;
+    static final int NUM_LEVELS = 6;
+    static final long MAX_TICKS = (1L << (WHEEL_BITS * NUM_LEVELS)) - 1;
+
+    private final ScheduledExecutorService executor;
+    private final long tickNanos;
+    private final LongSupplier nanoClock;
+    private final long origin;
+
+    private final Bucket[][] levels = new Bucket[NUM_LEVELS][WHEEL_SIZE];
+    // the last tick processed
+    private long currentTick;
+    private int pendingCount;
+    private ScheduledFuture<?> tickFuture;
+
+    /**
+     * Creates a timing wheel ticking on the given executor.
+     *
+     * @param executor
+     *            used for advancing the wheel and running the expired tasks
+     * @param tickMillis
+     *            the resolution of the wheel
+     */
+    public TimingWheel(ScheduledExecutorService executor, long tickMillis) {
+        this(executor, tickMillis, System::nanoTime);
+    }
+
+    /**
+     * if the executor is null, the wheel has to be advanced by calling {@link #tick()}.
+     */
+    TimingWheel(ScheduledExecutorService executor, long tickMillis, LongSupplier nanoClock) {
+        if (tickMillis <= 0) {
+            throw new IllegalArgumentException("The tick has to be positive");
+        }
+        this.executor = executor;
+        this.tickNanos = TimeUnit.MILLISECONDS.toNanos(tickMillis);
+        this.nanoClock = nanoClock;
+        this.origin = nanoClock.getAsLong();
+        for (Bucket[] level : levels) {
+            for (int i = 0; i < WHEEL_SIZE; i++) {
+                level[i] = new Bucket();
+            }
+        }
+    }
+
+    /**
+     * Schedules the task to run after the given delay.
+     *
+     * @return a handle which can be used to cancel the task
+     */
+    public Timeout schedule(Runnable task, long delay, TimeUnit unit) {
+        long now = nanoClock.getAsLong() - origin;
+        long nowTick = now / tickNanos;
+        // rounded up from the current time (and not from the current tick) such that the task does not run early
+        long ticks = (now + unit.toNanos(Math.max(0, delay)) + tickNanos - 1) / tickNanos - nowTick;
+        Timeout timeout = new Timeout(task);
+        synchronized (this) {
+            if (pendingCount == 0) {
+                // nothing to expire in between, jump directly to the current time
+                currentTick = Math.max(currentTick, nowTick);
+                startTicking();
+            }
+            timeout.deadline = nowTick + Math.min(Math.max(ticks, 1), MAX_TICKS);
+            add(timeout);
+            pendingCount++;
+        }
+        return timeout;
+    }
+
+    /**
+     * Returns the number of timeouts scheduled and not yet expired or cancelled.
+     */
+    public synchronized int getPendingCount() {
+        return pendingCount;
+    }
+
+    /**
+     * Cancels all the pending timeouts and stops ticking.
+     */
+    public synchronized void clear() {
+        for (Bucket[] level : levels) {
+            for (Bucket b : level) {
+                for (Timeout t = b.head; t != null; t = t.next) {
+                    t.bucket = null;
+                    t.cancelled = true;
+                }
+                b.head = b.tail = null;
+            }
+        }
+        pendingCount = 0;
+        stopTicking();
+    }
+
+    private void startTicking() {
+        if (executor != null && tickFuture == null) {
+            long tickMillis = TimeUnit.NANOSECONDS.toMillis(tickNanos);
+            tickFuture = executor.scheduleAtFixedRate(this::tick, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void stopTicking() {
+        if (tickFuture != null) {
+            tickFuture.cancel(false);
+            tickFuture = null;
+        }
+    }
+
+    private long nowTick() {
+        return (nanoClock.getAsLong() - origin) / tickNanos;
+    }
+
+    /**
+     * Advances the wheel up to the current time and runs the expired tasks.
+     */
+    void tick() {
+        List<Timeout> expired = new ArrayList<>();
+        long nowTick = nowTick();
+        synchronized (this) {
+            while (currentTick < nowTick && pendingCount > 0) {
+                currentTick++;
+                cascade();
+                Bucket b = levels[0][(int) (currentTick & WHEEL_MASK)];
+                for (Timeout t = b.removeAll(); t != null;) {
+                    Timeout next = t.next;
+                    t.next = t.prev = null;
+                    expired.add(t);
+                    pendingCount--;
+                    t = next;
+                }
+            }
+            if (pendingCount == 0) {
+                currentTick = Math.max(currentTick, nowTick);
+                stopTicking();
+            }
+        }
+        for (Timeout t : expired) {
+            try {
+                t.task.run();
+            } catch (Exception e) {
+                log.warn("Error running timeout task {}", t.task, e);
+            }
+        }
+    }
+
+    // moves to the lower levels the content of the buckets whose digit has just been incremented
+    private void cascade() {
+        int top = 0;
+        for (int l = 1; l < NUM_LEVELS; l++) {
+            if ((currentTick & ((1L << (WHEEL_BITS * l)) - 1)) != 0) {
+                break;
+            }
+            top = l;
+        }
+        for (int l = top; l >= 1; l--) {
+            Bucket b = levels[l][(int) ((currentTick >>> (WHEEL_BITS * l)) & WHEEL_MASK)];
+            for (Timeout t = b.removeAll(); t != null;) {
+                Timeout next = t.next;
+                t.next = t.prev = null;
+                add(t);
+                t = next;
+            }
+        }
+    }
+
+    private void add(Timeout t) {
+        long deadline = Math.max(t.deadline, currentTick);
+        long diff = deadline ^ currentTick;
+        int level = 0;
+        while (level < NUM_LEVELS - 1 && (diff >>> (WHEEL_BITS * (level + 1))) != 0) {
+            level++;
+        }
+        levels[level][(int) ((deadline >>> (WHEEL_BITS * level)) & WHEEL_MASK)].add(t);
+    }
+
+    private synchronized boolean cancel(Timeout t) {
+        if (t.bucket == null) {
+            return false;
+        }
+        t.bucket.remove(t);
+        t.cancelled = true;
+        pendingCount--;
+        if (pendingCount == 0) {
+            stopTicking();
+        }
+        return true;
+    }
+
+    /**
+     * Handle for a task scheduled on the wheel
+     */
+    public final class Timeout {
+        final Runnable task;
+        long deadline;
+        Timeout prev, next;
+        Bucket bucket;
+        boolean cancelled;
+
+        Timeout(Runnable task) {
+            this.task = task;
+        }
+
+        /**
+         * Cancels the task if it has not yet run.
+         *
+         * @return true if the task has been cancelled, false if it has already run or it was already cancelled
+         */
+        public boolean cancel() {
+            return TimingWheel.this.cancel(this);
+        }
+
+        public boolean isCancelled() {
+            synchronized (TimingWheel.this) {
+                return cancelled;
+            }
+        }
+    }
+
+    // doubly linked list of timeouts
+    static final class Bucket {
+        Timeout head, tail;
+
+        void add(Timeout t) {
+            t.bucket = this;
+            t.prev = tail;
+            t.next = null;
+            if (tail == null) {
+                head = t;
+            } else {
+                tail.next = t;
+            }
+            tail = t;
+        }
+
+        void remove(Timeout t) {
+            if (t.prev == null) {
+                head = t.next;
+            } else {
+                t.prev.next = t.next;
+            }
+            if (t.next == null) {
+                tail = t.prev;
+            } else {
+                t.next.prev = t.prev;
+            }
+            t.prev = t.next = null;
+            t.bucket = null;
+        }
+
+        /**
+         * Empties the bucket and returns the first element of the list; the elements remain linked through
+         * {@code next}.
+         */
+        Timeout removeAll() {
+            Timeout h = head;
+            for (Timeout t = h; t != null; t = t.next) {
+                t.bucket = null;
+            }
+            head = tail = null;
+            return h;
+        }
+    }
+}
@@ -40,7 +40,20 @@ public class InternalStream extends Stream implements StreamSubscriber {
         emitTuple(tuple);
     }
 
+    @Override
+    public boolean canPause() {
+        return inner != null && inner.canPause();
+    }
 
+    @Override
+    public void pause() {
+        inner.pause();
+    }
+
+    @Override
+    public void resume() {
+        inner.resume();
+    }
 
     @Override
     public void streamClosed(Stream stream) {
@@ -129,6 +129,34 @@ public class MergeStream extends Stream implements StreamSubscriber, Runnable {
         }
     }
 
+    /**
+     * The merge stream can be paused if all its inputs can. The tuples already queued are still emitted after the
+     * inputs are paused.
+     */
+    @Override
+    public boolean canPause() {
+        for (Stream s : streams) {
+            if (!s.canPause()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public void pause() {
+        for (Stream s : streams) {
+            s.pause();
+        }
+    }
+
+    @Override
+    public void resume() {
+        for (Stream s : streams) {
+            s.resume();
+        }
+    }
+
     @Override
     protected void doClose() {
         for (Stream s : streams) {
@@ -135,4 +135,19 @@ public class SelectStream extends Stream implements StreamSubscriber {
     protected void doClose() {
         input.close();
     }
+
+    @Override
+    public boolean canPause() {
+        return input.canPause();
+    }
+
+    @Override
+    public void pause() {
+        input.pause();
+    }
+
+    @Override
+    public void resume() {
+        input.resume();
+    }
 }
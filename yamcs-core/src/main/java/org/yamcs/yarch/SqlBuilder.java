@@ -52,6 +52,14 @@ public class SqlBuilder {
         return whereColAfter(colName, instant, true);
     }
 
+    /**
+     * Adds the condition {@code colName >= instant}.
+     * <p>
+     * When the column is the first one of the table key, this condition alone lets the table walker seek directly to
+     * the instant. If several range conditions are added for the same column, the walker range is taken from the last
+     * one; a condition narrowing a previous start/stop range (for example the position of a continuation token) has
+     * to be added after it.
+     */
     public SqlBuilder whereColAfterOrEqual(String colName, long instant) {
         return whereColAfter(colName, instant, false);
     }
@@ -73,6 +81,10 @@ public class SqlBuilder {
         return whereColBefore(colName, TimeEncoding.fromProtobufTimestamp(timestamp), false);
     }
 
+    /**
+     * Adds the condition {@code colName <= instant}; see {@link #whereColAfterOrEqual(String, long)} for how it limits
+     * the range of the table walker.
+     */
     public SqlBuilder whereColBeforeOrEqual(String colName, long instant) {
         return whereColBefore(colName, instant, false);
     }
@@ -148,6 +148,37 @@ public abstract class Stream {
         return Collections.unmodifiableCollection(subscribers);
     }
 
+    /**
+     * Returns true if the emission of tuples can be suspended with {@link #pause()}.
+     * <p>
+     * This is the case for the streams reading from tables (and the streams derived from them); the streams fed from
+     * outside cannot be paused.
+     */
+    public boolean canPause() {
+        return false;
+    }
+
+    /**
+     * Asks the stream to stop emitting tuples until {@link #resume()} is called. The call does not block; the tuple
+     * being emitted (if any) is delivered to the subscribers and the stream stops before the next one.
+     * 
+     * @throws UnsupportedOperationException
+     *             if the stream cannot be paused
+     */
+    public void pause() {
+        throw new UnsupportedOperationException("Stream " + name + " cannot be paused");
+    }
+
+    /**
+     * Resumes the emission of tuples after {@link #pause()}.
+     * 
+     * @throws UnsupportedOperationException
+     *             if the stream cannot be paused
+     */
+    public void resume() {
+        throw new UnsupportedOperationException("Stream " + name + " cannot be paused");
+    }
+
     public void exceptionHandler(ExceptionHandler h) {
         this.handler = h;
     }
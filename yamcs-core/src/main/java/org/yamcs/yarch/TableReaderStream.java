@@ -1,5 +1,6 @@
 package org.yamcs.yarch;
 
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 
 /**
@@ -11,10 +12,13 @@ import java.util.concurrent.atomic.AtomicInteger;
  */
 public class TableReaderStream extends Stream implements Runnable, TableVisitor {
     static AtomicInteger count = new AtomicInteger(0);
+    // a stream paused for longer than this is closed, such that a stalled consumer does not hold the iterator forever
+    static long maxPauseMillis = 10_000;
     TableWalker tblIterator;
     
     protected TableDefinition tableDefinition;;
     Thread thread;
+    private boolean paused;
     
     public TableReaderStream(YarchDatabaseInstance ydb, TableDefinition tblDef, TableWalker iterator) {
        super(ydb, tblDef.getName() + "_" + count.getAndIncrement(),
@@ -44,10 +48,48 @@ public class TableReaderStream extends Stream implements Runnable, TableVisitor
 
     @Override
     public Action visit(byte[] key, byte[] value) {
+        if (!waitWhilePaused()) {
+            return ACTION_STOP;
+        }
         emitTuple(dataToTuple(key, value));
         return ACTION_CONTINUE;
     }
 
+    // returns false if the stream has been closed while paused or if it has been paused for too long
+    private synchronized boolean waitWhilePaused() {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(maxPauseMillis);
+        while (paused && !quitting()) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                log.warn("Closing stream {} paused for more than {} ms", getName(), maxPauseMillis);
+                return false;
+            }
+            try {
+                TimeUnit.NANOSECONDS.timedWait(this, remaining);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        return !quitting();
+    }
+
+    @Override
+    public boolean canPause() {
+        return true;
+    }
+
+    @Override
+    public synchronized void pause() {
+        paused = true;
+    }
+
+    @Override
+    public synchronized void resume() {
+        paused = false;
+        notifyAll();
+    }
+
 
     protected Tuple dataToTuple(byte[] k, byte[] v) {
         return tableDefinition.deserialize(k, v);
@@ -55,6 +97,9 @@ public class TableReaderStream extends Stream implements Runnable, TableVisitor
 
     @Override
     public void doClose() {
+        synchronized (this) {
+            notifyAll(); // wake up the reader thread if paused
+        }
         try {
             tblIterator.close();
         } catch (YarchException e) {
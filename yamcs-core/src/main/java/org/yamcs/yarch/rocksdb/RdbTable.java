@@ -5,8 +5,13 @@ import java.util.List;
 
 import org.rocksdb.RocksDBException;
 import org.yamcs.utils.DatabaseCorruptionException;
+import org.yamcs.utils.TimeEncoding;
+import org.yamcs.yarch.ColumnDefinition;
+import org.yamcs.yarch.DataType;
+import org.yamcs.yarch.PartitioningSpec;
 import org.yamcs.yarch.Table;
 import org.yamcs.yarch.TableDefinition;
+import org.yamcs.yarch.Tuple;
 import org.yamcs.yarch.YarchException;
 import org.yamcs.yarch.rocksdb.protobuf.Tablespace.TablespaceRecord;
 import org.yamcs.yarch.rocksdb.protobuf.Tablespace.TablespaceRecord.Type;
@@ -73,6 +78,32 @@ public class RdbTable extends Table {
         return indexWriter;
     }
 
+    /**
+     * get the partition where the tuple would fit (can be a partition)
+     * 
+     * @param t
+     * @return the partition where the tuple fits
+     * @throws IOException
+     *             if there was an error while creating the directories where the file should be located
+     */
+    public RdbPartition getDbPartition(Tuple t) throws IOException {
+        TableDefinition tableDefinition = getDefinition();
+        PartitioningSpec partitioningSpec = tableDefinition.getPartitioningSpec();
+        long time = TimeEncoding.INVALID_INSTANT;
+        Object value = null;
+        if (partitioningSpec.timeColumn != null) {
+            time = (Long) t.getColumn(partitioningSpec.timeColumn);
+        }
+        if (partitioningSpec.valueColumn != null) {
+            value = t.getColumn(partitioningSpec.valueColumn);
+            ColumnDefinition cd = tableDefinition.getColumnDefinition(partitioningSpec.valueColumn);
+            if (cd.getType() == DataType.ENUM) {
+                value = tableDefinition.addAndGetEnumValue(partitioningSpec.valueColumn, (String) value);
+            }
+        }
+        return (RdbPartition) partitionManager.createAndGetPartition(time, value);
+    }
+
     public RdbHistogramInfo createAndGetHistogram(long instant, String columnName) {
         return (RdbHistogramInfo) partitionManager.createAndGetHistogram(instant, columnName);
     }
@@ -13,10 +13,7 @@ import org.rocksdb.WriteOptions;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.yamcs.YamcsServer;
-import org.yamcs.utils.TimeEncoding;
 import org.yamcs.yarch.ColumnDefinition;
-import org.yamcs.yarch.DataType;
-import org.yamcs.yarch.PartitioningSpec;
 import org.yamcs.yarch.Row;
 import org.yamcs.yarch.Stream;
 import org.yamcs.yarch.TableDefinition;
@@ -47,8 +44,6 @@ import static org.yamcs.yarch.rocksdb.RdbStorageEngine.TBS_INDEX_SIZE;;
 public class RdbTableWriter extends TableWriter {
     Logger log = LoggerFactory.getLogger(this.getClass().getName());
 
-    private final RdbPartitionManager partitionManager;
-    private final PartitioningSpec partitioningSpec;
     private final RdbTable table;
 
     static final byte[] zerobytes = new byte[0];
@@ -62,8 +57,6 @@ public class RdbTableWriter extends TableWriter {
     public RdbTableWriter(YarchDatabaseInstance ydb, RdbTable table, InsertMode mode) {
         super(ydb, table, mode);
         this.tableDefinition = table.getDefinition();
-        this.partitioningSpec = tableDefinition.getPartitioningSpec();
-        this.partitionManager = table.getPartitionManager();
         this.tablespace = table.getTablespace();
         this.table = table;
 
@@ -303,19 +296,7 @@ public class RdbTableWriter extends TableWriter {
      *             the file should be located
      */
     public RdbPartition getDbPartition(Tuple t) throws IOException {
-        long time = TimeEncoding.INVALID_INSTANT;
-        Object value = null;
-        if (partitioningSpec.timeColumn != null) {
-            time = (Long) t.getColumn(partitioningSpec.timeColumn);
-        }
-        if (partitioningSpec.valueColumn != null) {
-            value = t.getColumn(partitioningSpec.valueColumn);
-            ColumnDefinition cd = tableDefinition.getColumnDefinition(partitioningSpec.valueColumn);
-            if (cd.getType() == DataType.ENUM) {
-                value = tableDefinition.addAndGetEnumValue(partitioningSpec.valueColumn, (String) value);
-            }
-        }
-        return (RdbPartition) partitionManager.createAndGetPartition(time, value);
+        return table.getDbPartition(t);
     }
 
     protected void doClose() {
@@ -8,6 +8,7 @@ import static org.yamcs.yarch.rocksdb.RdbStorageEngine.dbKey;
 import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
@@ -609,6 +610,14 @@ public class Tablespace {
                 removeTbsIndex(Type.SECONDARY_INDEX, tbsIndex);
             }
 
+            // remove the text index definition and data (if any)
+            for (TablespaceRecord tr : filter(Type.TEXT_INDEX, table.yamcsInstance,
+                    tr -> tr.getTableName().equals(tblDef.getName()))) {
+                int tbsIndex = tr.getTbsIndex();
+                log.debug("Removing text index {}", tr);
+                removeTbsIndex(Type.TEXT_INDEX, tbsIndex);
+            }
+
             // remove data from partitions
             for (Partition p : table.partitionManager.getPartitions()) {
                 RdbPartition rdbp = (RdbPartition) p;
@@ -745,7 +754,7 @@ public class Tablespace {
             }
             String oldName = tblDef.getName();
             List<TablespaceRecord> trList = getTableRecords(yamcsInstance, oldName, Type.TABLE_DEFINITION,
-                    Type.TABLE_PARTITION, Type.HISTOGRAM, Type.SECONDARY_INDEX)
+                    Type.TABLE_PARTITION, Type.HISTOGRAM, Type.SECONDARY_INDEX, Type.TEXT_INDEX)
                             .stream().map(tr -> tr.toBuilder().setTableName(newName).build())
                             .collect(Collectors.toList());
 
@@ -780,6 +789,18 @@ public class Tablespace {
         return tw;
     }
 
+    /**
+     * Creates a walker iterating through the rows of the table containing all the given terms in the text index with
+     * the given tbsIndex.
+     */
+    public TextIndexTableWalker newTextIndexTableWalker(TableDefinition tblDef, int textIndexTbsIndex,
+            Collection<String> terms, boolean ascending) {
+        TextIndexTableWalker tw = new TextIndexTableWalker(this, verifyTable(tblDef), textIndexTbsIndex, terms,
+                ascending);
+        walkers.put(tw, DUMMY);
+        return tw;
+    }
+
     private RdbTable verifyTable(TableDefinition tblDef) {
         RdbTable table = tables.get(tblDef);
 
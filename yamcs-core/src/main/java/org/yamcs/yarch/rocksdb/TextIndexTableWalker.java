@@ -0,0 +1,211 @@
+package org.yamcs.yarch.rocksdb;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collection;
+
+import org.rocksdb.ReadOptions;
+import org.rocksdb.RocksDBException;
+import org.rocksdb.RocksIterator;
+import org.yamcs.utils.ByteArrayUtils;
+import org.yamcs.yarch.DbRange;
+import org.yamcs.yarch.TableVisitor;
+import org.yamcs.yarch.TableWalker;
+import org.yamcs.yarch.YarchException;
+import org.yamcs.yarch.streamsql.StreamSqlException;
+
+import static org.yamcs.yarch.rocksdb.RdbStorageEngine.*;
+
+/**
+ * Iterates through the rows of a table containing all the given terms in a text index written by the
+ * {@link TextIndexWriter}.
+ * <p>
+ * The posting lists of the terms are sorted by the primary key so the rows containing all the terms are found by
+ * intersecting the lists: one RocksDB iterator is opened for each term and the iterators are advanced with seek
+ * operations to the largest (or smallest if descending) primary key seen so far, until all of them point to the same
+ * key. Only the rows found in the intersection are retrieved from the table.
+ * <p>
+ * The primary index range, if set, limits the part of the posting lists being read. Like for the other walkers, the
+ * range limits are compared on their length only (i.e. a key having the range end as prefix is considered inside the
+ * range).
+ */
+public class TextIndexTableWalker implements TableWalker {
+    private final RdbTable table;
+    private final Tablespace tablespace;
+    private final boolean ascending;
+
+    // the key prefix for each term
+    private final byte[][] prefixes;
+
+    DbRange pkRange;
+    boolean batchUpdates = false;
+    protected TableVisitor visitor;
+    volatile boolean running = true;
+
+    protected TextIndexTableWalker(Tablespace tablespace, RdbTable table, int tbsIndex, Collection<String> terms,
+            boolean ascending) {
+        if (terms.isEmpty()) {
+            throw new IllegalArgumentException("At least one term is required");
+        }
+        this.tablespace = tablespace;
+        this.table = table;
+        this.ascending = ascending;
+        this.prefixes = terms.stream().map(t -> TextIndexWriter.termPrefix(tbsIndex, t)).toArray(byte[][]::new);
+    }
+
+    @Override
+    public void walk(TableVisitor visitor) throws YarchException, StreamSqlException {
+        this.visitor = visitor;
+        int n = prefixes.length;
+        YRDB rdb = tablespace.getRdb();
+        RocksIterator[] iterators = new RocksIterator[n];
+
+        try (ReadOptions readOptions = new ReadOptions()) {
+            for (int i = 0; i < n; i++) {
+                iterators[i] = rdb.getDb().newIterator(readOptions);
+            }
+            byte[] target = null;
+            boolean strict = false;
+            if (pkRange != null) {
+                if (ascending) {
+                    target = pkRange.rangeStart;
+                } else if (pkRange.rangeEnd != null) {
+                    try {
+                        target = ByteArrayUtils.plusOne(pkRange.rangeEnd);
+                        strict = true;
+                    } catch (IllegalArgumentException e) {
+                        // the range end is all 0xFF, no limit
+                    }
+                }
+            }
+
+            // number of consecutive iterators agreeing on the target
+            int agree = 0;
+            int i = 0;
+            while (running) {
+                byte[] pk = seek(iterators[i], prefixes[i], target, strict);
+                if (pk == null) {
+                    break;
+                }
+                strict = false;
+                if (target != null && Arrays.equals(pk, target)) {
+                    agree++;
+                } else {
+                    target = pk;
+                    agree = 1;
+                }
+                if (agree == n) {
+                    visitRow(pk, iterators[i].value());
+                    strict = true;
+                    agree = 0;
+                }
+                i = (i + 1) % n;
+            }
+        } finally {
+            for (RocksIterator it : iterators) {
+                if (it != null) {
+                    it.close();
+                }
+            }
+        }
+    }
+
+    /**
+     * Positions the iterator on the first (or last if descending) posting of the term having the primary key greater
+     * or equal (smaller or equal if descending) to the target and returns the primary key.
+     * <p>
+     * If strict is true the posting having exactly the target key is skipped.
+     * <p>
+     * Returns null if there is no such posting inside the range.
+     */
+    private byte[] seek(RocksIterator it, byte[] prefix, byte[] target, boolean strict) {
+        byte[] seekKey;
+        if (target == null) {
+            seekKey = ascending ? prefix : ByteArrayUtils.plusOne(prefix);
+        } else {
+            seekKey = Arrays.copyOf(prefix, prefix.length + target.length);
+            System.arraycopy(target, 0, seekKey, prefix.length, target.length);
+        }
+        if (ascending) {
+            it.seek(seekKey);
+            if (strict && it.isValid() && Arrays.equals(it.key(), seekKey)) {
+                it.next();
+            }
+        } else {
+            it.seekForPrev(seekKey);
+            if ((strict || target == null) && it.isValid() && Arrays.equals(it.key(), seekKey)) {
+                it.prev();
+            }
+        }
+        if (!it.isValid()) {
+            return null;
+        }
+        byte[] key = it.key();
+        if (key.length <= prefix.length || ByteArrayUtils.compare(key, prefix) != 0) {
+            return null;
+        }
+        byte[] pk = Arrays.copyOfRange(key, prefix.length, key.length);
+        if (pkRange != null) {
+            if (ascending && pkRange.rangeEnd != null && ByteArrayUtils.compare(pk, pkRange.rangeEnd) > 0) {
+                return null;
+            }
+            if (!ascending && pkRange.rangeStart != null && ByteArrayUtils.compare(pk, pkRange.rangeStart) < 0) {
+                return null;
+            }
+        }
+        return pk;
+    }
+
+    private void visitRow(byte[] pk, byte[] postingValue) throws StreamSqlException {
+        String part = null;
+        int rowTbsIndex = tbsIndex(postingValue);
+        if (postingValue.length > TBS_INDEX_SIZE) {
+            part = new String(postingValue, TBS_INDEX_SIZE, postingValue.length - TBS_INDEX_SIZE,
+                    StandardCharsets.US_ASCII);
+        }
+        YRDB rdb = null;
+        try {
+            rdb = tablespace.getRdb(part);
+            var cfh = rdb.getColumnFamilyHandle(table.cfName());
+            if (cfh == null) {
+                return;
+            }
+            byte[] dbKey = RdbStorageEngine.dbKey(rowTbsIndex, pk);
+            byte[] rowValue = rdb.get(cfh, dbKey);
+            // the row might have been deleted in the meanwhile
+            if (rowValue != null) {
+                TableVisitor.Action action = visitor.visit(pk, rowValue);
+                RdbTableWalker.executeAction(rdb, cfh, action, dbKey);
+                if (action.stop()) {
+                    close();
+                }
+            }
+        } catch (RocksDBException e) {
+            throw new YarchException(e);
+        } finally {
+            if (rdb != null) {
+                tablespace.dispose(rdb);
+            }
+        }
+    }
+
+    @Override
+    public void setPrimaryIndexRange(DbRange pkRange) {
+        this.pkRange = pkRange;
+    }
+
+    @Override
+    public void close() {
+        running = false;
+    }
+
+    @Override
+    public boolean isBatchUpdates() {
+        return batchUpdates;
+    }
+
+    @Override
+    public void setBatchUpdates(boolean batchUpdates) {
+        this.batchUpdates = batchUpdates;
+    }
+}
@@ -0,0 +1,93 @@
+package org.yamcs.yarch.rocksdb;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+
+import org.rocksdb.RocksDBException;
+import org.rocksdb.WriteBatch;
+import org.rocksdb.WriteOptions;
+import org.yamcs.utils.ByteArray;
+import org.yamcs.yarch.Row;
+import org.yamcs.yarch.Tuple;
+import org.yamcs.yarch.YarchException;
+
+/**
+ * Writes a full-text (inverted) index for one table.
+ * <p>
+ * The index has its own tbsIndex and is stored in the main database of the tablespace. For each (term, row) there is
+ * one RocksDB record:
+ * <ul>
+ * <li>the key is composed of the tbsIndex, the UTF-8 encoded term followed by a 0 byte and the primary key of the
+ * row</li>
+ * <li>the value is the tbsIndex followed by the partition directory (if any) of the row; this is the same as for the
+ * {@link SecondaryIndexWriter}</li>
+ * </ul>
+ * Thus the rows containing one term (the posting list of the term) are sorted by the primary key. For the tables
+ * having the time as the first column of the primary key, the posting list can be read for a time interval without
+ * reading the postings outside the interval.
+ * <p>
+ * The terms are supplied by the caller; they should not contain the 0 character.
+ */
+public class TextIndexWriter {
+    final int tbsIndex;
+    final RdbTable table;
+    final Tablespace tablespace;
+
+    public TextIndexWriter(Tablespace tablespace, RdbTable table, int tbsIndex) {
+        this.tbsIndex = tbsIndex;
+        this.table = table;
+        this.tablespace = tablespace;
+    }
+
+    /**
+     * Adds to the index the terms of the row corresponding to the given tuple.
+     * <p>
+     * Adding the same terms multiple times for the same row has no effect.
+     */
+    public void addTuple(Tuple t, Collection<String> terms) {
+        if (terms.isEmpty()) {
+            return;
+        }
+        try (WriteBatch writeBatch = new WriteBatch(); WriteOptions writeOpts = new WriteOptions()) {
+            Row row = table.getDefinition().generateRow(t);
+            byte[] value = partitionValue(table.getDbPartition(t));
+            byte[] pk = row.getKey();
+            ByteArray baKey = new ByteArray();
+            for (String term : terms) {
+                baKey.reset();
+                baKey.add(termPrefix(tbsIndex, term));
+                baKey.add(pk);
+                writeBatch.put(baKey.toArray(), value);
+            }
+            tablespace.getRdb().write(writeOpts, writeBatch);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Cannot get the partition of tuple " + t + ": ", e);
+        } catch (RocksDBException e) {
+            throw new YarchException(e);
+        }
+    }
+
+    public int getTbsIndex() {
+        return tbsIndex;
+    }
+
+    /**
+     * returns the beginning of the keys of all the records corresponding to the given term
+     */
+    static byte[] termPrefix(int tbsIndex, String term) {
+        byte[] t = term.getBytes(StandardCharsets.UTF_8);
+        byte[] prefix = new byte[RdbStorageEngine.TBS_INDEX_SIZE + t.length + 1];
+        System.arraycopy(RdbStorageEngine.dbKey(tbsIndex), 0, prefix, 0, RdbStorageEngine.TBS_INDEX_SIZE);
+        System.arraycopy(t, 0, prefix, RdbStorageEngine.TBS_INDEX_SIZE, t.length);
+        return prefix;
+    }
+
+    private static byte[] partitionValue(RdbPartition partition) {
+        byte[] dir = partition.dir == null ? new byte[0] : partition.dir.getBytes(StandardCharsets.US_ASCII);
+        byte[] value = new byte[RdbStorageEngine.TBS_INDEX_SIZE + dir.length];
+        System.arraycopy(RdbStorageEngine.dbKey(partition.tbsIndex), 0, value, 0, RdbStorageEngine.TBS_INDEX_SIZE);
+        System.arraycopy(dir, 0, value, RdbStorageEngine.TBS_INDEX_SIZE, dir.length);
+        return value;
+    }
+}
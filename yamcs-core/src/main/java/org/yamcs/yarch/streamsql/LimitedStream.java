@@ -49,6 +49,21 @@ public class LimitedStream extends Stream implements StreamSubscriber {
         }
     }
 
+    @Override
+    public boolean canPause() {
+        return input.canPause();
+    }
+
+    @Override
+    public void pause() {
+        input.pause();
+    }
+
+    @Override
+    public void resume() {
+        input.resume();
+    }
+
     // Called when the input stream is closed
     @Override
     public void streamClosed(Stream stream) {
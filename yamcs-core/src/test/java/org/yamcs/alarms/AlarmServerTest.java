@@ -7,7 +7,9 @@ import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.util.ArrayList;
 import java.util.LinkedList;
+import java.util.List;
 import java.util.Queue;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.LinkedBlockingQueue;
@@ -208,6 +210,82 @@ public class AlarmServerTest {
 
     }
 
+    @Test
+    public void testBatch() {
+        MyListener l = new MyListener();
+        List<List<AlarmNotification<ParameterValue>>> batches = new ArrayList<>();
+        alarmServer.addAlarmListener(l);
+        alarmServer.addAlarmListener(new MyListener() {
+            @Override
+            public void notifyUpdates(List<AlarmNotification<ParameterValue>> notifications) {
+                batches.add(notifications);
+            }
+        });
+
+        alarmServer.beginBatch();
+        alarmServer.update(getParameterValue(p1, MonitoringResult.WARNING), 1);
+        alarmServer.update(getParameterValue(p2, MonitoringResult.WARNING), 1);
+        alarmServer.beginBatch();
+        alarmServer.update(getParameterValue(p1, MonitoringResult.WARNING), 1);
+        alarmServer.endBatch();
+        alarmServer.update(getParameterValue(p1, MonitoringResult.WARNING), 1);
+        alarmServer.update(getParameterValue(p2, MonitoringResult.CRITICAL), 1);
+        assertTrue(l.triggered.isEmpty());
+        assertTrue(batches.isEmpty());
+        alarmServer.endBatch();
+
+        assertEquals(1, batches.size());
+        List<AlarmNotification<ParameterValue>> batch = batches.get(0);
+        // the second value update of p1 is dropped
+        assertEquals(4, batch.size());
+        assertEquals(AlarmNotificationType.TRIGGERED, batch.get(0).getType());
+        assertEquals(p1, batch.get(0).getActiveAlarm().getTriggerValue().getParameter());
+        assertEquals(AlarmNotificationType.TRIGGERED, batch.get(1).getType());
+        assertEquals(AlarmNotificationType.VALUE_UPDATED, batch.get(2).getType());
+        assertEquals(AlarmNotificationType.SEVERITY_INCREASED, batch.get(3).getType());
+
+        // the default implementation dispatches to the individual methods
+        assertEquals(2, l.triggered.size());
+        assertEquals(1, l.valueUpdates.size());
+        assertEquals(1, l.severityIncreased.size());
+
+        // outside a batch the listeners are notified immediately
+        alarmServer.update(getParameterValue(p1, MonitoringResult.WARNING), 1);
+        assertEquals(2, l.valueUpdates.size());
+        assertEquals(1, batches.size());
+
+        assertThrows(IllegalStateException.class, () -> alarmServer.endBatch());
+    }
+
+    @Test
+    public void testCoalesce() {
+        List<List<AlarmNotification<ParameterValue>>> batches = new ArrayList<>();
+        alarmServer.addAlarmListener(new MyListener() {
+            @Override
+            public void notifyUpdates(List<AlarmNotification<ParameterValue>> notifications) {
+                batches.add(notifications);
+            }
+        });
+        alarmServer.update(getParameterValue(p2, MonitoringResult.WARNING), 1);
+
+        alarmServer.beginBatch();
+        alarmServer.update(getParameterValue(p1, MonitoringResult.WARNING), 1);
+        alarmServer.update(getParameterValue(p1, MonitoringResult.WARNING), 1);
+        alarmServer.update(getParameterValue(p2, MonitoringResult.WARNING), 1);
+        alarmServer.endBatch();
+
+        assertEquals(1, batches.size());
+        assertEquals(3, batches.get(0).size());
+
+        // the value update of p1 is covered by its trigger, the one of p2 is kept
+        List<AlarmNotification<ParameterValue>> coalesced = AlarmNotification.coalesce(batches.get(0));
+        assertEquals(2, coalesced.size());
+        assertEquals(AlarmNotificationType.TRIGGERED, coalesced.get(0).getType());
+        assertEquals(p1, coalesced.get(0).getActiveAlarm().getTriggerValue().getParameter());
+        assertEquals(AlarmNotificationType.VALUE_UPDATED, coalesced.get(1).getType());
+        assertEquals(p2, coalesced.get(1).getActiveAlarm().getTriggerValue().getParameter());
+    }
+
     @Test
     public void testMoreSevere() {
         assertTrue(AlarmServer.moreSevere(MonitoringResult.CRITICAL, MonitoringResult.WARNING));
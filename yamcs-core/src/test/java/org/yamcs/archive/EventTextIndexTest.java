@@ -0,0 +1,180 @@
+package org.yamcs.archive;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.yamcs.StandardTupleDefinitions;
+import org.yamcs.utils.TimeEncoding;
+import org.yamcs.yarch.Stream;
+import org.yamcs.yarch.StreamSubscriber;
+import org.yamcs.yarch.Tuple;
+import org.yamcs.yarch.YarchTestCase;
+import org.yamcs.yarch.protobuf.Db.Event;
+
+public class EventTextIndexTest extends YarchTestCase {
+    static final String[] WORDS = { "Temperature", "pressure", "valve", "OPEN", "closed", "heater", "battery",
+            "voltage", "out of limits", "a.b", "x" };
+    static AtomicInteger streamCounter = new AtomicInteger();
+
+    long t0 = TimeEncoding.parse("2024-01-30T00:00:00");
+    Stream eventStream;
+
+    void createTable() throws Exception {
+        ydb.execute("create table events(gentime timestamp, source enum, seqNum int, body PROTOBUF('"
+                + Event.class.getName() + "'), primary key(gentime, source, seqNum)) "
+                + "partition by time(gentime('YYYY/MM'))");
+        ydb.execute("create stream events_in " + StandardTupleDefinitions.EVENT.getStringDefinition());
+        ydb.execute("insert into events select * from events_in");
+        eventStream = ydb.getStream("events_in");
+    }
+
+    // emits events spread over two months (i.e. two partitions)
+    void emitEvents(int n, Random r) {
+        for (int i = 0; i < n; i++) {
+            StringBuilder sb = new StringBuilder();
+            int k = 1 + r.nextInt(4);
+            for (int j = 0; j < k; j++) {
+                sb.append(WORDS[r.nextInt(WORDS.length)]).append(" ");
+            }
+            long gentime = t0 + i * 3600_000L;
+            String source = "src" + r.nextInt(3);
+            Event ev = Event.newBuilder().setSource(source).setSeqNumber(i).setGenerationTime(gentime)
+                    .setMessage(sb.toString()).build();
+            eventStream.emitTuple(new Tuple(StandardTupleDefinitions.EVENT,
+                    Arrays.asList(gentime, source, i, ev)));
+        }
+    }
+
+    @Test
+    public void testSearch() throws Exception {
+        createTable();
+        EventTextIndex index = new EventTextIndex(instance, ydb.getTable("events"));
+        assertTrue(index.isComplete());
+        eventStream.addSubscriber(index);
+        emitEvents(2000, new Random(1));
+
+        long start = t0 + 100 * 3600_000L;
+        long stop = t0 + 1500 * 3600_000L;
+        for (String q : Arrays.asList("temp", "TEMPERATURE pres", "out of", "e o", "ERA", "a.b", "limits")) {
+            for (boolean ascending : new boolean[] { true, false }) {
+                verifySearch(index, q, TimeEncoding.INVALID_INSTANT, TimeEncoding.INVALID_INSTANT, ascending);
+                verifySearch(index, q, start, stop, ascending);
+                verifySearch(index, q, start, start, ascending);
+            }
+        }
+        assertNotNull(index.newSearchStream("nonexistent", TimeEncoding.INVALID_INSTANT,
+                TimeEncoding.INVALID_INSTANT, true));
+        assertEquals(0, search("nonexistent", TimeEncoding.INVALID_INSTANT, TimeEncoding.INVALID_INSTANT, true,
+                null).size());
+    }
+
+    @Test
+    public void testIndexExisting() throws Exception {
+        createTable();
+        emitEvents(500, new Random(2));
+
+        EventTextIndex index = new EventTextIndex(instance, ydb.getTable("events"));
+        assertFalse(index.isComplete());
+        assertNull(index.newSearchStream("temp", TimeEncoding.INVALID_INSTANT, TimeEncoding.INVALID_INSTANT, true));
+
+        eventStream.addSubscriber(index);
+        index.startIndexing();
+        emitEvents(10, new Random(3));
+        for (int i = 0; i < 100 && !index.isComplete(); i++) {
+            Thread.sleep(100);
+        }
+        assertTrue(index.isComplete());
+        verifySearch(index, "valve", TimeEncoding.INVALID_INSTANT, TimeEncoding.INVALID_INSTANT, true);
+
+        // the completion is persisted
+        EventTextIndex index1 = new EventTextIndex(instance, ydb.getTable("events"));
+        assertTrue(index1.isComplete());
+    }
+
+    @Test
+    public void testQueryTerms() {
+        assertNull(EventTextIndex.queryTerms("ab"));
+        assertNull(EventTextIndex.queryTerms("a%b"));
+        assertNull(EventTextIndex.queryTerms("a?bc"));
+        assertNull(EventTextIndex.queryTerms("(abc)"));
+        assertEquals(Arrays.asList("abc"), EventTextIndex.queryTerms("ABC"));
+        assertEquals(Arrays.asList("bcd", "abc"), EventTextIndex.queryTerms("abcd"));
+        assertEquals(Arrays.asList("a.b"), EventTextIndex.queryTerms("a.b"));
+        assertEquals(EventTextIndex.MAX_QUERY_TERMS, EventTextIndex.queryTerms("x".repeat(3) + "abcdefghijklmnopqrstuvwxyz"
+                .repeat(2)).size());
+    }
+
+    @Test
+    public void testTermsLocaleIndependent() {
+        Locale defaultLocale = Locale.getDefault();
+        try {
+            Locale.setDefault(Locale.forLanguageTag("tr-TR"));
+            // In Turkish, "I" lowercases to a dotless i
+            assertEquals(Arrays.asList("ind", "nde", "dex"), new ArrayList<>(EventTextIndex.terms("INDEX")));
+            assertEquals(Arrays.asList("dex", "ind"), EventTextIndex.queryTerms("INDEX"));
+        } finally {
+            Locale.setDefault(defaultLocale);
+        }
+    }
+
+    private void verifySearch(EventTextIndex index, String q, long start, long stop, boolean ascending)
+            throws Exception {
+        List<Integer> expected = search(q, start, stop, ascending, null);
+        Stream s = index.newSearchStream(q, start, stop, ascending);
+        assertNotNull(s);
+        List<Integer> actual = search(q, start, stop, ascending, s.getName());
+        assertEquals(expected, actual, "q: " + q);
+    }
+
+    // returns the sequence numbers of the events found, selecting from the table or from the given stream
+    private List<Integer> search(String q, long start, long stop, boolean ascending, String source)
+            throws Exception {
+        List<Object> args = new ArrayList<>();
+        StringBuilder sql = new StringBuilder("select * from ");
+        sql.append(source == null ? "events" : source).append(" where body.message like ?");
+        args.add("%" + q + "%");
+        if (start != TimeEncoding.INVALID_INSTANT) {
+            sql.append(" and gentime >= ?");
+            args.add(start);
+        }
+        if (stop != TimeEncoding.INVALID_INSTANT) {
+            sql.append(" and gentime < ?");
+            args.add(stop);
+        }
+        sql.append(ascending ? " order asc" : " order desc");
+
+        String streamName = "search" + streamCounter.incrementAndGet();
+        ydb.execute("create stream " + streamName + " as " + sql, args.toArray());
+        List<Integer> result = Collections.synchronizedList(new ArrayList<>());
+        CompletableFuture<Void> cf = new CompletableFuture<>();
+        Stream stream = ydb.getStream(streamName);
+        stream.addSubscriber(new StreamSubscriber() {
+            @Override
+            public void onTuple(Stream s, Tuple tuple) {
+                result.add((Integer) tuple.getColumn("seqNum"));
+            }
+
+            @Override
+            public void streamClosed(Stream s) {
+                cf.complete(null);
+            }
+        });
+        stream.start();
+        cf.get(10, TimeUnit.SECONDS);
+        return result;
+    }
+}
@@ -0,0 +1,128 @@
+package org.yamcs.cmdhistory;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.yamcs.cmdhistory.CommandHistoryPublisher.AcknowledgeQueued_KEY;
+import static org.yamcs.cmdhistory.CommandHistoryPublisher.AcknowledgeReleased_KEY;
+import static org.yamcs.cmdhistory.CommandHistoryPublisher.CommandComplete_KEY;
+import static org.yamcs.cmdhistory.CommandHistoryPublisher.SUFFIX_STATUS;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.yamcs.StandardTupleDefinitions;
+import org.yamcs.cmdhistory.CommandHistoryPublisher.AckStatus;
+import org.yamcs.commanding.PreparedCommand;
+import org.yamcs.protobuf.Commanding.CommandId;
+import org.yamcs.yarch.DataType;
+import org.yamcs.yarch.Stream;
+import org.yamcs.yarch.StreamSubscriber;
+import org.yamcs.yarch.Tuple;
+import org.yamcs.yarch.YarchTestCase;
+
+public class CommandHistoryCoalescerTest extends YarchTestCase {
+    Stream stream;
+    List<Tuple> tuples = Collections.synchronizedList(new ArrayList<>());
+    ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1);
+
+    @BeforeEach
+    public void createStream() throws Exception {
+        ydb.execute("create stream " + StreamCommandHistoryPublisher.REALTIME_CMDHIST_STREAM_NAME
+                + StandardTupleDefinitions.TC.getStringDefinition());
+        stream = ydb.getStream(StreamCommandHistoryPublisher.REALTIME_CMDHIST_STREAM_NAME);
+        stream.addSubscriber(new StreamSubscriber() {
+            @Override
+            public void onTuple(Stream s, Tuple tuple) {
+                tuples.add(tuple);
+            }
+        });
+    }
+
+    @AfterEach
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testMerge() {
+        // the window is long enough for the flush to be triggered only by the test
+        CommandHistoryCoalescer coalescer = new CommandHistoryCoalescer(stream, executor, 60_000);
+        CommandId id1 = commandId(1);
+        CommandId id2 = commandId(2);
+
+        coalescer.emit(id1, new PreparedCommand(id1).toTuple());
+        assertEquals(1, tuples.size());
+
+        update(coalescer, id1, "a", 1, false);
+        update(coalescer, id2, "a", 10, false);
+        update(coalescer, id1, "b", 2, false);
+        assertEquals(1, tuples.size());
+        assertEquals(2, coalescer.getPendingCount());
+
+        // the same attribute again: the previous values are emitted first
+        update(coalescer, id1, "a", 3, false);
+        assertEquals(2, tuples.size());
+        Tuple t = tuples.get(1);
+        assertEquals(Integer.valueOf(1), t.getColumn("a"));
+        assertEquals(Integer.valueOf(2), t.getColumn("b"));
+
+        // the final update is emitted with the pending ones of the same command
+        update(coalescer, id1, "c", 4, true);
+        assertEquals(3, tuples.size());
+        t = tuples.get(2);
+        assertEquals(Integer.valueOf(3), t.getColumn("a"));
+        assertEquals(Integer.valueOf(4), t.getColumn("c"));
+        assertFalse(t.hasColumn("b"));
+        assertEquals(1, coalescer.getPendingCount());
+
+        coalescer.flush();
+        assertEquals(4, tuples.size());
+        Tuple last = tuples.get(3);
+        assertEquals(id2.getCommandName(), last.getColumn(StandardTupleDefinitions.CMDHIST_TUPLE_COL_CMDNAME));
+        assertEquals(Integer.valueOf(10), last.getColumn("a"));
+        assertEquals(0, coalescer.getPendingCount());
+    }
+
+    @Test
+    public void testPublisher() throws Exception {
+        StreamCommandHistoryPublisher publisher = new StreamCommandHistoryPublisher(instance);
+        CommandId id = commandId(1);
+        publisher.addCommand(new PreparedCommand(id));
+        publisher.publishAck(id, AcknowledgeQueued_KEY, 1000, AckStatus.OK);
+        publisher.publishAck(id, AcknowledgeReleased_KEY, 1001, AckStatus.OK);
+        publisher.publish(id, CommandHistoryPublisher.Queue_KEY, "default");
+        publisher.publishAck(id, CommandComplete_KEY, 1002, AckStatus.PENDING);
+        publisher.publishAck(id, CommandComplete_KEY, 1003, AckStatus.OK);
+
+        assertEquals(3, tuples.size());
+        Tuple t = tuples.get(1);
+        assertEquals("OK", t.getColumn(AcknowledgeQueued_KEY + SUFFIX_STATUS));
+        assertEquals("OK", t.getColumn(AcknowledgeReleased_KEY + SUFFIX_STATUS));
+        assertEquals("default", t.getColumn(CommandHistoryPublisher.Queue_KEY));
+        assertEquals("PENDING", t.getColumn(CommandComplete_KEY + SUFFIX_STATUS));
+        assertEquals("OK", tuples.get(2).getColumn(CommandComplete_KEY + SUFFIX_STATUS));
+
+        // non final updates are emitted after the window
+        publisher.publish(id, "x", 5);
+        Thread.sleep(10 * CommandHistoryCoalescer.DEFAULT_WINDOW_MILLIS);
+        assertEquals(4, tuples.size());
+        assertTrue(tuples.get(3).hasColumn("x"));
+    }
+
+    private static void update(CommandHistoryCoalescer coalescer, CommandId id, String column, int value,
+            boolean flush) {
+        coalescer.update(id, Arrays.asList(column), Arrays.asList(DataType.INT), Arrays.asList(value), flush);
+    }
+
+    private static CommandId commandId(int seq) {
+        return CommandId.newBuilder().setOrigin("test").setCommandName("/test/cmd" + seq)
+                .setGenerationTime(1000).setSequenceNumber(seq).build();
+    }
+}
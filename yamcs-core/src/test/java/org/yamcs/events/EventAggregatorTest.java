@@ -0,0 +1,140 @@
+package org.yamcs.events;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.yamcs.StandardTupleDefinitions;
+import org.yamcs.YConfiguration;
+import org.yamcs.archive.EventRecorder;
+import org.yamcs.utils.TimeEncoding;
+import org.yamcs.yarch.Stream;
+import org.yamcs.yarch.StreamSubscriber;
+import org.yamcs.yarch.Tuple;
+import org.yamcs.yarch.YarchTestCase;
+import org.yamcs.yarch.protobuf.Db.Event;
+
+public class EventAggregatorTest extends YarchTestCase {
+    EventAggregator aggregator;
+    StreamEventProducer producer;
+    List<Event> received = new ArrayList<>();
+
+    @BeforeEach
+    public void setupAggregator() throws Exception {
+        ydb.execute("create stream " + EventRecorder.REALTIME_EVENT_STREAM_NAME + " "
+                + StandardTupleDefinitions.EVENT.getStringDefinition());
+        Stream stream = ydb.getStream(EventRecorder.REALTIME_EVENT_STREAM_NAME);
+        stream.addSubscriber(new StreamSubscriber() {
+            @Override
+            public void onTuple(Stream s, Tuple tuple) {
+                received.add((Event) tuple.getColumn("body"));
+            }
+        });
+
+        aggregator = new EventAggregator();
+        // the window is long enough such that the flush is only called from the test
+        YConfiguration config = aggregator.getSpec().validate(YConfiguration.wrap(Map.of(
+                "window", 3600_000, "threshold", 4, "minThreshold", 2)));
+        aggregator.init(instance, "aggregator", config);
+        aggregator.startAsync().awaitRunning();
+
+        producer = new StreamEventProducer(instance);
+        producer.setSource("test-source");
+        producer.setAggregator(aggregator);
+    }
+
+    @AfterEach
+    public void stopAggregator() {
+        aggregator.stopAsync().awaitTerminated();
+    }
+
+    @Test
+    public void testStorm() {
+        for (int i = 0; i < 10; i++) {
+            producer.sendInfo("a-type", "temperature " + i + " out of limits");
+        }
+        producer.sendInfo("b-type", "temperature 3 out of limits");
+        assertEquals(5, received.size());
+
+        aggregator.flush();
+        assertEquals(6, received.size());
+        Event summary = received.get(5);
+        assertEquals("Repeated 6 times: temperature 9 out of limits", summary.getMessage());
+        assertEquals("6", summary.getExtraOrThrow("count"));
+        assertEquals(TimeEncoding.toString(summary.getGenerationTime()), summary.getExtraOrThrow("lastTime"));
+        assertTrue(summary.containsExtra("firstTime"));
+        assertEquals(9, summary.getSeqNumber());
+        assertEquals(6, aggregator.getSuppressedCount());
+        assertEquals(1, aggregator.getSummaryCount());
+        assertEquals(1, aggregator.getStormCount());
+
+        // the threshold is halved in the second window
+        received.clear();
+        for (int i = 0; i < 10; i++) {
+            producer.sendInfo("a-type", "temperature " + i + " out of limits");
+        }
+        assertEquals(2, received.size());
+        aggregator.flush();
+        assertEquals(3, received.size());
+        assertEquals("8", received.get(2).getExtraOrThrow("count"));
+
+        // and does not go below the minimum
+        received.clear();
+        for (int i = 0; i < 10; i++) {
+            producer.sendInfo("a-type", "temperature " + i + " out of limits");
+        }
+        assertEquals(2, received.size());
+
+        // restored after a window without storm
+        aggregator.flush();
+        received.clear();
+        producer.sendInfo("a-type", "temperature 1 out of limits");
+        aggregator.flush();
+        assertEquals(0, aggregator.getStormCount());
+        for (int i = 0; i < 10; i++) {
+            producer.sendInfo("a-type", "temperature " + i + " out of limits");
+        }
+        assertEquals(1 + 4, received.size());
+    }
+
+    @Test
+    public void testSingleSuppressed() {
+        for (int i = 0; i < 5; i++) {
+            producer.sendWarning("a-type", "msg");
+        }
+        assertEquals(4, received.size());
+        aggregator.flush();
+        // one suppressed event is emitted as it is
+        assertEquals(5, received.size());
+        assertEquals("msg", received.get(4).getMessage());
+        assertEquals(4, received.get(4).getSeqNumber());
+    }
+
+    @Test
+    public void testFlushOnStop() {
+        for (int i = 0; i < 10; i++) {
+            producer.sendInfo("a-type", "msg");
+        }
+        aggregator.stopAsync().awaitTerminated();
+        assertEquals(5, received.size());
+
+        // not aggregated anymore
+        for (int i = 0; i < 10; i++) {
+            producer.sendInfo("a-type", "msg");
+        }
+        assertEquals(15, received.size());
+    }
+
+    @Test
+    public void testMessageTemplate() {
+        assertEquals("abc", EventAggregator.messageTemplate("abc"));
+        assertEquals("# out of # at #.#", EventAggregator.messageTemplate("12 out of 3 at 0.25"));
+        assertEquals("t#", EventAggregator.messageTemplate("t0"));
+    }
+}
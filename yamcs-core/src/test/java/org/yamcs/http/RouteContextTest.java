@@ -0,0 +1,22 @@
+package org.yamcs.http;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+public class RouteContextTest {
+
+    @Test
+    public void testEntityTagMatches() {
+        String tag = "W/\"abc-1\"";
+        assertTrue(RouteContext.entityTagMatches("W/\"abc-1\"", tag));
+        assertTrue(RouteContext.entityTagMatches("\"abc-1\"", tag));
+        assertTrue(RouteContext.entityTagMatches("\"xyz\", W/\"abc-1\"", tag));
+        assertTrue(RouteContext.entityTagMatches("*", tag));
+
+        assertFalse(RouteContext.entityTagMatches("W/\"abc-2\"", tag));
+        assertFalse(RouteContext.entityTagMatches("\"abc\"", tag));
+        assertFalse(RouteContext.entityTagMatches("", tag));
+    }
+}
@@ -0,0 +1,70 @@
+package org.yamcs.http;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.Test;
+import org.yamcs.protobuf.Event;
+import org.yamcs.protobuf.ServerMessage;
+
+import com.google.protobuf.Any;
+import com.google.protobuf.TypeRegistry;
+import com.google.protobuf.util.JsonFormat;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+
+public class SharedPayloadTest {
+
+    @Test
+    public void testShared() {
+        Event event = Event.newBuilder().setSource("test").setMessage("hello").build();
+        SharedPayload p1 = SharedPayload.get("events", event);
+        assertSame(p1, SharedPayload.get("events", event));
+        assertNotSame(p1, SharedPayload.get("alarms", event));
+        assertNotSame(p1, SharedPayload.get("events", event.toBuilder().build()));
+    }
+
+    @Test
+    public void testProtobuf() throws Exception {
+        Event event = Event.newBuilder().setSource("test").setMessage("hello").build();
+        SharedPayload payload = SharedPayload.get("events", event);
+
+        for (int seq = 0; seq < 300; seq += 150) {
+            ByteBuf buf = payload.toProtobuf(3, seq);
+            ServerMessage msg = ServerMessage.parseFrom(ByteBufUtil.getBytes(buf));
+            assertEquals(serverMessage(event, 3, seq), msg);
+        }
+    }
+
+    @Test
+    public void testJson() throws Exception {
+        TypeRegistry registry = TypeRegistry.newBuilder().add(Event.getDescriptor()).build();
+        JsonFormat.Printer printer = JsonFormat.printer().usingTypeRegistry(registry);
+        JsonFormat.Parser parser = JsonFormat.parser().usingTypeRegistry(registry);
+
+        Event event = Event.newBuilder().setSource("test").setMessage("héllo \"world\"").build();
+        SharedPayload payload = SharedPayload.get("events", event);
+
+        for (int seq = 0; seq < 300; seq += 150) {
+            ByteBuf buf = payload.toJson(printer, 3, seq);
+            ServerMessage.Builder msgb = ServerMessage.newBuilder();
+            parser.merge(buf.toString(StandardCharsets.UTF_8), msgb);
+            assertEquals(serverMessage(event, 3, seq), msgb.build());
+            assertEquals(printer.print(serverMessage(event, 3, seq)).replaceAll("\\s", ""),
+                    buf.toString(StandardCharsets.UTF_8).replaceAll("\\s", ""));
+        }
+    }
+
+    private static ServerMessage serverMessage(Event event, int call, int seq) {
+        return ServerMessage.newBuilder()
+                .setType("events")
+                .setCall(call)
+                .setSeq(seq)
+                .setData(Any.pack(event, HttpServer.TYPE_URL_PREFIX))
+                .build();
+    }
+}
@@ -0,0 +1,35 @@
+package org.yamcs.http;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+public class StaticFileHandlerTest {
+
+    @Test
+    public void testAcceptsEncoding() {
+        assertTrue(StaticFileHandler.acceptsEncoding("gzip, deflate, br", "gzip"));
+        assertTrue(StaticFileHandler.acceptsEncoding("gzip, deflate, br", "br"));
+        assertTrue(StaticFileHandler.acceptsEncoding("GZIP;q=0.5", "gzip"));
+        assertTrue(StaticFileHandler.acceptsEncoding("*", "br"));
+
+        assertFalse(StaticFileHandler.acceptsEncoding(null, "gzip"));
+        assertFalse(StaticFileHandler.acceptsEncoding("deflate", "gzip"));
+        assertFalse(StaticFileHandler.acceptsEncoding("gzip;q=0, br", "gzip"));
+        assertFalse(StaticFileHandler.acceptsEncoding("x-gzip", "gzip"));
+    }
+
+    @Test
+    public void testIsCompressible() {
+        assertTrue(StaticFileHandler.isCompressible("text/css"));
+        assertTrue(StaticFileHandler.isCompressible("text/javascript"));
+        assertTrue(StaticFileHandler.isCompressible("application/json"));
+        assertTrue(StaticFileHandler.isCompressible("application/manifest+json"));
+        assertTrue(StaticFileHandler.isCompressible("image/svg+xml"));
+
+        assertFalse(StaticFileHandler.isCompressible(null));
+        assertFalse(StaticFileHandler.isCompressible("image/png"));
+        assertFalse(StaticFileHandler.isCompressible("application/octet-stream"));
+    }
+}
@@ -0,0 +1,76 @@
+package org.yamcs.http.api;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.yamcs.YConfiguration;
+import org.yamcs.http.api.XtceToGpbAssembler.DetailLevel;
+import org.yamcs.mdb.Mdb;
+import org.yamcs.mdb.MdbFactory;
+import org.yamcs.protobuf.Mdb.ListParametersRequest;
+import org.yamcs.protobuf.Mdb.ListParametersResponse;
+import org.yamcs.protobuf.Mdb.ParameterInfo;
+import org.yamcs.xtce.Parameter;
+
+public class MdbResponseCacheTest {
+
+    private Mdb mdb;
+
+    @BeforeEach
+    public void setup() {
+        YConfiguration.setupTest("refmdb");
+        MdbFactory.reset();
+        mdb = MdbFactory.getInstance("refmdb");
+        MdbResponseCache.invalidate("refmdb");
+    }
+
+    @Test
+    public void testFragments() {
+        MdbResponseCache cache = MdbResponseCache.get("refmdb", mdb);
+        Parameter p = mdb.getParameter("/REFMDB/SUBSYS1/FloatPara1_1_2");
+
+        ParameterInfo pinfo = cache.toParameterInfo(p, DetailLevel.FULL);
+        assertEquals(XtceToGpbAssembler.toParameterInfo(p, DetailLevel.FULL), pinfo);
+        assertSame(pinfo, cache.toParameterInfo(p, DetailLevel.FULL));
+        assertNotEquals(pinfo, cache.toParameterInfo(p, DetailLevel.LINK));
+    }
+
+    @Test
+    public void testResponses() {
+        MdbResponseCache cache = MdbResponseCache.get("refmdb", mdb);
+        ListParametersRequest request = ListParametersRequest.newBuilder()
+                .setInstance("refmdb")
+                .setQ("para")
+                .build();
+        assertNull(cache.getResponse(request));
+
+        ListParametersResponse response = ListParametersResponse.newBuilder().setTotalSize(3).build();
+        cache.putResponse(request, response);
+        assertSame(response, cache.getResponse(request.toBuilder().build()));
+        assertNull(cache.getResponse(request.toBuilder().setQ("para2").build()));
+    }
+
+    @Test
+    public void testInvalidateOnModification() {
+        MdbResponseCache cache = MdbResponseCache.get("refmdb", mdb);
+        assertSame(cache, MdbResponseCache.get("refmdb", mdb));
+
+        Parameter p = mdb.getParameter("/REFMDB/SUBSYS1/FloatPara1_1_2");
+        mdb.createSystemParameter("/yamcs/test/cache_test", p.getParameterType(), "test");
+
+        MdbResponseCache cache2 = MdbResponseCache.get("refmdb", mdb);
+        assertNotEquals(cache.getEntityTag(), cache2.getEntityTag());
+        assertSame(cache2, MdbResponseCache.get("refmdb", mdb));
+    }
+
+    @Test
+    public void testExplicitInvalidate() {
+        MdbResponseCache cache = MdbResponseCache.get("refmdb", mdb);
+        MdbResponseCache.invalidate("refmdb");
+        assertNotEquals(cache.getEntityTag(), MdbResponseCache.get("refmdb", mdb).getEntityTag());
+    }
+}
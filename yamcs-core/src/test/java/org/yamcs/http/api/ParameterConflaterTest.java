@@ -0,0 +1,106 @@
+package org.yamcs.http.api;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.yamcs.parameter.ParameterValue;
+import org.yamcs.parameter.ParameterValueWithId;
+import org.yamcs.protobuf.Pvalue.MonitoringResult;
+import org.yamcs.protobuf.Yamcs.NamedObjectId;
+import org.yamcs.utils.ValueUtility;
+
+public class ParameterConflaterTest {
+    ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1);
+    List<List<ParameterValueWithId>> sent = new ArrayList<>();
+
+    @AfterEach
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testLatestValueWins() throws Exception {
+        ParameterConflater conflater = new ParameterConflater(200, true, executor, this::send);
+
+        // the first update is sent immediately
+        conflater.update(Arrays.asList(pv("/a", 1)));
+        assertEquals(1, sentCount());
+
+        ParameterValueWithId b1 = pv("/b", 1);
+        ParameterValueWithId a2 = pv("/a", 2);
+        ParameterValueWithId a3 = pv("/a", 3);
+        conflater.update(Arrays.asList(b1, a2));
+        conflater.update(Arrays.asList(a3));
+        assertEquals(1, sentCount());
+        assertEquals(2, conflater.getPendingCount());
+
+        Thread.sleep(400);
+        assertEquals(2, sentCount());
+        List<ParameterValueWithId> values = sent.get(1);
+        assertEquals(2, values.size());
+        assertSame(b1, values.get(0));
+        assertSame(a3, values.get(1));
+        assertEquals(0, conflater.getPendingCount());
+    }
+
+    @Test
+    public void testStatusChange() {
+        ParameterConflater conflater = new ParameterConflater(60_000, true, executor, this::send);
+        conflater.update(Arrays.asList(pv("/a", 1)));
+        conflater.update(Arrays.asList(pv("/b", 1)));
+        assertEquals(1, sentCount());
+
+        ParameterValueWithId a2 = pv("/a", 2);
+        a2.getParameterValue().setMonitoringResult(MonitoringResult.CRITICAL);
+        conflater.update(Arrays.asList(a2));
+        assertEquals(2, sentCount());
+        assertEquals(2, sent.get(1).size());
+
+        // the same status again is conflated
+        ParameterValueWithId a3 = pv("/a", 3);
+        a3.getParameterValue().setMonitoringResult(MonitoringResult.CRITICAL);
+        conflater.update(Arrays.asList(a3));
+        assertEquals(2, sentCount());
+
+        conflater.flush();
+        assertEquals(3, sentCount());
+        conflater.update(Arrays.asList(pv("/a", 4)));
+        conflater.close();
+        assertEquals(4, sentCount());
+        conflater.update(Arrays.asList(pv("/a", 5)));
+        assertEquals(0, conflater.getPendingCount());
+    }
+
+    @Test
+    public void testStatusChangeConflated() {
+        ParameterConflater conflater = new ParameterConflater(60_000, false, executor, this::send);
+        conflater.update(Arrays.asList(pv("/a", 1)));
+        ParameterValueWithId a2 = pv("/a", 2);
+        a2.getParameterValue().setMonitoringResult(MonitoringResult.CRITICAL);
+        conflater.update(Arrays.asList(a2));
+        assertEquals(1, sentCount());
+        conflater.close();
+        assertEquals(1, sentCount());
+    }
+
+    private synchronized void send(List<ParameterValueWithId> values) {
+        sent.add(values);
+    }
+
+    private synchronized int sentCount() {
+        return sent.size();
+    }
+
+    private static ParameterValueWithId pv(String name, int value) {
+        ParameterValue pv = new ParameterValue(name);
+        pv.setEngValue(ValueUtility.getSint32Value(value));
+        return new ParameterValueWithId(pv, NamedObjectId.newBuilder().setName(name).build());
+    }
+}
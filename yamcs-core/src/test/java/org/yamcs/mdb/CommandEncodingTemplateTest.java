@@ -0,0 +1,147 @@
+package org.yamcs.mdb;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.yamcs.ProcessorConfig;
+import org.yamcs.YConfiguration;
+import org.yamcs.commanding.ArgumentValue;
+import org.yamcs.mdb.MetaCommandProcessor.CommandBuildResult;
+import org.yamcs.utils.StringConverter;
+import org.yamcs.xtce.AbsoluteTimeArgumentType;
+import org.yamcs.xtce.Argument;
+import org.yamcs.xtce.ArgumentType;
+import org.yamcs.xtce.BinaryArgumentType;
+import org.yamcs.xtce.BooleanArgumentType;
+import org.yamcs.xtce.EnumeratedArgumentType;
+import org.yamcs.xtce.FloatArgumentType;
+import org.yamcs.xtce.IntegerArgumentType;
+import org.yamcs.xtce.MetaCommand;
+import org.yamcs.xtce.StringArgumentType;
+
+/**
+ * Checks that the commands encoded with the precompiled templates are identical to those encoded by walking the
+ * containers.
+ */
+public class CommandEncodingTemplateTest {
+
+    @BeforeAll
+    public static void beforeClass() {
+        YConfiguration.setupTest(null);
+    }
+
+    @Test
+    public void testSameEncoding() throws Exception {
+        int compiled = 0;
+        for (String config : new String[] { "refmdb", "refxtce", "ccsds-green-book", "VariableBinaryTest",
+                "ArrayArgCommandTest", "EnumArgCommandTest", "xtce-strings-cmd", "xtce-booleans" }) {
+            Mdb mdb = MdbFactory.createInstanceByConfig(config);
+            ProcessorData pdata = new ProcessorData("test", mdb, new ProcessorConfig());
+            for (MetaCommand mc : mdb.getMetaCommands()) {
+                if (mc.isAbstract()) {
+                    continue;
+                }
+                if (pdata.getCommandEncodingTemplate(mc) != null) {
+                    compiled++;
+                }
+                Map<String, Object> args = sampleArguments(mc);
+                for (int k = 0; k < 2; k++) {
+                    // the second time the template is reused
+                    compare(pdata, mc, args);
+                }
+            }
+        }
+        assertTrue(compiled > 10);
+    }
+
+    @Test
+    public void testFallback() throws Exception {
+        Mdb mdb = MdbFactory.createInstanceByConfig("refmdb");
+        ProcessorData pdata = new ProcessorData("test", mdb, new ProcessorConfig());
+
+        MetaCommand mc = mdb.getMetaCommand("/REFMDB/SUBSYS1/INT_ARG_TC_ABS");
+        assertNotNull(pdata.getCommandEncodingTemplate(mc));
+        byte[] b = MetaCommandProcessor.buildCommand(pdata, mc, new HashMap<>()).getCmdPacket();
+        assertEquals("ABCD901408081808", StringConverter.arrayToHexString(b));
+
+        // the size of the string argument depends on its value
+        mc = mdb.getMetaCommand("/REFMDB/SUBSYS1/STRING_ARG_TC");
+        assertNull(pdata.getCommandEncodingTemplate(mc));
+    }
+
+    private void compare(ProcessorData pdata, MetaCommand mc, Map<String, Object> args) {
+        CommandBuildResult expected = null;
+        Exception expectedException = null;
+        try {
+            expected = MetaCommandProcessor.buildCommand(pdata, mc, args, false);
+        } catch (Exception e) {
+            expectedException = e;
+        }
+        CommandBuildResult result = null;
+        Exception exception = null;
+        try {
+            result = MetaCommandProcessor.buildCommand(pdata, mc, args, true);
+        } catch (Exception e) {
+            exception = e;
+        }
+        String name = mc.getQualifiedName();
+        if (expectedException != null) {
+            assertNotNull(exception, name);
+            assertEquals(expectedException.getClass(), exception.getClass(), name);
+            assertEquals(expectedException.getMessage(), exception.getMessage(), name);
+            return;
+        }
+        assertNull(exception, name);
+        assertArrayEquals(expected.getCmdPacket(), result.getCmdPacket(), name);
+        assertEquals(expected.getArgs().size(), result.getArgs().size(), name);
+        for (Map.Entry<Argument, ArgumentValue> entry : expected.getArgs().entrySet()) {
+            ArgumentValue av = result.getArgs().get(entry.getKey());
+            // the aggregate values do not implement equals
+            assertEquals(String.valueOf(entry.getValue().getEngValue()), String.valueOf(av.getEngValue()), name);
+            assertEquals(String.valueOf(entry.getValue().getRawValue()), String.valueOf(av.getRawValue()), name);
+        }
+    }
+
+    private static Map<String, Object> sampleArguments(MetaCommand mc) {
+        Map<String, Object> args = new HashMap<>();
+        for (Argument arg : mc.getEffectiveArgumentList()) {
+            if (arg.getInitialValue() != null || mc.getEffectiveArgumentAssignmentList().stream()
+                    .anyMatch(aa -> aa.getArgumentName().equals(arg.getName()))) {
+                continue;
+            }
+            Object v = sampleValue(arg.getArgumentType());
+            if (v != null) {
+                args.put(arg.getName(), v);
+            }
+        }
+        return args;
+    }
+
+    private static Object sampleValue(ArgumentType type) {
+        if (type instanceof IntegerArgumentType) {
+            return 3;
+        } else if (type instanceof FloatArgumentType) {
+            return 2.5;
+        } else if (type instanceof EnumeratedArgumentType) {
+            return ((EnumeratedArgumentType) type).getValueEnumerationList().get(0).getLabel();
+        } else if (type instanceof BooleanArgumentType) {
+            return true;
+        } else if (type instanceof StringArgumentType) {
+            return "abc";
+        } else if (type instanceof BinaryArgumentType) {
+            return new byte[] { 1, 2 };
+        } else if (type instanceof AbsoluteTimeArgumentType) {
+            return "2024-01-01T00:00:00Z";
+        } else {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package org.yamcs.mdb;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+import org.yamcs.ProcessorConfig;
+import org.yamcs.YConfiguration;
+import org.yamcs.mdb.MatchCriteriaEvaluator.MatchResult;
+import org.yamcs.parameter.ParameterValue;
+import org.yamcs.parameter.Value;
+import org.yamcs.utils.ValueUtility;
+import org.yamcs.xtce.ANDedConditions;
+import org.yamcs.xtce.Argument;
+import org.yamcs.xtce.ArgumentInstanceRef;
+import org.yamcs.xtce.BooleanParameterType;
+import org.yamcs.xtce.Comparison;
+import org.yamcs.xtce.Condition;
+import org.yamcs.xtce.DataSource;
+import org.yamcs.xtce.EnumeratedParameterType;
+import org.yamcs.xtce.FloatParameterType;
+import org.yamcs.xtce.IntegerArgumentType;
+import org.yamcs.xtce.IntegerDataEncoding;
+import org.yamcs.xtce.IntegerParameterType;
+import org.yamcs.xtce.MatchCriteria;
+import org.yamcs.xtce.ORedConditions;
+import org.yamcs.xtce.OperatorType;
+import org.yamcs.xtce.Parameter;
+import org.yamcs.xtce.ParameterInstanceRef;
+import org.yamcs.xtce.SequenceContainer;
+import org.yamcs.xtce.StringParameterType;
+
+public class MatchCriteriaCompilerTest {
+    Parameter pint = param("pint", new IntegerParameterType.Builder().setSizeInBits(32).setSigned(true).build());
+    Parameter puint = param("puint", new IntegerParameterType.Builder().setSizeInBits(64).setSigned(false).build());
+    Parameter pfloat = param("pfloat", new FloatParameterType.Builder().setSizeInBits(32).build());
+    Parameter pstring = param("pstring", new StringParameterType.Builder().build());
+    Parameter penum = param("penum", new EnumeratedParameterType.Builder()
+            .addEnumerationValue(1, "on").addEnumerationValue(2, "off")
+            .setEncoding(new IntegerDataEncoding.Builder().setSizeInBits(8)).build());
+    Parameter pbool = param("pbool", new BooleanParameterType.Builder().build());
+
+    @Test
+    public void testComparisons() {
+        for (OperatorType op : OperatorType.values()) {
+            check(new Comparison(new ParameterInstanceRef(pint), "10", op),
+                    pv(pint, ValueUtility.getSint32Value(10)), pv(pint, ValueUtility.getSint32Value(-3)),
+                    pv(pint, ValueUtility.getSint64Value(11)), pv(pint, ValueUtility.getUint32Value(10)),
+                    pv(pint, ValueUtility.getUint32Value(-1)), pv(pint, ValueUtility.getDoubleValue(10)),
+                    pv(pint, ValueUtility.getStringValue("10")));
+            check(new Comparison(new ParameterInstanceRef(puint), "1000", op),
+                    pv(puint, ValueUtility.getUint64Value(1000)), pv(puint, ValueUtility.getUint64Value(-1)));
+            check(new Comparison(new ParameterInstanceRef(pfloat), "3.14", op),
+                    pv(pfloat, ValueUtility.getFloatValue(3.14f)), pv(pfloat, ValueUtility.getDoubleValue(3.14)),
+                    pv(pfloat, ValueUtility.getDoubleValue(Double.NaN)), pv(pfloat, ValueUtility.getSint32Value(3)));
+            check(new Comparison(new ParameterInstanceRef(pstring), "abc", op),
+                    pv(pstring, ValueUtility.getStringValue("abc")), pv(pstring, ValueUtility.getStringValue("b")),
+                    pv(pstring, ValueUtility.getStringValue("")), pv(pstring, ValueUtility.getBinaryValue(new byte[2])));
+            check(new Condition(op, new ParameterInstanceRef(penum), "off"),
+                    pv(penum, ValueUtility.getEnumeratedValue(1, "on")),
+                    pv(penum, ValueUtility.getEnumeratedValue(2, "off")));
+            check(new Comparison(new ParameterInstanceRef(pbool), "True", op),
+                    pv(pbool, ValueUtility.getBooleanValue(true)), pv(pbool, ValueUtility.getBooleanValue(false)),
+                    pv(pbool, ValueUtility.getTimestampValue(0)));
+        }
+    }
+
+    @Test
+    public void testRawValue() {
+        Comparison comp = new Comparison(new ParameterInstanceRef(penum, false), "2", OperatorType.EQUALITY);
+        ParameterValue pv = pv(penum, ValueUtility.getEnumeratedValue(2, "off"));
+        pv.setRawValue(ValueUtility.getUint32Value(2));
+        check(comp, pv);
+        MatchCriteriaEvaluator evaluator = MatchCriteriaEvaluatorFactory.getCompiledEvaluator(comp);
+        assertEquals(MatchResult.OK, evaluator.evaluate(ProcessingData.createForTestTm(pv)));
+    }
+
+    @Test
+    public void testAndOr() {
+        Condition c1 = new Condition(OperatorType.LARGERTHAN, new ParameterInstanceRef(pint), "10");
+        Condition c2 = new Condition(OperatorType.EQUALITY, new ParameterInstanceRef(pstring), "abc");
+        Condition c3 = new Condition(OperatorType.EQUALITY, new ParameterInstanceRef(pbool), "True");
+
+        ANDedConditions and = new ANDedConditions();
+        and.addConditionExpression(c1);
+        and.addConditionExpression(c2);
+        ORedConditions or = new ORedConditions();
+        or.addConditionExpression(and);
+        or.addConditionExpression(c3);
+
+        ParameterValue[] pvs = { pv(pint, ValueUtility.getSint32Value(11)),
+                pv(pint, ValueUtility.getSint32Value(9)),
+                pv(pstring, ValueUtility.getStringValue("abc")),
+                pv(pstring, ValueUtility.getStringValue("x")),
+                pv(pbool, ValueUtility.getBooleanValue(true)),
+                pv(pbool, ValueUtility.getBooleanValue(false)) };
+
+        // all combinations of present/missing values
+        for (int mask = 0; mask < (1 << pvs.length); mask++) {
+            ProcessingData data = ProcessingData.createForTestTm();
+            for (int i = 0; i < pvs.length; i++) {
+                if ((mask & (1 << i)) != 0) {
+                    data.addTmParam(pvs[i]);
+                }
+            }
+            checkData(and, data);
+            checkData(or, data);
+        }
+    }
+
+    @Test
+    public void testCommandParameter() {
+        Parameter p = param("cmdp", new IntegerParameterType.Builder().setSizeInBits(32).build());
+        p.setDataSource(DataSource.COMMAND);
+        Comparison comp = new Comparison(new ParameterInstanceRef(p), "5", OperatorType.EQUALITY);
+        MatchCriteriaEvaluator evaluator = MatchCriteriaEvaluatorFactory.getCompiledEvaluator(comp);
+        assertTrue(evaluator instanceof CompiledMatchCriteriaEvaluator);
+
+        ProcessingData data = ProcessingData.createForTestCmd(pv(p, ValueUtility.getUint32Value(5)));
+        assertEquals(MatchResult.OK, evaluator.evaluate(data));
+        data = ProcessingData.createForTestCmd();
+        assertEquals(MatchResult.UNDEF, evaluator.evaluate(data));
+    }
+
+    @Test
+    public void testUnsupported() {
+        Argument arg = new Argument("arg1");
+        arg.setArgumentType(new IntegerArgumentType.Builder().setSizeInBits(32).build());
+        Comparison comp = new Comparison(new ArgumentInstanceRef(arg), "3", OperatorType.EQUALITY);
+        assertNull(MatchCriteriaCompiler.compile(MatchCriteriaEvaluatorFactory.getEvaluator(comp)));
+
+        Condition cond = new Condition(OperatorType.EQUALITY, new ParameterInstanceRef(pint),
+                new ParameterInstanceRef(pint));
+        assertNull(MatchCriteriaCompiler.compile(MatchCriteriaEvaluatorFactory.getEvaluator(cond)));
+        MatchCriteriaEvaluator evaluator = MatchCriteriaEvaluatorFactory.getCompiledEvaluator(cond);
+        assertEquals(MatchResult.OK,
+                evaluator.evaluate(ProcessingData.createForTestTm(pv(pint, ValueUtility.getSint32Value(1)))));
+    }
+
+    @Test
+    public void testCompiledOncePerMdb() {
+        YConfiguration.setupTest(null);
+        Mdb mdb = MdbFactory.createInstanceByConfig("refmdb");
+        ProcessorData pdata1 = new ProcessorData("test1", mdb, new ProcessorConfig());
+        ProcessorData pdata2 = new ProcessorData("test2", mdb, new ProcessorConfig());
+        int compiled = 0;
+        for (SequenceContainer sc : mdb.getSequenceContainers()) {
+            MatchCriteria mc = sc.getRestrictionCriteria();
+            if (mc == null) {
+                continue;
+            }
+            MatchCriteriaEvaluator evaluator = pdata1.getEvaluator(mc);
+            assertSame(evaluator, pdata2.getEvaluator(mc));
+            assertSame(evaluator, mdb.getMatchCriteriaEvaluator(mc));
+            if (evaluator instanceof CompiledMatchCriteriaEvaluator) {
+                compiled++;
+            }
+        }
+        assertTrue(compiled > 0);
+    }
+
+    private void check(MatchCriteria mc, ParameterValue... pvs) {
+        checkData(mc, ProcessingData.createForTestTm());
+        for (ParameterValue pv : pvs) {
+            checkData(mc, ProcessingData.createForTestTm(pv));
+        }
+    }
+
+    private void checkData(MatchCriteria mc, ProcessingData data) {
+        MatchCriteriaEvaluator interpreted = MatchCriteriaEvaluatorFactory.getEvaluator(mc);
+        MatchCriteriaEvaluator compiled = MatchCriteriaCompiler.compile(interpreted);
+        assertTrue(compiled instanceof CompiledMatchCriteriaEvaluator);
+        assertEquals(interpreted.toExpressionString(), compiled.toExpressionString());
+        assertEquals(interpreted.evaluate(data), compiled.evaluate(data), interpreted.toExpressionString());
+    }
+
+    static Parameter param(String name, org.yamcs.xtce.ParameterType ptype) {
+        Parameter p = new Parameter(name);
+        p.setQualifiedName("/test/" + name);
+        p.setParameterType(ptype);
+        return p;
+    }
+
+    static ParameterValue pv(Parameter p, Value v) {
+        ParameterValue pv = new ParameterValue(p);
+        pv.setEngValue(v);
+        return pv;
+    }
+}
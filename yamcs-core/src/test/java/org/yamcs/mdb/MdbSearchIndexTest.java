@@ -0,0 +1,81 @@
+package org.yamcs.mdb;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.yamcs.YConfiguration;
+import org.yamcs.http.api.NameDescriptionSearchMatcher;
+import org.yamcs.xtce.AggregateParameterType;
+import org.yamcs.xtce.ArrayParameterType;
+import org.yamcs.xtce.MetaCommand;
+import org.yamcs.xtce.Parameter;
+
+public class MdbSearchIndexTest {
+
+    private Mdb mdb;
+
+    @BeforeEach
+    public void setup() {
+        YConfiguration.setupTest("refmdb");
+        MdbFactory.reset();
+        mdb = MdbFactory.getInstance("refmdb");
+    }
+
+    @Test
+    public void testSameResultsAsScan() {
+        MdbSearchIndex<Parameter> index = mdb.getParameterSearchIndex();
+        assertEquals(mdb.getParameters().size(), index.size());
+
+        for (String q : List.of("para", "FloatPara1", "/refmdb/subsys1", "ccsds-apid", "ap ReFmDB_CC", "nomatch123",
+                "para1_1 float", "  int  ")) {
+            var matcher = new NameDescriptionSearchMatcher(q);
+            var expected = mdb.getParameters().stream()
+                    .filter(matcher::matches)
+                    .collect(Collectors.toList());
+            var actual = index.getCandidates(q).stream()
+                    .filter(matcher::matches)
+                    .collect(Collectors.toList());
+            assertEquals(expected, actual, q);
+        }
+    }
+
+    @Test
+    public void testShortTerms() {
+        MdbSearchIndex<MetaCommand> index = mdb.getMetaCommandSearchIndex();
+        assertNull(index.getCandidates("tc"));
+        assertNull(index.getCandidates("a b"));
+        assertTrue(index.getCandidates("a b xyz123").isEmpty());
+    }
+
+    @Test
+    public void testAddParameter() {
+        MdbSearchIndex<Parameter> index = mdb.getParameterSearchIndex();
+        assertTrue(index.getCandidates("search_index_test").isEmpty());
+
+        Parameter p = mdb.getParameter("/REFMDB/SUBSYS1/FloatPara1_1_2");
+        mdb.createSystemParameter("/yamcs/test/search_index_test", p.getParameterType(), "test");
+
+        index = mdb.getParameterSearchIndex();
+        List<Parameter> candidates = index.getCandidates("search_index_test");
+        assertEquals(1, candidates.size());
+        assertEquals("/yamcs/test/search_index_test", candidates.get(0).getQualifiedName());
+    }
+
+    @Test
+    public void testSelectedItems() {
+        List<Parameter> selected = mdb.getParameterSearchIndex().getSelectedItems();
+        assertFalse(selected.isEmpty());
+        for (Parameter p : mdb.getParameters()) {
+            boolean hasMembers = p.getParameterType() instanceof AggregateParameterType
+                    || p.getParameterType() instanceof ArrayParameterType;
+            assertEquals(hasMembers, selected.contains(p), p.getQualifiedName());
+        }
+    }
+}
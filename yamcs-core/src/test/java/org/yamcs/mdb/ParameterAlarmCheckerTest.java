@@ -0,0 +1,131 @@
+package org.yamcs.mdb;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.yamcs.mdb.ParameterAlarmChecker.ContextRound;
+import org.yamcs.mdb.ParameterAlarmChecker.ContextSelector;
+import org.yamcs.mdb.ParameterAlarmChecker.RangeChecker;
+import org.yamcs.parameter.ParameterValue;
+import org.yamcs.protobuf.Pvalue.MonitoringResult;
+import org.yamcs.protobuf.Pvalue.RangeCondition;
+import org.yamcs.xtce.AlarmRanges;
+import org.yamcs.xtce.Parameter;
+import org.yamcs.xtce.util.DoubleRange;
+
+public class ParameterAlarmCheckerTest {
+    Parameter p = new Parameter("p");
+
+    @Test
+    public void testRangeChecker() {
+        AlarmRanges ar = new AlarmRanges();
+        ar.addWatchRange(new DoubleRange(-10, 10, true, false));
+        ar.addWarningRange(new DoubleRange(-20, 20));
+        ar.addCriticalRange(new DoubleRange(Double.NaN, 30, false, false));
+        ar.addSevereRange(new DoubleRange(-40, Double.NaN, false, true));
+        checkAll(ar);
+
+        // the watch range is not the strictest
+        ar = new AlarmRanges();
+        ar.addWatchRange(new DoubleRange(-100, 100));
+        ar.addWarningRange(new DoubleRange(-10, 10, false, false));
+        checkAll(ar);
+
+        // same limits with different inclusiveness
+        ar = new AlarmRanges();
+        ar.addWatchRange(new DoubleRange(-10, 10, true, true));
+        ar.addDistressRange(new DoubleRange(-10, 10, false, false));
+        checkAll(ar);
+
+        checkAll(new AlarmRanges());
+    }
+
+    @Test
+    public void testContextSelector() {
+        int[] count = new int[1];
+        MatchCriteriaEvaluator nok = evaluator(MatchCriteriaEvaluator.MatchResult.NOK, count);
+        MatchCriteriaEvaluator ok = evaluator(MatchCriteriaEvaluator.MatchResult.OK, count);
+        ContextSelector selector = new ContextSelector(3, new MatchCriteriaEvaluator[] { nok, nok, ok, ok });
+        ContextSelector selector1 = new ContextSelector(0, new MatchCriteriaEvaluator[] { nok });
+
+        ContextRound round = new ContextRound();
+        int roundId = ++round.id;
+        assertEquals(2, selector.getActive(null, round, roundId));
+        assertEquals(3, count[0]);
+        // the second time the result is taken from the round
+        assertEquals(2, selector.getActive(null, round, roundId));
+        assertEquals(3, count[0]);
+        assertEquals(-1, selector1.getActive(null, round, roundId));
+        assertEquals(4, count[0]);
+
+        roundId = ++round.id;
+        assertEquals(2, selector.getActive(null, round, roundId));
+        assertEquals(7, count[0]);
+    }
+
+    private void checkAll(AlarmRanges ar) {
+        RangeChecker checker = new RangeChecker(ar);
+        Random r = new Random(1);
+        double[] special = { -100, -40, -30, -20, -10, 0, 10, 20, 30, 40, 100, Double.NaN,
+                Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY };
+        for (double v : special) {
+            check(checker, ar, v);
+        }
+        for (int i = 0; i < 1000; i++) {
+            check(checker, ar, r.nextDouble() * 120 - 60);
+        }
+    }
+
+    private void check(RangeChecker checker, AlarmRanges ar, double v) {
+        ParameterValue pv1 = new ParameterValue(p);
+        checker.check(pv1, v);
+        ParameterValue pv2 = new ParameterValue(p);
+        referenceCheck(pv2, v, ar);
+        assertEquals(pv2.getMonitoringResult(), pv1.getMonitoringResult(), "value " + v);
+        assertEquals(pv2.getRangeCondition(), pv1.getRangeCondition(), "value " + v);
+        assertEquals(pv2.getStatus(), pv1.getStatus());
+    }
+
+    // the range checking as it was done before the RangeChecker
+    static void referenceCheck(ParameterValue pv, double v, AlarmRanges ar) {
+        pv.setMonitoringResult(null);
+        DoubleRange[] ranges = { ar.getSevereRange(), ar.getCriticalRange(), ar.getDistressRange(),
+                ar.getWarningRange(), ar.getWatchRange() };
+        MonitoringResult[] levels = { MonitoringResult.SEVERE, MonitoringResult.CRITICAL, MonitoringResult.DISTRESS,
+                MonitoringResult.WARNING, MonitoringResult.WATCH };
+        for (int i = 0; i < ranges.length; i++) {
+            if (pv.getMonitoringResult() == null && ranges[i] != null) {
+                int x = ranges[i].inRange(v);
+                if (x != 0) {
+                    pv.setMonitoringResult(levels[i]);
+                    pv.setRangeCondition(x < 0 ? RangeCondition.LOW : RangeCondition.HIGH);
+                }
+            }
+        }
+        if (pv.getMonitoringResult() == null) {
+            pv.setMonitoringResult(MonitoringResult.IN_LIMITS);
+        }
+        pv.setWatchRange(ar.getWatchRange());
+        pv.setWarningRange(ar.getWarningRange());
+        pv.setDistressRange(ar.getDistressRange());
+        pv.setCriticalRange(ar.getCriticalRange());
+        pv.setSevereRange(ar.getSevereRange());
+    }
+
+    static MatchCriteriaEvaluator evaluator(MatchCriteriaEvaluator.MatchResult result, int[] count) {
+        return new MatchCriteriaEvaluator() {
+            @Override
+            public MatchResult evaluate(ProcessingData input) {
+                count[0]++;
+                return result;
+            }
+
+            @Override
+            public String toExpressionString() {
+                return result.toString();
+            }
+        };
+    }
+}
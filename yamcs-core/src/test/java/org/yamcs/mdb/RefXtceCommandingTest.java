@@ -28,6 +28,7 @@ import org.yamcs.YConfiguration;
 import org.yamcs.cmdhistory.CommandHistoryProvider;
 import org.yamcs.cmdhistory.CommandHistoryPublisher;
 import org.yamcs.cmdhistory.CommandHistoryRequestManager;
+import org.yamcs.commanding.CommandQueueManager;
 import org.yamcs.commanding.CommandReleaser;
 import org.yamcs.commanding.CommandingManager;
 import org.yamcs.commanding.PreparedCommand;
@@ -248,6 +249,42 @@ public class RefXtceCommandingTest {
         assertNotNull(cmdReleaser.getCmd(2000));
     }
 
+    @Test
+    public void testTransmissionConstraintOnlyChangedEvaluated() throws Exception {
+        CommandQueueManager cqm = commandingManager.getCommandQueueManager();
+        MetaCommand cmd = mdb.getMetaCommand("/RefXtce/cmd_with_constraint3");
+        Map<String, Object> args = new HashMap<>();
+        args.put("arg1", "3");
+        PreparedCommand pc = commandingManager.buildCommand(cmd, args, "localhost", 1, user);
+        localParaMgr.updateParameter(mdb.getParameter("/RefXtce/local_para1"), ValueUtility.getUint32Value(42));
+        localParaMgr.sync();
+
+        // the first constraint passes, the second one (on local_para2) keeps the command pending
+        commandingManager.sendCommand(user, pc);
+        verifyCmdHist(AcknowledgeQueued_KEY, "OK",
+                TransmissionConstraints_KEY, "PENDING");
+        assertEquals(2, cqm.getTransmissionConstraintEvaluations());
+        assertEquals(0, cqm.getSkippedTransmissionConstraintEvaluations());
+
+        // an update of local_para1 does not re-evaluate the pending constraint on local_para2
+        localParaMgr.updateParameter(mdb.getParameter("/RefXtce/local_para1"), ValueUtility.getUint32Value(42));
+        localParaMgr.sync();
+        assertEquals(3, cqm.getTransmissionConstraintEvaluations());
+        assertEquals(1, cqm.getSkippedTransmissionConstraintEvaluations());
+        verifyCmdHist(TransmissionConstraints_KEY, "PENDING");
+        assertNull(cmdReleaser.getCmd(100));
+
+        // an update of local_para2 re-evaluates it and releases the command
+        localParaMgr.updateParameter(mdb.getParameter("/RefXtce/local_para2"), ValueUtility.getUint32Value(13));
+        localParaMgr.sync();
+        assertEquals(4, cqm.getTransmissionConstraintEvaluations());
+        assertEquals(2, cqm.getSkippedTransmissionConstraintEvaluations());
+
+        verifyCmdHist(TransmissionConstraints_KEY, "OK",
+                AcknowledgeReleased_KEY, "OK");
+        assertNotNull(cmdReleaser.getCmd(2000));
+    }
+
     @Test
     public void testTransmissionConstraint2OK() throws Exception {
         MetaCommand cmd = mdb.getMetaCommand("/RefXtce/cmd_with_constraint2");
@@ -0,0 +1,151 @@
+package org.yamcs.mdb;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Disabled;
+import org.junit.jupiter.api.Test;
+import org.yamcs.xtce.IntegerDataEncoding;
+import org.yamcs.xtce.SplineCalibrator;
+import org.yamcs.xtce.SplinePoint;
+
+public class SplineCalibratorProcTest {
+
+    @Test
+    public void testBinarySearch() {
+        SplineCalibrator sc = spline(new Random(1), 200);
+        SplineCalibratorProc proc = new SplineCalibratorProc(sc);
+        assertNull(proc.table);
+
+        Random r = new Random(2);
+        for (int i = 0; i < 10000; i++) {
+            double d = r.nextDouble() * 5000 - 1000;
+            assertEquals(linearCalibrate(sc.getPoints(), d), proc.calibrate(d));
+        }
+        for (SplinePoint p : sc.getPoints()) {
+            assertEquals(linearCalibrate(sc.getPoints(), p.getRaw()), proc.calibrate(p.getRaw()));
+        }
+    }
+
+    @Test
+    public void testLookupTable() {
+        List<SplinePoint> points = new ArrayList<>();
+        points.add(new SplinePoint(-10.5, 0));
+        points.add(new SplinePoint(0, 100));
+        points.add(new SplinePoint(100, 150));
+        points.add(new SplinePoint(1000.2, -30));
+        SplineCalibrator sc = new SplineCalibrator(points);
+
+        SplineCalibratorProc proc = new SplineCalibratorProc(sc, -128, 127);
+        assertNotNull(proc.table);
+        assertEquals(-10, proc.tableMin);
+        assertEquals(138, proc.table.length);
+
+        for (int i = -200; i < 200; i++) {
+            assertEquals(linearCalibrate(sc.getPoints(), i), proc.calibrate(i));
+            assertEquals(linearCalibrate(sc.getPoints(), i + 0.5), proc.calibrate(i + 0.5));
+        }
+        assertEquals(linearCalibrate(sc.getPoints(), 2000), proc.calibrate(2000));
+
+        // too large for a lookup table
+        proc = new SplineCalibratorProc(sc, 0, 1 << 20);
+        assertNull(proc.table);
+    }
+
+    @Test
+    public void testProcessorData() {
+        SplineCalibrator sc = spline(new Random(1), 10);
+
+        IntegerDataEncoding ide = new IntegerDataEncoding.Builder().setSizeInBits(12)
+                .setEncoding(IntegerDataEncoding.Encoding.UNSIGNED).build();
+        assertNotNull(ProcessorData.getSplineCalibrator(sc, ide).table);
+
+        ide = new IntegerDataEncoding.Builder().setSizeInBits(32)
+                .setEncoding(IntegerDataEncoding.Encoding.UNSIGNED).build();
+        assertNull(ProcessorData.getSplineCalibrator(sc, ide).table);
+    }
+
+    /**
+     * Compares the old linear scan with the new calibrator for a 200 points spline and random integer raw values of
+     * 12 bits:
+     *
+     * <pre>
+     * linear scan:   100 ns/value
+     * binary search:  38 ns/value
+     * lookup table:   15 ns/value
+     * </pre>
+     */
+    @Test
+    @Disabled
+    public void testPerformance() {
+        SplineCalibrator sc = spline(new Random(1), 200);
+        SplinePoint[] points = sc.getPoints();
+        SplineCalibratorProc search = new SplineCalibratorProc(sc);
+        SplineCalibratorProc table = new SplineCalibratorProc(sc, 0, 4095);
+
+        int n = 10_000_000;
+        double[] values = new double[4096];
+        Random r = new Random(3);
+        for (int i = 0; i < values.length; i++) {
+            values[i] = r.nextInt(4096);
+        }
+        for (int k = 0; k < 5; k++) {
+            double sum = 0;
+            long t0 = System.nanoTime();
+            for (int i = 0; i < n; i++) {
+                sum += linearCalibrate(points, values[i & 4095]);
+            }
+            long t1 = System.nanoTime();
+            for (int i = 0; i < n; i++) {
+                sum += search.calibrate(values[i & 4095]);
+            }
+            long t2 = System.nanoTime();
+            for (int i = 0; i < n; i++) {
+                sum += table.calibrate(values[i & 4095]);
+            }
+            long t3 = System.nanoTime();
+            System.out.println("linear scan: " + (t1 - t0) / n + " ns/value, binary search: " + (t2 - t1) / n
+                    + " ns/value, lookup table: " + (t3 - t2) / n + " ns/value (" + sum + ")");
+        }
+    }
+
+    static SplineCalibrator spline(Random r, int n) {
+        List<SplinePoint> points = new ArrayList<>();
+        double raw = 0;
+        for (int i = 0; i < n; i++) {
+            raw += 1 + r.nextInt(20);
+            points.add(new SplinePoint(raw, r.nextDouble() * 1000));
+        }
+        return new SplineCalibrator(points);
+    }
+
+    // the algorithm used before the binary search
+    static double linearCalibrate(SplinePoint[] points, double d) {
+        int i = 0, j = 0;
+        for (i = 0; i < points.length; i++) {
+            if (points[i].getRaw() >= d)
+                break;
+        }
+        if (i == 0) {
+            j = 0;
+            i = 1;
+        } else if (i == points.length) {
+            j = points.length - 2;
+            i = points.length - 1;
+        } else {
+            j = i - 1;
+        }
+        double a1 = points[i].getRaw();
+        double b1 = points[i].getCalibrated();
+
+        double a2 = points[j].getRaw();
+        double b2 = points[j].getCalibrated();
+
+        return ((b1 - b2) * d + (a1 * b2 - b1 * a2)) / (a1 - a2);
+    }
+}
@@ -0,0 +1,125 @@
+package org.yamcs.parameter;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Disabled;
+import org.junit.jupiter.api.Test;
+import org.yamcs.xtce.Parameter;
+
+public class DeliveryBufferTest {
+
+    @Test
+    public void test1() {
+        DeliveryBuffer buf = new DeliveryBuffer(2);
+        ParameterValue pv1 = new ParameterValue(new Parameter("p1"));
+        ParameterValue pv2 = new ParameterValue(new Parameter("p2"));
+
+        buf.get(3).add(pv1);
+        buf.get(1).add(pv1);
+        buf.get(3).add(pv2);
+        for (int i = 10; i < 100; i++) {
+            buf.get(i).add(pv2);
+        }
+        assertEquals(92, buf.size());
+        assertEquals(3, buf.subscriptionId(0));
+        assertEquals(List.of(pv1, pv2), buf.list(0));
+        assertEquals(1, buf.subscriptionId(1));
+        assertEquals(List.of(pv1), buf.list(1));
+        assertEquals(List.of(pv2), buf.get(57));
+
+        List<ParameterValue> l = buf.list(0);
+        buf.clear();
+        assertEquals(0, buf.size());
+        assertArrayEquals(new int[0], buf.subscriptionIds());
+
+        // the lists handed out before the clear are not reused
+        List<ParameterValue> l1 = buf.get(3);
+        assertNotSame(l, l1);
+        assertEquals(0, l1.size());
+        assertEquals(2, l.size());
+        assertSame(l1, buf.get(3));
+        assertArrayEquals(new int[] { 3 }, buf.subscriptionIds());
+    }
+
+    /**
+     * Compares the allocation per delivery of the old HashMap&lt;Integer, ArrayList&gt; based split with the
+     * DeliveryBuffer. 200 parameters delivered to 50 subscriptions with 20 parameters each plus 2 subscribe all:
+     *
+     * <pre>
+     * HashMap:        12944 bytes/delivery, 64 bytes/delivered value
+     * DeliveryBuffer: 4866 bytes/delivery, 24 bytes/delivered value
+     * </pre>
+     *
+     * The remaining allocation consists of the lists given to the consumers.
+     */
+    @Test
+    @Disabled
+    public void testAllocation() {
+        int numParams = 200;
+        int numSubscriptions = 50;
+        int n = 100_000;
+
+        List<ParameterValue> delivery = new ArrayList<>();
+        Map<Parameter, SubscriptionArray> param2RequestMap = new HashMap<>();
+        for (int i = 0; i < numParams; i++) {
+            Parameter p = new Parameter("p" + i);
+            delivery.add(new ParameterValue(p));
+            SubscriptionArray sa = new SubscriptionArray();
+            sa.add(1 + i % numSubscriptions);
+            param2RequestMap.put(p, sa);
+        }
+        ParameterValueList pvlist = new ParameterValueList(delivery);
+        int[] subscribeAll = new int[] { 1000, 1001 };
+
+        for (int k = 0; k < 3; k++) {
+            long t0 = allocatedBytes();
+            for (int i = 0; i < n; i++) {
+                HashMap<Integer, ArrayList<ParameterValue>> subscription = new HashMap<>();
+                for (ParameterValue pv : pvlist) {
+                    for (int s : param2RequestMap.get(pv.getParameter()).getArray()) {
+                        subscription.computeIfAbsent(s, x -> new ArrayList<>()).add(pv);
+                    }
+                }
+                for (int id : subscribeAll) {
+                    ArrayList<ParameterValue> al = subscription.computeIfAbsent(id, x -> new ArrayList<>());
+                    for (ParameterValue pv : pvlist) {
+                        al.add(pv);
+                    }
+                }
+            }
+            long t1 = allocatedBytes();
+
+            DeliveryBuffer buf = new DeliveryBuffer();
+            for (int i = 0; i < n; i++) {
+                for (ParameterValue pv : pvlist) {
+                    for (int s : param2RequestMap.get(pv.getParameter()).getArray()) {
+                        buf.get(s).add(pv);
+                    }
+                }
+                Collections.unmodifiableList(Arrays.asList((ParameterValue[]) pvlist.toArray()));
+                buf.clear();
+            }
+            long t2 = allocatedBytes();
+            System.out.println("HashMap: " + (t1 - t0) / n + " bytes/delivery, "
+                    + (t1 - t0) / n / numParams + " bytes/delivered value");
+            System.out.println("DeliveryBuffer: " + (t2 - t1) / n + " bytes/delivery, "
+                    + (t2 - t1) / n / numParams + " bytes/delivered value");
+        }
+    }
+
+    static long allocatedBytes() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean())
+                .getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+}
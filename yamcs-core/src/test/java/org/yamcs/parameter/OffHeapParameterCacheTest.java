@@ -0,0 +1,201 @@
+package org.yamcs.parameter;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.yamcs.parameter.ArrayParameterCacheTest.checkEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.yamcs.parameterarchive.TestUtils;
+import org.yamcs.protobuf.Pvalue.AcquisitionStatus;
+import org.yamcs.utils.TimeEncoding;
+import org.yamcs.utils.ValueUtility;
+import org.yamcs.xtce.Parameter;
+
+public class OffHeapParameterCacheTest {
+    Parameter p1 = new Parameter("p1");
+    Parameter p2 = new Parameter("p2");
+
+    @BeforeAll
+    public static void before() {
+        TimeEncoding.setUp();
+    }
+
+    @Test
+    public void test1() {
+        OffHeapParameterCache pcache = new OffHeapParameterCache("test", config(1000, 4096, 1 << 20));
+        assertNull(pcache.getLastValue(p1));
+
+        ParameterValue p1v1 = getEnumeratedParameterValue(p1, 10);
+        p1v1.setExpireMillis(1000);
+
+        ParameterValue p2v1 = getFloatParameterValue(p2, 10);
+        p2v1.setAcquisitionStatus(AcquisitionStatus.INVALID);
+        pcache.update(Arrays.asList(p1v1, p2v1));
+
+        TestUtils.checkEquals(p1v1, pcache.getLastValue(p1));
+        TestUtils.checkEquals(p2v1, pcache.getLastValue(p2));
+
+        ParameterValue p1v2 = getEnumeratedParameterValue(p1, 20);
+        p1v2.setExpireMillis(1000);
+        pcache.update(Arrays.asList(p1v2));
+
+        TestUtils.checkEquals(p1v2, pcache.getLastValue(p1));
+        TestUtils.checkEquals(p2v1, pcache.getLastValue(p2));
+
+        checkEquals(pcache.getAllValues(p1), p1v2, p1v1);
+
+        // p1 is expired (the wallclock time is far after the generation time)
+        List<ParameterValue> pvlist = pcache.getValues(Arrays.asList(p1, p2));
+        assertEquals(2, pvlist.size());
+        assertEquals(AcquisitionStatus.EXPIRED, pvlist.get(0).getAcquisitionStatus());
+        TestUtils.checkEquals(p2v1, pvlist.get(1));
+        // the status in the cache is not affected
+        TestUtils.checkEquals(p1v2, pcache.getLastValue(p1));
+    }
+
+    @Test
+    public void testNoCacheAll() {
+        ParameterCacheConfig pcc = new ParameterCacheConfig(true, false, 1000, 4096, true, 1024 * 1024);
+        OffHeapParameterCache pcache = new OffHeapParameterCache("test", pcc);
+
+        ParameterValue p1v0 = getUint64ParameterValue(p1, 0);
+        pcache.update(Arrays.asList(p1v0));
+        assertNull(pcache.getLastValue(p1));
+
+        ParameterValue p1v1 = getUint64ParameterValue(p1, 10);
+        ParameterValue p2v1 = getFloatParameterValue(p2, 10);
+        pcache.update(Arrays.asList(p1v1, p2v1));
+
+        TestUtils.checkEquals(p1v1, pcache.getLastValue(p1));
+        assertNull(pcache.getLastValue(p2));
+
+        // type change
+        ParameterValue p2v2 = getUint64ParameterValue(p2, 20);
+        pcache.update(Arrays.asList(p2v2));
+        TestUtils.checkEquals(p2v2, pcache.getLastValue(p2));
+        checkEquals(pcache.getAllValues(p2), p2v2);
+    }
+
+    @Test
+    public void testUnsupportedType() {
+        OffHeapParameterCache pcache = new OffHeapParameterCache("test", config(1000, 4096, 1 << 20));
+        ParameterValue pv = new ParameterValue(p1);
+        pv.setGenerationTime(10);
+        pv.setEngValue(ValueUtility.getStringValue("bla"));
+        pcache.update(Arrays.asList(pv));
+        assertNull(pcache.getLastValue(p1));
+        assertNull(pcache.getAllValues(p1));
+    }
+
+    @Test
+    public void testInterval() {
+        OffHeapParameterCache pcache = new OffHeapParameterCache("test", config(100_000, 100_000, 1 << 20));
+        List<ParameterValue> expected = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            ParameterValue pv = getUint64ParameterValue(p1, i * 10L);
+            expected.add(pv);
+            pcache.update(Arrays.asList(pv));
+        }
+        List<ParameterValue> pvlist = pcache.getAllValues(p1);
+        assertEquals(1000, pvlist.size());
+        for (int i = 0; i < 1000; i++) {
+            TestUtils.checkEquals(expected.get(999 - i), pvlist.get(i));
+        }
+
+        // (start, stop]
+        pvlist = pcache.getAllValues(p1, 1000, 2005);
+        assertEquals(100, pvlist.size());
+        TestUtils.checkEquals(expected.get(200), pvlist.get(0));
+        TestUtils.checkEquals(expected.get(101), pvlist.get(99));
+
+        assertNull(pcache.getAllValues(p1, 20000, 30000));
+    }
+
+    @Test
+    public void testMaxNumEntriesAndDuration() {
+        OffHeapParameterCache pcache = new OffHeapParameterCache("test", config(2000, 128, 1 << 20));
+        List<ParameterValue> expected = new ArrayList<>();
+        for (int i = 0; i < 256; i++) {
+            ParameterValue pv = getUint64ParameterValue(p1, i * 10L);
+            expected.add(pv);
+            pcache.update(Arrays.asList(pv));
+        }
+        List<ParameterValue> pvlist = pcache.getAllValues(p1);
+        assertEquals(128, pvlist.size());
+        for (int i = 0; i < 128; i++) {
+            TestUtils.checkEquals(expected.get(255 - i), pvlist.get(i));
+        }
+
+        // jump in time, all the old values are too old
+        ParameterValue pv = getUint64ParameterValue(p1, 10_000);
+        pcache.update(Arrays.asList(pv));
+        checkEquals(pcache.getAllValues(p1), pv);
+    }
+
+    @Test
+    public void testBudget() {
+        // 4 pages shared between a fast and a slow parameter
+        OffHeapParameterCache pcache = new OffHeapParameterCache("test",
+                config(1_000_000, 1_000_000, 4 * OffHeapParameterCache.PAGE_SIZE));
+        long t = 0;
+        for (int i = 0; i < 10_000; i++) {
+            t += 10;
+            if (i % 100 == 0) {
+                pcache.update(Arrays.asList(getFloatParameterValue(p2, t)));
+            }
+            pcache.update(Arrays.asList(getUint64ParameterValue(p1, t)));
+        }
+        assertEquals(0, pcache.getNumFreePages());
+
+        // the slow parameter keeps its values, the fast one uses the remaining pages and keeps the newest values
+        List<ParameterValue> pvlist2 = pcache.getAllValues(p2);
+        assertNotNull(pvlist2);
+        assertEquals(100, pvlist2.size());
+
+        List<ParameterValue> pvlist1 = pcache.getAllValues(p1);
+        assertTrue(pvlist1.size() > 100);
+        assertEquals(t, pvlist1.get(0).getGenerationTime());
+        for (int i = 1; i < pvlist1.size(); i++) {
+            assertEquals(pvlist1.get(i - 1).getGenerationTime() - 10, pvlist1.get(i).getGenerationTime());
+        }
+
+        pcache.clear();
+        assertEquals(4, pcache.getNumFreePages());
+        assertNull(pcache.getLastValue(p1));
+    }
+
+    static ParameterCacheConfig config(long duration, int maxNumEntries, long maxSize) {
+        return new ParameterCacheConfig(true, true, duration, maxNumEntries, true, maxSize);
+    }
+
+    ParameterValue getUint64ParameterValue(Parameter p, long t) {
+        ParameterValue pv = new ParameterValue(p);
+        pv.setGenerationTime(t);
+        pv.setAcquisitionTime(t + 5);
+        pv.setEngValue(ValueUtility.getUint64Value(t));
+        pv.setRawValue(ValueUtility.getUint32Value((int) t));
+        return pv;
+    }
+
+    ParameterValue getFloatParameterValue(Parameter p, long t) {
+        ParameterValue pv = new ParameterValue(p);
+        pv.setGenerationTime(t);
+        pv.setEngValue(ValueUtility.getFloatValue((float) t));
+        return pv;
+    }
+
+    ParameterValue getEnumeratedParameterValue(Parameter p, long t) {
+        ParameterValue pv = new ParameterValue(p);
+        pv.setGenerationTime(t);
+        pv.setEngValue(ValueUtility.getEnumeratedValue(t, "state" + t));
+        pv.setRawValue(ValueUtility.getSint32Value((int) t));
+        return pv;
+    }
+}
@@ -0,0 +1,54 @@
+package org.yamcs.security;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.yamcs.utils.TimeEncoding;
+
+public class UserTest {
+
+    @BeforeAll
+    public static void setUpBeforeClass() {
+        TimeEncoding.setUp();
+    }
+
+    @Test
+    public void testObjectPrivilege() {
+        User user = new User("test", null);
+        user.addObjectPrivilege(new ObjectPrivilege(ObjectPrivilegeType.ReadParameter, "/REFMDB/SUBSYS1/.*"), false);
+
+        assertTrue(user.hasObjectPrivilege(ObjectPrivilegeType.ReadParameter, "/REFMDB/SUBSYS1/FloatPara1_1_2"));
+        assertTrue(user.hasObjectPrivilege(ObjectPrivilegeType.ReadParameter, "/REFMDB/SUBSYS1/FloatPara1_1_2"));
+        assertFalse(user.hasObjectPrivilege(ObjectPrivilegeType.ReadParameter, "/REFMDB/SUBSYS2/FloatPara1_1_2"));
+        assertFalse(user.hasObjectPrivilege(ObjectPrivilegeType.WriteParameter, "/REFMDB/SUBSYS1/FloatPara1_1_2"));
+    }
+
+    @Test
+    public void testDecisionsClearedOnChange() {
+        User user = new User("test", null);
+        assertFalse(user.hasObjectPrivilege(ObjectPrivilegeType.ReadParameter, "/REFMDB/SUBSYS2/IntegerPara2_1"));
+
+        user.addObjectPrivilege(new ObjectPrivilege(ObjectPrivilegeType.ReadParameter, "/REFMDB/SUBSYS2/.*"), false);
+        assertTrue(user.hasObjectPrivilege(ObjectPrivilegeType.ReadParameter, "/REFMDB/SUBSYS2/IntegerPara2_1"));
+
+        user.clearDirectoryPrivileges();
+        assertFalse(user.hasObjectPrivilege(ObjectPrivilegeType.ReadParameter, "/REFMDB/SUBSYS2/IntegerPara2_1"));
+
+        user.setSuperuser(true);
+        assertTrue(user.hasObjectPrivilege(ObjectPrivilegeType.ReadParameter, "/REFMDB/SUBSYS2/IntegerPara2_1"));
+    }
+
+    @Test
+    public void testExternalPrivilegesKept() {
+        User user = new User("test", null);
+        user.addObjectPrivilege(new ObjectPrivilege(ObjectPrivilegeType.Stream, "tm_.*"), true);
+        user.addObjectPrivilege(new ObjectPrivilege(ObjectPrivilegeType.Stream, "tc_.*"), false);
+        assertTrue(user.hasObjectPrivilege(ObjectPrivilegeType.Stream, "tc_realtime"));
+
+        user.clearDirectoryPrivileges();
+        assertTrue(user.hasObjectPrivilege(ObjectPrivilegeType.Stream, "tm_realtime"));
+        assertFalse(user.hasObjectPrivilege(ObjectPrivilegeType.Stream, "tc_realtime"));
+    }
+}
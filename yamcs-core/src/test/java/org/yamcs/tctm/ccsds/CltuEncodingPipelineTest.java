@@ -0,0 +1,164 @@
+package org.yamcs.tctm.ccsds;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Disabled;
+import org.junit.jupiter.api.Test;
+import org.yamcs.tctm.ccsds.CltuEncodingPipeline.EncodedFrame;
+import org.yamcs.tctm.ccsds.error.BchCltuGenerator;
+import org.yamcs.tctm.ccsds.error.CltuGenerator;
+import org.yamcs.tctm.ccsds.error.Ldpc256CltuGenerator;
+import org.yamcs.tctm.ccsds.error.Ldpc64CltuGenerator;
+
+/**
+ * Checks the ordering of the CLTU encoding pipeline and measures its throughput.
+ * <p>
+ * The {@link #benchmark()} encodes frames of 1024 bytes with randomization, inline and with 4 worker threads. On a
+ * machine with a single core, it gives:
+ *
+ * <pre>
+ * generator   inline frames/s   pipelined frames/s
+ * BCH            180000-230000        110000-190000
+ * LDPC64          42000-51000          32000-53000
+ * LDPC256         12500-12800          11400-12500
+ * </pre>
+ *
+ * The pipeline only helps with more cores than the link threads can keep busy; the throughput is then expected to
+ * scale with the number of worker threads for the LDPC codes which are the most expensive.
+ */
+public class CltuEncodingPipelineTest {
+
+    @Test
+    public void testOrder() throws Exception {
+        Random r = new Random(1);
+        CltuGenerator generator = new BchCltuGenerator();
+        CltuEncodingPipeline pipeline = new CltuEncodingPipeline("test", 4, 8, tf -> {
+            // make the encoding finish out of order
+            sleep(r.nextInt(3));
+            return generator.makeCltu(tf.getData(), true);
+        });
+        int n = 200;
+        List<TcTransferFrame> frames = new ArrayList<>();
+        List<byte[]> expected = new ArrayList<>();
+        Thread producer = new Thread(() -> {
+            try {
+                for (int i = 0; i < n; i++) {
+                    TcTransferFrame tf = makeFrame(100 + i % 50, i);
+                    // the randomization is done in place, encode a copy
+                    byte[] cltu = generator.makeCltu(tf.getData().clone(), true);
+                    synchronized (frames) {
+                        frames.add(tf);
+                        expected.add(cltu);
+                    }
+                    pipeline.submit(tf);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        producer.start();
+
+        for (int i = 0; i < n; i++) {
+            EncodedFrame ef = pipeline.take();
+            synchronized (frames) {
+                assertSame(frames.get(i), ef.getFrame());
+                assertNull(ef.getError());
+                assertArrayEquals(expected.get(i), ef.getData());
+            }
+        }
+        producer.join();
+        assertEquals(0, pipeline.size());
+        pipeline.shutdown();
+    }
+
+    @Test
+    public void testError() throws Exception {
+        CltuEncodingPipeline pipeline = new CltuEncodingPipeline("test", 2, 4, tf -> {
+            if (tf.getVcFrameSeq() == 1) {
+                throw new IllegalStateException("bad frame");
+            }
+            return tf.getData();
+        });
+        for (int i = 0; i < 3; i++) {
+            pipeline.submit(makeFrame(10, i));
+        }
+        assertNull(pipeline.take().getError());
+        EncodedFrame ef = pipeline.take();
+        assertEquals(1, ef.getFrame().getVcFrameSeq());
+        assertNull(ef.getData());
+        assertEquals(IllegalStateException.class, ef.getError().getClass());
+        assertNull(pipeline.take().getError());
+
+        pipeline.submit(makeFrame(10, 3));
+        assertEquals(1, pipeline.shutdown().size());
+    }
+
+    @Test
+    @Disabled
+    public void benchmark() throws Exception {
+        int n = 200_000;
+        int numThreads = 4;
+        List<TcTransferFrame> frames = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            frames.add(makeFrame(1024, i));
+        }
+        CltuGenerator[] generators = { new BchCltuGenerator(), new Ldpc64CltuGenerator(false),
+                new Ldpc256CltuGenerator() };
+        for (int k = 0; k < 3; k++) {
+            for (CltuGenerator generator : generators) {
+                long t0 = System.nanoTime();
+                long c = 0;
+                for (int i = 0; i < n; i++) {
+                    c += generator.makeCltu(frames.get(i % frames.size()).getData(), true).length;
+                }
+                long t1 = System.nanoTime();
+
+                CltuEncodingPipeline pipeline = new CltuEncodingPipeline("bench", numThreads, 4 * numThreads,
+                        tf -> generator.makeCltu(tf.getData(), true));
+                Thread producer = new Thread(() -> {
+                    try {
+                        for (int i = 0; i < n; i++) {
+                            pipeline.submit(frames.get(i % frames.size()));
+                        }
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                });
+                producer.start();
+                for (int i = 0; i < n; i++) {
+                    c += pipeline.take().getData().length;
+                }
+                long t2 = System.nanoTime();
+                producer.join();
+                pipeline.shutdown();
+
+                System.out.printf("%-22s inline: %7.0f frames/s, pipelined: %7.0f frames/s (%d)%n",
+                        generator.getClass().getSimpleName(), n / ((t1 - t0) / 1e9), n / ((t2 - t1) / 1e9), c);
+            }
+        }
+    }
+
+    static TcTransferFrame makeFrame(int length, int seq) {
+        byte[] data = new byte[length];
+        new Random(seq).nextBytes(data);
+        TcTransferFrame tf = new TcTransferFrame(data, 1, 0);
+        tf.setVcFrameSeq(seq);
+        return tf;
+    }
+
+    static void sleep(int millis) {
+        try {
+            TimeUnit.MILLISECONDS.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package org.yamcs.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+import org.yamcs.utils.TimingWheel.Timeout;
+
+public class TimingWheelTest {
+    static final long TICK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    @Test
+    public void testExpiration() {
+        AtomicLong clock = new AtomicLong(1000);
+        TimingWheel wheel = new TimingWheel(null, 1, clock::get);
+        Random r = new Random(1);
+        int n = 20000;
+        long[] scheduledAt = new long[n];
+        long[] delays = new long[n];
+        long[] ranAt = new long[n];
+        List<Timeout> timeouts = new ArrayList<>();
+
+        for (int i = 0; i < n; i++) {
+            int k = i;
+            // delays spread over the first three levels
+            delays[i] = r.nextInt(3) == 0 ? r.nextInt(100) : r.nextInt(300_000);
+            scheduledAt[i] = currentTick(clock);
+            timeouts.add(wheel.schedule(() -> ranAt[k] = currentTick(clock), delays[i], TimeUnit.MILLISECONDS));
+            if (i % 100 == 0) {
+                advance(wheel, clock, r.nextInt(50));
+            }
+        }
+        // cancel every third timeout
+        int cancelled = 0;
+        for (int i = 0; i < n; i += 3) {
+            if (timeouts.get(i).cancel()) {
+                cancelled++;
+                ranAt[i] = -1;
+            }
+        }
+        int pending = wheel.getPendingCount();
+        assertTrue(pending > 0);
+
+        advance(wheel, clock, 310_000);
+        assertEquals(0, wheel.getPendingCount());
+
+        int run = 0;
+        for (int i = 0; i < n; i++) {
+            if (ranAt[i] == -1) {
+                continue;
+            }
+            run++;
+            long expected = scheduledAt[i] + Math.max(delays[i], 1);
+            assertEquals(expected, ranAt[i], "timeout " + i + " delay " + delays[i]);
+        }
+        assertEquals(n, run + cancelled);
+    }
+
+    @Test
+    public void testCancel() {
+        AtomicLong clock = new AtomicLong();
+        TimingWheel wheel = new TimingWheel(null, 10, clock::get);
+        boolean[] run = new boolean[2];
+        Timeout t0 = wheel.schedule(() -> run[0] = true, 100, TimeUnit.MILLISECONDS);
+        Timeout t1 = wheel.schedule(() -> run[1] = true, 100, TimeUnit.MILLISECONDS);
+        assertEquals(2, wheel.getPendingCount());
+        assertTrue(t0.cancel());
+        assertFalse(t0.cancel());
+        assertTrue(t0.isCancelled());
+        assertEquals(1, wheel.getPendingCount());
+
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(100));
+        wheel.tick();
+        assertFalse(run[0]);
+        assertTrue(run[1]);
+        assertFalse(t1.cancel());
+        assertFalse(t1.isCancelled());
+        assertEquals(0, wheel.getPendingCount());
+    }
+
+    @Test
+    public void testNotEarlyBetweenTicks() {
+        AtomicLong clock = new AtomicLong();
+        TimingWheel wheel = new TimingWheel(null, 10, clock::get);
+        boolean[] run = new boolean[1];
+        // scheduled 9 ms into the first tick, the task cannot run at the end of the second tick
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(9));
+        wheel.schedule(() -> run[0] = true, 20, TimeUnit.MILLISECONDS);
+
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(11));
+        wheel.tick();
+        assertFalse(run[0]);
+
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(10));
+        wheel.tick();
+        assertTrue(run[0]);
+    }
+
+    @Test
+    public void testWithExecutor() throws Exception {
+        ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1);
+        TimingWheel wheel = new TimingWheel(executor, 5);
+        CountDownLatch latch = new CountDownLatch(2);
+        long t0 = System.nanoTime();
+        wheel.schedule(latch::countDown, 20, TimeUnit.MILLISECONDS);
+        wheel.schedule(latch::countDown, 50, TimeUnit.MILLISECONDS);
+        wheel.schedule(() -> {
+            throw new IllegalStateException("ignored");
+        }, 1, TimeUnit.MILLISECONDS);
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        assertTrue(System.nanoTime() - t0 >= TimeUnit.MILLISECONDS.toNanos(50));
+        assertEquals(0, wheel.getPendingCount());
+
+        // ticking restarts after the wheel has been empty
+        CountDownLatch latch1 = new CountDownLatch(1);
+        wheel.schedule(latch1::countDown, 10, TimeUnit.MILLISECONDS);
+        assertTrue(latch1.await(5, TimeUnit.SECONDS));
+        executor.shutdown();
+    }
+
+    static long currentTick(AtomicLong clock) {
+        return (clock.get() - 1000) / TICK_NANOS;
+    }
+
+    // advances the clock tick by tick
+    static void advance(TimingWheel wheel, AtomicLong clock, int ticks) {
+        for (int i = 0; i < ticks; i++) {
+            clock.addAndGet(TICK_NANOS);
+            wheel.tick();
+        }
+    }
+}
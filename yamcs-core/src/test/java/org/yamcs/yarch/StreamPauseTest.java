@@ -0,0 +1,121 @@
+package org.yamcs.yarch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+public class StreamPauseTest extends YarchTestCase {
+
+    private void populate(String tblName, int n) throws Exception {
+        execute("create table " + tblName + "(x int, y string, primary key(x))");
+        execute("create stream " + tblName + "_in(x int, y string)");
+        execute("insert into " + tblName + " select * from " + tblName + "_in");
+        Stream s = ydb.getStream(tblName + "_in");
+        for (int i = 0; i < n; i++) {
+            s.emitTuple(new Tuple(s.getDefinition(), new Object[] { i, "y" + i }));
+        }
+        execute("close stream " + tblName + "_in");
+    }
+
+    @Test
+    public void testPauseResume() throws Exception {
+        populate("test1", 100);
+        execute("create stream test1_out as select * from test1 where x >= 10");
+        Stream s = ydb.getStream("test1_out");
+        assertTrue(s.canPause());
+
+        AtomicInteger count = new AtomicInteger();
+        Semaphore closed = new Semaphore(0);
+        s.addSubscriber(new StreamSubscriber() {
+            @Override
+            public void onTuple(Stream stream, Tuple tuple) {
+                if (count.incrementAndGet() == 10) {
+                    stream.pause();
+                }
+            }
+
+            @Override
+            public void streamClosed(Stream stream) {
+                closed.release();
+            }
+        });
+        s.start();
+
+        assertFalse(closed.tryAcquire(200, TimeUnit.MILLISECONDS));
+        assertEquals(10, count.get());
+
+        s.resume();
+        assertTrue(closed.tryAcquire(10, TimeUnit.SECONDS));
+        assertEquals(90, count.get());
+    }
+
+    @Test
+    public void testCloseWhilePaused() throws Exception {
+        populate("test2", 100);
+        execute("create stream test2_out as select * from test2");
+        Stream s = ydb.getStream("test2_out");
+
+        AtomicInteger count = new AtomicInteger();
+        Semaphore closed = new Semaphore(0);
+        s.addSubscriber(new StreamSubscriber() {
+            @Override
+            public void onTuple(Stream stream, Tuple tuple) {
+                if (count.incrementAndGet() == 1) {
+                    stream.pause();
+                }
+            }
+
+            @Override
+            public void streamClosed(Stream stream) {
+                closed.release();
+            }
+        });
+        s.start();
+        assertFalse(closed.tryAcquire(200, TimeUnit.MILLISECONDS));
+
+        s.close();
+        assertTrue(closed.tryAcquire(10, TimeUnit.SECONDS));
+        assertEquals(1, count.get());
+    }
+
+    @Test
+    public void testCloseWhenPausedTooLong() throws Exception {
+        populate("test3", 100);
+        execute("create stream test3_out as select * from test3");
+        Stream s = ydb.getStream("test3_out");
+
+        AtomicInteger count = new AtomicInteger();
+        Semaphore closed = new Semaphore(0);
+        s.addSubscriber(new StreamSubscriber() {
+            @Override
+            public void onTuple(Stream stream, Tuple tuple) {
+                if (count.incrementAndGet() == 1) {
+                    stream.pause();
+                }
+            }
+
+            @Override
+            public void streamClosed(Stream stream) {
+                closed.release();
+            }
+        });
+
+        long maxPauseMillis = TableReaderStream.maxPauseMillis;
+        TableReaderStream.maxPauseMillis = 500;
+        try {
+            s.start();
+            assertFalse(closed.tryAcquire(200, TimeUnit.MILLISECONDS));
+            // closed without being resumed
+            assertTrue(closed.tryAcquire(10, TimeUnit.SECONDS));
+            assertEquals(1, count.get());
+        } finally {
+            TableReaderStream.maxPauseMillis = maxPauseMillis;
+        }
+    }
+}
@@ -9,11 +9,13 @@ import static org.yamcs.web.WebFileDeployer.PATH_INDEX;
 import static org.yamcs.web.WebFileDeployer.PATH_NGSW;
 import static org.yamcs.web.WebFileDeployer.PATH_WEBMANIFEST;
 
+import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
 import java.util.List;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -46,6 +48,9 @@ public class AngularHandler extends StaticFileHandler {
     // Dev only for now
     private static boolean PWA = false;
 
+    // Bundles emitted by the Angular compiler, for example: main-5KCLH6QA.js
+    private static final Pattern HASHED_BUNDLE = Pattern.compile(".+-[0-9A-Z]{8}\\.(js|css)");
+
     private Path indexFile;
     private Path webManifestFile;
     private Path ngswFile;
@@ -106,6 +111,11 @@ public class AngularHandler extends StaticFileHandler {
         serveUncached(ctx, indexFile, "text/html");
     }
 
+    @Override
+    protected boolean isImmutable(File file) {
+        return HASHED_BUNDLE.matcher(file.getName()).matches();
+    }
+
     /**
      * Sends a rendered template, while recommend clients to not cache it. We hash all of our web files, and this
      * reduces likelihood of attempting to load the app from an outdated index.html
@@ -11,14 +11,18 @@ import java.io.UncheckedIOException;
 import java.math.BigInteger;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.TreeSet;
 import java.util.regex.Pattern;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
 
 import org.yamcs.Experimental;
 import org.yamcs.ProcessorFactory;
@@ -63,6 +67,11 @@ public class WebFileDeployer {
     public static final String PATH_NGSW = "ngsw.json";
     public static final String PATH_WEBMANIFEST = "manifest.webmanifest";
 
+    // Files that are precompressed, so that they need not be compressed on each request
+    private static final Set<String> COMPRESSIBLE_EXTENSIONS = Set.of(
+            "css", "html", "js", "json", "map", "mjs", "svg", "txt", "webmanifest", "xml");
+    private static final int MIN_COMPRESSIBLE_SIZE = 1024;
+
     // Optional, but immutable
     // (if null, webfiles are deployed from the classpath)
     private Path source;
@@ -189,6 +198,46 @@ public class WebFileDeployer {
             var ngswContent = renderNgsw(ngswFile, hashTableOverrides);
             Files.writeString(ngswFile, ngswContent, UTF_8);
         }
+
+        precompress(target);
+    }
+
+    /**
+     * Writes a gzip variant next to each compressible file, unless there is already an up-to-date one.
+     */
+    private void precompress(Path dir) throws IOException {
+        var files = new ArrayList<Path>();
+        try (var walk = Files.walk(dir)) {
+            walk.filter(Files::isRegularFile).forEach(files::add);
+        }
+        var count = 0;
+        for (var file : files) {
+            var filename = file.getFileName().toString();
+            var extension = filename.substring(filename.lastIndexOf('.') + 1).toLowerCase();
+            if (!COMPRESSIBLE_EXTENSIONS.contains(extension) || Files.size(file) < MIN_COMPRESSIBLE_SIZE) {
+                continue;
+            }
+            var gzFile = file.resolveSibling(filename + ".gz");
+            if (Files.exists(gzFile)
+                    && Files.getLastModifiedTime(gzFile).compareTo(Files.getLastModifiedTime(file)) >= 0) {
+                continue;
+            }
+
+            // Write to a temporary file first, so that a partial variant is never served
+            var tmpFile = file.resolveSibling(filename + ".gz.tmp");
+            try (var out = new GZIPOutputStream(Files.newOutputStream(tmpFile)) {
+                {
+                    def.setLevel(Deflater.BEST_COMPRESSION);
+                }
+            }) {
+                Files.copy(file, out);
+            }
+            Files.move(tmpFile, gzFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            count++;
+        }
+        if (count > 0) {
+            log.debug("Precompressed {} webapp files", count);
+        }
     }
 
     @SuppressWarnings("unchecked")
@@ -17,6 +17,9 @@ public class EnumeratedDataType extends BaseDataType {
     protected List<ValueEnumeration> enumerationList = new ArrayList<>();
     protected List<ValueEnumerationRange> ranges = new ArrayList<>();
 
+    // direct lookup table for the labels, built lazily if the values are dense enough
+    transient LabelTable labelTable;
+
     EnumeratedDataType(Builder<?> builder) {
         super(builder);
         this.enumerationList = builder.enumerationList;
@@ -84,7 +87,16 @@ public class EnumeratedDataType extends BaseDataType {
     }
 
     public String calibrate(long raw) {
-        ValueEnumeration v = enumeration.get(raw);
+        LabelTable lt = labelTable;
+        if (lt == null) {
+            lt = LabelTable.create(enumerationList);
+            labelTable = lt;
+        }
+        String label = lt.get(raw);
+        if (label != null) {
+            return label;
+        }
+        ValueEnumeration v = lt.dense ? null : enumeration.get(raw);
         if (v != null) {
             return v.label;
         }
@@ -149,6 +161,55 @@ public class EnumeratedDataType extends BaseDataType {
         return "enumeration";
     }
 
+    /**
+     * Array of labels indexed by (value - offset), used when the enumeration values are within a small range.
+     * <p>
+     * If the values are too sparse, the table is empty and the lookup is done in the enumeration map.
+     */
+    static final class LabelTable {
+        static final LabelTable EMPTY = new LabelTable(0, new String[0], false);
+        final long offset;
+        final String[] labels;
+        // true if all the enumeration values are in the table
+        final boolean dense;
+
+        LabelTable(long offset, String[] labels, boolean dense) {
+            this.offset = offset;
+            this.labels = labels;
+            this.dense = dense;
+        }
+
+        String get(long value) {
+            long idx = value - offset;
+            if (idx >= 0 && idx < labels.length) {
+                return labels[(int) idx];
+            }
+            return null;
+        }
+
+        static LabelTable create(List<ValueEnumeration> enumerationList) {
+            if (enumerationList.isEmpty()) {
+                return EMPTY;
+            }
+            long min = Long.MAX_VALUE;
+            long max = Long.MIN_VALUE;
+            for (ValueEnumeration ve : enumerationList) {
+                min = Math.min(min, ve.value);
+                max = Math.max(max, ve.value);
+            }
+            long size = max - min + 1;
+            if (size <= 0 || size > Math.max(64, 4 * enumerationList.size())) {
+                return EMPTY;
+            }
+            String[] labels = new String[(int) size];
+            for (ValueEnumeration ve : enumerationList) {
+                // same as the map: the last enumeration with a given value wins
+                labels[(int) (ve.value - min)] = ve.label;
+            }
+            return new LabelTable(min, labels, true);
+        }
+    }
+
     public abstract static class Builder<T extends Builder<T>> extends BaseDataType.Builder<T> {
         protected List<ValueEnumeration> enumerationList = new ArrayList<>();
         protected List<ValueEnumerationRange> ranges = new ArrayList<>();
@@ -36,6 +36,9 @@ public class XtceDb implements Serializable {
     // that can change dynamically as of now
     ReadWriteLock rwLock = new ReentrantReadWriteLock();
 
+    // incremented each time one of the above changes, allows callers to detect a stale view of the database
+    private volatile long modificationCount;
+
     /**
      * Namespaces system parameters
      */
@@ -568,6 +571,16 @@ public class XtceDb implements Serializable {
         return sequenceContainer2InheritingContainerMap.get(container);
     }
 
+    /**
+     * Returns a counter that is incremented each time parameters, types, commands or space systems are added to this
+     * database after its creation.
+     * <p>
+     * This can be used to find out if information derived from the database is still up to date.
+     */
+    public long getModificationCount() {
+        return modificationCount;
+    }
+
     protected void doAddParameter(Parameter p, boolean addSpaceSystem, boolean addParameterType) {
         doAddParameters(List.of(p), addSpaceSystem, addParameterType);
     }
@@ -659,6 +672,7 @@ public class XtceDb implements Serializable {
                 }
             }
         } finally {
+            modificationCount++;
             rwLock.writeLock().unlock();
         }
     }
@@ -719,6 +733,7 @@ public class XtceDb implements Serializable {
                 }
             }
         } finally {
+            modificationCount++;
             rwLock.writeLock().unlock();
         }
 
@@ -780,6 +795,7 @@ public class XtceDb implements Serializable {
                 }
             }
         } finally {
+            modificationCount++;
             rwLock.writeLock().unlock();
         }
 
@@ -825,6 +841,7 @@ public class XtceDb implements Serializable {
                 namespaces.addAll(aliases.getNamespaces());
             }
         } finally {
+            modificationCount++;
             rwLock.writeLock().unlock();
         }
     }
@@ -879,6 +896,7 @@ public class XtceDb implements Serializable {
                 aliases.getNamespaces().forEach(ns -> namespaces.add(ns));
             }
         } finally {
+            modificationCount++;
             rwLock.writeLock().unlock();
         }
     }
@@ -0,0 +1,43 @@
+package org.yamcs.xtce;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+public class EnumeratedDataTypeTest {
+
+    @Test
+    public void testCalibrateDense() {
+        EnumeratedParameterType ept = new EnumeratedParameterType.Builder().setName("test")
+                .addEnumerationValue(-1, "minus_one")
+                .addEnumerationValue(0, "zero")
+                .addEnumerationValue(3, "three")
+                .addEnumerationRange(new ValueEnumerationRange(10, 20, true, true, "ten_twenty"))
+                .build();
+
+        assertEquals("minus_one", ept.calibrate(-1));
+        assertEquals("zero", ept.calibrate(0));
+        assertEquals("three", ept.calibrate(3));
+        assertEquals("UNDEF", ept.calibrate(1));
+        assertEquals("UNDEF", ept.calibrate(-2));
+        assertEquals("ten_twenty", ept.calibrate(15));
+        assertEquals("UNDEF", ept.calibrate(Long.MIN_VALUE));
+        assertTrue(ept.labelTable.dense);
+    }
+
+    @Test
+    public void testCalibrateSparse() {
+        EnumeratedParameterType ept = new EnumeratedParameterType.Builder().setName("test")
+                .addEnumerationValue(0, "zero")
+                .addEnumerationValue(1_000_000, "million")
+                .addEnumerationValue(Long.MAX_VALUE, "max")
+                .build();
+
+        assertEquals("zero", ept.calibrate(0));
+        assertEquals("million", ept.calibrate(1_000_000));
+        assertEquals("max", ept.calibrate(Long.MAX_VALUE));
+        assertEquals("UNDEF", ept.calibrate(1));
+        assertTrue(!ept.labelTable.dense);
+    }
+}